@@ -0,0 +1,144 @@
+package geometry.point;
+
+import java.util.Random;
+
+/**
+ * Spatial and color distributions of generated point sets, used as benchmark
+ * parameters. All points lie within the unit square and are reproducible for
+ * the same seed.
+ *
+ * @author Kim-Anh Tran
+ */
+public enum PointDistribution {
+
+    /**
+     * Uniformly distributed points of uniformly distributed colors.
+     */
+    UNIFORM {
+        @Override
+        void generate(ArrayPointStore store, int nPoints, int nColors, Random random) {
+            for (int i = 0; i < nPoints; ++i) {
+                store.add(random.nextDouble(), random.nextDouble(), random.nextInt(nColors));
+            }
+        }
+    },
+
+    /**
+     * Points normally distributed around a few centers.
+     */
+    CLUSTERED {
+        @Override
+        void generate(ArrayPointStore store, int nPoints, int nColors, Random random) {
+            double[] centers = new double[2 * N_CLUSTERS];
+            for (int i = 0; i < centers.length; ++i) {
+                centers[i] = random.nextDouble();
+            }
+            for (int i = 0; i < nPoints; ++i) {
+                int cluster = random.nextInt(N_CLUSTERS);
+                double x = clamp(centers[2 * cluster] + CLUSTER_DEVIATION * random.nextGaussian());
+                double y = clamp(centers[2 * cluster + 1] + CLUSTER_DEVIATION * random.nextGaussian());
+                store.add(x, y, random.nextInt(nColors));
+            }
+        }
+    },
+
+    /**
+     * Uniformly distributed points, most of which have the first color.
+     */
+    DOMINANT_COLOR {
+        @Override
+        void generate(ArrayPointStore store, int nPoints, int nColors, Random random) {
+            for (int i = 0; i < nPoints; ++i) {
+                int color = 0;
+                if (nColors > 1 && random.nextDouble() >= DOMINANT_SHARE) {
+                    color = 1 + random.nextInt(nColors - 1);
+                }
+                store.add(random.nextDouble(), random.nextDouble(), color);
+            }
+        }
+    },
+
+    /**
+     * Points most of which lie on a few lines across the unit square.
+     */
+    COLLINEAR {
+        @Override
+        void generate(ArrayPointStore store, int nPoints, int nColors, Random random) {
+            double[] lines = new double[4 * N_LINES];
+            for (int i = 0; i < lines.length; ++i) {
+                lines[i] = random.nextDouble();
+            }
+            for (int i = 0; i < nPoints; ++i) {
+                double x = random.nextDouble();
+                double y = random.nextDouble();
+                if (random.nextDouble() < COLLINEAR_SHARE) {
+                    int line = 4 * random.nextInt(N_LINES);
+                    double t = random.nextDouble();
+                    x = lines[line] + t * (lines[line + 2] - lines[line]);
+                    y = lines[line + 1] + t * (lines[line + 3] - lines[line + 1]);
+                }
+                store.add(x, y, random.nextInt(nColors));
+            }
+        }
+    };
+
+    /**
+     * The number of clusters of the clustered distribution.
+     */
+    private static final int N_CLUSTERS = 8;
+
+    /**
+     * The standard deviation of the points around the center of their cluster.
+     */
+    private static final double CLUSTER_DEVIATION = 0.02;
+
+    /**
+     * The share of points with the dominant color.
+     */
+    private static final double DOMINANT_SHARE = 0.9;
+
+    /**
+     * The number of lines of the collinear distribution.
+     */
+    private static final int N_LINES = 8;
+
+    /**
+     * The share of points lying on one of the lines.
+     */
+    private static final double COLLINEAR_SHARE = 0.8;
+
+
+    /**
+     * Generates a store of points of this distribution.
+     *
+     * @param nPoints   The number of points.
+     * @param nColors   The number of colors, at most the number of available colors.
+     * @param seed      The seed for generating the points.
+     * @return          The generated points.
+     */
+    public ArrayPointStore generate(int nPoints, int nColors, long seed) {
+        ArrayPointStore store = new ArrayPointStore(nPoints);
+        generate(store, nPoints, nColors, new Random(seed));
+        return store;
+    }
+
+    /**
+     * Adds the specified number of points of this distribution to a store.
+     *
+     * @param store     The store to add the points to.
+     * @param nPoints   The number of points.
+     * @param nColors   The number of colors.
+     * @param random    The generator of random numbers.
+     */
+    abstract void generate(ArrayPointStore store, int nPoints, int nColors, Random random);
+
+    /**
+     * Returns the specified value, limited to the unit interval.
+     *
+     * @param value The value.
+     * @return      The value, within [0, 1].
+     */
+    private static double clamp(double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+}
@@ -0,0 +1,183 @@
+package geometry.polygon.triangle;
+
+import color.Color;
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.ColoredPoint;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.Polygon;
+
+/**
+ * The former implementation of {@link ColoredTriangle}, which tests for
+ * intersections using the distances of line segments and JTS' point in ring
+ * test. Kept unchanged for comparing it with the current implementation,
+ * including its ignored check of the edge between the first and the last point.
+ *
+ * @author Kim-Anh Tran
+ */
+public class LegacyColoredTriangle implements ColoredPolygon {
+
+    /**
+     * Number of points that define a triangle.
+     */
+    private static final int N_POINTS = ColoredTriangle.N_POINTS;
+
+    /**
+     * The points that define a triangle.
+     */
+    private ColoredPoint[] points;
+
+    /**
+     * The coordinates corresponding to each point.
+     */
+    private Coordinate[] coordinates;
+
+    /**
+     * The bounding box of the triangle.
+     */
+    private Envelope envelope;
+
+    /**
+     * The triangle's color.
+     */
+    private Color color;
+
+    /**
+     * Creates a new colored triangle.
+     *
+     * @param p1                        First point characterizing the triangle.
+     * @param p2                        Second point characterizing the triangle.
+     * @param p3                        Third point characterizing the triangle.
+     * @throws IllegalArgumentException Thrown, if points are collinear or
+     *                                  differ in their colors.
+     */
+    public LegacyColoredTriangle(ColoredPoint p1, ColoredPoint p2, ColoredPoint p3)
+            throws IllegalArgumentException {
+        Color color = p1.getColor();
+        if (color != p2.getColor() || color != p3.getColor()) {
+            throw new IllegalArgumentException("Incompatible point colors.");
+        }
+
+        int orientation = CGAlgorithms.computeOrientation(p1.getCoordinate(),
+                p2.getCoordinate(), p3.getCoordinate());
+        if (orientation == CGAlgorithms.COLLINEAR) {
+            throw new IllegalArgumentException("Points are collinear.");
+        }
+
+        this.color = color;
+        this.points = new ColoredPoint[N_POINTS];
+        this.points[0] = p1;
+        this.points[1] = p2;
+        this.points[2] = p3;
+
+        // For calculating distances.
+        this.coordinates = new Coordinate[N_POINTS + 1];
+        for (int i = 0; i < N_POINTS; ++i) {
+            coordinates[i] = this.points[i].getCoordinate();
+        }
+        coordinates[N_POINTS] = this.points[0].getCoordinate();
+
+        this.envelope = new Envelope(coordinates[0], coordinates[1]);
+        this.envelope.expandToInclude(coordinates[2]);
+    }
+
+    @Override
+    public Point[] getPoints() {
+        return this.points;
+    }
+
+    @Override
+    public boolean enclosesPoint(Point point) {
+        Coordinate pointCoordinate = point.getCoordinate();
+        return CGAlgorithms.isPointInRing(pointCoordinate, this.coordinates);
+    }
+
+    @Override
+    public boolean enclosesPoint(double x, double y) {
+        if (!this.envelope.intersects(x, y)) {
+            return false;
+        }
+        return CGAlgorithms.isPointInRing(new Coordinate(x, y), this.coordinates);
+    }
+
+    @Override
+    public Envelope getEnvelope() {
+        return this.envelope;
+    }
+
+    @Override
+    public boolean intersectsWithPolygon(Polygon polygon) {
+        Point[] polygonPoints = polygon.getPoints();
+        int nPoints = polygonPoints.length;
+
+        // Check if line segments intersect
+        for (int i = 0; i < nPoints; ++i) {
+            if (intersectsWithLine(polygonPoints[i], polygonPoints[(i+1) % nPoints])) {
+                return true;
+            }
+        }
+
+        // Check if triangle encloses polygon
+        if (enclosesPoint(polygonPoints[0])) {
+            return true;
+        }
+
+        // Check if polygon encloses triangle
+        if (polygon.enclosesPoint(this.points[0])) {
+            return true;
+        }
+        return false;
+
+    }
+
+    @Override
+    public boolean intersectsWithLine(Point p1, Point p2) {
+        Coordinate c1 = p1.getCoordinate();
+        Coordinate c2 = p2.getCoordinate();
+
+        // Check if line segments intersect each other.
+        double distance = CGAlgorithms.distanceLineLine(
+                this.coordinates[0], this.coordinates[1], c1, c2);
+        if (distance == 0.0) {
+            return true;
+        }
+
+        distance = CGAlgorithms.distanceLineLine(
+                this.coordinates[1], this.coordinates[2], c1, c2);
+        if (distance == 0.0 ) {
+            return true;
+        }
+
+        CGAlgorithms.distanceLineLine(
+                this.coordinates[0], this.coordinates[2], c1, c2);
+        if (distance == 0.0) {
+            return true;
+        }
+
+        // Check if polygon encloses line segment
+        if (enclosesPoint(p1)) {
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public Color getColor() {
+        return this.color;
+    }
+
+    @Override
+    public String toString() {
+        String output = "";
+        for (Point point : this.points) {
+            Coordinate coordinate = point.getCoordinate();
+            output += String.format("%s %s ", coordinate.x, coordinate.y);
+        }
+        output += this.color.getIntRepresentation();
+
+        return output;
+    }
+}
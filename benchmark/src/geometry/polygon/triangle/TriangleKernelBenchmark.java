@@ -0,0 +1,190 @@
+package geometry.polygon.triangle;
+
+import geometry.point.ColoredPoint;
+import geometry.point.ColoredPointImpl;
+import geometry.polygon.ColoredPolygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the intersection tests of {@link ColoredTriangle} with those of
+ * {@link LegacyColoredTriangle}. Each benchmark runs the test on a fixed set
+ * of random cases and reports the average time per case.
+ *
+ * The share of cases in which the bounding boxes overlap is controlled by the
+ * size of the triangles and line segments relative to the unit square they are
+ * placed in: small shapes are mostly rejected by their bounding boxes, large
+ * shapes mostly need the exact test.
+ *
+ * @author Kim-Anh Tran
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriangleKernelBenchmark {
+
+    /**
+     * The number of cases per benchmark invocation.
+     */
+    private static final int N_CASES = 1024;
+
+    /**
+     * Seed for generating reproducible cases.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The size of the triangles and line segments, relative to the unit square.
+     */
+    @Param({"0.01", "0.1", "0.5"})
+    public double shapeSize;
+
+    /**
+     * The triangles under test, and their legacy counterparts.
+     */
+    private ColoredTriangle[] triangles;
+    private LegacyColoredTriangle[] legacyTriangles;
+
+    /**
+     * The triangles to check for intersection with the triangles under test.
+     */
+    private ColoredTriangle[] others;
+    private LegacyColoredTriangle[] legacyOthers;
+
+    /**
+     * The line segments and points to check against the triangles under test.
+     */
+    private ColoredPoint[] starts;
+    private ColoredPoint[] ends;
+
+
+    /**
+     * Generates the cases.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        this.triangles = new ColoredTriangle[N_CASES];
+        this.legacyTriangles = new LegacyColoredTriangle[N_CASES];
+        this.others = new ColoredTriangle[N_CASES];
+        this.legacyOthers = new LegacyColoredTriangle[N_CASES];
+        this.starts = new ColoredPoint[N_CASES];
+        this.ends = new ColoredPoint[N_CASES];
+
+        for (int i = 0; i < N_CASES; ++i) {
+            ColoredPoint[] corners = randomTriangle(random);
+            this.triangles[i] = new ColoredTriangle(corners[0], corners[1], corners[2]);
+            this.legacyTriangles[i] = new LegacyColoredTriangle(corners[0], corners[1], corners[2]);
+
+            corners = randomTriangle(random);
+            this.others[i] = new ColoredTriangle(corners[0], corners[1], corners[2]);
+            this.legacyOthers[i] = new LegacyColoredTriangle(corners[0], corners[1], corners[2]);
+
+            this.starts[i] = ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), 0);
+            this.ends[i] = ColoredPointImpl.create2D(this.starts[i].getCoordinate().x + offset(random),
+                    this.starts[i].getCoordinate().y + offset(random), 0);
+        }
+    }
+
+    @Benchmark
+    public int intersectsWithLine() {
+        int nIntersections = 0;
+        for (int i = 0; i < N_CASES; ++i) {
+            if (this.triangles[i].intersectsWithLine(this.starts[i], this.ends[i])) {
+                ++nIntersections;
+            }
+        }
+        return nIntersections;
+    }
+
+    @Benchmark
+    public int legacyIntersectsWithLine() {
+        int nIntersections = 0;
+        for (int i = 0; i < N_CASES; ++i) {
+            if (this.legacyTriangles[i].intersectsWithLine(this.starts[i], this.ends[i])) {
+                ++nIntersections;
+            }
+        }
+        return nIntersections;
+    }
+
+    @Benchmark
+    public int intersectsWithPolygon() {
+        int nIntersections = 0;
+        for (int i = 0; i < N_CASES; ++i) {
+            if (this.triangles[i].intersectsWithPolygon(this.others[i])) {
+                ++nIntersections;
+            }
+        }
+        return nIntersections;
+    }
+
+    @Benchmark
+    public int legacyIntersectsWithPolygon() {
+        int nIntersections = 0;
+        for (int i = 0; i < N_CASES; ++i) {
+            ColoredPolygon other = this.legacyOthers[i];
+            if (this.legacyTriangles[i].intersectsWithPolygon(other)) {
+                ++nIntersections;
+            }
+        }
+        return nIntersections;
+    }
+
+    @Benchmark
+    public int enclosesPoint() {
+        int nEnclosed = 0;
+        for (int i = 0; i < N_CASES; ++i) {
+            if (this.triangles[i].enclosesPoint(this.starts[i])) {
+                ++nEnclosed;
+            }
+        }
+        return nEnclosed;
+    }
+
+    @Benchmark
+    public int legacyEnclosesPoint() {
+        int nEnclosed = 0;
+        for (int i = 0; i < N_CASES; ++i) {
+            if (this.legacyTriangles[i].enclosesPoint(this.starts[i])) {
+                ++nEnclosed;
+            }
+        }
+        return nEnclosed;
+    }
+
+    /**
+     * Returns the corners of a random triangle of the configured size within the unit square.
+     */
+    private ColoredPoint[] randomTriangle(Random random) {
+        double x = random.nextDouble();
+        double y = random.nextDouble();
+        ColoredPoint[] corners = new ColoredPoint[ColoredTriangle.N_POINTS];
+        corners[0] = ColoredPointImpl.create2D(x, y, 0);
+        corners[1] = ColoredPointImpl.create2D(x + offset(random), y + offset(random), 0);
+        corners[2] = ColoredPointImpl.create2D(x + offset(random), y + offset(random), 0);
+        return corners;
+    }
+
+    /**
+     * Returns a random offset within the configured size.
+     */
+    private double offset(Random random) {
+        return (2 * random.nextDouble() - 1) * this.shapeSize;
+    }
+}
@@ -0,0 +1,178 @@
+package incremental;
+
+import geometry.point.ColoredPoint;
+import geometry.point.PointDistribution;
+import geometry.polygon.ColoredPolygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the insertion of a batch of batchPoints new points and the removal
+ * of batchPoints random points in incremental searches of pointCount uniformly
+ * distributed points. Each invocation inserts or removes the next batch and
+ * undoes it afterwards, so the searches keep their size but change slightly
+ * over the iterations. The time of searching all points at once is
+ * measured by TriangleSearchBenchmark, e.g. with -p pointCount=160000
+ * -p colorCount=5 -p distribution=UNIFORM.
+ *
+ * Inserting 1M points into a search takes minutes on one core, so select
+ * smaller sizes on the command line for quick runs, e.g. with -p pointCount=10000.
+ *
+ * @author Kim-Anh Tran
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 40)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class IncrementalSearchBenchmark {
+
+    /**
+     * The number of colors of the points.
+     */
+    private static final int N_COLORS = 5;
+
+    /**
+     * Seed for generating reproducible points.
+     */
+    private static final long SEED = 42;
+
+
+    /**
+     * An incremental search of pointCount points, inserted at once.
+     */
+    @State(Scope.Benchmark)
+    public static class Solution {
+
+        /**
+         * The number of points inserted before the batches.
+         */
+        @Param({"10000", "40000", "160000", "1000000"})
+        public int pointCount;
+
+        /**
+         * The number of points inserted or removed per invocation.
+         */
+        @Param({"1", "100", "10000"})
+        public int batchPoints;
+
+        /**
+         * The generator of the seeds of the inserted batches and of the removed points.
+         */
+        protected Random random;
+
+        /**
+         * The points of the search.
+         */
+        protected List<ColoredPoint> points;
+
+        /**
+         * The search.
+         */
+        protected IncrementalSearch search;
+
+        /**
+         * The points inserted or removed by the next invocation.
+         */
+        protected List<ColoredPoint> batch;
+
+        /**
+         * Generates and inserts the points.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.random = new Random(SEED);
+            this.points = uniformPoints(this.pointCount, SEED);
+            this.search = new IncrementalSearch();
+            this.search.insert(this.points);
+        }
+    }
+
+    /**
+     * A search with a batch of new points to insert.
+     */
+    @State(Scope.Benchmark)
+    public static class InsertedBatch extends Solution {
+
+        /**
+         * Generates the next batch.
+         */
+        @Setup(Level.Invocation)
+        public void nextBatch() {
+            this.batch = uniformPoints(this.batchPoints, this.random.nextLong());
+        }
+
+        /**
+         * Removes the batch again.
+         */
+        @TearDown(Level.Invocation)
+        public void undoBatch() {
+            this.search.remove(this.batch);
+        }
+    }
+
+    /**
+     * A search with a batch of random points of the search to remove.
+     */
+    @State(Scope.Benchmark)
+    public static class RemovedBatch extends Solution {
+
+        /**
+         * Picks the next batch.
+         */
+        @Setup(Level.Invocation)
+        public void nextBatch() {
+            this.batch = new ArrayList<ColoredPoint>(this.batchPoints);
+            for (int i = 0; i < this.batchPoints; ++i) {
+                this.batch.add(this.points.remove(this.random.nextInt(this.points.size())));
+            }
+        }
+
+        /**
+         * Inserts the batch again.
+         */
+        @TearDown(Level.Invocation)
+        public void undoBatch() {
+            this.search.insert(this.batch);
+            this.points.addAll(this.batch);
+        }
+    }
+
+
+    @Benchmark
+    public List<ColoredPolygon> insert(InsertedBatch state) {
+        return state.search.insert(state.batch);
+    }
+
+    @Benchmark
+    public RemovalResult remove(RemovedBatch state) {
+        return state.search.remove(state.batch);
+    }
+
+    /**
+     * Returns uniformly distributed points within the unit square.
+     *
+     * @param nPoints   The number of points.
+     * @param seed      The seed of the points.
+     * @return          The generated points, in a list that can be changed.
+     */
+    private static List<ColoredPoint> uniformPoints(int nPoints, long seed) {
+        return new ArrayList<ColoredPoint>(PointDistribution.UNIFORM.generate(nPoints, N_COLORS, seed).toPoints());
+    }
+}
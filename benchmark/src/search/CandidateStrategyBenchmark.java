@@ -0,0 +1,89 @@
+package search;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the triangle search generating candidates from the nearest neighbours
+ * of seeds with the search committing the faces of Delaunay triangulations of
+ * the colors first (see {@link SearchConfiguration#setDelaunayCandidates(boolean)}),
+ * by their time. The number of triangles they find is compared by
+ * TriangleSearchTest#testDelaunayFindsMoreTriangles, as JMH reports no
+ * secondary results of single shot benchmarks.
+ *
+ * @author Kim-Anh Tran
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CandidateStrategyBenchmark {
+
+    /**
+     * Seed for generating reproducible points.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The number of colors of the points.
+     */
+    private static final int N_COLORS = 5;
+
+    /**
+     * The name of the strategy committing Delaunay faces first.
+     */
+    private static final String DELAUNAY_STRATEGY = "DELAUNAY";
+
+    /**
+     * The number of points.
+     */
+    @Param({"1000", "4000", "16000", "32000"})
+    public int pointCount;
+
+    /**
+     * The strategy generating candidates: NEAREST or DELAUNAY.
+     */
+    @Param({"NEAREST", "DELAUNAY"})
+    public String strategy;
+
+    /**
+     * The uniformly distributed points to search.
+     */
+    private ArrayPointStore store;
+
+    /**
+     * The configuration of the search.
+     */
+    private SearchConfiguration configuration;
+
+
+    /**
+     * Generates the points.
+     */
+    @Setup
+    public void setUp() {
+        this.store = PointDistribution.UNIFORM.generate(this.pointCount, N_COLORS, SEED);
+        this.configuration = new SearchConfiguration();
+        this.configuration.setDelaunayCandidates(this.strategy.equals(DELAUNAY_STRATEGY));
+    }
+
+    @Benchmark
+    public int searchForTriangles() {
+        return TriangleSearch.searchForTriangles(this.store, this.configuration).size();
+    }
+}
@@ -0,0 +1,92 @@
+package search;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scaling of the triangle search when conflicts are checked
+ * against all found triangles and when they are checked using a spatial index
+ * (see {@link SearchConfiguration#setSpatialIndex(boolean)}), by their time
+ * for growing problem sizes.
+ *
+ * Larger problem sizes than the default ones can be selected on the command
+ * line, e.g. with -p pointCount=128000 -p spatialIndex=true, as the linear
+ * scan takes minutes for them.
+ *
+ * @author Kim-Anh Tran
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ConflictIndexBenchmark {
+
+    /**
+     * Seed for generating reproducible points.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The number of colors of the points.
+     */
+    private static final int N_COLORS = 5;
+
+    /**
+     * The number of points.
+     */
+    @Param({"1000", "4000", "16000", "32000"})
+    public int pointCount;
+
+    /**
+     * True, if conflicts are checked using a spatial index. False, if against all found triangles.
+     */
+    @Param({"true", "false"})
+    public boolean spatialIndex;
+
+    /**
+     * The distribution of the points.
+     */
+    @Param({"UNIFORM", "CLUSTERED", "DOMINANT_COLOR", "COLLINEAR"})
+    public PointDistribution distribution;
+
+    /**
+     * The points to search.
+     */
+    private ArrayPointStore store;
+
+    /**
+     * The configuration of the search.
+     */
+    private SearchConfiguration configuration;
+
+
+    /**
+     * Generates the points.
+     */
+    @Setup
+    public void setUp() {
+        this.store = this.distribution.generate(this.pointCount, N_COLORS, SEED);
+        this.configuration = new SearchConfiguration();
+        this.configuration.setSpatialIndex(this.spatialIndex);
+    }
+
+    @Benchmark
+    public int searchForTriangles() {
+        return TriangleSearch.searchForTriangles(this.store, this.configuration).size();
+    }
+}
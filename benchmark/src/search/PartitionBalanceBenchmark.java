@@ -0,0 +1,114 @@
+package search;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the balance of the partitioning of the search space for each
+ * distribution of the points. The time of the search is the score; as JMH
+ * reports no secondary results of single shot benchmarks, the number of
+ * leaves and the minimum, median and maximum of their sizes and search
+ * times are printed after each iteration.
+ *
+ * @author Kim-Anh Tran
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class PartitionBalanceBenchmark {
+
+    /**
+     * Seed for generating reproducible points.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The number of colors of the points.
+     */
+    private static final int N_COLORS = 5;
+
+    /**
+     * The number of points.
+     */
+    @Param({"50000"})
+    public int pointCount;
+
+    /**
+     * The target number of points per leaf, or 0 for the default.
+     */
+    @Param({"0"})
+    public int leafPoints;
+
+    /**
+     * The distribution of the points.
+     */
+    @Param({"UNIFORM", "CLUSTERED", "DOMINANT_COLOR", "COLLINEAR"})
+    public PointDistribution distribution;
+
+    /**
+     * The points to search.
+     */
+    private ArrayPointStore store;
+
+    /**
+     * The configuration of the search.
+     */
+    private SearchConfiguration configuration;
+
+    /**
+     * The report of the leaves of the searches of the current iteration.
+     */
+    private PartitionReport report;
+
+
+    /**
+     * Generates the points.
+     */
+    @Setup
+    public void setUp() {
+        this.store = this.distribution.generate(this.pointCount, N_COLORS, SEED);
+        this.report = new PartitionReport();
+        this.configuration = new SearchConfiguration();
+        this.configuration.setLeafPoints(this.leafPoints);
+        this.configuration.setPartitionReport(this.report);
+    }
+
+    /**
+     * Forgets the leaves of the previous iteration.
+     */
+    @Setup(Level.Iteration)
+    public void clearReport() {
+        this.report.clear();
+    }
+
+    /**
+     * Prints the leaves of the search of this iteration.
+     */
+    @TearDown(Level.Iteration)
+    public void printReport() {
+        System.out.println(this.distribution + ": " + this.report);
+    }
+
+    @Benchmark
+    public int searchForTriangles() {
+        return TriangleSearch.searchForTriangles(this.store, this.configuration).size();
+    }
+}
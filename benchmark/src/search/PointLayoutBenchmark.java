@@ -0,0 +1,101 @@
+package search;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.comparator.SpaceFillingCurve;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time of a complete triangle search with the points in the order
+ * they are generated, and laid out along a space-filling curve (see
+ * {@link SearchConfiguration#setLayoutCurve(SpaceFillingCurve)}). The time of a
+ * laid out search includes the layout.
+ *
+ * The cache misses per search are reported by the perfnorm profiler of JMH on
+ * Linux, e.g. with -prof perfnorm (see the counters L1-dcache-load-misses and
+ * LLC-load-misses). Smaller problem sizes can be selected on the command line,
+ * e.g. with -p pointCount=1000000.
+ *
+ * @author Kim-Anh Tran
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class PointLayoutBenchmark {
+
+    /**
+     * Seed for generating reproducible points.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The number of colors of the points.
+     */
+    private static final int N_COLORS = 5;
+
+    /**
+     * The name of the layout in the order the points are generated.
+     */
+    private static final String INPUT_LAYOUT = "INPUT";
+
+    /**
+     * The number of points.
+     */
+    @Param({"10000000"})
+    public int pointCount;
+
+    /**
+     * The distribution of the points.
+     */
+    @Param({"UNIFORM", "CLUSTERED"})
+    public PointDistribution distribution;
+
+    /**
+     * The layout of the points: INPUT, or the name of a space-filling curve.
+     */
+    @Param({"INPUT", "HILBERT", "MORTON"})
+    public String layout;
+
+    /**
+     * The points to search.
+     */
+    private ArrayPointStore store;
+
+    /**
+     * The configuration of the search.
+     */
+    private SearchConfiguration configuration;
+
+
+    /**
+     * Generates the points.
+     */
+    @Setup
+    public void setUp() {
+        this.store = this.distribution.generate(this.pointCount, N_COLORS, SEED);
+        this.configuration = new SearchConfiguration();
+        if (!this.layout.equals(INPUT_LAYOUT)) {
+            this.configuration.setLayoutCurve(SpaceFillingCurve.valueOf(this.layout));
+        }
+    }
+
+    @Benchmark
+    public int searchForTriangles() {
+        return TriangleSearch.searchForTriangles(this.store, this.configuration).size();
+    }
+}
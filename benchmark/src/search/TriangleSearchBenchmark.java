@@ -0,0 +1,79 @@
+package search;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time of a complete triangle search with the default
+ * configuration. Every invocation searches the same generated points.
+ *
+ * The search time should grow about linearly with the number of points: the
+ * largest default size catches tasks whose work grows with their region.
+ * Larger problem sizes than the default ones take minutes per search; they
+ * can be selected on the command line, e.g. with -p pointCount=1000000.
+ *
+ * @author Kim-Anh Tran
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class TriangleSearchBenchmark {
+
+    /**
+     * Seed for generating reproducible points.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The number of points.
+     */
+    @Param({"1000", "10000", "100000", "400000"})
+    public int pointCount;
+
+    /**
+     * The number of colors.
+     */
+    @Param({"2", "5"})
+    public int colorCount;
+
+    /**
+     * The distribution of the points.
+     */
+    @Param({"UNIFORM", "CLUSTERED", "DOMINANT_COLOR", "COLLINEAR"})
+    public PointDistribution distribution;
+
+    /**
+     * The points to search.
+     */
+    private ArrayPointStore store;
+
+
+    /**
+     * Generates the points.
+     */
+    @Setup
+    public void setUp() {
+        this.store = this.distribution.generate(this.pointCount, this.colorCount, SEED);
+    }
+
+    @Benchmark
+    public int searchForTriangles() {
+        return TriangleSearch.searchForTriangles(this.store, new SearchConfiguration()).size();
+    }
+}
@@ -0,0 +1,90 @@
+package util.io;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time of parsing generated points from memory, in the input
+ * format of the application.
+ *
+ * @author Kim-Anh Tran
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ReaderBenchmark {
+
+    /**
+     * Seed for generating reproducible points.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The number of points.
+     */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int pointCount;
+
+    /**
+     * The number of colors.
+     */
+    @Param({"5"})
+    public int colorCount;
+
+    /**
+     * The distribution of the points.
+     */
+    @Param({"UNIFORM"})
+    public PointDistribution distribution;
+
+    /**
+     * The input to parse.
+     */
+    private byte[] input;
+
+
+    /**
+     * Generates the points and formats them as input.
+     */
+    @Setup
+    public void setUp() {
+        ArrayPointStore store = this.distribution.generate(this.pointCount, this.colorCount, SEED);
+        StringBuilder builder = new StringBuilder();
+        builder.append(store.size()).append('\n');
+        for (int id = 0; id < store.size(); ++id) {
+            builder.append(store.getX(id)).append(' ')
+                    .append(store.getY(id)).append(' ')
+                    .append(store.getColorIndex(id)).append('\n');
+        }
+        this.input = builder.toString().getBytes(Charset.forName("US-ASCII"));
+    }
+
+    @Benchmark
+    public int readPoints() throws ParseException {
+        return Reader.readPoints(new ByteArrayInputStream(this.input)).size();
+    }
+
+    @Benchmark
+    public int readPointStore() throws ParseException {
+        return Reader.readPointStore(new ByteArrayInputStream(this.input)).size();
+    }
+}
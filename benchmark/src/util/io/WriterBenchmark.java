@@ -0,0 +1,110 @@
+package util.io;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointDistribution;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time of writing triangles to a stream that discards its output.
+ * The triangles are formed by consecutive generated points, one triangle for
+ * every three points.
+ *
+ * @author Kim-Anh Tran
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class WriterBenchmark {
+
+    /**
+     * Seed for generating reproducible points.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The number of points.
+     */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int pointCount;
+
+    /**
+     * The number of colors.
+     */
+    @Param({"5"})
+    public int colorCount;
+
+    /**
+     * The distribution of the points.
+     */
+    @Param({"UNIFORM"})
+    public PointDistribution distribution;
+
+    /**
+     * The triangles to write.
+     */
+    private List<ColoredPolygon> triangles;
+
+
+    /**
+     * Generates the points and forms the triangles.
+     */
+    @Setup
+    public void setUp() {
+        ArrayPointStore store = this.distribution.generate(this.pointCount, this.colorCount, SEED);
+        this.triangles = new ArrayList<ColoredPolygon>(this.pointCount / ColoredTriangle.N_POINTS);
+        for (int id = 0; id + 2 < store.size(); id += ColoredTriangle.N_POINTS) {
+            this.triangles.add(ColoredTriangle.fromCoordinates(store.getX(id), store.getY(id),
+                    store.getX(id + 1), store.getY(id + 1), store.getX(id + 2), store.getY(id + 2),
+                    store.getColorIndex(id)));
+        }
+    }
+
+    @Benchmark
+    public long writeTriangles() throws IOException {
+        CountingOutputStream outStream = new CountingOutputStream();
+        Writer.writeTriangles(outStream, this.triangles);
+        return outStream.count;
+    }
+
+    /**
+     * A stream that only counts the bytes written to it.
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        /**
+         * The number of bytes written.
+         */
+        private long count;
+
+        @Override
+        public void write(int b) {
+            ++this.count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package util.parallel;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointDistribution;
+import geometry.polygon.triangle.ColoredTriangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time of finding the points enclosed in a triangle covering a
+ * quarter of the unit square, checking all generated points.
+ *
+ * @author Kim-Anh Tran
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class EnclosedPointsFinderBenchmark {
+
+    /**
+     * Seed for generating reproducible points.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The number of points.
+     */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int pointCount;
+
+    /**
+     * The number of colors.
+     */
+    @Param({"5"})
+    public int colorCount;
+
+    /**
+     * The distribution of the points.
+     */
+    @Param({"UNIFORM", "CLUSTERED", "DOMINANT_COLOR", "COLLINEAR"})
+    public PointDistribution distribution;
+
+    /**
+     * The points to check.
+     */
+    private ArrayPointStore store;
+
+    /**
+     * The ids of all points.
+     */
+    private int[] ids;
+
+    /**
+     * The triangle to check the points against.
+     */
+    private ColoredTriangle triangle;
+
+    /**
+     * The pool executing the finder tasks.
+     */
+    private ForkJoinPool forkJoinPool;
+
+
+    /**
+     * Generates the points and the triangle.
+     */
+    @Setup
+    public void setUp() {
+        this.store = this.distribution.generate(this.pointCount, this.colorCount, SEED);
+        this.ids = new int[this.pointCount];
+        for (int id = 0; id < this.pointCount; ++id) {
+            this.ids[id] = id;
+        }
+        this.triangle = ColoredTriangle.fromCoordinates(0.0, 0.0, 1.0, 0.0, 0.0, 0.5, 0);
+        this.forkJoinPool = new ForkJoinPool();
+    }
+
+    /**
+     * Shuts the pool down.
+     */
+    @TearDown
+    public void tearDown() {
+        this.forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public int findEnclosedPoints() {
+        EnclosedPointsFinder finder = new EnclosedPointsFinder(this.store, this.ids, 0, this.ids.length,
+                this.triangle);
+        return this.forkJoinPool.invoke(finder).size();
+    }
+}
@@ -0,0 +1,201 @@
+package geometry.point;
+
+import color.Color;
+import com.vividsolutions.jts.geom.Coordinate;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A PointStore keeping the coordinates and colors in primitive arrays.
+ *
+ * @author Kim-Anh Tran
+ */
+public class ArrayPointStore implements PointStore {
+
+    /**
+     * The initial capacity of a store created without specifying one.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The x values, indexed by id.
+     */
+    private double[] xs;
+
+    /**
+     * The y values, indexed by id.
+     */
+    private double[] ys;
+
+    /**
+     * The integer representations of the colors, indexed by id.
+     */
+    private byte[] colors;
+
+    /**
+     * The number of points.
+     */
+    private int size;
+
+    /**
+     * The points the store was created from, if any. Returned by
+     * {@link ArrayPointStore#getPoint(int)}, so that callers get back
+     * their own instances.
+     */
+    private List<ColoredPoint> points;
+
+
+    /**
+     * Creates a new, empty store.
+     */
+    public ArrayPointStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty store with the specified capacity.
+     *
+     * @param capacity  The number of points the store can hold before growing.
+     */
+    public ArrayPointStore(int capacity) {
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.colors = new byte[capacity];
+    }
+
+    /**
+     * Creates a new store containing the specified points. The id of a
+     * point is its index in the list.
+     *
+     * @param points    The points.
+     * @return          A store containing the points.
+     */
+    public static ArrayPointStore fromPoints(List<ColoredPoint> points) {
+        ArrayPointStore store = new ArrayPointStore(points.size());
+        for (ColoredPoint point : points) {
+            Coordinate coordinate = point.getCoordinate();
+            store.add(coordinate.x, coordinate.y, point.getColor().getIntRepresentation());
+        }
+        // Points are looked up by id, so random access is needed.
+        if (points instanceof RandomAccess) {
+            store.points = points;
+        } else {
+            store.points = new ArrayList<ColoredPoint>(points);
+        }
+        return store;
+    }
+
+    /**
+     * Creates a new store using the specified arrays, without copying them.
+     * The id of a point is its index in the arrays.
+     *
+     * @param xs        The x values.
+     * @param ys        The y values.
+     * @param colors    The integer representations of valid colors.
+     * @param size      The number of points, at most the length of the arrays.
+     * @return          A store containing the points.
+     * @throws IllegalArgumentException If a color is not valid, or if an array is too short.
+     * @see             color.Color#validColor(int)
+     */
+    public static ArrayPointStore fromArrays(double[] xs, double[] ys, byte[] colors, int size)
+            throws IllegalArgumentException {
+        if (size < 0 || xs.length < size || ys.length < size || colors.length < size) {
+            throw new IllegalArgumentException("Arrays are shorter than the number of points.");
+        }
+        // Each possible byte value only needs to be checked once.
+        boolean[] checked = new boolean[256];
+        for (int id = 0; id < size; ++id) {
+            int index = colors[id] & 0xFF;
+            if (!checked[index]) {
+                Color.fromInt(colors[id]);
+                checked[index] = true;
+            }
+        }
+
+        ArrayPointStore store = new ArrayPointStore(0);
+        store.xs = xs;
+        store.ys = ys;
+        store.colors = colors;
+        store.size = size;
+        return store;
+    }
+
+    /**
+     * Adds a point to the store.
+     *
+     * @param x     The x value.
+     * @param y     The y value.
+     * @param color A valid color.
+     * @return      The id of the added point.
+     * @throws IllegalArgumentException If the color is not valid.
+     * @see         color.Color#validColor(int)
+     */
+    public int add(double x, double y, int color) throws IllegalArgumentException {
+        byte colorIndex = (byte) Color.fromInt(color).getIntRepresentation();
+        if (this.size == this.xs.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, 2 * this.size);
+            this.xs = Arrays.copyOf(this.xs, capacity);
+            this.ys = Arrays.copyOf(this.ys, capacity);
+            this.colors = Arrays.copyOf(this.colors, capacity);
+        }
+        this.xs[this.size] = x;
+        this.ys[this.size] = y;
+        this.colors[this.size] = colorIndex;
+        return this.size++;
+    }
+
+    /**
+     * Returns the points as a list. Points are created on access, unless
+     * the store was created from a list of points.
+     *
+     * @return The points, indexed by id.
+     */
+    public List<ColoredPoint> toPoints() {
+        if (this.points != null) {
+            return this.points;
+        }
+        return new AbstractList<ColoredPoint>() {
+            @Override
+            public ColoredPoint get(int index) {
+                return getPoint(index);
+            }
+
+            @Override
+            public int size() {
+                return ArrayPointStore.this.size;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public double getX(int id) {
+        return this.xs[id];
+    }
+
+    @Override
+    public double getY(int id) {
+        return this.ys[id];
+    }
+
+    @Override
+    public int getColorIndex(int id) {
+        return this.colors[id];
+    }
+
+    @Override
+    public ColoredPoint getPoint(int id) {
+        if (this.points != null) {
+            return this.points.get(id);
+        }
+        return ColoredPointImpl.create2D(this.xs[id], this.ys[id], this.colors[id]);
+    }
+}
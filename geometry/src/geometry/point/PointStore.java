@@ -0,0 +1,51 @@
+package geometry.point;
+
+/**
+ * A collection of colored 2d points, identified by int ids in the
+ * range [0, size). Ids are stable, i.e. the point with a certain id
+ * never changes.
+ *
+ * @author Kim-Anh Tran
+ */
+public interface PointStore {
+
+    /**
+     * Returns the number of points.
+     *
+     * @return The number of points.
+     */
+    int size();
+
+    /**
+     * Returns the x value of the specified point.
+     *
+     * @param id    The id of the point.
+     * @return      The x value of the point.
+     */
+    double getX(int id);
+
+    /**
+     * Returns the y value of the specified point.
+     *
+     * @param id    The id of the point.
+     * @return      The y value of the point.
+     */
+    double getY(int id);
+
+    /**
+     * Returns the integer representation of the specified point's color.
+     *
+     * @param id    The id of the point.
+     * @return      The color of the point as int.
+     * @see         color.Color#getIntRepresentation()
+     */
+    int getColorIndex(int id);
+
+    /**
+     * Returns the specified point as ColoredPoint.
+     *
+     * @param id    The id of the point.
+     * @return      The point as ColoredPoint.
+     */
+    ColoredPoint getPoint(int id);
+}
@@ -1,5 +1,6 @@
 package geometry.polygon;
 
+import com.vividsolutions.jts.geom.Envelope;
 import geometry.point.Point;
 
 /**
@@ -23,6 +24,23 @@ public interface Polygon {
      */
     boolean enclosesPoint(Point point);
 
+    /**
+     * Returns true if polygon encloses the point at the specified location.
+     *
+     * @param x The x value of the point.
+     * @param y The y value of the point.
+     * @return  True, if the point is enclosed in polygon
+     */
+    boolean enclosesPoint(double x, double y);
+
+    /**
+     * Returns the bounding box of the polygon. Two polygons can only
+     * intersect, if their bounding boxes intersect.
+     *
+     * @return The bounding box of the polygon.
+     */
+    Envelope getEnvelope();
+
     /**
      * Returns true if this polygon intersects with the specified one
      * Two polygons intersect each other, if their bounds touch each
@@ -2,7 +2,9 @@ package geometry.polygon.triangle;
 
 import color.Color;
 import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.algorithm.CGAlgorithmsDD;
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import geometry.point.ColoredPoint;
 import geometry.point.ColoredPointImpl;
 import geometry.point.Point;
@@ -12,6 +14,11 @@ import geometry.polygon.Polygon;
 /**
  * A colored triangle.
  *
+ * Intersection tests work on the coordinate values of the corners and the
+ * bounding box, using the signs of orientation determinants. They do not
+ * allocate any objects, unless an orientation is too close to call in
+ * double precision.
+ *
  * @author Kim-Anh Tran
  */
 public class ColoredTriangle implements ColoredPolygon {
@@ -21,15 +28,44 @@ public class ColoredTriangle implements ColoredPolygon {
      */
     public static final int N_POINTS = 3;
 
+    /**
+     * A value safely greater than the relative round-off error of an
+     * orientation determinant computed in double precision.
+     */
+    private static final double DP_SAFE_EPSILON = 1e-15;
+
     /**
      * The points that define a triangle.
      */
     private ColoredPoint[] points;
 
     /**
-     * The coordinates corresponding to each point.
+     * The x values of the corners.
+     */
+    private double[] xs;
+
+    /**
+     * The y values of the corners.
+     */
+    private double[] ys;
+
+    /**
+     * The bounding box of the triangle.
      */
-    private Coordinate[] coordinates;
+    private Envelope envelope;
+
+    /**
+     * The bounding box values of the triangle, for early rejection.
+     */
+    private double minX;
+    private double maxX;
+    private double minY;
+    private double maxY;
+
+    /**
+     * The orientation of the corners: 1 if counterclockwise, -1 if clockwise.
+     */
+    private int orientation;
 
     /**
      * The triangle's color.
@@ -64,12 +100,21 @@ public class ColoredTriangle implements ColoredPolygon {
         this.points[1] = p2;
         this.points[2] = p3;
 
-        // For calculating distances.
-        this.coordinates = new Coordinate[N_POINTS + 1];
+        this.xs = new double[N_POINTS];
+        this.ys = new double[N_POINTS];
         for (int i = 0; i < N_POINTS; ++i) {
-            coordinates[i] = this.points[i].getCoordinate();
+            Coordinate coordinate = this.points[i].getCoordinate();
+            this.xs[i] = coordinate.x;
+            this.ys[i] = coordinate.y;
         }
-        coordinates[N_POINTS] = this.points[0].getCoordinate();
+        this.orientation = orientation == CGAlgorithms.COUNTERCLOCKWISE ? 1 : -1;
+
+        this.envelope = new Envelope(p1.getCoordinate(), p2.getCoordinate());
+        this.envelope.expandToInclude(p3.getCoordinate());
+        this.minX = this.envelope.getMinX();
+        this.maxX = this.envelope.getMaxX();
+        this.minY = this.envelope.getMinY();
+        this.maxY = this.envelope.getMaxY();
     }
 
     /**
@@ -118,12 +163,37 @@ public class ColoredTriangle implements ColoredPolygon {
 
     @Override
     public boolean enclosesPoint(Point point) {
-        Coordinate pointCoordinate = point.getCoordinate();
-        return CGAlgorithms.isPointInRing(pointCoordinate, this.coordinates);
+        Coordinate coordinate = point.getCoordinate();
+        return enclosesPoint(coordinate.x, coordinate.y);
+    }
+
+    @Override
+    public boolean enclosesPoint(double x, double y) {
+        if (x < this.minX || x > this.maxX || y < this.minY || y > this.maxY) {
+            return false;
+        }
+
+        // The point is enclosed, if it is not on the outer side of any edge.
+        for (int i = 0; i < N_POINTS; ++i) {
+            int j = (i + 1) % N_POINTS;
+            if (orientationIndex(this.xs[i], this.ys[i], this.xs[j], this.ys[j], x, y) == -this.orientation) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Envelope getEnvelope() {
+        return this.envelope;
     }
 
     @Override
     public boolean intersectsWithPolygon(Polygon polygon) {
+        if (polygon instanceof ColoredTriangle) {
+            return intersectsWithTriangle((ColoredTriangle) polygon);
+        }
+
         Point[] polygonPoints = polygon.getPoints();
         int nPoints = polygonPoints.length;
 
@@ -134,49 +204,142 @@ public class ColoredTriangle implements ColoredPolygon {
             }
         }
 
-        // Check if triangle encloses polygon
-        if (enclosesPoint(polygonPoints[0])) {
-            return true;
+        // Check if polygon encloses triangle
+        return polygon.enclosesPoint(this.points[0]);
+    }
+
+    /**
+     * Returns true, if this triangle intersects with the specified one, i.e. if
+     * they touch each other or one is enclosed by the other.
+     *
+     * @param triangle  The triangle to check for intersection.
+     * @return          True, if the triangles intersect.
+     */
+    public boolean intersectsWithTriangle(ColoredTriangle triangle) {
+        if (triangle.maxX < this.minX || triangle.minX > this.maxX
+                || triangle.maxY < this.minY || triangle.minY > this.maxY) {
+            return false;
         }
 
-        // Check if polygon encloses triangle
-        if (polygon.enclosesPoint(this.points[0])) {
-            return true;
+        // Check if line segments intersect
+        for (int i = 0; i < N_POINTS; ++i) {
+            int j = (i + 1) % N_POINTS;
+            if (intersectsWithSegment(triangle.xs[i], triangle.ys[i], triangle.xs[j], triangle.ys[j])) {
+                return true;
+            }
         }
-        return false;
 
+        // Check if one triangle encloses the other
+        return enclosesPoint(triangle.xs[0], triangle.ys[0]) || triangle.enclosesPoint(this.xs[0], this.ys[0]);
     }
 
     @Override
     public boolean intersectsWithLine(Point p1, Point p2) {
         Coordinate c1 = p1.getCoordinate();
         Coordinate c2 = p2.getCoordinate();
+        return intersectsWithSegment(c1.x, c1.y, c2.x, c2.y);
+    }
+
+    /**
+     * Returns true, if this triangle intersects with the line segment between
+     * the specified locations, i.e. if the line segment touches the triangle
+     * or is enclosed by it.
+     *
+     * @param x1    The x value of the first end of the line segment.
+     * @param y1    The y value of the first end of the line segment.
+     * @param x2    The x value of the second end of the line segment.
+     * @param y2    The y value of the second end of the line segment.
+     * @return      True, if the triangle intersects with the line segment.
+     */
+    public boolean intersectsWithSegment(double x1, double y1, double x2, double y2) {
+        if (Math.max(x1, x2) < this.minX || Math.min(x1, x2) > this.maxX
+                || Math.max(y1, y2) < this.minY || Math.min(y1, y2) > this.maxY) {
+            return false;
+        }
 
         // Check if line segments intersect each other.
-        double distance = CGAlgorithms.distanceLineLine(
-                this.coordinates[0], this.coordinates[1], c1, c2);
-        if (distance == 0.0) {
-            return true;
+        for (int i = 0; i < N_POINTS; ++i) {
+            int j = (i + 1) % N_POINTS;
+            if (segmentsIntersect(this.xs[i], this.ys[i], this.xs[j], this.ys[j], x1, y1, x2, y2)) {
+                return true;
+            }
+        }
+
+        // Check if triangle encloses line segment
+        return enclosesPoint(x1, y1);
+    }
+
+    /**
+     * Returns true, if the closed line segments a-b and c-d have a point in common.
+     */
+    private static boolean segmentsIntersect(double ax, double ay, double bx, double by,
+                                             double cx, double cy, double dx, double dy) {
+        if (Math.max(ax, bx) < Math.min(cx, dx) || Math.max(cx, dx) < Math.min(ax, bx)
+                || Math.max(ay, by) < Math.min(cy, dy) || Math.max(cy, dy) < Math.min(ay, by)) {
+            return false;
         }
 
-        distance = CGAlgorithms.distanceLineLine(
-                this.coordinates[1], this.coordinates[2], c1, c2);
-        if (distance == 0.0 ) {
-            return true;
+        int abc = orientationIndex(ax, ay, bx, by, cx, cy);
+        int abd = orientationIndex(ax, ay, bx, by, dx, dy);
+        if (abc * abd > 0) {
+            return false;
         }
+        int cda = orientationIndex(cx, cy, dx, dy, ax, ay);
+        int cdb = orientationIndex(cx, cy, dx, dy, bx, by);
 
-        CGAlgorithms.distanceLineLine(
-                this.coordinates[0], this.coordinates[2], c1, c2);
-        if (distance == 0.0) {
-            return true;
+        // If all four points lie on one line, the overlapping bounding boxes suffice.
+        return cda * cdb <= 0;
+    }
+
+    /**
+     * Returns the orientation of the location q relative to the directed line
+     * from p1 to p2, in the same way as {@link CGAlgorithms#orientationIndex}.
+     * The result is exact: if double precision does not suffice to tell,
+     * extended precision is used.
+     *
+     * @return  1 if q is to the left (counterclockwise), -1 if to the right
+     *          (clockwise), 0 if q lies on the line.
+     */
+    private static int orientationIndex(double p1x, double p1y, double p2x, double p2y, double qx, double qy) {
+        double detLeft = (p1x - qx) * (p2y - qy);
+        double detRight = (p1y - qy) * (p2x - qx);
+        double det = detLeft - detRight;
+
+        // The sign is safe, unless the two products have the same sign and nearly cancel out.
+        double detSum;
+        if (detLeft > 0.0) {
+            if (detRight <= 0.0) {
+                return signum(det);
+            }
+            detSum = detLeft + detRight;
+        } else if (detLeft < 0.0) {
+            if (detRight >= 0.0) {
+                return signum(det);
+            }
+            detSum = -detLeft - detRight;
+        } else {
+            return signum(det);
         }
 
-        // Check if polygon encloses line segment
-        if (enclosesPoint(p1)) {
-            return true;
+        double errorBound = DP_SAFE_EPSILON * detSum;
+        if (det >= errorBound || -det >= errorBound) {
+            return signum(det);
         }
+        return CGAlgorithmsDD.orientationIndex(new Coordinate(p1x, p1y), new Coordinate(p2x, p2y),
+                new Coordinate(qx, qy));
+    }
 
-        return false;
+    /**
+     * Returns the sign of the specified value.
+     */
+    private static int signum(double value) {
+        if (value > 0) {
+            return 1;
+        }
+        if (value < 0) {
+            return -1;
+        }
+        return 0;
     }
 
     @Override
@@ -186,13 +349,13 @@ public class ColoredTriangle implements ColoredPolygon {
 
     @Override
     public String toString() {
-        String output = "";
+        StringBuilder output = new StringBuilder();
         for (Point point : this.points) {
             Coordinate coordinate = point.getCoordinate();
-            output += String.format("%s %s ", coordinate.x, coordinate.y);
+            output.append(coordinate.x).append(' ').append(coordinate.y).append(' ');
         }
-        output += this.color.getIntRepresentation();
+        output.append(this.color.getIntRepresentation());
 
-        return output;
+        return output.toString();
     }
 }
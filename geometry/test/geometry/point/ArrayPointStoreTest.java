@@ -0,0 +1,78 @@
+package geometry.point;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Tests an instance of ArrayPointStore.
+ *
+ * @author Kim-Anh Tran
+ */
+public class ArrayPointStoreTest {
+
+    // Used for double comparisons.
+    private static final double EPSILON = 0.0001;
+
+    @Test
+    public void testAdd() {
+        ArrayPointStore store = new ArrayPointStore(1);
+        Assert.assertEquals(0, store.add(0.5, 1.5, 2));
+        Assert.assertEquals(1, store.add(-3.0, 4.0, 4));
+
+        Assert.assertEquals(2, store.size());
+        Assert.assertEquals(-3.0, store.getX(1), EPSILON);
+        Assert.assertEquals(4.0, store.getY(1), EPSILON);
+        Assert.assertEquals(2, store.getColorIndex(0));
+
+        ColoredPoint point = store.getPoint(0);
+        Assert.assertEquals(0.5, point.getCoordinate().x, EPSILON);
+        Assert.assertEquals(2, point.getColor().getIntRepresentation());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddInvalidColor() {
+        new ArrayPointStore().add(0.0, 0.0, 100);
+    }
+
+    @Test
+    public void testFromPoints() {
+        List<ColoredPoint> points = new ArrayList<ColoredPoint>();
+        points.add(ColoredPointImpl.create2D(1.0, 2.0, 3));
+        points.add(ColoredPointImpl.create2D(4.0, 5.0, 0));
+
+        ArrayPointStore store = ArrayPointStore.fromPoints(points);
+        Assert.assertEquals(2, store.size());
+        Assert.assertEquals(5.0, store.getY(1), EPSILON);
+        Assert.assertEquals(3, store.getColorIndex(0));
+
+        // The original instances are returned.
+        Assert.assertSame(points.get(1), store.getPoint(1));
+        Assert.assertSame(points, store.toPoints());
+    }
+
+    @Test
+    public void testFromArrays() {
+        double[] xs = {1.0, 2.0, 3.0};
+        double[] ys = {4.0, 5.0, 6.0};
+        byte[] colors = {4, 0, 1};
+
+        ArrayPointStore store = ArrayPointStore.fromArrays(xs, ys, colors, 2);
+        Assert.assertEquals(2, store.size());
+        Assert.assertEquals(2.0, store.getX(1), EPSILON);
+        Assert.assertEquals(4, store.getColorIndex(0));
+
+        // Adding points grows beyond the given size.
+        Assert.assertEquals(2, store.add(7.0, 8.0, 2));
+        Assert.assertEquals(3, store.add(9.0, 10.0, 3));
+        Assert.assertEquals(9.0, store.getX(3), EPSILON);
+        Assert.assertEquals(4.0, store.getY(0), EPSILON);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testFromArraysInvalidColor() {
+        ArrayPointStore.fromArrays(new double[1], new double[1], new byte[] {100}, 1);
+    }
+}
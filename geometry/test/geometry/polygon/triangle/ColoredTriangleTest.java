@@ -1,10 +1,16 @@
 package geometry.polygon.triangle;
 
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
 import geometry.point.ColoredPoint;
 import geometry.point.ColoredPointImpl;
+import geometry.point.Point;
 import junit.framework.Assert;
 import org.junit.Test;
 
+import java.util.Random;
+
 /*
  * Tests an instance of ColoredTriangle.
  *
@@ -14,6 +20,12 @@ public class ColoredTriangleTest {
     
     private static final int DUMMY_COLOR = 0;
 
+    // Number of random cases compared with JTS geometries.
+    private static final int N_RANDOM_CASES = 100000;
+
+    // Range of the small integer coordinates of random cases.
+    private static final int GRID_SIZE = 8;
+
     // The triangle under test
     private ColoredTriangle triangle;
 
@@ -108,6 +120,66 @@ public class ColoredTriangleTest {
         p1 = ColoredPointImpl.create2D(0.5, 0.5, DUMMY_COLOR);
         p2 = ColoredPointImpl.create2D(1.5, 1.5, DUMMY_COLOR);
         Assert.assertTrue(this.triangle.intersectsWithLine(p1, p2));
+
+        // Line segment crosses the edge between the first and the last point, and ends inside
+        p1 = ColoredPointImpl.create2D(0.0, 3.0, DUMMY_COLOR);
+        p2 = ColoredPointImpl.create2D(2.0, 1.0, DUMMY_COLOR);
+        Assert.assertTrue(this.triangle.intersectsWithLine(p1, p2));
+    }
+
+    @Test
+    public void testAgainstGeometries() {
+        Random random = new Random(1);
+        for (int i = 0; i < N_RANDOM_CASES; ++i) {
+            // Small integer coordinates make touching and collinear cases likely.
+            boolean grid = i % 2 == 0;
+            ColoredTriangle first = randomTriangle(random, grid);
+            ColoredTriangle second = randomTriangle(random, grid);
+            ColoredPoint p1 = randomPoint(random, grid);
+            ColoredPoint p2 = randomPoint(random, grid);
+
+            Geometry geometry = toGeometry(first.getPoints());
+            Assert.assertEquals(geometry.intersects(toGeometry(second.getPoints())),
+                    first.intersectsWithPolygon(second));
+            Assert.assertEquals(geometry.intersects(toGeometry(p1)), first.enclosesPoint(p1));
+            Assert.assertEquals(geometry.intersects(toGeometry(p1, p2)), first.intersectsWithLine(p1, p2));
+        }
+    }
+
+    private static ColoredPoint randomPoint(Random random, boolean grid) {
+        if (grid) {
+            return ColoredPointImpl.create2D(random.nextInt(GRID_SIZE), random.nextInt(GRID_SIZE), DUMMY_COLOR);
+        }
+        return ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), DUMMY_COLOR);
+    }
+
+    private static ColoredTriangle randomTriangle(Random random, boolean grid) {
+        while (true) {
+            try {
+                return new ColoredTriangle(randomPoint(random, grid), randomPoint(random, grid),
+                        randomPoint(random, grid));
+            } catch (IllegalArgumentException e) {
+                // Collinear points, try again.
+            }
+        }
+    }
+
+    // Returns the point, line string or polygon defined by the specified points.
+    private static Geometry toGeometry(Point... points) {
+        GeometryFactory factory = new GeometryFactory();
+        if (points.length == 1 || (points.length == 2 && points[0].getCoordinate().equals2D(points[1].getCoordinate()))) {
+            return factory.createPoint(points[0].getCoordinate());
+        }
+        if (points.length == 2) {
+            return factory.createLineString(new Coordinate[] {points[0].getCoordinate(), points[1].getCoordinate()});
+        }
+
+        Coordinate[] ring = new Coordinate[points.length + 1];
+        for (int i = 0; i < points.length; ++i) {
+            ring[i] = points[i].getCoordinate();
+        }
+        ring[points.length] = ring[0];
+        return factory.createPolygon(factory.createLinearRing(ring), null);
     }
 
 }
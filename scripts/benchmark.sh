@@ -0,0 +1,21 @@
+#!/bin/sh
+# Runs the JMH benchmarks and stores the results as JSON.
+#
+# Usage: scripts/benchmark.sh <classpath> [jmh options]
+# The classpath contains the compiled triangle, geometry, jts and benchmark
+# modules and the JMH library. Further options are passed to JMH, e.g. a
+# benchmark pattern or -p pointCount=1000,10000.
+# Results are written to benchmark-results/<date>-<revision>.json.
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 <classpath> [jmh options]" >&2
+    exit 1
+fi
+classpath=$1
+shift
+
+revision=$(git rev-parse --short HEAD 2>/dev/null || echo unknown)
+mkdir -p benchmark-results
+result=benchmark-results/$(date +%Y%m%d-%H%M%S)-$revision.json
+
+java -cp "$classpath" org.openjdk.jmh.Main -rf json -rff "$result" "$@" && echo "Results: $result"
@@ -0,0 +1,54 @@
+#!/usr/bin/env python
+"""Compares two JMH result files written with -rf json.
+
+Prints the score of each benchmark and parameter combination in both files
+and the relative change. Exits with status 1, if any score got worse by more
+than the threshold (lower scores are better for all benchmark modes used).
+"""
+import argparse
+import json
+import sys
+
+def main(argv):
+    parser = argparse.ArgumentParser(description='Compares JMH results.')
+    parser.add_argument('baseline', help='JSON results of the baseline.')
+    parser.add_argument('current', help='JSON results to compare.')
+    parser.add_argument('-t', '--threshold', type=float, default=0.1,
+                        help='Relative slowdown counted as regression.')
+    args = parser.parse_args(argv)
+
+    baseline = read(args.baseline)
+    current = read(args.current)
+
+    regressions = 0
+    for key in sorted(current):
+        score, unit = current[key]
+        if key not in baseline:
+            print('%-80s %12.3f %s (new)' % (key, score, unit))
+            continue
+        old = baseline[key][0]
+        change = (score - old) / old if old > 0 else 0.0
+        marker = ''
+        if change > args.threshold:
+            marker = ' REGRESSION'
+            regressions += 1
+        print('%-80s %12.3f -> %12.3f %s %+7.1f%%%s'
+              % (key, old, score, unit, 100 * change, marker))
+
+    if regressions > 0:
+        sys.exit(1)
+
+def read(filename):
+    """Returns the scores by benchmark name and parameters."""
+    results = {}
+    with open(filename) as f:
+        for run in json.load(f):
+            params = run.get('params', {})
+            key = run['benchmark'] + ''.join(
+                ' %s=%s' % (name, params[name]) for name in sorted(params))
+            metric = run['primaryMetric']
+            results[key] = (metric['score'], metric['scoreUnit'])
+    return results
+
+if __name__ == "__main__":
+    main(sys.argv[1:])
@@ -0,0 +1,263 @@
+package batch;
+
+import geometry.point.PointStore;
+import geometry.polygon.ColoredPolygon;
+import search.SearchConfiguration;
+import search.TriangleSearch;
+import util.io.BinaryReader;
+import util.io.Reader;
+import util.io.Writer;
+import util.parallel.SharedPool;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Searches the triangles of many input files in one process, writing the
+ * triangles of each input to a file of its own and a summary of the timings.
+ *
+ * Small inputs do not profit from splitting the search, so they are searched
+ * sequentially, each in a task of its own, and run side by side in the pool.
+ * Large inputs are searched one after the other by the calling thread, each
+ * in parallel in the same pool, which keeps it busy with small inputs
+ * whenever a large search can not use all of its threads.
+ *
+ * @author Kim-Anh Tran
+ */
+public class BatchRunner {
+
+    /**
+     * The file size up to which inputs are searched sequentially by default, in bytes.
+     * Roughly 40000 points in the text format.
+     */
+    public static final long SMALL_BYTES = 1 << 20;
+
+    /**
+     * The suffix of the files the triangles are written to.
+     */
+    public static final String RESULT_SUFFIX = ".triangles";
+
+    /**
+     * The name of the summary file.
+     */
+    public static final String SUMMARY_FILE = "summary.tsv";
+
+    /**
+     * The directory the results are written to.
+     */
+    private File outputDirectory;
+
+    /**
+     * The pool running the searches.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The file size up to which inputs are searched sequentially, in bytes.
+     */
+    private long smallBytes;
+
+
+    /**
+     * Creates a runner writing to the specified directory and searching in the shared pool.
+     *
+     * @param outputDirectory   The directory the results are written to. Created, if missing.
+     */
+    public BatchRunner(File outputDirectory) {
+        this(outputDirectory, SharedPool.get());
+    }
+
+    /**
+     * Creates a runner writing to the specified directory and searching in the specified pool.
+     *
+     * @param outputDirectory   The directory the results are written to. Created, if missing.
+     * @param pool              The pool running the searches.
+     */
+    public BatchRunner(File outputDirectory, ForkJoinPool pool) {
+        this.outputDirectory = outputDirectory;
+        this.pool = pool;
+        this.smallBytes = SMALL_BYTES;
+    }
+
+    /**
+     * Specifies the file size up to which inputs are searched sequentially,
+     * side by side with other inputs. Larger inputs are searched in parallel.
+     *
+     * @param smallBytes    The size in bytes.
+     */
+    public void setSmallBytes(long smallBytes) {
+        this.smallBytes = smallBytes;
+    }
+
+    /**
+     * Returns the input files specified by the paths: files themselves, and the
+     * files of directories (not recursively, sorted by name, without hidden files
+     * and results). The results are named after the inputs, so their names have
+     * to be distinct.
+     *
+     * @param paths The paths of files and directories.
+     * @return      The input files.
+     * @throws IOException Thrown, if a path does not exist or two inputs have the same name.
+     */
+    public static List<File> collectInputs(List<String> paths) throws IOException {
+        List<File> inputs = new ArrayList<File>();
+        for (String path : paths) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                File[] files = file.listFiles();
+                Arrays.sort(files);
+                for (File child : files) {
+                    if (child.isFile() && !child.isHidden() && !child.getName().endsWith(RESULT_SUFFIX)
+                            && !child.getName().equals(SUMMARY_FILE)) {
+                        inputs.add(child);
+                    }
+                }
+            } else if (file.isFile()) {
+                inputs.add(file);
+            } else {
+                throw new IOException("No such file or directory: " + path);
+            }
+        }
+        checkNames(inputs);
+        return inputs;
+    }
+
+    /**
+     * Checks that the names of the specified inputs are distinct, so that their
+     * results are written to distinct files.
+     *
+     * @param inputs    The input files.
+     * @throws IOException Thrown, if two inputs have the same name.
+     */
+    private static void checkNames(List<File> inputs) throws IOException {
+        Map<String, File> names = new HashMap<String, File>();
+        for (File input : inputs) {
+            File other = names.put(input.getName(), input);
+            if (other != null) {
+                throw new IOException("Inputs " + other + " and " + input + " have the same name, "
+                        + "their results would be written to the same file.");
+            }
+        }
+    }
+
+    /**
+     * Searches the triangles of all specified inputs, writes them to the output
+     * directory and writes the summary. Failures of single inputs are recorded
+     * in their results and do not stop the batch.
+     *
+     * @param inputs    The input files, with distinct names.
+     * @return          The results, in the order of the inputs.
+     * @throws IOException Thrown, if two inputs have the same name, or if the output
+     *                     directory or the summary can not be written.
+     */
+    public List<InstanceResult> run(List<File> inputs) throws IOException {
+        checkNames(inputs);
+        if (!this.outputDirectory.isDirectory() && !this.outputDirectory.mkdirs()) {
+            throw new IOException("Can not create output directory " + this.outputDirectory);
+        }
+
+        List<ForkJoinTask<InstanceResult>> tasks = new ArrayList<ForkJoinTask<InstanceResult>>();
+        for (final File input : inputs) {
+            if (input.length() <= this.smallBytes) {
+                tasks.add(this.pool.submit(new Callable<InstanceResult>() {
+                    @Override
+                    public InstanceResult call() {
+                        return runInstance(input, false);
+                    }
+                }));
+            } else {
+                tasks.add(null);
+            }
+        }
+
+        // Large inputs first, while the small ones fill the gaps in the pool.
+        InstanceResult[] results = new InstanceResult[inputs.size()];
+        for (int i = 0; i < results.length; ++i) {
+            if (tasks.get(i) == null) {
+                results[i] = runInstance(inputs.get(i), true);
+            }
+        }
+        for (int i = 0; i < results.length; ++i) {
+            if (tasks.get(i) != null) {
+                results[i] = tasks.get(i).join();
+            }
+        }
+
+        List<InstanceResult> resultList = Arrays.asList(results);
+        writeSummary(resultList);
+        return resultList;
+    }
+
+    /**
+     * Reads, searches and writes the triangles of one input.
+     *
+     * @param input     The input file.
+     * @param parallel  True, if the input is searched in parallel.
+     * @return          The result.
+     */
+    private InstanceResult runInstance(File input, boolean parallel) {
+        InstanceResult result = new InstanceResult(input, parallel);
+        try {
+            long start = System.nanoTime();
+            PointStore points;
+            if (BinaryReader.isBinaryPoints(input)) {
+                points = BinaryReader.mapPointStore(input);
+            } else {
+                points = Reader.readPointStore(new FileInputStream(input));
+            }
+            result.setRead(points.size(), System.nanoTime() - start);
+
+            start = System.nanoTime();
+            SearchConfiguration configuration = new SearchConfiguration();
+            configuration.setPool(this.pool);
+            configuration.setSequential(!parallel);
+            List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(points, configuration);
+            result.setSearched(triangles.size(), System.nanoTime() - start);
+
+            start = System.nanoTime();
+            File file = new File(this.outputDirectory, input.getName() + RESULT_SUFFIX);
+            OutputStream outStream = new FileOutputStream(file);
+            Writer.writeTriangles(outStream, triangles);
+            result.setWritten(System.nanoTime() - start);
+
+        } catch (ParseException e) {
+            result.setError(e.getMessage() + "Occurred at parsing point number " + e.getErrorOffset());
+        } catch (IOException e) {
+            result.setError(e.toString());
+        } catch (RuntimeException e) {
+            result.setError(e.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Writes the summary of the specified results to the output directory.
+     *
+     * @param results   The results.
+     * @throws IOException Thrown, if writing the summary failed.
+     */
+    private void writeSummary(List<InstanceResult> results) throws IOException {
+        PrintWriter writer = new PrintWriter(new File(this.outputDirectory, SUMMARY_FILE), "UTF-8");
+        writer.print(InstanceResult.TSV_HEADER + "\n");
+        for (InstanceResult result : results) {
+            writer.print(result.toTsv() + "\n");
+        }
+        writer.close();
+        if (writer.checkError()) {
+            throw new IOException("Writing the summary failed.");
+        }
+    }
+}
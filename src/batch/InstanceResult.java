@@ -0,0 +1,205 @@
+package batch;
+
+import java.io.File;
+
+/**
+ * The outcome of searching the triangles of one input file of a batch.
+ *
+ * @author Kim-Anh Tran
+ */
+public class InstanceResult {
+
+    /**
+     * The header line of the summary, naming the columns of {@link InstanceResult#toTsv()}.
+     */
+    public static final String TSV_HEADER =
+            "file\tpoints\ttriangles\tmode\treadMillis\tsearchMillis\twriteMillis\terror";
+
+    /**
+     * The input file.
+     */
+    private File input;
+
+    /**
+     * True, if the instance was searched in parallel, false if sequentially.
+     */
+    private boolean parallel;
+
+    /**
+     * The number of points, or -1 if they could not be read.
+     */
+    private int points;
+
+    /**
+     * The number of found triangles, or -1 if the search did not complete.
+     */
+    private int triangles;
+
+    /**
+     * The time needed for reading the points, in nanoseconds.
+     */
+    private long readNanos;
+
+    /**
+     * The time needed for searching the triangles, in nanoseconds.
+     */
+    private long searchNanos;
+
+    /**
+     * The time needed for writing the triangles, in nanoseconds.
+     */
+    private long writeNanos;
+
+    /**
+     * The reason why the instance failed, or null if it succeeded.
+     */
+    private String error;
+
+
+    /**
+     * Creates the result of the specified input, with nothing done yet.
+     *
+     * @param input     The input file.
+     * @param parallel  True, if the instance is searched in parallel.
+     */
+    InstanceResult(File input, boolean parallel) {
+        this.input = input;
+        this.parallel = parallel;
+        this.points = -1;
+        this.triangles = -1;
+    }
+
+    /**
+     * Returns the input file.
+     *
+     * @return The input file.
+     */
+    public File getInput() {
+        return this.input;
+    }
+
+    /**
+     * Returns true, if the instance was searched in parallel.
+     *
+     * @return True for parallel, false for sequential searches.
+     */
+    public boolean isParallel() {
+        return this.parallel;
+    }
+
+    /**
+     * Returns the number of points.
+     *
+     * @return The number of points, or -1 if they could not be read.
+     */
+    public int getPoints() {
+        return this.points;
+    }
+
+    /**
+     * Returns the number of found triangles.
+     *
+     * @return The number of triangles, or -1 if the search did not complete.
+     */
+    public int getTriangles() {
+        return this.triangles;
+    }
+
+    /**
+     * Returns the time needed for reading the points.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getReadNanos() {
+        return this.readNanos;
+    }
+
+    /**
+     * Returns the time needed for searching the triangles.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getSearchNanos() {
+        return this.searchNanos;
+    }
+
+    /**
+     * Returns the time needed for writing the triangles.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getWriteNanos() {
+        return this.writeNanos;
+    }
+
+    /**
+     * Returns the reason why the instance failed.
+     *
+     * @return The reason, or null if the instance succeeded.
+     */
+    public String getError() {
+        return this.error;
+    }
+
+    /**
+     * Returns the result as tab-separated line, see {@link InstanceResult#TSV_HEADER}.
+     *
+     * @return The line, without line separator.
+     */
+    public String toTsv() {
+        StringBuilder line = new StringBuilder(this.input.getPath());
+        line.append('\t').append(this.points);
+        line.append('\t').append(this.triangles);
+        line.append('\t').append(this.parallel ? "parallel" : "sequential");
+        line.append('\t').append(this.readNanos / 1000000);
+        line.append('\t').append(this.searchNanos / 1000000);
+        line.append('\t').append(this.writeNanos / 1000000);
+        line.append('\t').append(this.error == null ? "" : this.error.replace('\t', ' ').replace('\n', ' '));
+        return line.toString();
+    }
+
+    /**
+     * Records the read points.
+     *
+     * @param points    The number of points.
+     * @param nanos     The time needed for reading them.
+     */
+    void setRead(int points, long nanos) {
+        this.points = points;
+        this.readNanos = nanos;
+    }
+
+    /**
+     * Records the found triangles.
+     *
+     * @param triangles The number of triangles.
+     * @param nanos     The time needed for searching them.
+     */
+    void setSearched(int triangles, long nanos) {
+        this.triangles = triangles;
+        this.searchNanos = nanos;
+    }
+
+    /**
+     * Records the time needed for writing the triangles.
+     *
+     * @param nanos The time.
+     */
+    void setWritten(long nanos) {
+        this.writeNanos = nanos;
+    }
+
+    /**
+     * Records the reason why the instance failed.
+     *
+     * @param error The reason.
+     */
+    void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return toTsv();
+    }
+}
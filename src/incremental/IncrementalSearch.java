@@ -0,0 +1,876 @@
+package incremental;
+
+import color.Color;
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.quadtree.Quadtree;
+import geometry.point.ArrayPointStore;
+import geometry.point.ColoredPoint;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+import search.SearchConfiguration;
+import search.SearchResult;
+import search.TriangleSearch;
+import util.index.Occlusion;
+import util.index.QuadtreeTriangleIndex;
+import util.index.TriangleIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps the triangles of a changing set of points complete, searching only the
+ * neighbourhood of each batch of inserted or removed points instead of all points.
+ *
+ * Before a batch, no triangle of available points (points neither used as corner
+ * nor enclosed by a triangle) can be inserted. Inserted points do not remove any
+ * triangle, so every further triangle has an inserted point as corner, and its
+ * other corners are visible from that point: the line segments to them do not
+ * intersect with a triangle. A batch of inserted points therefore
+ *
+ * 1. drops the inserted points enclosed by a triangle,
+ * 2. collects the available points that are not occluded from an inserted point of
+ *    their color (see {@link Occlusion}), which lie within the occlusion radius of
+ *    the inserted point, and groups the inserted points with the points they see,
+ * 3. searches each group with {@link TriangleSearch}, on top of all triangles
+ *    (see {@link SearchConfiguration#setFixedTriangles(TriangleIndex)}), adds the
+ *    found triangles and removes the available points they enclose.
+ *
+ * Every further triangle consists of points of one group. The groups are searched
+ * one after the other, so that their triangles do not intersect with each other.
+ * Searching small groups instead of all collected points at once avoids trying
+ * triangles of distant points, which intersect with many triangles in between.
+ *
+ * A batch of removed points dissolves the triangles using a removed point as corner
+ * and makes the points they enclosed available again, unless another triangle
+ * encloses them. Every further triangle intersects with a dissolved triangle, so each
+ * of its corners sees a point of a dissolved triangle. That point, or the first
+ * dissolved triangle in that direction, lies within the occlusion radius the corner had
+ * in that direction before, as the triangles occluding it beyond that radius were still
+ * there. Each available point therefore keeps upper bounds of its occlusion radii in
+ * a few ranges of directions, and only the released points and the points whose radius
+ * towards a dissolved triangle reaches it are grouped and searched like inserted points,
+ * unless the remaining triangles hide the dissolved triangle from them (see
+ * {@link Occlusion#hides(TriangleIndex, double, double, ColoredPolygon)}). Points at the
+ * border of the points see far along the border, but not across the triangles, so their
+ * radii differ a lot between the directions. Only the radii reaching a dissolved triangle
+ * can grow, so only their ranges are searched for occluding triangles again, and a point
+ * is grouped with the points within its radii that these triangles do not occlude.
+ * Added triangles only shrink the radii, so after searching a group, only the radii
+ * reaching a found triangle are updated.
+ *
+ * Afterwards, the triangles are complete and pairwise disjoint again. They depend
+ * on the batches, so they differ from the triangles of a single search of all points.
+ *
+ * Directions in which no triangle occludes a point, e.g. at the border of the points,
+ * leave the bounding box of all points at a finite distance, so that the occlusion
+ * radius within the box is finite as well. Radii limited by the box are updated
+ * whenever inserted points grow it; removed points do not shrink it.
+ *
+ * Limits: while there are few triangles, e.g. for the first batches, the points see
+ * each other and form large groups, up to all available points. Points inserted
+ * outside of the bounding box so far grow it, so that the points at its former
+ * border see farther. Ten removed points dissolve about six triangles, and the one to
+ * two hundred points around them are grouped and searched again, which takes about
+ * 10 ms per removed point with 10k to 160k points and 15 to 20 ms with 1M points (see
+ * IncrementalSearchBenchmark). All points, triangles and radii are kept on the heap.
+ *
+ * @author Kim-Anh Tran
+ */
+public class IncrementalSearch {
+
+    /**
+     * The number of average point spacings within which occluding triangles are searched first.
+     */
+    private static final int OCCLUSION_SPACINGS = 4;
+
+    /**
+     * The number of equal ranges of directions, each with an occlusion radius of its own.
+     */
+    private static final int SECTORS = 8;
+
+    /**
+     * The angle by which the directions towards a dissolved triangle are widened on each side.
+     */
+    private static final double ANGLE_TOLERANCE = 1e-9;
+
+    /**
+     * The extent of the boxes keying points in the quadtrees, relative to the extent of the first bounds.
+     */
+    private static final double POINT_EXTENT = 1.0 / (1 << 20);
+
+    /**
+     * The configuration of the search of each batch.
+     */
+    private SearchConfiguration configuration;
+
+    /**
+     * All triangles found so far.
+     */
+    private QuadtreeTriangleIndex triangles;
+
+    /**
+     * The available points, per color, keyed by their locations.
+     */
+    private Quadtree[] available;
+
+    /**
+     * The available points with known radii, keyed by their locations, per class of
+     * their largest radius: the exponent of the power of two it is at least.
+     */
+    private Map<Integer, Quadtree> reaches;
+
+    /**
+     * The available points with an occlusion radius limited by the bounding box.
+     */
+    private Set<AvailablePoint> border;
+
+    /**
+     * The points used as corner or enclosed by a triangle, keyed by their locations.
+     */
+    private Quadtree used;
+
+    /**
+     * The number of available points.
+     */
+    private int nAvailable;
+
+    /**
+     * The bounding box of all points inserted so far.
+     */
+    private Envelope bounds;
+
+    /**
+     * The extent of the boxes keying points in the quadtrees, or 0, if no point was keyed yet.
+     */
+    private double pointExtent;
+
+    /**
+     * The number of points inserted and not removed so far.
+     */
+    private long nPoints;
+
+    /**
+     * The number of points searched by the last batch, inserted or available before.
+     */
+    private int searchedPoints;
+
+
+    /**
+     * Creates an empty search, with the default configuration for the search of each batch.
+     */
+    public IncrementalSearch() {
+        this(new SearchConfiguration());
+    }
+
+    /**
+     * Creates an empty search, with a copy of the specified configuration for the search
+     * of each batch, whose fixed triangles are replaced by the triangles of the search.
+     * Later changes of the specified configuration do not affect the search, and the
+     * search does not change it.
+     *
+     * @param configuration The configuration of the search of each batch.
+     * @throws IllegalArgumentException Thrown, if the configuration has a time limit, as
+     *                                  incomplete batches would leave the triangles incomplete.
+     */
+    public IncrementalSearch(SearchConfiguration configuration) throws IllegalArgumentException {
+        if (configuration.getTimeLimit() > 0) {
+            throw new IllegalArgumentException("Batches of an incremental search can not be limited in time.");
+        }
+        this.configuration = new SearchConfiguration(configuration);
+        this.triangles = new QuadtreeTriangleIndex();
+        this.available = new Quadtree[Color.values().length];
+        for (int color = 0; color < this.available.length; ++color) {
+            this.available[color] = new Quadtree();
+        }
+        this.reaches = new TreeMap<Integer, Quadtree>();
+        this.border = new LinkedHashSet<AvailablePoint>();
+        this.used = new Quadtree();
+        this.bounds = new Envelope();
+    }
+
+    /**
+     * Inserts the specified points and returns the triangles they allow, so that the
+     * triangles of all points inserted so far are complete and pairwise disjoint.
+     *
+     * @param points    The points to insert.
+     * @return          The triangles found for the points, in addition to the triangles before.
+     */
+    public List<ColoredPolygon> insert(List<ColoredPoint> points) {
+        this.searchedPoints = 0;
+        Envelope before = new Envelope(this.bounds);
+        for (ColoredPoint point : points) {
+            this.bounds.expandToInclude(point.getCoordinate());
+        }
+        this.nPoints += points.size();
+        if (!this.bounds.equals(before)) {
+            for (AvailablePoint point : new ArrayList<AvailablePoint>(this.border)) {
+                updateRadius(point, null);
+            }
+        }
+
+        List<AvailablePoint> inserted = new ArrayList<AvailablePoint>(points.size());
+        for (ColoredPoint point : points) {
+            if (this.triangles.enclosesPoint(point)) {
+                this.used.insert(key(point.getCoordinate()), point);
+            } else {
+                inserted.add(addAvailable(point));
+            }
+        }
+        if (inserted.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return search(groups(inserted, null, null));
+    }
+
+    /**
+     * Removes the specified points and repairs the triangles around them, so that the
+     * triangles of the remaining points are complete and pairwise disjoint. Each point
+     * removes one inserted point at the same location with the same color; points that
+     * were not inserted are ignored. Triangles using a removed point as corner are
+     * dissolved, unless another point at its location remains.
+     *
+     * @param points    The points to remove.
+     * @return          The dissolved triangles and the triangles found in their place.
+     */
+    public RemovalResult remove(List<ColoredPoint> points) {
+        this.searchedPoints = 0;
+        List<ColoredPolygon> dissolved = new ArrayList<ColoredPolygon>();
+        for (ColoredPoint point : points) {
+            AvailablePoint availablePoint = findAvailable(point);
+            if (availablePoint != null) {
+                removeAvailable(availablePoint);
+                --this.nPoints;
+                continue;
+            }
+
+            ColoredPoint usedPoint = findUsed(point);
+            if (usedPoint == null) {
+                continue;
+            }
+            this.used.remove(key(usedPoint.getCoordinate()), usedPoint);
+            --this.nPoints;
+            if (findUsed(point) == null) {
+                dissolveTriangles(point, dissolved);
+            }
+        }
+        if (dissolved.isEmpty()) {
+            return new RemovalResult(dissolved, Collections.<ColoredPolygon>emptyList());
+        }
+
+        /*
+         * The released points, without radii yet, and the points whose radius towards a
+         * dissolved triangle reaches it and which are not hidden from it by the remaining
+         * triangles, with the sectors of these radii. The radii of hidden points do not change,
+         * as the remaining triangles occlude the directions towards the dissolved triangle
+         * before it, and neither do the radii of the other sectors.
+         */
+        Map<AvailablePoint, boolean[]> candidates = new LinkedHashMap<AvailablePoint, boolean[]>();
+        for (ColoredPolygon triangle : dissolved) {
+            for (Object item : this.used.query(triangle.getEnvelope())) {
+                ColoredPoint point = (ColoredPoint) item;
+                if (triangle.enclosesPoint(point) && !this.triangles.enclosesPoint(point)
+                        && this.used.remove(key(point.getCoordinate()), point)) {
+                    candidates.put(addAvailable(point), null);
+                }
+            }
+        }
+        for (ColoredPolygon triangle : dissolved) {
+            for (Map.Entry<Integer, Quadtree> radiusClass : this.reaches.entrySet()) {
+                Envelope envelope = new Envelope(triangle.getEnvelope());
+                envelope.expandBy(Math.scalb(2.0, radiusClass.getKey()));
+                for (Object item : radiusClass.getValue().query(envelope)) {
+                    AvailablePoint point = (AvailablePoint) item;
+                    Coordinate coordinate = point.point.getCoordinate();
+                    boolean[] sectors = new boolean[SECTORS];
+                    if (point.reaches(triangle, sectors)
+                            && !Occlusion.hides(this.triangles, coordinate.x, coordinate.y, triangle)) {
+                        boolean[] reached = candidates.get(point);
+                        if (reached == null) {
+                            candidates.put(point, sectors);
+                        } else {
+                            for (int sector = 0; sector < SECTORS; ++sector) {
+                                reached[sector] |= sectors[sector];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return new RemovalResult(dissolved, search(groups(candidates.keySet(), candidates.keySet(), candidates)));
+    }
+
+    /**
+     * Returns all triangles found so far.
+     *
+     * @return The triangles, which are complete and pairwise disjoint.
+     */
+    public List<ColoredPolygon> getTriangles() {
+        return this.triangles.getTriangles();
+    }
+
+    /**
+     * Returns the number of points that are neither used as corner nor enclosed by a triangle.
+     *
+     * @return The number of available points.
+     */
+    public int getAvailablePoints() {
+        return this.nAvailable;
+    }
+
+    /**
+     * Returns the number of points searched by the last batch: for inserted points,
+     * those not enclosed by a triangle and the available points visible from them,
+     * for removed points, the released points and the available points reaching a
+     * dissolved triangle, in groups of at least three points.
+     *
+     * @return The number of searched points.
+     */
+    public int getSearchedPoints() {
+        return this.searchedPoints;
+    }
+
+    /**
+     * Searches the specified groups one after the other, on top of all triangles, and
+     * updates the radii of their points that remain available, if they have no radii
+     * yet, or within the sectors whose radius reaches a triangle found for their group.
+     *
+     * @param groups    The groups of available points.
+     * @return          The found triangles.
+     */
+    private List<ColoredPolygon> search(List<List<AvailablePoint>> groups) {
+        List<ColoredPolygon> found = new ArrayList<ColoredPolygon>();
+        Map<AvailablePoint, boolean[]> changed = new LinkedHashMap<AvailablePoint, boolean[]>();
+        this.configuration.setFixedTriangles(this.triangles);
+        for (List<AvailablePoint> group : groups) {
+            if (group.size() < ColoredTriangle.N_POINTS) {
+                continue;
+            }
+            this.searchedPoints += group.size();
+            List<ColoredPoint> groupPoints = new ArrayList<ColoredPoint>(group.size());
+            for (AvailablePoint point : group) {
+                groupPoints.add(point.point);
+            }
+            SearchResult result = TriangleSearch.start(ArrayPointStore.fromPoints(groupPoints), this.configuration)
+                    .getResult();
+            for (ColoredPolygon triangle : result.getTriangles()) {
+                this.triangles.insert(triangle);
+                removeEnclosedPoints(triangle);
+                found.add(triangle);
+            }
+
+            // Added triangles only shrink the radii reaching them.
+            for (AvailablePoint point : group) {
+                if (!point.available || point.radiusClass == null) {
+                    continue;
+                }
+                boolean[] sectors = new boolean[SECTORS];
+                boolean reaches = false;
+                for (ColoredPolygon triangle : result.getTriangles()) {
+                    reaches |= point.reaches(triangle, sectors);
+                }
+                if (reaches) {
+                    changed.put(point, sectors);
+                }
+            }
+        }
+
+        for (List<AvailablePoint> group : groups) {
+            for (AvailablePoint point : group) {
+                if (point.radiusClass == null) {
+                    changed.put(point, null);
+                }
+            }
+        }
+        for (Map.Entry<AvailablePoint, boolean[]> point : changed.entrySet()) {
+            if (point.getKey().available) {
+                updateRadius(point.getKey(), point.getValue());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the groups of the specified points and of the available points visible
+     * from them: each point is grouped with the available points of its color that
+     * are not occluded from it within the bounding box of all points, including
+     * other specified points. The radii of the specified points are updated on the
+     * way. Without triangles, all points see each other, so they all form one group.
+     *
+     * @param points    The available points to group.
+     * @param partners  The points the specified points may be grouped with,
+     *                  or null for all available points.
+     * @param sectors   The sectors whose radii may have changed, per specified point with
+     *                  radii, or null if all radii may have changed.
+     * @return          The groups, in the order of their first specified point.
+     */
+    private List<List<AvailablePoint>> groups(Collection<AvailablePoint> points, Set<AvailablePoint> partners,
+                                              Map<AvailablePoint, boolean[]> sectors) {
+        Groups groups = new Groups();
+        if (this.triangles.size() == 0) {
+            for (AvailablePoint point : points) {
+                groups.union(0, groups.index(point));
+            }
+            if (partners == null) {
+                for (Quadtree colorPoints : this.available) {
+                    for (Object item : colorPoints.queryAll()) {
+                        groups.union(0, groups.index((AvailablePoint) item));
+                    }
+                }
+            }
+            return groups.toLists();
+        }
+
+        for (AvailablePoint point : points) {
+            int index = groups.index(point);
+            Coordinate coordinate = point.point.getCoordinate();
+            Occlusion occlusion = updateRadius(point, sectors == null ? null : sectors.get(point));
+
+            // The occlusion only holds the triangles of the updated sectors, the radii bound the others.
+            if (partners != null) {
+                for (AvailablePoint candidate : partners) {
+                    Coordinate candidateCoordinate = candidate.point.getCoordinate();
+                    if (candidate != point && candidate.point.getColor() == point.point.getColor()
+                            && point.within(candidateCoordinate)
+                            && !occlusion.occludes(candidateCoordinate.x, candidateCoordinate.y)) {
+                        groups.union(index, groups.index(candidate));
+                    }
+                }
+                continue;
+            }
+
+            // The visible points of each sector lie within its radius.
+            for (int sector = 0; sector < SECTORS; ++sector) {
+                Envelope envelope = Occlusion.sectorEnvelope(coordinate.x, coordinate.y, sector, SECTORS,
+                        point.radii[sector], this.bounds);
+                if (envelope.isNull()) {
+                    continue;
+                }
+                for (Object item : this.available[colorIndex(point.point)].query(envelope)) {
+                    AvailablePoint candidate = (AvailablePoint) item;
+                    Coordinate candidateCoordinate = candidate.point.getCoordinate();
+                    if (candidate != point && envelope.contains(candidateCoordinate)
+                            && !occlusion.occludes(candidateCoordinate.x, candidateCoordinate.y)) {
+                        groups.union(index, groups.index(candidate));
+                    }
+                }
+            }
+        }
+        return groups.toLists();
+    }
+
+    /**
+     * Makes the specified point available, without occlusion radii yet.
+     *
+     * @param point The point.
+     * @return      The available point.
+     */
+    private AvailablePoint addAvailable(ColoredPoint point) {
+        AvailablePoint availablePoint = new AvailablePoint(point);
+        this.available[colorIndex(point)].insert(key(point.getCoordinate()), availablePoint);
+        ++this.nAvailable;
+        return availablePoint;
+    }
+
+    /**
+     * Removes the specified point from the available points.
+     *
+     * @param point The available point.
+     */
+    private void removeAvailable(AvailablePoint point) {
+        Envelope envelope = key(point.point.getCoordinate());
+        this.available[colorIndex(point.point)].remove(envelope, point);
+        if (point.radiusClass != null) {
+            this.reaches.get(point.radiusClass).remove(envelope, point);
+        }
+        this.border.remove(point);
+        point.radiusClass = null;
+        point.available = false;
+        --this.nAvailable;
+    }
+
+    /**
+     * Computes the occlusion radii of the specified available point within the bounding
+     * box by all triangles, in the specified sectors only if the point has radii, and
+     * keeps the point in the class of its new largest radius. The triangles of the
+     * specified sectors are searched starting within their former radii.
+     *
+     * @param point     The available point.
+     * @param sectors   The sectors whose radii may have changed, or null for all sectors.
+     * @return          The occlusion of the point by the triangles of the updated sectors.
+     */
+    private Occlusion updateRadius(AvailablePoint point, boolean[] sectors) {
+        Coordinate coordinate = point.point.getCoordinate();
+        Envelope envelope = key(coordinate);
+        Occlusion occlusion;
+        if (point.radiusClass == null || sectors == null) {
+            double spacing = Math.sqrt(this.bounds.getArea() / this.nPoints);
+            occlusion = Occlusion.around(this.triangles, coordinate.x, coordinate.y,
+                    OCCLUSION_SPACINGS * spacing, this.bounds, SECTORS);
+            point.radii = occlusion.getRadii(SECTORS).clone();
+            sectors = null;
+        } else {
+            double[] radii = new double[SECTORS];
+            for (int sector = 0; sector < SECTORS; ++sector) {
+                radii[sector] = sectors[sector] ? point.radii[sector] : Double.NaN;
+            }
+            occlusion = Occlusion.around(this.triangles, coordinate.x, coordinate.y, radii, this.bounds);
+            radii = occlusion.getRadii(SECTORS);
+            for (int sector = 0; sector < SECTORS; ++sector) {
+                if (sectors[sector]) {
+                    point.radii[sector] = radii[sector];
+                }
+            }
+        }
+        if (point.radiusClass != null) {
+            this.reaches.get(point.radiusClass).remove(envelope, point);
+        }
+
+        double radius = 0;
+        for (double sectorRadius : point.radii) {
+            radius = Math.max(radius, sectorRadius);
+        }
+        point.radiusClass = Math.getExponent(radius);
+        Quadtree radiusClass = this.reaches.get(point.radiusClass);
+        if (radiusClass == null) {
+            radiusClass = new Quadtree();
+            this.reaches.put(point.radiusClass, radiusClass);
+        }
+        radiusClass.insert(envelope, point);
+
+        // A point kept for a sector that was not updated stays at the border.
+        if (sectors == null ? occlusion.dependsOnBounds(SECTORS) : occlusion.dependsOnBounds(sectors)) {
+            this.border.add(point);
+        } else if (sectors == null) {
+            this.border.remove(point);
+        }
+        return occlusion;
+    }
+
+    /**
+     * Removes the available points enclosed by the specified triangle, including its
+     * corners, and keeps them as used points.
+     *
+     * @param triangle  The triangle.
+     */
+    private void removeEnclosedPoints(ColoredPolygon triangle) {
+        Envelope envelope = triangle.getEnvelope();
+        for (Quadtree points : this.available) {
+            for (Object item : points.query(envelope)) {
+                AvailablePoint point = (AvailablePoint) item;
+                Coordinate coordinate = point.point.getCoordinate();
+                if (point.available && envelope.contains(coordinate) && triangle.enclosesPoint(point.point)) {
+                    removeAvailable(point);
+                    this.used.insert(key(coordinate), point.point);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the triangles of the color of the specified point that have a corner at its location.
+     *
+     * @param point     The removed point.
+     * @param dissolved The list to add the removed triangles to.
+     */
+    private void dissolveTriangles(ColoredPoint point, List<ColoredPolygon> dissolved) {
+        List<ColoredPolygon> candidates = new ArrayList<ColoredPolygon>();
+        this.triangles.query(new Envelope(point.getCoordinate()), candidates);
+        for (ColoredPolygon triangle : candidates) {
+            if (triangle.getColor() != point.getColor()) {
+                continue;
+            }
+            for (Point corner : triangle.getPoints()) {
+                if (corner.getCoordinate().equals2D(point.getCoordinate())) {
+                    this.triangles.remove(triangle);
+                    dissolved.add(triangle);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the available point at the location of the specified point with its color, or null.
+     */
+    private AvailablePoint findAvailable(ColoredPoint point) {
+        for (Object item : this.available[colorIndex(point)].query(new Envelope(point.getCoordinate()))) {
+            AvailablePoint candidate = (AvailablePoint) item;
+            if (candidate.point.getCoordinate().equals2D(point.getCoordinate())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a used point at the location of the specified point with its color, or null.
+     */
+    private ColoredPoint findUsed(ColoredPoint point) {
+        for (Object item : this.used.query(new Envelope(point.getCoordinate()))) {
+            ColoredPoint candidate = (ColoredPoint) item;
+            if (candidate.getColor() == point.getColor()
+                    && candidate.getCoordinate().equals2D(point.getCoordinate())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the distance from the specified point to the specified triangle, 0 if it encloses the point.
+     */
+    private static double distance(ColoredPoint point, ColoredPolygon triangle) {
+        if (triangle.enclosesPoint(point)) {
+            return 0;
+        }
+        Point[] corners = triangle.getPoints();
+        double distance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < corners.length; ++i) {
+            distance = Math.min(distance, CGAlgorithms.distancePointLine(point.getCoordinate(),
+                    corners[i].getCoordinate(), corners[(i + 1) % corners.length].getCoordinate()));
+        }
+        return distance;
+    }
+
+    /**
+     * Returns the angle of the direction from the specified location to the specified point.
+     */
+    private static double angle(Coordinate coordinate, Point point) {
+        return Math.atan2(point.getCoordinate().y - coordinate.y, point.getCoordinate().x - coordinate.x);
+    }
+
+    /**
+     * Returns the box keying the specified location in the quadtrees. The quadtree pads
+     * empty boxes by the smallest extent inserted so far, which stays large if only
+     * locations are inserted and would keep all of them in the topmost nodes.
+     *
+     * @param coordinate    The location.
+     * @return              The box at the location, with the same extent for all locations.
+     */
+    private Envelope key(Coordinate coordinate) {
+        if (this.pointExtent == 0) {
+            double extent = Math.max(this.bounds.getWidth(), this.bounds.getHeight());
+            this.pointExtent = extent > 0 ? extent * POINT_EXTENT : 1.0;
+        }
+        return new Envelope(coordinate.x, coordinate.x + this.pointExtent,
+                coordinate.y, coordinate.y + this.pointExtent);
+    }
+
+    /**
+     * Returns the index of the color of the specified point.
+     */
+    private static int colorIndex(ColoredPoint point) {
+        return point.getColor().getIntRepresentation();
+    }
+
+    /**
+     * An available point and upper bounds of its occlusion radii.
+     */
+    private static class AvailablePoint {
+
+        /**
+         * The point.
+         */
+        private ColoredPoint point;
+
+        /**
+         * The upper bounds of the occlusion radii of the point in each range of
+         * directions, once it is kept in the class of its largest radius.
+         */
+        private double[] radii;
+
+        /**
+         * The class of the largest radius of the point, in which it is kept, or null.
+         */
+        private Integer radiusClass;
+
+        /**
+         * Indicates whether the point is still available, i.e. not used or removed.
+         */
+        private boolean available;
+
+
+        /**
+         * Creates an available point without radii.
+         */
+        private AvailablePoint(ColoredPoint point) {
+            this.point = point;
+            this.available = true;
+        }
+
+        /**
+         * Returns true, if the radius of the point in a direction towards the specified
+         * triangle reaches the triangle, and marks the sectors of these radii.
+         */
+        private boolean reaches(ColoredPolygon triangle, boolean[] sectors) {
+            // The points queried near the triangle mostly lie beyond their radii from its box.
+            Coordinate coordinate = this.point.getCoordinate();
+            Envelope envelope = triangle.getEnvelope();
+            double dx = Math.max(0, Math.max(envelope.getMinX() - coordinate.x, coordinate.x - envelope.getMaxX()));
+            double dy = Math.max(0, Math.max(envelope.getMinY() - coordinate.y, coordinate.y - envelope.getMaxY()));
+            double radius = 0;
+            for (double sectorRadius : this.radii) {
+                radius = Math.max(radius, sectorRadius);
+            }
+            if (Math.sqrt(dx * dx + dy * dy) > radius) {
+                return false;
+            }
+
+            double distance = distance(this.point, triangle);
+            if (distance == 0) {
+                Arrays.fill(sectors, true);
+                return true;
+            }
+
+            // The triangle does not enclose the point, so the directions towards it span less than PI.
+            Point[] corners = triangle.getPoints();
+            double base = angle(coordinate, corners[0]);
+            double from = 0;
+            double to = 0;
+            for (int i = 1; i < corners.length; ++i) {
+                double angle = angle(coordinate, corners[i]) - base;
+                if (angle > Math.PI) {
+                    angle -= 2 * Math.PI;
+                } else if (angle < -Math.PI) {
+                    angle += 2 * Math.PI;
+                }
+                from = Math.min(from, angle);
+                to = Math.max(to, angle);
+            }
+            from += base - ANGLE_TOLERANCE;
+            to += base + ANGLE_TOLERANCE;
+
+            boolean reaches = false;
+            for (int sector = 0; sector < SECTORS; ++sector) {
+                if (distance > this.radii[sector]) {
+                    continue;
+                }
+                for (int turn = -1; turn <= 1; ++turn) {
+                    double shift = turn * 2 * Math.PI;
+                    if (from + shift <= Occlusion.sectorStart(sector + 1, SECTORS)
+                            && to + shift >= Occlusion.sectorStart(sector, SECTORS)) {
+                        sectors[sector] = true;
+                        reaches = true;
+                    }
+                }
+            }
+            return reaches;
+        }
+
+        /**
+         * Returns true, if the specified location lies within the radius of the point in a
+         * sector containing the direction towards it.
+         */
+        private boolean within(Coordinate coordinate) {
+            Coordinate pointCoordinate = this.point.getCoordinate();
+            double distance = pointCoordinate.distance(coordinate);
+            double angle = Math.atan2(coordinate.y - pointCoordinate.y, coordinate.x - pointCoordinate.x);
+            for (int sector = 0; sector < SECTORS; ++sector) {
+                if (distance <= this.radii[sector]
+                        && angle + ANGLE_TOLERANCE >= Occlusion.sectorStart(sector, SECTORS)
+                        && angle - ANGLE_TOLERANCE <= Occlusion.sectorStart(sector + 1, SECTORS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Disjoint groups of available points, which are merged by union-find.
+     */
+    private static class Groups {
+
+        /**
+         * The points of the groups, in the order they were added.
+         */
+        private List<AvailablePoint> members;
+
+        /**
+         * The indices of the points of the groups.
+         */
+        private Map<AvailablePoint, Integer> indices;
+
+        /**
+         * The index of the parent of each point. Roots are their own parents and
+         * have the smallest index of their group.
+         */
+        private int[] parents;
+
+
+        /**
+         * Creates no groups.
+         */
+        private Groups() {
+            this.members = new ArrayList<AvailablePoint>();
+            this.indices = new IdentityHashMap<AvailablePoint, Integer>();
+            this.parents = new int[16];
+        }
+
+        /**
+         * Returns the index of the specified point, adding it as group of its own if it is new.
+         */
+        private int index(AvailablePoint point) {
+            Integer index = this.indices.get(point);
+            if (index == null) {
+                index = this.members.size();
+                this.indices.put(point, index);
+                this.members.add(point);
+                if (index == this.parents.length) {
+                    this.parents = Arrays.copyOf(this.parents, 2 * index);
+                }
+                this.parents[index] = index;
+            }
+            return index;
+        }
+
+        /**
+         * Merges the groups of the points with the specified indices.
+         */
+        private void union(int index1, int index2) {
+            int root1 = root(index1);
+            int root2 = root(index2);
+            this.parents[Math.max(root1, root2)] = Math.min(root1, root2);
+        }
+
+        /**
+         * Returns the root of the specified index, halving the path to it.
+         */
+        private int root(int index) {
+            while (this.parents[index] != index) {
+                this.parents[index] = this.parents[this.parents[index]];
+                index = this.parents[index];
+            }
+            return index;
+        }
+
+        /**
+         * Returns the points of each group, ordered by their roots.
+         */
+        private List<List<AvailablePoint>> toLists() {
+            List<List<AvailablePoint>> lists = new ArrayList<List<AvailablePoint>>();
+            int[] listIndices = new int[this.members.size()];
+            for (int i = 0; i < this.members.size(); ++i) {
+                int root = root(i);
+                if (root == i) {
+                    listIndices[i] = lists.size();
+                    lists.add(new ArrayList<AvailablePoint>());
+                }
+                lists.get(listIndices[root]).add(this.members.get(i));
+            }
+            return lists;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package incremental;
+
+import geometry.polygon.ColoredPolygon;
+
+import java.util.List;
+
+/**
+ * The result of removing points from an incremental search: the triangles
+ * dissolved because they used a removed point, and the triangles found
+ * in their place.
+ *
+ * @author Kim-Anh Tran
+ */
+public class RemovalResult {
+
+    /**
+     * The dissolved triangles.
+     */
+    private List<ColoredPolygon> removed;
+
+    /**
+     * The triangles found in place of the dissolved ones.
+     */
+    private List<ColoredPolygon> added;
+
+
+    /**
+     * Creates the result of a removal.
+     *
+     * @param removed   The dissolved triangles.
+     * @param added     The triangles found in place of the dissolved ones.
+     */
+    RemovalResult(List<ColoredPolygon> removed, List<ColoredPolygon> added) {
+        this.removed = removed;
+        this.added = added;
+    }
+
+    /**
+     * Returns the triangles that were dissolved, because a removed point was one of their corners.
+     *
+     * @return The dissolved triangles.
+     */
+    public List<ColoredPolygon> getRemovedTriangles() {
+        return this.removed;
+    }
+
+    /**
+     * Returns the triangles found in place of the dissolved ones.
+     *
+     * @return The added triangles.
+     */
+    public List<ColoredPolygon> getAddedTriangles() {
+        return this.added;
+    }
+}
@@ -0,0 +1,74 @@
+package main;
+
+import batch.BatchRunner;
+import batch.InstanceResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Main class for searching the triangles of many input files in one process.
+ *
+ * @author Kim-Anh Tran
+ */
+public class BatchMain {
+
+    /**
+     * Option for the directory the results are written to.
+     */
+    private static final String OUTPUT_OPTION = "--output";
+
+    /**
+     * The directory the results are written to, by default.
+     */
+    private static final String DEFAULT_OUTPUT = "results";
+
+    /**
+     * Searches the triangles of the specified files and of the files in the specified
+     * directories. Writes the triangles of each input to output/name.triangles and the
+     * timings of all inputs to output/summary.tsv. Inputs with the same name are rejected.
+     *
+     * @param args  Optional: --output directory, "results" by default.
+     *              Required: at least one input file or directory.
+     */
+    public static void main(String[] args) {
+        String output = DEFAULT_OUTPUT;
+        List<String> paths = new ArrayList<String>();
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].equals(OUTPUT_OPTION) && i + 1 < args.length) {
+                output = args[++i];
+            } else {
+                paths.add(args[i]);
+            }
+        }
+        if (paths.isEmpty()) {
+            System.err.println("Usage: BatchMain [" + OUTPUT_OPTION + " <directory>] <file|directory>...");
+            System.exit(1);
+        }
+
+        try {
+            long start = System.nanoTime();
+            List<InstanceResult> results = new BatchRunner(new File(output)).run(BatchRunner.collectInputs(paths));
+
+            int failed = 0;
+            for (InstanceResult result : results) {
+                if (result.getError() != null) {
+                    System.err.println(result.getInput() + ": " + result.getError());
+                    ++failed;
+                }
+            }
+            System.err.println("Searched " + results.size() + " inputs in "
+                    + (System.nanoTime() - start) / 1000000 + " ms, " + failed + " failed. Summary: "
+                    + new File(output, BatchRunner.SUMMARY_FILE));
+            if (failed > 0) {
+                System.exit(1);
+            }
+
+        } catch (IOException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
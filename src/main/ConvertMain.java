@@ -0,0 +1,77 @@
+package main;
+
+import geometry.point.PointStore;
+import geometry.polygon.ColoredPolygon;
+import util.io.BinaryReader;
+import util.io.BinaryWriter;
+import util.io.Reader;
+import util.io.Writer;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * Main class for converting points and triangles between the text and the binary format.
+ *
+ * @author Kim-Anh Tran
+ */
+public class ConvertMain {
+
+    /**
+     * Option for converting triangles instead of points.
+     */
+    private static final String TRIANGLES_OPTION = "--triangles";
+
+    /**
+     * Converts the input file into the other format: binary files into text and text files
+     * into binary. The format of the input is detected from the magic bytes of the binary format.
+     *
+     * @param args  Optional: --triangles, for converting triangles instead of points.
+     *              Required: the input file and the output file.
+     */
+    public static void main(String[] args) {
+        boolean triangles = args.length == 3 && args[0].equals(TRIANGLES_OPTION);
+        if (args.length != (triangles ? 3 : 2)) {
+            System.err.println("Usage: ConvertMain [" + TRIANGLES_OPTION + "] <input> <output>");
+            System.exit(1);
+        }
+        String input = args[args.length - 2];
+        String output = args[args.length - 1];
+
+        try {
+            InputStream inStream = new BufferedInputStream(new FileInputStream(input));
+            OutputStream outStream = new FileOutputStream(output);
+            if (triangles) {
+                if (BinaryReader.isBinaryTriangles(inStream)) {
+                    List<ColoredPolygon> polygons = BinaryReader.readTriangles(inStream);
+                    Writer.writeTriangles(outStream, polygons);
+                } else {
+                    List<ColoredPolygon> polygons = Reader.readTriangles(inStream);
+                    BinaryWriter.writeTriangles(outStream, polygons);
+                }
+            } else {
+                if (BinaryReader.isBinaryPoints(inStream)) {
+                    PointStore points = BinaryReader.readPointStore(inStream);
+                    Writer.writePoints(outStream, points);
+                } else {
+                    PointStore points = Reader.readPointStore(inStream);
+                    BinaryWriter.writePoints(outStream, points);
+                }
+            }
+
+        } catch (ParseException e) {
+            System.err.println(e.getMessage() + "Occurred at parsing value number " + e.getErrorOffset());
+            System.exit(1);
+
+        } catch (IOException e) {
+            System.err.println("Converting " + input + " failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
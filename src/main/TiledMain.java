@@ -0,0 +1,95 @@
+package main;
+
+import geometry.polygon.ColoredPolygon;
+import search.TriangleSink;
+import tiling.TiledSearch;
+import util.io.TriangleStreamWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * Main class for searching the triangles of point sets that do not fit onto
+ * the heap, tile by tile (see {@link TiledSearch}).
+ *
+ * @author Kim-Anh Tran
+ */
+public class TiledMain {
+
+    /**
+     * Option for the number of points aimed for per tile.
+     */
+    private static final String TILE_POINTS_OPTION = "--tile-points";
+
+    /**
+     * Option for the directory the tile files are written to.
+     */
+    private static final String WORK_OPTION = "--work";
+
+    /**
+     * Searches the triangles of the specified file and writes them to std:out in the
+     * streamed text format (see {@link TriangleStreamWriter}) as soon as they are final.
+     *
+     * @param args  Optional: --tile-points n, the number of points aimed for per tile.
+     *              --work directory, for the tile files. The temporary directory by default.
+     *              Required: the input file, in the text or the binary format.
+     */
+    public static void main(String[] args) {
+        String input = null;
+        File work = new File(System.getProperty("java.io.tmpdir"));
+        int tilePoints = TiledSearch.TILE_POINTS;
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].equals(TILE_POINTS_OPTION) && i + 1 < args.length) {
+                try {
+                    tilePoints = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    tilePoints = 0;
+                }
+            } else if (args[i].equals(WORK_OPTION) && i + 1 < args.length) {
+                work = new File(args[++i]);
+            } else {
+                input = args[i];
+            }
+        }
+        if (input == null || tilePoints < 1) {
+            System.err.println("Usage: TiledMain [" + TILE_POINTS_OPTION + " <n>] [" + WORK_OPTION
+                    + " <directory>] <input>");
+            System.exit(1);
+        }
+
+        try {
+            File directory = File.createTempFile("tiles", "", work);
+            if (!directory.delete() || !directory.mkdir()) {
+                throw new IOException("Can not create directory " + directory);
+            }
+            TiledSearch search = new TiledSearch(directory);
+            search.setTilePoints(tilePoints);
+
+            long start = System.nanoTime();
+            final TriangleStreamWriter writer = new TriangleStreamWriter(System.out);
+            try {
+                search.search(new File(input), new TriangleSink() {
+                    @Override
+                    public void add(ColoredPolygon triangle) {
+                        writer.write(triangle);
+                    }
+                });
+            } finally {
+                directory.delete();
+            }
+            writer.close();
+            System.err.println("Searched " + search.getTiles() + " tiles and " + search.getBorderPoints()
+                    + " border points in " + (System.nanoTime() - start) / 1000000 + " ms, loading "
+                    + search.getTileLoads() + " tiles of triangles.");
+
+        } catch (ParseException e) {
+            System.err.println(e.getMessage() + "Occurred at parsing point number " + e.getErrorOffset());
+            System.exit(1);
+
+        } catch (IOException e) {
+            System.err.println("Reading points or writing triangles failed unexpected: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
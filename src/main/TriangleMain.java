@@ -1,12 +1,27 @@
 package main;
 
-import geometry.point.ColoredPoint;
+import geometry.point.PointStore;
 import geometry.polygon.ColoredPolygon;
+import search.ResultCache;
+import search.SearchConfiguration;
+import search.SearchResult;
+import search.SearchStatistics;
 import search.TriangleSearch;
+import search.TriangleSink;
+import server.TriangleServer;
+import util.comparator.SpaceFillingCurve;
+import util.io.BinaryReader;
+import util.io.BinaryWriter;
 import util.io.Reader;
+import util.io.TriangleStreamWriter;
 import util.io.Writer;
 
+import javax.management.JMException;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.text.ParseException;
 import java.util.List;
 
@@ -17,27 +32,383 @@ import java.util.List;
  */
 public class TriangleMain {
 
+    /**
+     * Option for collecting statistics of the search and printing them to std:err.
+     */
+    private static final String STATS_OPTION = "--stats";
+
+    /**
+     * Option for writing triangles as soon as they are found.
+     */
+    private static final String STREAM_OPTION = "--stream";
+
+    /**
+     * Option for the number of seeds whose triangles are searched ahead in parallel.
+     */
+    private static final String SPECULATIVE_SEEDS_OPTION = "--speculative-seeds";
+
+    /**
+     * Option for committing the faces of Delaunay triangulations of the colors first.
+     */
+    private static final String DELAUNAY_OPTION = "--delaunay";
+
+    /**
+     * Option for the time in milliseconds after which the search stops with the triangles found so far.
+     */
+    private static final String TIME_LIMIT_OPTION = "--time-limit";
+
+    /**
+     * Option for the curve the points are laid out along, followed by hilbert or morton.
+     */
+    private static final String LAYOUT_OPTION = "--layout";
+
+    /**
+     * Option for the directory of a persistent cache of results, see {@link ResultCache}.
+     */
+    private static final String CACHE_OPTION = "--cache";
+
+    /**
+     * Option for the greatest number of megabytes taken by the cached results.
+     */
+    private static final String CACHE_SIZE_OPTION = "--cache-size";
+
+    /**
+     * Option for reading the points from a file instead of std:in.
+     */
+    private static final String INPUT_OPTION = "--input";
+
+    /**
+     * Option for the format of the points, followed by text or binary.
+     */
+    private static final String FORMAT_OPTION = "--format";
+
+    /**
+     * Option for the format of the triangles, followed by text or binary.
+     */
+    private static final String OUTPUT_FORMAT_OPTION = "--output-format";
+
+    /**
+     * Option for running as server on the specified port, see {@link TriangleServer}.
+     */
+    private static final String SERVER_OPTION = "--server";
+
+    /**
+     * Option for the greatest number of searches the server runs at once.
+     */
+    private static final String MAX_CONCURRENT_OPTION = "--max-concurrent";
+
+    /**
+     * Option for the greatest number of requests waiting for a search slot of the server.
+     */
+    private static final String QUEUE_OPTION = "--queue";
+
+    /**
+     * The greatest number of requests waiting for a search slot of the server, by default.
+     */
+    private static final int DEFAULT_QUEUE_SIZE = 16;
+
+    /**
+     * The name of the text format in options.
+     */
+    private static final String TEXT_FORMAT = "text";
+
+    /**
+     * The name of the binary format in options.
+     */
+    private static final String BINARY_FORMAT = "binary";
+
     /**
      * Reads in 2d points from std:in, searches for triangles and writes them to std:out.
      *
-     * @param args // None
+     * @param args  Optional: --stats, for collecting statistics of the search. They are
+     *              available via JMX while searching, and printed as JSON to std:err afterwards.
+     *              --input file, for reading the points from a file. Files in the binary
+     *              format are mapped into memory instead of being read.
+     *              --format text|binary, the format of the points. Detected from the
+     *              magic bytes of the binary format, if not specified.
+     *              --output-format text|binary, the format of the triangles. Text by default.
+     *              --stream, for writing triangles in the text format as soon as they are found,
+     *              followed by a trailer instead of preceded by their number.
+     *              --speculative-seeds n, for searching the triangles of n seeds ahead in
+     *              parallel within each task (see SearchConfiguration#setSpeculativeSeeds).
+     *              --delaunay, for committing the faces of Delaunay triangulations of the
+     *              colors first (see SearchConfiguration#setDelaunayCandidates).
+     *              --time-limit ms, for stopping the search after ms milliseconds. The triangles
+     *              found so far are written, and a note is printed to std:err if they are incomplete.
+     *              --layout hilbert|morton, for laying out the points along a space-filling curve
+     *              before the search (see SearchConfiguration#setLayoutCurve).
+     *              --cache directory, for taking the triangles from a cache of results in the
+     *              directory if the same points were searched with the same options before,
+     *              and storing them otherwise (see ResultCache), with --cache-size mb megabytes
+     *              of results at most (1024 by default).
+     *              --server port, for running as server on the specified local port instead,
+     *              with --max-concurrent n searches at once (the number of processors by
+     *              default) and --queue n waiting requests (16 by default). The server searches
+     *              with the default configuration, so it takes none of the options above.
+     *              Unknown options, missing values and options of the other mode are
+     *              rejected with the usage.
      */
     public static void main(String[] args) {
+        SearchConfiguration configuration = new SearchConfiguration();
+        String input = null;
+        String cacheDirectory = null;
+        long cacheBytes = ResultCache.MAX_BYTES;
+        String format = null;
+        String outputFormat = TEXT_FORMAT;
+        boolean stream = false;
+        int port = -1;
+        int maxConcurrent = Runtime.getRuntime().availableProcessors();
+        int queueSize = DEFAULT_QUEUE_SIZE;
+        String searchOption = null;
+        String serverOption = null;
+        for (int i = 0; i < args.length; ++i) {
+            String option = args[i];
+            if (option.equals(SERVER_OPTION)) {
+                port = intOption(optionValue(args, ++i));
+                continue;
+            } else if (option.equals(MAX_CONCURRENT_OPTION)) {
+                maxConcurrent = intOption(optionValue(args, ++i));
+                serverOption = option;
+                continue;
+            } else if (option.equals(QUEUE_OPTION)) {
+                queueSize = intOption(optionValue(args, ++i));
+                serverOption = option;
+                continue;
+            }
+
+            if (option.equals(STATS_OPTION)) {
+                SearchStatistics statistics = new SearchStatistics();
+                try {
+                    statistics.register();
+                } catch (JMException e) {
+                    System.err.println("Statistics are not available via JMX: " + e.getMessage());
+                }
+                configuration.setStatistics(statistics);
+            } else if (option.equals(STREAM_OPTION)) {
+                stream = true;
+            } else if (option.equals(SPECULATIVE_SEEDS_OPTION)) {
+                configuration.setSpeculativeSeeds(intOption(optionValue(args, ++i)));
+            } else if (option.equals(DELAUNAY_OPTION)) {
+                configuration.setDelaunayCandidates(true);
+            } else if (option.equals(TIME_LIMIT_OPTION)) {
+                configuration.setTimeLimit(intOption(optionValue(args, ++i)));
+            } else if (option.equals(LAYOUT_OPTION)) {
+                configuration.setLayoutCurve(curveOption(optionValue(args, ++i)));
+            } else if (option.equals(CACHE_OPTION)) {
+                cacheDirectory = optionValue(args, ++i);
+            } else if (option.equals(CACHE_SIZE_OPTION)) {
+                cacheBytes = intOption(optionValue(args, ++i)) * (1L << 20);
+            } else if (option.equals(INPUT_OPTION)) {
+                input = optionValue(args, ++i);
+            } else if (option.equals(FORMAT_OPTION)) {
+                format = formatOption(optionValue(args, ++i));
+            } else if (option.equals(OUTPUT_FORMAT_OPTION)) {
+                outputFormat = formatOption(optionValue(args, ++i));
+            } else {
+                usage("Unknown option: " + option);
+            }
+            searchOption = option;
+        }
+
+        if (port >= 0) {
+            // The server searches each request with a configuration of its own, the default one.
+            if (searchOption != null) {
+                usage("Option " + searchOption + " can not be combined with " + SERVER_OPTION);
+            }
+            serve(port, maxConcurrent, queueSize);
+            return;
+        }
+        if (serverOption != null) {
+            usage("Option " + serverOption + " requires " + SERVER_OPTION);
+        }
+
+        if (stream && outputFormat.equals(BINARY_FORMAT)) {
+            System.err.println("Triangles can only be streamed in the " + TEXT_FORMAT + " format.");
+            System.exit(1);
+        }
+
         try {
-            List<ColoredPoint> points = Reader.readPoints(System.in);
+            PointStore points = readPoints(input, format);
 
-            List<ColoredPolygon> triangles;
-            triangles = TriangleSearch.searchForTriangles(points);
+            final TriangleStreamWriter streamWriter = stream ? new TriangleStreamWriter(System.out) : null;
+            if (streamWriter != null) {
+                configuration.setTriangleSink(new TriangleSink() {
+                    @Override
+                    public void add(ColoredPolygon triangle) {
+                        streamWriter.write(triangle);
+                    }
+                });
+            }
 
-            Writer.writeTriangles(System.out, triangles);
+            SearchResult result;
+            if (cacheDirectory != null) {
+                result = new ResultCache(new File(cacheDirectory), cacheBytes).search(points, configuration);
+            } else {
+                result = TriangleSearch.start(points, configuration).getResult();
+            }
+            List<ColoredPolygon> triangles = result.getTriangles();
+            if (!result.isComplete()) {
+                System.err.println("The search stopped at the time limit, further triangles may be inserted.");
+            }
+
+            if (streamWriter != null) {
+                streamWriter.close();
+            } else if (outputFormat.equals(BINARY_FORMAT)) {
+                BinaryWriter.writeTriangles(System.out, triangles);
+            } else {
+                Writer.writeTriangles(System.out, triangles);
+            }
+
+            if (configuration.getStatistics() != null) {
+                System.err.println(configuration.getStatistics().toJson());
+            }
 
         } catch (ParseException e) {
             System.err.println(e.getMessage() + "Occurred at parsing point number " + e.getErrorOffset());
             System.exit(1);
 
         } catch (IOException e) {
-            System.err.println("Writing triangles to std:out failed unexpected.");
+            System.err.println("Reading points, writing triangles or accessing the cache failed unexpected: "
+                    + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the points in the specified format from the specified file, or from std:in.
+     *
+     * @param input     The file name, or null for std:in.
+     * @param format    The format of the points, or null for detecting it from the input.
+     * @return          The points.
+     * @throws ParseException Thrown, if the points can not be parsed.
+     * @throws IOException    Thrown, if the points can not be read.
+     */
+    private static PointStore readPoints(String input, String format) throws ParseException, IOException {
+        if (input != null) {
+            File file = new File(input);
+            boolean binary = format == null ? BinaryReader.isBinaryPoints(file) : format.equals(BINARY_FORMAT);
+            if (binary) {
+                return BinaryReader.mapPointStore(file);
+            }
+            return Reader.readPointStore(new FileInputStream(file));
+        }
+
+        InputStream inStream = new BufferedInputStream(System.in);
+        boolean binary = format == null ? BinaryReader.isBinaryPoints(inStream) : format.equals(BINARY_FORMAT);
+        if (binary) {
+            return BinaryReader.readPointStore(inStream);
+        }
+        return Reader.readPointStore(inStream);
+    }
+
+    /**
+     * Starts a server, which runs until the JVM is terminated.
+     *
+     * @param port          The port.
+     * @param maxConcurrent The greatest number of searches running at once.
+     * @param queueSize     The greatest number of requests waiting for a search slot.
+     */
+    private static void serve(int port, int maxConcurrent, int queueSize) {
+        final TriangleServer server;
+        try {
+            server = new TriangleServer(port, maxConcurrent, queueSize);
+        } catch (IOException e) {
+            System.err.println("Starting the server failed: " + e.getMessage());
             System.exit(1);
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                server.stop(1);
+            }
+        });
+        server.start();
+        System.err.println("Listening on port " + server.getPort());
+    }
+
+    /**
+     * Returns the value of the option preceding the specified index, or exits if it is missing.
+     *
+     * @param args  The arguments.
+     * @param i     The index of the value.
+     * @return      The value.
+     */
+    private static String optionValue(String[] args, int i) {
+        if (i >= args.length) {
+            usage("Missing value of option " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    /**
+     * Prints the specified message and the usage to std:err, and exits.
+     *
+     * @param message   The reason the arguments are rejected.
+     */
+    private static void usage(String message) {
+        System.err.println(message + ".");
+        System.err.println("Usage: TriangleMain [" + INPUT_OPTION + " <file>] [" + FORMAT_OPTION + " text|binary] ["
+                + OUTPUT_FORMAT_OPTION + " text|binary] [" + STREAM_OPTION + "] [" + STATS_OPTION + "] ["
+                + SPECULATIVE_SEEDS_OPTION + " <n>] [" + DELAUNAY_OPTION + "] [" + TIME_LIMIT_OPTION + " <ms>] ["
+                + LAYOUT_OPTION + " hilbert|morton] [" + CACHE_OPTION + " <directory> [" + CACHE_SIZE_OPTION + " <mb>]]");
+        System.err.println("       TriangleMain " + SERVER_OPTION + " <port> [" + MAX_CONCURRENT_OPTION + " <n>] ["
+                + QUEUE_OPTION + " <n>]");
+        System.exit(1);
+    }
+
+    /**
+     * Returns the specified non-negative integer, or exits if it is none.
+     *
+     * @param value The value of an option.
+     * @return      The integer.
+     */
+    private static int intOption(String value) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n >= 0) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        System.err.println("Expected a non-negative integer: " + value);
+        System.exit(1);
+        return -1;
+    }
+
+    /**
+     * Returns the specified format, or exits if it is unknown.
+     *
+     * @param format    The value of a format option.
+     * @return          The format.
+     */
+    private static String formatOption(String format) {
+        if (!format.equals(TEXT_FORMAT) && !format.equals(BINARY_FORMAT)) {
+            System.err.println("Unknown format: " + format + ". Specify " + TEXT_FORMAT + " or " + BINARY_FORMAT + ".");
+            System.exit(1);
+        }
+        return format;
+    }
+
+    /**
+     * Returns the specified space-filling curve, or exits if it is unknown.
+     *
+     * @param curve The name of the curve, in lower case.
+     * @return      The curve.
+     */
+    private static SpaceFillingCurve curveOption(String curve) {
+        for (SpaceFillingCurve value : SpaceFillingCurve.values()) {
+            if (value.name().toLowerCase().equals(curve)) {
+                return value;
+            }
         }
+        System.err.println("Unknown curve: " + curve + ". Specify hilbert or morton.");
+        System.exit(1);
+        return null;
     }
-}
\ No newline at end of file
+}
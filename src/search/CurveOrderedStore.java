@@ -0,0 +1,111 @@
+package search;
+
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.ColoredPoint;
+import geometry.point.PointStore;
+import util.comparator.RadixSorter;
+import util.comparator.SpaceFillingCurve;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A copy of the points of a store, laid out in the order of a space-filling
+ * curve (see {@link SearchConfiguration#setLayoutCurve(SpaceFillingCurve)}).
+ * The ids of points that are close in the plane are close to each other, so
+ * the coordinates, flags, radii and links of a task's points, which are all
+ * indexed by id, lie close together in memory.
+ *
+ * {@link CurveOrderedStore#getPoint(int)} returns the points of the original
+ * store, so that triangles consist of the caller's points.
+ *
+ * @author Kim-Anh Tran
+ */
+class CurveOrderedStore implements PointStore {
+
+    /**
+     * The store containing the points in their original order.
+     */
+    private PointStore original;
+
+    /**
+     * The original ids of the points, indexed by their ids in this store.
+     */
+    private int[] originalIds;
+
+    /**
+     * The x values, indexed by id.
+     */
+    private double[] xs;
+
+    /**
+     * The y values, indexed by id.
+     */
+    private double[] ys;
+
+    /**
+     * The integer representations of the colors, indexed by id.
+     */
+    private byte[] colors;
+
+
+    /**
+     * Creates a copy of the specified store, laid out along the specified curve.
+     *
+     * @param original  The store.
+     * @param curve     The curve.
+     * @param pool      The pool sorting the points by their positions along the
+     *                  curve, or null for sorting them in the calling thread.
+     */
+    CurveOrderedStore(PointStore original, SpaceFillingCurve curve, ForkJoinPool pool) {
+        this.original = original;
+        int nPoints = original.size();
+
+        Envelope bounds = new Envelope();
+        for (int id = 0; id < nPoints; ++id) {
+            bounds.expandToInclude(original.getX(id), original.getY(id));
+        }
+        this.originalIds = new int[nPoints];
+        long[] keys = new long[nPoints];
+        for (int id = 0; id < nPoints; ++id) {
+            this.originalIds[id] = id;
+            keys[id] = curve.key(SpaceFillingCurve.cell(original.getX(id), bounds.getMinX(), bounds.getWidth()),
+                    SpaceFillingCurve.cell(original.getY(id), bounds.getMinY(), bounds.getHeight()));
+        }
+        RadixSorter.sort(this.originalIds, keys, SpaceFillingCurve.KEY_BITS, pool);
+
+        this.xs = new double[nPoints];
+        this.ys = new double[nPoints];
+        this.colors = new byte[nPoints];
+        for (int id = 0; id < nPoints; ++id) {
+            int originalId = this.originalIds[id];
+            this.xs[id] = original.getX(originalId);
+            this.ys[id] = original.getY(originalId);
+            this.colors[id] = (byte) original.getColorIndex(originalId);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.xs.length;
+    }
+
+    @Override
+    public double getX(int id) {
+        return this.xs[id];
+    }
+
+    @Override
+    public double getY(int id) {
+        return this.ys[id];
+    }
+
+    @Override
+    public int getColorIndex(int id) {
+        return this.colors[id];
+    }
+
+    @Override
+    public ColoredPoint getPoint(int id) {
+        return this.original.getPoint(this.originalIds[id]);
+    }
+}
@@ -0,0 +1,129 @@
+package search;
+
+import color.Color;
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.triangulate.DelaunayTriangulationBuilder;
+import geometry.point.PointStore;
+import geometry.polygon.triangle.ColoredTriangle;
+import util.collection.ConcurrentBitSet;
+import util.collection.IntList;
+import util.comparator.IdComparator;
+import util.comparator.IdSorter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Proposes candidate triangles from a Delaunay triangulation of the points of
+ * each color. Delaunay faces connect close points and avoid long, thin shapes,
+ * so committing the smallest faces first packs many triangles that rarely block
+ * each other. The faces are ordered by their longest side, shortest first.
+ *
+ * The faces do not cover all possible triangles, so a search committing them
+ * still has to search the remaining points for triangles to be complete.
+ *
+ * @author Kim-Anh Tran
+ */
+final class DelaunayCandidates {
+
+    /**
+     * Empty, private constructor. Prevents from initiating an object from DelaunayCandidates.
+     */
+    private DelaunayCandidates() {
+    }
+
+    /**
+     * Returns the faces of the Delaunay triangulations of the available points
+     * of each color, ordered by their longest side, shortest first. Faces of
+     * collinear points are left out. Of points with equal coordinates, only the
+     * first one is part of faces.
+     *
+     * @param store     The store containing the points.
+     * @param points    The ids of the points.
+     * @param enclosed  The flags indicating which points are not available.
+     * @return          The ids of the corners of the faces, three per face.
+     */
+    static IntList faces(PointStore store, int[] points, ConcurrentBitSet enclosed) {
+        int nColors = Color.values().length;
+        List<Map<Coordinate, Integer>> sites = new ArrayList<Map<Coordinate, Integer>>(nColors);
+        for (int color = 0; color < nColors; ++color) {
+            sites.add(new HashMap<Coordinate, Integer>());
+        }
+        for (int id : points) {
+            if (!enclosed.get(id)) {
+                Coordinate coordinate = new Coordinate(store.getX(id), store.getY(id));
+                Map<Coordinate, Integer> colorSites = sites.get(store.getColorIndex(id));
+                if (!colorSites.containsKey(coordinate)) {
+                    colorSites.put(coordinate, id);
+                }
+            }
+        }
+
+        final IntList faces = new IntList();
+        for (Map<Coordinate, Integer> colorSites : sites) {
+            if (colorSites.size() >= ColoredTriangle.N_POINTS) {
+                addFaces(colorSites, faces);
+            }
+        }
+
+        // Order the faces by the length of their longest side, and by the order of the triangulations.
+        int nFaces = faces.size() / ColoredTriangle.N_POINTS;
+        final double[] lengths = new double[nFaces];
+        int[] order = new int[nFaces];
+        for (int face = 0; face < nFaces; ++face) {
+            int p1 = faces.get(ColoredTriangle.N_POINTS * face);
+            int p2 = faces.get(ColoredTriangle.N_POINTS * face + 1);
+            int p3 = faces.get(ColoredTriangle.N_POINTS * face + 2);
+            lengths[face] = Math.max(squaredDistance(store, p1, p2),
+                    Math.max(squaredDistance(store, p2, p3), squaredDistance(store, p3, p1)));
+            order[face] = face;
+        }
+        IdSorter.sort(order, 0, nFaces, new IdComparator() {
+            @Override
+            public int compare(int face1, int face2) {
+                int result = Double.compare(lengths[face1], lengths[face2]);
+                return result != 0 ? result : face1 - face2;
+            }
+        });
+
+        IntList sorted = new IntList(faces.size());
+        for (int face : order) {
+            for (int corner = 0; corner < ColoredTriangle.N_POINTS; ++corner) {
+                sorted.add(faces.get(ColoredTriangle.N_POINTS * face + corner));
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Triangulates the specified points of one color and adds the corners of its faces.
+     *
+     * @param sites The ids of the points, by their coordinates.
+     * @param faces The corners of the faces, three per face.
+     */
+    private static void addFaces(Map<Coordinate, Integer> sites, IntList faces) {
+        DelaunayTriangulationBuilder builder = new DelaunayTriangulationBuilder();
+        builder.setSites(sites.keySet());
+        for (Object face : builder.getSubdivision().getTriangleCoordinates(false)) {
+            Coordinate[] corners = (Coordinate[]) face;
+            if (CGAlgorithms.computeOrientation(corners[0], corners[1], corners[2]) == CGAlgorithms.COLLINEAR) {
+                continue;
+            }
+            for (int corner = 0; corner < ColoredTriangle.N_POINTS; ++corner) {
+                faces.add(sites.get(corners[corner]));
+            }
+        }
+    }
+
+    /**
+     * Returns the squared distance between the specified points.
+     */
+    private static double squaredDistance(PointStore store, int id1, int id2) {
+        double dx = store.getX(id1) - store.getX(id2);
+        double dy = store.getY(id1) - store.getY(id2);
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,165 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects the sizes and search times of the leaves the search space is
+ * partitioned into, so that the balance of the partitioning can be checked.
+ * An instance can be passed to the search by
+ * {@link SearchConfiguration#setPartitionReport(PartitionReport)}.
+ *
+ * @author Kim-Anh Tran
+ */
+public class PartitionReport {
+
+    /**
+     * The reported leaves.
+     */
+    private ConcurrentLinkedQueue<Leaf> leaves;
+
+
+    /**
+     * Creates a new, empty report.
+     */
+    public PartitionReport() {
+        this.leaves = new ConcurrentLinkedQueue<Leaf>();
+    }
+
+    /**
+     * Adds a searched leaf to the report. Can be called by several threads at once.
+     *
+     * @param depth         The splitting depth of the leaf.
+     * @param nPoints       The number of points of the leaf.
+     * @param nanos         The time needed for searching the leaf, in nanoseconds.
+     * @param nTriangles    The number of triangles found in the leaf.
+     */
+    void addLeaf(int depth, int nPoints, long nanos, int nTriangles) {
+        this.leaves.add(new Leaf(depth, nPoints, nanos, nTriangles));
+    }
+
+    /**
+     * Returns the reported leaves.
+     *
+     * @return The reported leaves, in no particular order.
+     */
+    public List<Leaf> getLeaves() {
+        return new ArrayList<Leaf>(this.leaves);
+    }
+
+    /**
+     * Removes all reported leaves.
+     */
+    public void clear() {
+        this.leaves.clear();
+    }
+
+    /**
+     * Returns a summary of the leaf sizes and times: count, minimum, median and maximum.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        List<Leaf> sorted = getLeaves();
+        if (sorted.isEmpty()) {
+            return "leaves: 0";
+        }
+
+        Collections.sort(sorted, new Comparator<Leaf>() {
+            @Override
+            public int compare(Leaf l1, Leaf l2) {
+                return l1.getPoints() < l2.getPoints() ? -1 : (l1.getPoints() == l2.getPoints() ? 0 : 1);
+            }
+        });
+        int n = sorted.size();
+        String sizes = "points min/median/max: " + sorted.get(0).getPoints() + "/"
+                + sorted.get(n / 2).getPoints() + "/" + sorted.get(n - 1).getPoints();
+
+        Collections.sort(sorted, new Comparator<Leaf>() {
+            @Override
+            public int compare(Leaf l1, Leaf l2) {
+                return l1.getNanos() < l2.getNanos() ? -1 : (l1.getNanos() == l2.getNanos() ? 0 : 1);
+            }
+        });
+        String times = "millis min/median/max: " + sorted.get(0).getNanos() / 1000000 + "/"
+                + sorted.get(n / 2).getNanos() / 1000000 + "/" + sorted.get(n - 1).getNanos() / 1000000;
+
+        return "leaves: " + n + ", " + sizes + ", " + times;
+    }
+
+    /**
+     * A searched leaf of the partitioning.
+     */
+    public static class Leaf {
+
+        /**
+         * The splitting depth of the leaf.
+         */
+        private int depth;
+
+        /**
+         * The number of points of the leaf.
+         */
+        private int points;
+
+        /**
+         * The time needed for searching the leaf, in nanoseconds.
+         */
+        private long nanos;
+
+        /**
+         * The number of triangles found in the leaf.
+         */
+        private int triangles;
+
+        /**
+         * Creates a new leaf entry.
+         */
+        private Leaf(int depth, int points, long nanos, int triangles) {
+            this.depth = depth;
+            this.points = points;
+            this.nanos = nanos;
+            this.triangles = triangles;
+        }
+
+        /**
+         * Returns the splitting depth of the leaf.
+         *
+         * @return The splitting depth.
+         */
+        public int getDepth() {
+            return this.depth;
+        }
+
+        /**
+         * Returns the number of points of the leaf.
+         *
+         * @return The number of points.
+         */
+        public int getPoints() {
+            return this.points;
+        }
+
+        /**
+         * Returns the time needed for searching the leaf.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * Returns the number of triangles found in the leaf.
+         *
+         * @return The number of triangles.
+         */
+        public int getTriangles() {
+            return this.triangles;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package search;
+
+import geometry.point.PointStore;
+import geometry.polygon.ColoredPolygon;
+import util.comparator.SpaceFillingCurve;
+import util.io.BinaryReader;
+import util.io.BinaryWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A persistent cache of search results in a directory on local disk, so that
+ * searching the same points with the same configuration again only costs hashing
+ * the points and reading the stored triangles.
+ *
+ * Results are keyed by the SHA-256 hash of the parameters changing the result
+ * (the number of points per leaf, the splitting depth, speculative seeds, Delaunay
+ * candidates and the layout curve) and of the points in the order of their ids:
+ * their x values, y values and colors, as in the binary format. The key therefore
+ * does not depend on the format the points were read from.
+ *
+ * Each entry is a file named after its key, holding the key, the SHA-256 hash
+ * of the triangles and the triangles in the binary format. Entries whose key or
+ * hash do not match when they are read are deleted and treated as missing.
+ * Entries are written to a temporary file first and renamed, so that processes
+ * sharing the directory never read partial entries.
+ *
+ * The entries take at most the specified number of bytes: after writing an
+ * entry, the least recently used entries are deleted. The time of the last use
+ * is the modification time of the file, which is updated on every hit.
+ *
+ * Only complete results of searches without fixed triangles are cached.
+ *
+ * @author Kim-Anh Tran
+ */
+public class ResultCache {
+
+    /**
+     * The greatest number of bytes taken by the entries, by default.
+     */
+    public static final long MAX_BYTES = 1L << 30;
+
+    /**
+     * The version of the keys and entries. Changes whenever the search finds
+     * different triangles for the same input, so that old entries are not used.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The algorithm of the keys and of the hashes of the triangles.
+     */
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * The number of bytes of a hash.
+     */
+    private static final int HASH_BYTES = 32;
+
+    /**
+     * The suffix of the files of entries.
+     */
+    private static final String ENTRY_SUFFIX = ".trit";
+
+    /**
+     * The suffix of the files of entries that are being written.
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * The size of the buffer the points are hashed through, in bytes.
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * The directory of the entries.
+     */
+    private File directory;
+
+    /**
+     * The greatest number of bytes taken by the entries.
+     */
+    private long maxBytes;
+
+
+    /**
+     * Creates a cache in the specified directory, which is created if it does
+     * not exist. Entries written before, also by other processes, are used.
+     *
+     * @param directory The directory.
+     * @param maxBytes  The greatest number of bytes taken by the entries.
+     * @throws IOException Thrown, if the directory does not exist and can not be created.
+     */
+    public ResultCache(File directory, long maxBytes) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the cache directory " + directory);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the triangles of the specified points, from the cache if the same
+     * search was run before, otherwise by searching them and caching the result if
+     * it is complete. On a hit, the triangles are passed to the sink of the
+     * configuration, if any.
+     *
+     * @param store         The points.
+     * @param configuration The configuration of the search.
+     * @return              The result.
+     * @throws IOException  Thrown, if reading or writing an entry failed.
+     */
+    public SearchResult search(PointStore store, SearchConfiguration configuration) throws IOException {
+        if (configuration.getFixedTriangles() != null) {
+            return TriangleSearch.start(store, configuration).getResult();
+        }
+
+        String key = key(store, configuration);
+        List<ColoredPolygon> triangles = get(key);
+        if (triangles != null) {
+            TriangleSink sink = configuration.getTriangleSink();
+            if (sink != null) {
+                for (ColoredPolygon triangle : triangles) {
+                    sink.add(triangle);
+                }
+            }
+            return new SearchResult(triangles, true);
+        }
+
+        SearchResult result = TriangleSearch.start(store, configuration).getResult();
+        if (result.isComplete()) {
+            put(key, result.getTriangles());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key of the search of the specified points with the specified configuration.
+     *
+     * @param store         The points.
+     * @param configuration The configuration of the search.
+     * @return              The key, as hexadecimal string.
+     */
+    public static String key(PointStore store, SearchConfiguration configuration) {
+        int nPoints = store.size();
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+
+        buffer.putInt(VERSION);
+        buffer.putInt(configuration.leafPoints(nPoints));
+        buffer.putInt(configuration.getSplitDepth());
+        buffer.putInt(configuration.getSpeculativeSeeds());
+        buffer.put((byte) (configuration.isDelaunayCandidates() ? 1 : 0));
+        SpaceFillingCurve curve = configuration.getLayoutCurve();
+        buffer.put((byte) (curve == null ? -1 : curve.ordinal()));
+        buffer.putInt(nPoints);
+
+        for (int id = 0; id < nPoints; ++id) {
+            if (buffer.remaining() < 8) {
+                update(digest, buffer);
+            }
+            buffer.putLong(Double.doubleToLongBits(store.getX(id)));
+        }
+        for (int id = 0; id < nPoints; ++id) {
+            if (buffer.remaining() < 8) {
+                update(digest, buffer);
+            }
+            buffer.putLong(Double.doubleToLongBits(store.getY(id)));
+        }
+        for (int id = 0; id < nPoints; ++id) {
+            if (!buffer.hasRemaining()) {
+                update(digest, buffer);
+            }
+            buffer.put((byte) store.getColorIndex(id));
+        }
+        update(digest, buffer);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the triangles stored under the specified key, and marks them as used.
+     *
+     * @param key   The key.
+     * @return      The triangles, or null if there is no entry or the entry is corrupt.
+     * @throws IOException Thrown, if reading the entry failed.
+     * @throws IllegalArgumentException Thrown, if the key is not a key of this cache.
+     */
+    public List<ColoredPolygon> get(String key) throws IOException, IllegalArgumentException {
+        fromHex(key);
+        File file = entryFile(key);
+        InputStream inStream;
+        try {
+            inStream = new BufferedInputStream(new FileInputStream(file));
+        } catch (IOException e) {
+            // Missing, or deleted by another process meanwhile.
+            return null;
+        }
+
+        List<ColoredPolygon> triangles = null;
+        try {
+            DataInputStream input = new DataInputStream(inStream);
+            byte[] storedKey = new byte[HASH_BYTES];
+            byte[] storedHash = new byte[HASH_BYTES];
+            input.readFully(storedKey);
+            input.readFully(storedHash);
+
+            MessageDigest digest = newDigest();
+            DigestInputStream digestStream = new DigestInputStream(input, digest);
+            List<ColoredPolygon> read = BinaryReader.readTriangles(digestStream);
+            if (toHex(storedKey).equals(key) && MessageDigest.isEqual(storedHash, digest.digest())) {
+                triangles = read;
+            }
+        } catch (EOFException e) {
+            // Corrupt, deleted below.
+        } catch (ParseException e) {
+            // Corrupt, deleted below.
+        } finally {
+            inStream.close();
+        }
+
+        if (triangles == null) {
+            file.delete();
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return triangles;
+    }
+
+    /**
+     * Stores the specified triangles under the specified key, replacing an entry
+     * with the same key, and deletes the least recently used entries as long as
+     * all entries take more than the greatest number of bytes. Triangles taking
+     * more bytes than that on their own are not stored.
+     *
+     * @param key       The key.
+     * @param triangles The triangles.
+     * @throws IOException Thrown, if writing the entry failed.
+     * @throws IllegalArgumentException Thrown, if the key is not a key of this cache.
+     */
+    public void put(String key, List<ColoredPolygon> triangles) throws IOException, IllegalArgumentException {
+        byte[] keyBytes = fromHex(key);
+        File temp = File.createTempFile(key, TEMP_SUFFIX, this.directory);
+        try {
+            FileOutputStream fileStream = new FileOutputStream(temp);
+            try {
+                MessageDigest digest = newDigest();
+                BufferedOutputStream outStream = new BufferedOutputStream(fileStream);
+                outStream.write(keyBytes);
+                outStream.write(new byte[HASH_BYTES]);
+
+                // The writer closes the stream, so only the triangles are written through it.
+                BinaryWriter.writeTriangles(new FilterOutputStream(new DigestOutputStream(outStream, digest)) {
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        this.out.write(bytes, offset, length);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                }, triangles);
+                outStream.flush();
+                fileStream.getChannel().write(ByteBuffer.wrap(digest.digest()), HASH_BYTES);
+            } finally {
+                fileStream.close();
+            }
+
+            if (temp.length() > this.maxBytes) {
+                return;
+            }
+            File file = entryFile(key);
+            if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+                throw new IOException("Could not store the cache entry " + file);
+            }
+            evict(file);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries except for the specified one, as long as
+     * all entries take more than the greatest number of bytes.
+     *
+     * @param keep The entry that is kept.
+     */
+    private synchronized void evict(File keep) {
+        File[] files = this.directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.getName().endsWith(ENTRY_SUFFIX);
+            }
+        });
+        if (files == null) {
+            return;
+        }
+
+        // Least recently used first. Entries used within the same time are ordered by name.
+        final long[] lastUsed = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        long bytes = 0;
+        for (int i = 0; i < files.length; ++i) {
+            lastUsed[i] = files[i].lastModified();
+            order[i] = i;
+            bytes += files[i].length();
+        }
+        final File[] entries = files;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i, Integer j) {
+                if (lastUsed[i] != lastUsed[j]) {
+                    return lastUsed[i] < lastUsed[j] ? -1 : 1;
+                }
+                return entries[i].getName().compareTo(entries[j].getName());
+            }
+        });
+
+        for (int i = 0; i < order.length && bytes > this.maxBytes; ++i) {
+            File file = entries[order[i]];
+            if (!file.equals(keep)) {
+                long length = file.length();
+                if (file.delete()) {
+                    bytes -= length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the file of the entry with the specified key.
+     */
+    private File entryFile(String key) {
+        return new File(this.directory, key + ENTRY_SUFFIX);
+    }
+
+    /**
+     * Hashes the values in the specified buffer and clears it.
+     */
+    private static void update(MessageDigest digest, ByteBuffer buffer) {
+        digest.update(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    /**
+     * Returns a new digest computing the hashes of keys and entries.
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the specified bytes as hexadecimal string.
+     */
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(2 * bytes.length);
+        for (byte value : bytes) {
+            builder.append(Character.forDigit((value >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(value & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the bytes of the specified hexadecimal string.
+     *
+     * @throws IllegalArgumentException Thrown, if the string is not a key.
+     */
+    private static byte[] fromHex(String hex) {
+        if (hex.length() != 2 * HASH_BYTES) {
+            throw new IllegalArgumentException("Not a cache key: " + hex);
+        }
+        byte[] bytes = new byte[HASH_BYTES];
+        for (int i = 0; i < bytes.length; ++i) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Not a cache key: " + hex);
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+}
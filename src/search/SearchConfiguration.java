@@ -0,0 +1,529 @@
+package search;
+
+import util.index.LayeredTriangleIndex;
+import util.index.LinearTriangleIndex;
+import util.index.QuadtreeTriangleIndex;
+import util.index.TriangleIndex;
+import util.comparator.SpaceFillingCurve;
+import util.parallel.EnclosedPointsFinder;
+import util.parallel.SharedPool;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configures how an instance of {@link TriangleSearch} performs the search.
+ *
+ * The search runs in a long-lived pool, which is shared by all searches of
+ * all configurations unless another pool is specified (see {@link SharedPool}), so that concurrent
+ * searches do not start threads of their own. Alternatively, the search runs
+ * sequentially in the calling thread.
+ *
+ * @author Kim-Anh Tran
+ */
+public class SearchConfiguration {
+
+    /**
+     * Indicates whether found triangles are kept in a spatial index
+     * for checking conflicts with new triangle candidates. If false,
+     * all found triangles are checked.
+     */
+    private boolean spatialIndex;
+
+    /**
+     * The number of points at which the search space is not split any further.
+     * If 0, it is derived from the number of points and available processors.
+     */
+    private int leafPoints;
+
+    /**
+     * The greatest number of points per leaf, if the number is derived from the input.
+     */
+    private int maxPoints;
+
+    /**
+     * The maximum depth to split the search space into.
+     */
+    private int splitDepth;
+
+    /**
+     * The number of points up to which the points enclosed by a triangle are
+     * found without splitting them into parallel tasks.
+     */
+    private int enclosurePoints;
+
+    /**
+     * The pool running the search. Null, for the shared pool.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Indicates whether the search runs sequentially in the calling thread.
+     */
+    private boolean sequential;
+
+    /**
+     * The number of seeds whose triangles are searched ahead in parallel within
+     * a task. 0, if seeds are searched one after the other.
+     */
+    private int speculativeSeeds;
+
+    /**
+     * Indicates whether the faces of Delaunay triangulations of the colors are
+     * committed as triangles before searching the nearest neighbours of seeds.
+     */
+    private boolean delaunayCandidates;
+
+    /**
+     * The curve the points are laid out along before the search, if any.
+     */
+    private SpaceFillingCurve layoutCurve;
+
+    /**
+     * The report collecting the leaves of the partitioning, if any.
+     */
+    private PartitionReport partitionReport;
+
+    /**
+     * The statistics collecting counters and timers of the search, if any.
+     */
+    private SearchStatistics statistics;
+
+    /**
+     * The sink receiving triangles as soon as they are found, if any.
+     */
+    private TriangleSink triangleSink;
+
+    /**
+     * The triangles found before the search, if any.
+     */
+    private TriangleIndex fixedTriangles;
+
+    /**
+     * The time in milliseconds after which searches stop. 0, if they run to the end.
+     */
+    private long timeLimit;
+
+    /**
+     * The listener receiving the progress of searches, if any.
+     */
+    private SearchProgressListener progressListener;
+
+
+    /**
+     * Creates a new configuration with default settings.
+     */
+    public SearchConfiguration() {
+        this.spatialIndex = true;
+        this.leafPoints = 0;
+        this.maxPoints = TriangleSearch.MAX_POINTS;
+        this.splitDepth = TriangleSearch.SPLIT_DEPTH;
+        this.enclosurePoints = EnclosedPointsFinder.MAX_NUMBER_POINTS;
+        this.sequential = false;
+        this.speculativeSeeds = 0;
+        this.delaunayCandidates = false;
+        this.timeLimit = 0;
+    }
+
+    /**
+     * Creates a copy of the specified configuration. The copy shares the pool, the
+     * report, the statistics, the sink, the fixed triangles and the listener.
+     *
+     * @param configuration The configuration to copy.
+     */
+    public SearchConfiguration(SearchConfiguration configuration) {
+        this.spatialIndex = configuration.spatialIndex;
+        this.leafPoints = configuration.leafPoints;
+        this.maxPoints = configuration.maxPoints;
+        this.splitDepth = configuration.splitDepth;
+        this.enclosurePoints = configuration.enclosurePoints;
+        this.pool = configuration.pool;
+        this.sequential = configuration.sequential;
+        this.speculativeSeeds = configuration.speculativeSeeds;
+        this.delaunayCandidates = configuration.delaunayCandidates;
+        this.layoutCurve = configuration.layoutCurve;
+        this.partitionReport = configuration.partitionReport;
+        this.statistics = configuration.statistics;
+        this.triangleSink = configuration.triangleSink;
+        this.fixedTriangles = configuration.fixedTriangles;
+        this.timeLimit = configuration.timeLimit;
+        this.progressListener = configuration.progressListener;
+    }
+
+    /**
+     * Returns true, if found triangles are kept in a spatial index.
+     *
+     * @return True, if a spatial index is used for conflict checks.
+     */
+    public boolean isSpatialIndex() {
+        return this.spatialIndex;
+    }
+
+    /**
+     * Specifies whether found triangles are kept in a spatial index.
+     * Disabling the index falls back to checking every found triangle.
+     *
+     * @param spatialIndex  True, if a spatial index should be used for conflict checks.
+     */
+    public void setSpatialIndex(boolean spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
+    /**
+     * Returns the number of points at which the search space is not split any further.
+     *
+     * @return The target number of points per leaf, or 0 if derived from the input.
+     */
+    public int getLeafPoints() {
+        return this.leafPoints;
+    }
+
+    /**
+     * Specifies the number of points at which the search space is not split any further.
+     * If 0, the number is derived from the number of points and available processors,
+     * but does not exceed {@link SearchConfiguration#getMaxPoints()}.
+     *
+     * @param leafPoints    The target number of points per leaf, or 0.
+     */
+    public void setLeafPoints(int leafPoints) {
+        this.leafPoints = leafPoints;
+    }
+
+    /**
+     * Returns the greatest number of points per leaf, if the number is derived from the input.
+     *
+     * @return The greatest number of points per leaf.
+     */
+    public int getMaxPoints() {
+        return this.maxPoints;
+    }
+
+    /**
+     * Specifies the greatest number of points per leaf, if the number is derived from the input.
+     * Defaults to {@link TriangleSearch#MAX_POINTS}.
+     *
+     * @param maxPoints The greatest number of points per leaf.
+     */
+    public void setMaxPoints(int maxPoints) {
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Returns the maximum depth to split the search space into.
+     *
+     * @return The maximum splitting depth.
+     */
+    public int getSplitDepth() {
+        return this.splitDepth;
+    }
+
+    /**
+     * Specifies the maximum depth to split the search space into.
+     *
+     * @param splitDepth    The maximum splitting depth.
+     */
+    public void setSplitDepth(int splitDepth) {
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Returns the number of points up to which the points enclosed by a triangle are
+     * found without splitting them into parallel tasks.
+     *
+     * @return The number of points checked by one task.
+     */
+    public int getEnclosurePoints() {
+        return this.enclosurePoints;
+    }
+
+    /**
+     * Specifies the number of points up to which the points enclosed by a triangle are
+     * found without splitting them into parallel tasks.
+     * Defaults to {@link EnclosedPointsFinder#MAX_NUMBER_POINTS}.
+     *
+     * @param enclosurePoints   The number of points checked by one task.
+     */
+    public void setEnclosurePoints(int enclosurePoints) {
+        this.enclosurePoints = enclosurePoints;
+    }
+
+    /**
+     * Returns the pool running the search.
+     *
+     * @return The specified pool, or the shared pool if none is specified.
+     */
+    public ForkJoinPool getPool() {
+        if (this.pool == null) {
+            return SharedPool.get();
+        }
+        return this.pool;
+    }
+
+    /**
+     * Specifies the pool running the search. The pool is not shut down by the search,
+     * so that it can be used for several searches, also at the same time.
+     *
+     * @param pool  The pool, or null for the shared pool.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns true, if the search runs sequentially in the calling thread.
+     *
+     * @return True, if the search is sequential.
+     */
+    public boolean isSequential() {
+        return this.sequential;
+    }
+
+    /**
+     * Specifies whether the search runs sequentially in the calling thread, without any pool.
+     *
+     * @param sequential    True, if the search should be sequential.
+     */
+    public void setSequential(boolean sequential) {
+        this.sequential = sequential;
+    }
+
+    /**
+     * Returns the number of seeds whose triangles are searched ahead in parallel within a task.
+     *
+     * @return The number of seeds, or 0 if seeds are searched one after the other.
+     */
+    public int getSpeculativeSeeds() {
+        return this.speculativeSeeds;
+    }
+
+    /**
+     * Specifies the number of seeds whose triangles are searched ahead in parallel
+     * within a task, so that a single dense task uses more than one thread. The
+     * first available points of each color are searched at once, with the triangles
+     * found so far. Then their results are taken in the order of the search, and
+     * only triangles conflicting with a triangle found in the meantime are searched
+     * again. The triangles do not depend on the number of threads, and usually equal
+     * those found without searching ahead: only the occlusion radii of seeds without
+     * a triangle may be larger, as they are computed with the triangles of the start
+     * of the round, so that parent tasks may reconsider more points. Ignored, if the
+     * search is sequential.
+     *
+     * @param speculativeSeeds  The number of seeds per round, or 0 for searching one after the other.
+     */
+    public void setSpeculativeSeeds(int speculativeSeeds) {
+        this.speculativeSeeds = speculativeSeeds;
+    }
+
+    /**
+     * Returns true, if the faces of Delaunay triangulations of the colors are
+     * committed as triangles first.
+     *
+     * @return True, if Delaunay candidates are used.
+     */
+    public boolean isDelaunayCandidates() {
+        return this.delaunayCandidates;
+    }
+
+    /**
+     * Specifies whether each task first triangulates the available points of each
+     * color (Delaunay) and commits the faces, with the shortest longest side first,
+     * that do not conflict with triangles committed before. Afterwards, the remaining
+     * points are searched by their nearest neighbours as usual, so that the result is
+     * still complete. The triangles differ from those found without Delaunay candidates.
+     *
+     * @param delaunayCandidates    True, if Delaunay faces should be committed first.
+     */
+    public void setDelaunayCandidates(boolean delaunayCandidates) {
+        this.delaunayCandidates = delaunayCandidates;
+    }
+
+    /**
+     * Returns the curve the points are laid out along before the search.
+     *
+     * @return The curve, or null if the points are searched in the order of their store.
+     */
+    public SpaceFillingCurve getLayoutCurve() {
+        return this.layoutCurve;
+    }
+
+    /**
+     * Specifies a curve the points are laid out along before the search: the points
+     * are copied in the order of their positions along the curve, which are sorted
+     * by a parallel radix sort. Tasks then consider points whose coordinates and
+     * state lie close together in memory, which suits large inputs in the order of
+     * their coordinates, where neighbours in the plane are far apart in memory.
+     * The copy needs another 21 bytes per point.
+     * The triangles only differ from those of the original order where neighbours
+     * are equally distant, as their ties are broken by id.
+     *
+     * @param layoutCurve   The curve, or null for searching the points in the order of their store.
+     */
+    public void setLayoutCurve(SpaceFillingCurve layoutCurve) {
+        this.layoutCurve = layoutCurve;
+    }
+
+    /**
+     * Returns the report collecting the leaves of the partitioning.
+     *
+     * @return The report, or null if none is collected.
+     */
+    public PartitionReport getPartitionReport() {
+        return this.partitionReport;
+    }
+
+    /**
+     * Specifies a report collecting the size and search time of each leaf.
+     *
+     * @param partitionReport   The report, or null if none is to be collected.
+     */
+    public void setPartitionReport(PartitionReport partitionReport) {
+        this.partitionReport = partitionReport;
+    }
+
+    /**
+     * Returns the statistics collecting counters and timers of the search.
+     *
+     * @return The statistics, or null if none are collected.
+     */
+    public SearchStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Specifies statistics collecting counters and timers of the search.
+     * Without statistics, the search does not count anything.
+     *
+     * @param statistics    The statistics, or null if none are to be collected.
+     */
+    public void setStatistics(SearchStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the sink receiving triangles as soon as they are found.
+     *
+     * @return The sink, or null if triangles are only returned at the end of the search.
+     */
+    public TriangleSink getTriangleSink() {
+        return this.triangleSink;
+    }
+
+    /**
+     * Specifies a sink receiving triangles as soon as they are found, while the
+     * search is still running. The search still returns all triangles at the end.
+     *
+     * @param triangleSink  The sink, or null if triangles are only to be returned.
+     */
+    public void setTriangleSink(TriangleSink triangleSink) {
+        this.triangleSink = triangleSink;
+    }
+
+    /**
+     * Returns the triangles found before the search.
+     *
+     * @return The triangles, or null if there are none.
+     */
+    public TriangleIndex getFixedTriangles() {
+        return this.fixedTriangles;
+    }
+
+    /**
+     * Specifies triangles found before the search, e.g. by the search of another
+     * part of the points. New triangles must not intersect with them, and they
+     * occlude points like found triangles, but they are not returned by the search.
+     * The index is only read, possibly by several threads at once.
+     *
+     * @param fixedTriangles    The triangles, or null if there are none.
+     */
+    public void setFixedTriangles(TriangleIndex fixedTriangles) {
+        this.fixedTriangles = fixedTriangles;
+    }
+
+    /**
+     * Returns the time in milliseconds after which searches stop.
+     *
+     * @return The time limit, or 0 if searches run to the end.
+     */
+    public long getTimeLimit() {
+        return this.timeLimit;
+    }
+
+    /**
+     * Specifies the time in milliseconds from its start after which a search stops
+     * and returns the triangles found until then (see {@link SearchHandle}). Whether
+     * the search ran to the end is reported by {@link SearchResult#isComplete()}.
+     *
+     * @param timeLimit The time limit, or 0 if searches should run to the end.
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Returns the listener receiving the progress of searches.
+     *
+     * @return The listener, or null if progress is not reported.
+     */
+    public SearchProgressListener getProgressListener() {
+        return this.progressListener;
+    }
+
+    /**
+     * Specifies a listener receiving the progress of a search whenever one of its tasks is done.
+     *
+     * @param progressListener  The listener, or null if progress is not to be reported.
+     */
+    public void setProgressListener(SearchProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Returns the number of points at which the search space of the specified
+     * size is not split any further.
+     *
+     * @param nPoints   The total number of points.
+     * @return          The target number of points per leaf.
+     */
+    int leafPoints(int nPoints) {
+        if (this.leafPoints > 0) {
+            return this.leafPoints;
+        }
+
+        // Aim for several leaves per processor, unless leaves become too small.
+        int processors = Runtime.getRuntime().availableProcessors();
+        int perTask = nPoints / (TriangleSearch.TASKS_PER_PROCESSOR * processors);
+        return Math.max(TriangleSearch.MIN_POINTS, Math.min(this.maxPoints, perTask));
+    }
+
+    /**
+     * Returns the number of points up to which the points enclosed by a triangle are
+     * found without splitting them.
+     *
+     * @return The number of points checked by one task. Integer.MAX_VALUE, if the search
+     *         is sequential.
+     */
+    int enclosureTaskPoints() {
+        if (this.sequential) {
+            return Integer.MAX_VALUE;
+        }
+        return this.enclosurePoints;
+    }
+
+    /**
+     * Returns a new triangle index as specified by this configuration, without
+     * own triangles but on top of the fixed triangles, if any.
+     *
+     * @return A triangle index without own triangles.
+     */
+    TriangleIndex createTriangleIndex() {
+        TriangleIndex index;
+        if (this.spatialIndex) {
+            index = new QuadtreeTriangleIndex();
+        } else {
+            index = new LinearTriangleIndex();
+        }
+        if (this.fixedTriangles != null) {
+            return new LayeredTriangleIndex(this.fixedTriangles, index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,182 @@
+package search;
+
+import geometry.polygon.ColoredPolygon;
+import util.parallel.Cancellation;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A handle of a running search, returned by
+ * {@link TriangleSearch#start(geometry.point.PointStore, SearchConfiguration)}.
+ * It reports the progress of the search, and stops it on request or when its
+ * time limit has passed (see {@link SearchConfiguration#setTimeLimit(long)}).
+ *
+ * A stopped search does not split, merge or search any further: each task
+ * keeps the triangles found until then, which are still pairwise disjoint, as
+ * every triangle is checked against all found triangles before it is added.
+ * Tasks check for being stopped before each seed and before each part of the
+ * enclosure check, so the search stops within the time of one seed.
+ *
+ * @author Kim-Anh Tran
+ */
+public class SearchHandle {
+
+    /**
+     * The number of points of the search.
+     */
+    private int points;
+
+    /**
+     * The token stopping the tasks of the search.
+     */
+    private Cancellation cancellation;
+
+    /**
+     * The listener receiving the progress whenever a task is done, if any.
+     */
+    private SearchProgressListener listener;
+
+    /**
+     * The number of points used by the triangles found so far.
+     */
+    private AtomicLong pointsConsumed;
+
+    /**
+     * The number of triangles found so far.
+     */
+    private AtomicLong trianglesFound;
+
+    /**
+     * The number of tasks running or waiting for their parts.
+     */
+    private AtomicInteger activeTasks;
+
+    /**
+     * The root task of the search.
+     */
+    private ForkJoinTask<List<ColoredPolygon>> task;
+
+
+    /**
+     * Creates the handle of a search that is about to start.
+     *
+     * @param points        The number of points of the search.
+     * @param configuration The configuration of the search.
+     */
+    SearchHandle(int points, SearchConfiguration configuration) {
+        this.points = points;
+        if (configuration.getTimeLimit() > 0) {
+            this.cancellation = new Cancellation(configuration.getTimeLimit());
+        } else {
+            this.cancellation = new Cancellation();
+        }
+        this.listener = configuration.getProgressListener();
+        this.pointsConsumed = new AtomicLong();
+        this.trianglesFound = new AtomicLong();
+        this.activeTasks = new AtomicInteger();
+    }
+
+    /**
+     * Requests the search to stop as soon as possible. Its result then contains
+     * the triangles found until then.
+     */
+    public void cancel() {
+        this.cancellation.cancel();
+    }
+
+    /**
+     * Returns true, if the search is done, either completely or stopped early.
+     *
+     * @return True, if the result is available without waiting.
+     */
+    public boolean isDone() {
+        return this.task.isDone();
+    }
+
+    /**
+     * Returns the current progress of the search.
+     *
+     * @return The progress.
+     */
+    public SearchProgress getProgress() {
+        return new SearchProgress(this.points, this.pointsConsumed.get(), this.trianglesFound.get(),
+                this.activeTasks.get());
+    }
+
+    /**
+     * Waits for the search to be done and returns its result.
+     *
+     * @return The result, which is incomplete if the search was stopped early.
+     */
+    public SearchResult getResult() {
+        List<ColoredPolygon> triangles = this.task.join();
+        return new SearchResult(triangles, !this.cancellation.hasStopped());
+    }
+
+    /**
+     * Waits for the search at most for the specified time, stops it if it is not
+     * done by then, and returns its result.
+     *
+     * @param timeout   The longest time to wait before stopping the search.
+     * @param unit      The unit of the time.
+     * @return          The result, which is incomplete if the search was stopped early.
+     * @throws InterruptedException Thrown, if the calling thread is interrupted while waiting.
+     */
+    public SearchResult getResult(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            this.task.get(timeout, unit);
+        } catch (TimeoutException e) {
+            cancel();
+        } catch (ExecutionException e) {
+            // Thrown again when joining the task.
+        }
+        return getResult();
+    }
+
+    /**
+     * Specifies the root task of the search.
+     */
+    void setTask(ForkJoinTask<List<ColoredPolygon>> task) {
+        this.task = task;
+    }
+
+    /**
+     * Returns the token stopping the tasks of the search.
+     */
+    Cancellation getCancellation() {
+        return this.cancellation;
+    }
+
+    /**
+     * Counts a found triangle and the points it uses.
+     *
+     * @param nPoints   The number of points used by the triangle, as corners or enclosed points.
+     */
+    void addTriangle(int nPoints) {
+        this.trianglesFound.incrementAndGet();
+        this.pointsConsumed.addAndGet(nPoints);
+    }
+
+    /**
+     * Counts a task that starts.
+     */
+    void taskStarted() {
+        this.activeTasks.incrementAndGet();
+    }
+
+    /**
+     * Counts a task that is done, and reports the progress to the listener.
+     */
+    void taskDone() {
+        this.activeTasks.decrementAndGet();
+        if (this.listener != null) {
+            this.listener.progress(getProgress());
+        }
+    }
+}
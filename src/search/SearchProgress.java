@@ -0,0 +1,91 @@
+package search;
+
+/**
+ * The progress of a search at a certain time.
+ *
+ * @see SearchHandle#getProgress()
+ * @see SearchProgressListener
+ * @author Kim-Anh Tran
+ */
+public class SearchProgress {
+
+    /**
+     * The number of points of the search.
+     */
+    private int points;
+
+    /**
+     * The number of points used by the triangles found so far, as corners or enclosed points.
+     */
+    private long pointsConsumed;
+
+    /**
+     * The number of triangles found so far.
+     */
+    private long trianglesFound;
+
+    /**
+     * The number of tasks of the search that are running or waiting for their parts.
+     */
+    private int activeTasks;
+
+
+    /**
+     * Creates the progress of a search.
+     *
+     * @param points            The number of points of the search.
+     * @param pointsConsumed    The number of points used by the triangles found so far.
+     * @param trianglesFound    The number of triangles found so far.
+     * @param activeTasks       The number of tasks running or waiting for their parts.
+     */
+    SearchProgress(int points, long pointsConsumed, long trianglesFound, int activeTasks) {
+        this.points = points;
+        this.pointsConsumed = pointsConsumed;
+        this.trianglesFound = trianglesFound;
+        this.activeTasks = activeTasks;
+    }
+
+    /**
+     * Returns the number of points of the search.
+     *
+     * @return The number of points.
+     */
+    public int getPoints() {
+        return this.points;
+    }
+
+    /**
+     * Returns the number of points used by the triangles found so far, as corners
+     * or as points enclosed by them. Points that can not be part of any triangle are
+     * not counted, so the number usually stays below the number of points.
+     *
+     * @return The number of consumed points.
+     */
+    public long getPointsConsumed() {
+        return this.pointsConsumed;
+    }
+
+    /**
+     * Returns the number of triangles found so far.
+     *
+     * @return The number of triangles.
+     */
+    public long getTrianglesFound() {
+        return this.trianglesFound;
+    }
+
+    /**
+     * Returns the number of tasks of the search that are running or waiting for their parts.
+     *
+     * @return The number of active tasks, 0 if the search is done.
+     */
+    public int getActiveTasks() {
+        return this.activeTasks;
+    }
+
+    @Override
+    public String toString() {
+        return "points=" + this.points + " pointsConsumed=" + this.pointsConsumed + " trianglesFound="
+                + this.trianglesFound + " activeTasks=" + this.activeTasks;
+    }
+}
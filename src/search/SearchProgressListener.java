@@ -0,0 +1,21 @@
+package search;
+
+/**
+ * Receives the progress of a search whenever one of its tasks is done. An
+ * instance can be passed to the search by
+ * {@link SearchConfiguration#setProgressListener(SearchProgressListener)}.
+ *
+ * Tasks running in parallel report concurrently, so implementations have to
+ * be thread-safe, and reports may arrive out of order.
+ *
+ * @author Kim-Anh Tran
+ */
+public interface SearchProgressListener {
+
+    /**
+     * Receives the progress of a search. Called by the thread of the task that is done.
+     *
+     * @param progress  The progress when the task was done.
+     */
+    void progress(SearchProgress progress);
+}
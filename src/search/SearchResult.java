@@ -0,0 +1,55 @@
+package search;
+
+import geometry.polygon.ColoredPolygon;
+
+import java.util.List;
+
+/**
+ * The result of a search: its triangles, and whether they are complete. A search
+ * stopped early (see {@link SearchHandle}) returns the triangles found until then,
+ * which are still pairwise disjoint, but further triangles might be inserted.
+ *
+ * @author Kim-Anh Tran
+ */
+public class SearchResult {
+
+    /**
+     * The found triangles.
+     */
+    private List<ColoredPolygon> triangles;
+
+    /**
+     * Indicates whether the search ran to the end.
+     */
+    private boolean complete;
+
+
+    /**
+     * Creates the result of a search.
+     *
+     * @param triangles The found triangles.
+     * @param complete  True, if the search ran to the end.
+     */
+    SearchResult(List<ColoredPolygon> triangles, boolean complete) {
+        this.triangles = triangles;
+        this.complete = complete;
+    }
+
+    /**
+     * Returns the found triangles, which are pairwise disjoint.
+     *
+     * @return The triangles.
+     */
+    public List<ColoredPolygon> getTriangles() {
+        return this.triangles;
+    }
+
+    /**
+     * Returns true, if the search ran to the end, so that no further triangle can be inserted.
+     *
+     * @return True, if the triangles are complete. False, if the search was stopped early.
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+}
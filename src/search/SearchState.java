@@ -0,0 +1,167 @@
+package search;
+
+import color.Color;
+import geometry.point.PointStore;
+import util.collection.ConcurrentBitSet;
+
+/**
+ * The points that are still available to a search, per color. Keeps the number
+ * of available points and a doubly linked list of them for each color, so that
+ * removing a point, selecting a color and finding the next point of a color
+ * take constant time.
+ *
+ * The links are kept in arrays indexed by point id, which are shared between
+ * the tasks of a search. Tasks running at the same time consider different
+ * points, so they never use the same entries.
+ *
+ * @author Kim-Anh Tran
+ */
+class SearchState {
+
+    /**
+     * Marks the end of a list, and the links of points that are not in any list.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The store containing the points.
+     */
+    private PointStore store;
+
+    /**
+     * The id of the next available point of the same color, indexed by id.
+     */
+    private int[] next;
+
+    /**
+     * The id of the previous available point of the same color, indexed by id.
+     */
+    private int[] previous;
+
+    /**
+     * The id of the first available point of each color.
+     */
+    private int[] heads;
+
+    /**
+     * The id of the last available point of each color.
+     */
+    private int[] tails;
+
+    /**
+     * The number of available points of each color.
+     */
+    private int[] counts;
+
+
+    /**
+     * Creates the state of a search over the specified points. Points that are
+     * already enclosed are not available.
+     *
+     * @param store     The store containing the points.
+     * @param points    The ids of the points, in the order they are to be returned.
+     * @param enclosed  The flags indicating which points are enclosed.
+     * @param next      The shared array for the links to the next point.
+     * @param previous  The shared array for the links to the previous point.
+     */
+    SearchState(PointStore store, int[] points, ConcurrentBitSet enclosed, int[] next, int[] previous) {
+        this.store = store;
+        this.next = next;
+        this.previous = previous;
+
+        int nColors = Color.values().length;
+        this.heads = new int[nColors];
+        this.tails = new int[nColors];
+        this.counts = new int[nColors];
+        for (int color = 0; color < nColors; ++color) {
+            this.heads[color] = NONE;
+            this.tails[color] = NONE;
+        }
+
+        for (int id : points) {
+            if (enclosed.get(id)) {
+                continue;
+            }
+            int color = store.getColorIndex(id);
+            int tail = this.tails[color];
+            this.previous[id] = tail;
+            this.next[id] = NONE;
+            if (tail == NONE) {
+                this.heads[color] = id;
+            } else {
+                this.next[tail] = id;
+            }
+            this.tails[color] = id;
+            ++this.counts[color];
+        }
+    }
+
+    /**
+     * Removes the specified available point.
+     *
+     * @param id    The id of the point.
+     */
+    void remove(int id) {
+        int color = this.store.getColorIndex(id);
+        int before = this.previous[id];
+        int after = this.next[id];
+
+        if (before == NONE) {
+            this.heads[color] = after;
+        } else {
+            this.next[before] = after;
+        }
+        if (after == NONE) {
+            this.tails[color] = before;
+        } else {
+            this.previous[after] = before;
+        }
+        --this.counts[color];
+    }
+
+    /**
+     * Returns the first available point of the specified color.
+     *
+     * @param color The color.
+     * @return      The id of the point, or -1 if no point of the color is available.
+     */
+    int first(Color color) {
+        return this.heads[color.getIntRepresentation()];
+    }
+
+    /**
+     * Returns the available point following the specified one, which has the same color.
+     *
+     * @param id    The id of an available point.
+     * @return      The id of the next point, or -1 if the point is the last one of its color.
+     */
+    int next(int id) {
+        return this.next[id];
+    }
+
+    /**
+     * Returns the number of available points of the specified color.
+     *
+     * @param color The color.
+     * @return      The number of available points.
+     */
+    int count(Color color) {
+        return this.counts[color.getIntRepresentation()];
+    }
+
+    /**
+     * Returns the color with the most available points. If several colors
+     * have the most points, the one with the smallest int representation.
+     *
+     * @return The most frequent color.
+     */
+    Color mostFrequentColor() {
+        int colorIndex = 0;
+        for (int i = 1; i < this.counts.length; ++i) {
+            if (this.counts[colorIndex] < this.counts[i]) {
+                colorIndex = i;
+            }
+        }
+        return Color.fromInt(colorIndex);
+    }
+}
@@ -0,0 +1,394 @@
+package search;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects counters and timers of searches: the seeds tried, the reasons for
+ * rejecting candidates of the second and third triangle point, the calls of
+ * the geometric predicates, the time spent in each phase and the times of the
+ * fork/join tasks. An instance can be passed to the search by
+ * {@link SearchConfiguration#setStatistics(SearchStatistics)}; without one,
+ * nothing is counted.
+ *
+ * Tasks count into arrays of their own and add them to the statistics when
+ * they are done, so that counting does not need synchronization. Values are
+ * summed over all searches until {@link SearchStatistics#reset()} is called.
+ *
+ * @author Kim-Anh Tran
+ */
+public class SearchStatistics implements SearchStatisticsMXBean {
+
+    /**
+     * The name the statistics are registered with at the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "search:type=SearchStatistics";
+
+    /**
+     * The counters and timers of a search.
+     */
+    public enum Counter {
+
+        /**
+         * Points tried as first triangle point.
+         */
+        SEEDS("seeds"),
+
+        /**
+         * Points tried as first triangle point without finding a triangle.
+         */
+        FAILED_SEEDS("failedSeeds"),
+
+        /**
+         * Triangles found.
+         */
+        TRIANGLES("triangles"),
+
+        /**
+         * Points considered as second triangle point.
+         */
+        P2_CANDIDATES("p2Candidates"),
+
+        /**
+         * Second points rejected as occluded by triangles around the first point.
+         */
+        P2_OCCLUDED("p2Occluded"),
+
+        /**
+         * Searches for a second point stopped at the occlusion radius of the first point.
+         */
+        P2_RADIUS_CUTOFFS("p2RadiusCutoffs"),
+
+        /**
+         * Second points rejected as the line to the first point intersects with a triangle.
+         */
+        P2_LINE_CONFLICTS("p2LineConflicts"),
+
+        /**
+         * Points considered as third triangle point.
+         */
+        P3_CANDIDATES("p3Candidates"),
+
+        /**
+         * Third points rejected as occluded by triangles around the first point.
+         */
+        P3_OCCLUDED("p3Occluded"),
+
+        /**
+         * Searches for a third point stopped at the occlusion radius of the first point.
+         */
+        P3_RADIUS_CUTOFFS("p3RadiusCutoffs"),
+
+        /**
+         * Third points rejected as all three points belong to the same part of a merged task.
+         */
+        P3_SAME_PART("p3SamePart"),
+
+        /**
+         * Third points rejected as lying on the line through the first and second point.
+         */
+        P3_COLLINEAR("p3Collinear"),
+
+        /**
+         * Third points rejected as their triangle intersects with a found triangle.
+         */
+        P3_TRIANGLE_CONFLICTS("p3TriangleConflicts"),
+
+        /**
+         * Checks of a line segment against the found triangles.
+         */
+        LINE_TESTS("lineTests"),
+
+        /**
+         * Checks of a triangle against the found triangles.
+         */
+        TRIANGLE_TESTS("triangleTests"),
+
+        /**
+         * Computations of the occlusion of a point.
+         */
+        OCCLUSIONS("occlusions"),
+
+        /**
+         * Seeds whose triangle was searched ahead, in parallel.
+         */
+        SPECULATED_SEEDS("speculatedSeeds"),
+
+        /**
+         * Seeds searched ahead whose triangle conflicted with a triangle found
+         * in the meantime, so that their search was repeated.
+         */
+        SPECULATION_RETRIES("speculationRetries"),
+
+        /**
+         * Faces of the Delaunay triangulations of the colors proposed as triangles.
+         */
+        DELAUNAY_FACES("delaunayFaces"),
+
+        /**
+         * Faces of the Delaunay triangulations of the colors committed as triangles.
+         * Part of the found triangles.
+         */
+        DELAUNAY_TRIANGLES("delaunayTriangles"),
+
+        /**
+         * Points checked for being enclosed by a found triangle.
+         */
+        ENCLOSURE_TESTS("enclosureTests"),
+
+        /**
+         * Points found to be enclosed by a found triangle.
+         */
+        ENCLOSED_POINTS("enclosedPoints"),
+
+        /**
+         * Tasks searching a leaf of the partitioning.
+         */
+        LEAF_TASKS("leafTasks"),
+
+        /**
+         * Tasks splitting their points and merging the results of their parts.
+         */
+        MERGE_TASKS("mergeTasks"),
+
+        /**
+         * Time spent laying out the points along a space-filling curve, in nanoseconds.
+         */
+        LAYOUT_NANOS("layoutNanos"),
+
+        /**
+         * Time spent splitting points into parts, in nanoseconds.
+         */
+        PARTITION_NANOS("partitionNanos"),
+
+        /**
+         * Time spent sorting the points of leaves, in nanoseconds.
+         */
+        SORT_NANOS("sortNanos"),
+
+        /**
+         * Time spent searching leaves, in nanoseconds.
+         */
+        LEAF_SEARCH_NANOS("leafSearchNanos"),
+
+        /**
+         * Time spent searching across the split of merged tasks, in nanoseconds.
+         */
+        MERGE_SEARCH_NANOS("mergeSearchNanos"),
+
+        /**
+         * Time spent finding points enclosed by found triangles, in nanoseconds.
+         * Part of the leaf and merge search times.
+         */
+        ENCLOSURE_NANOS("enclosureNanos"),
+
+        /**
+         * Time spent triangulating the colors and committing their faces, in nanoseconds.
+         * Part of the leaf and merge search times.
+         */
+        DELAUNAY_NANOS("delaunayNanos"),
+
+        /**
+         * Time spent collecting the leftovers of tasks, in nanoseconds.
+         */
+        LEFTOVER_NANOS("leftoverNanos"),
+
+        /**
+         * Time spent in tasks, without the time of their subtasks, in nanoseconds.
+         */
+        TASK_NANOS("taskNanos"),
+
+        /**
+         * The sum of the numbers of tasks queued in the pool when a task started.
+         */
+        QUEUED_TASKS("queuedTasks");
+
+        /**
+         * The name of the counter in summaries.
+         */
+        private String name;
+
+        /**
+         * Creates a counter with the specified name.
+         *
+         * @param name  The name used in summaries.
+         */
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of the counter in summaries.
+         *
+         * @return The name.
+         */
+        public String getName() {
+            return this.name;
+        }
+    }
+
+    /**
+     * The number of counters.
+     */
+    static final int N_COUNTERS = Counter.values().length;
+
+    /**
+     * The number of completed searches.
+     */
+    private AtomicLong searches;
+
+    /**
+     * The values of the counters, indexed by the counters' ordinals.
+     */
+    private AtomicLongArray values;
+
+    /**
+     * The greatest number of tasks queued in the pool when a task started.
+     */
+    private AtomicLong maxQueuedTasks;
+
+    /**
+     * The longest time a single task needed, without the time of its subtasks.
+     */
+    private AtomicLong maxTaskNanos;
+
+
+    /**
+     * Creates new statistics, with all values being zero.
+     */
+    public SearchStatistics() {
+        this.searches = new AtomicLong();
+        this.values = new AtomicLongArray(N_COUNTERS);
+        this.maxQueuedTasks = new AtomicLong();
+        this.maxTaskNanos = new AtomicLong();
+    }
+
+    /**
+     * Registers the statistics at the platform MBean server, named {@link SearchStatistics#OBJECT_NAME}.
+     *
+     * @throws JMException  Thrown, if statistics are already registered under the name,
+     *                      or if the registration fails.
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * Removes the statistics registered under {@link SearchStatistics#OBJECT_NAME}
+     * from the platform MBean server.
+     *
+     * @throws JMException  Thrown, if no statistics are registered under the name.
+     */
+    public void unregister() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * Returns the value of the specified counter.
+     *
+     * @param counter   The counter.
+     * @return          The value, summed over all completed tasks.
+     */
+    public long get(Counter counter) {
+        return this.values.get(counter.ordinal());
+    }
+
+    @Override
+    public long getSearches() {
+        return this.searches.get();
+    }
+
+    @Override
+    public Map<String, Long> getValues() {
+        Map<String, Long> values = new LinkedHashMap<String, Long>();
+        for (Counter counter : Counter.values()) {
+            values.put(counter.getName(), get(counter));
+        }
+        return values;
+    }
+
+    @Override
+    public long getMaxQueuedTasks() {
+        return this.maxQueuedTasks.get();
+    }
+
+    @Override
+    public long getMaxTaskNanos() {
+        return this.maxTaskNanos.get();
+    }
+
+    @Override
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"searches\": ").append(getSearches());
+        for (Map.Entry<String, Long> value : getValues().entrySet()) {
+            json.append(", \"").append(value.getKey()).append("\": ").append(value.getValue());
+        }
+        json.append(", \"maxQueuedTasks\": ").append(getMaxQueuedTasks());
+        json.append(", \"maxTaskNanos\": ").append(getMaxTaskNanos());
+        return json.append('}').toString();
+    }
+
+    @Override
+    public void reset() {
+        this.searches.set(0);
+        for (int i = 0; i < N_COUNTERS; ++i) {
+            this.values.set(i, 0);
+        }
+        this.maxQueuedTasks.set(0);
+        this.maxTaskNanos.set(0);
+    }
+
+    /**
+     * Adds the counts of a completed task. Can be called by several threads at once.
+     *
+     * @param counts        The values of the task, indexed by the counters' ordinals.
+     * @param queuedTasks   The number of tasks queued in the pool when the task started.
+     */
+    void addTask(long[] counts, long queuedTasks) {
+        for (int i = 0; i < N_COUNTERS; ++i) {
+            if (counts[i] != 0) {
+                this.values.addAndGet(i, counts[i]);
+            }
+        }
+        this.values.addAndGet(Counter.QUEUED_TASKS.ordinal(), queuedTasks);
+        updateMax(this.maxQueuedTasks, queuedTasks);
+        updateMax(this.maxTaskNanos, counts[Counter.TASK_NANOS.ordinal()]);
+    }
+
+    /**
+     * Adds the specified value to the specified counter, for work outside of tasks.
+     *
+     * @param counter   The counter.
+     * @param value     The value to add.
+     */
+    void add(Counter counter, long value) {
+        this.values.addAndGet(counter.ordinal(), value);
+    }
+
+    /**
+     * Counts a completed search.
+     */
+    void addSearch() {
+        this.searches.incrementAndGet();
+    }
+
+    /**
+     * Sets the specified maximum to the specified value, if the value is greater.
+     */
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,52 @@
+package search;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link SearchStatistics}, for monitoring searches
+ * via JMX.
+ *
+ * @author Kim-Anh Tran
+ */
+public interface SearchStatisticsMXBean {
+
+    /**
+     * Returns the number of completed searches.
+     *
+     * @return The number of searches.
+     */
+    long getSearches();
+
+    /**
+     * Returns the values of all counters and timers, summed over all completed searches.
+     *
+     * @return The values, by name.
+     */
+    Map<String, Long> getValues();
+
+    /**
+     * Returns the greatest number of tasks queued in the pool when a task started.
+     *
+     * @return The greatest queue depth.
+     */
+    long getMaxQueuedTasks();
+
+    /**
+     * Returns the longest time a single task needed, without the time of its subtasks.
+     *
+     * @return The longest task time in nanoseconds.
+     */
+    long getMaxTaskNanos();
+
+    /**
+     * Returns a summary of all statistics in JSON format.
+     *
+     * @return The summary.
+     */
+    String toJson();
+
+    /**
+     * Sets all statistics to zero.
+     */
+    void reset();
+}
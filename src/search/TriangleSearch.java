@@ -2,18 +2,29 @@ package search;
 
 import color.Color;
 import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.ArrayPointStore;
 import geometry.point.ColoredPoint;
+import geometry.point.PointStore;
 import geometry.polygon.ColoredPolygon;
 import geometry.polygon.triangle.ColoredTriangle;
-import util.comparator.EuclidComparator;
+import search.SearchStatistics.Counter;
+import util.collection.ConcurrentBitSet;
+import util.collection.IntList;
+import util.comparator.CoordinateComparator;
+import util.comparator.IdSorter;
+import util.comparator.RadixSorter;
+import util.index.Occlusion;
+import util.index.PointKdTree;
+import util.index.TriangleIndex;
 import util.parallel.EnclosedPointsFinder;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ForkJoinPool;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RecursiveTask;
 
 
@@ -26,101 +37,415 @@ import java.util.concurrent.RecursiveTask;
 public class TriangleSearch extends RecursiveTask<List<ColoredPolygon>> {
 
     /**
-     * The maximum depth to split the search task into.
-     * The decision whether or not to split into smaller tasks is also dependent on
-     * {@link TriangleSearch#MAX_POINTS}.
+     * The default maximum depth to split the search task into. Splitting usually
+     * stops earlier, as soon as the number of points of a task is small enough.
      *
      * @see search.TriangleSearch#compute()
+     * @see SearchConfiguration#setSplitDepth(int)
      */
-    public static final int SPLIT_DEPTH = 3;
+    public static final int SPLIT_DEPTH = 32;
 
     /**
-     * The maximum number of points that can be considered for one thread.
-     * The decision whether or not to split into smaller tasks is also dependent on
-     * {@link TriangleSearch#SPLIT_DEPTH}.
+     * The maximum number of points that are considered for one thread by default.
      *
      * @see search.TriangleSearch#compute()
+     * @see SearchConfiguration#setLeafPoints(int)
      */
     public static final int MAX_POINTS = 1000;
 
     /**
-     * The collection of 2D points that are considered for triangle creation.
+     * The minimum number of points that are considered for one thread by default.
+     * Smaller tasks would mostly leave points to be searched by their parents.
      */
-    private List<ColoredPoint> points;
+    public static final int MIN_POINTS = 100;
 
     /**
-     * A collection of boolean indicating whether a point at the same index
-     * in {@link TriangleSearch#points} is enclosed by a triangle.
+     * The number of tasks aimed for per available processor, so that
+     * unbalanced tasks can be compensated.
      */
-    private List<Boolean> enclosed;
+    public static final int TASKS_PER_PROCESSOR = 4;
+
+    /**
+     * The number of points from which a leaf sorts its points by a radix sort of
+     * their coordinates instead of comparing them, which is faster for many points.
+     */
+    private static final int RADIX_SORT_POINTS = 1 << 14;
+
+    /**
+     * The number of neighbours of a first triangle point that are tried before
+     * its occlusion radius is computed for skipping the remaining ones.
+     *
+     * @see Occlusion
+     */
+    private static final int OCCLUSION_NEIGHBOURS = 8;
+
+    /**
+     * The maximum occlusion radius of a first triangle point that is looked
+     * for, relative to the average distance of points.
+     */
+    private static final int OCCLUSION_SPACINGS = 16;
+
+    /**
+     * The store containing the 2D points that are considered for triangle creation.
+     */
+    private PointStore store;
+
+    /**
+     * The ids of all points, sorted by their coordinates. This task considers
+     * the ids in the range [{@link TriangleSearch#from}, {@link TriangleSearch#to}).
+     */
+    private int[] order;
+
+    /**
+     * The first index of {@link TriangleSearch#order} considered by this task, inclusive.
+     */
+    private int from;
+
+    /**
+     * The last index of {@link TriangleSearch#order} considered by this task, exclusive.
+     */
+    private int to;
+
+    /**
+     * Flags indicating which points are enclosed by a triangle, indexed by id.
+     */
+    private ConcurrentBitSet enclosed;
+
+    /**
+     * Upper bounds of the occlusion radii of the points, indexed by id. Points
+     * farther away from a point than its radius can not form a triangle with it.
+     *
+     * @see Occlusion
+     */
+    private double[] radii;
 
     /**
      * The collection of triangles that are found.
      */
-    private List<ColoredPolygon> triangles;
+    private TriangleIndex triangles;
+
+    /**
+     * The region of the plane covered by this task. All points within the
+     * region belong to this task.
+     */
+    private Envelope region;
+
+    /**
+     * The bounding box of the points of this task.
+     */
+    private Envelope bounds;
+
+    /**
+     * The ids of the points that are searched for triangles: all points of a leaf
+     * task, or the points close to the split line when merging two parts.
+     */
+    private int[] points;
+
+    /**
+     * The points that are not part of a triangle and might still form one
+     * with points outside of the region of this task.
+     */
+    private IntList leftovers;
+
+    /**
+     * True, if this task merges two parts. False, if it is a leaf task.
+     */
+    private boolean merge;
+
+    /**
+     * True, if the points are split by their y values. False, if by x values.
+     */
+    private boolean splitByY;
+
+    /**
+     * The greatest x or y value of the points of the first part.
+     */
+    private double firstMax;
+
+    /**
+     * The smallest x or y value of the points of the second part.
+     */
+    private double secondMin;
+
+    /**
+     * The configuration of the search.
+     */
+    private SearchConfiguration configuration;
+
+    /**
+     * The handle of the search, which counts its progress and stops it early.
+     */
+    private SearchHandle handle;
+
+    /**
+     * The counters and timers of this task, indexed by the counters' ordinals.
+     * Null, if the configuration collects no statistics.
+     */
+    private long[] counts;
+
+    /**
+     * The points that are not yet enclosed, one tree per color.
+     */
+    private PointKdTree[] colorTrees;
+
+    /**
+     * The points that were tried as first triangle point without success. They
+     * are excluded from this task's search, but may form triangles with points
+     * of other tasks.
+     */
+    private IntList failedSeeds;
+
+    /**
+     * The available points per color.
+     */
+    private SearchState state;
+
+    /**
+     * The links of the available points, shared by all tasks.
+     *
+     * @see SearchState
+     */
+    private int[] nextLinks;
+    private int[] previousLinks;
+
+    /**
+     * The attempts of the current round of seeds searched ahead, by seed. Null,
+     * if seeds are not searched ahead.
+     */
+    private Map<Integer, Attempt> round;
+
+    /**
+     * The triangles found since the current round of seeds searched ahead started.
+     */
+    private List<ColoredPolygon> roundTriangles;
 
     /**
      * The current splitting depth.
      */
     private int splitDepth;
 
+    /**
+     * The number of points at which a task is not split any further.
+     */
+    private int leafPoints;
+
 
     /**
      * Creates a new triangle search instance for searching
-     * triangles within the specified collection f 2d points.
+     * triangles within the specified range of 2d points.
      *
-     * @param points    The 2d points.
+     * @param store           The store containing the 2d points.
+     * @param order           The ids of the points, sorted by their coordinates.
+     * @param from            The first index of order to consider, inclusive.
+     * @param to              The last index of order to consider, exclusive.
+     * @param enclosed        The flags indicating which points are enclosed.
+     * @param radii           The upper bounds of the occlusion radii of the points.
+     * @param nextLinks       The shared links to the next available point.
+     * @param previousLinks   The shared links to the previous available point.
+     * @param region          The region of the plane covered by this task.
+     * @param splitDepth      The current splitting depth.
+     * @param leafPoints      The number of points at which a task is not split any further.
+     * @param configuration   The configuration of the search.
+     * @param handle          The handle of the search.
      */
-    private TriangleSearch(List<ColoredPoint> points, List<Boolean> enclosed, int splitDepth) {
-        this.points = points;
-        this.splitDepth = splitDepth;
+    private TriangleSearch(PointStore store, int[] order, int from, int to, ConcurrentBitSet enclosed,
+                           double[] radii, int[] nextLinks, int[] previousLinks, Envelope region,
+                           int splitDepth, int leafPoints, SearchConfiguration configuration,
+                           SearchHandle handle) {
+        this.store = store;
+        this.order = order;
+        this.from = from;
+        this.to = to;
         this.enclosed = enclosed;
+        this.radii = radii;
+        this.nextLinks = nextLinks;
+        this.previousLinks = previousLinks;
+        this.region = region;
+        this.splitDepth = splitDepth;
+        this.leafPoints = leafPoints;
+        this.configuration = configuration;
+        this.handle = handle;
+        if (configuration.getStatistics() != null) {
+            this.counts = new long[SearchStatistics.N_COUNTERS];
+        }
     }
 
+    /**
+     * Searches for point-disjoint triangles using the default configuration.
+     *
+     * @param points    The 2d points.
+     * @return          The found triangles.
+     */
     public static List<ColoredPolygon> searchForTriangles(List<ColoredPoint> points) {
-        int nPoints = points.size();
-        List<Boolean> enclosed = new ArrayList<Boolean>();
-        for (int i = 0; i < nPoints;++i) {
-            enclosed.add(false);
+        return searchForTriangles(points, new SearchConfiguration());
+    }
+
+    /**
+     * Searches for point-disjoint triangles using the specified configuration.
+     * The found triangles consist of the specified point instances.
+     *
+     * @param points        The 2d points.
+     * @param configuration The configuration of the search.
+     * @return              The found triangles.
+     */
+    public static List<ColoredPolygon> searchForTriangles(List<ColoredPoint> points,
+                                                          SearchConfiguration configuration) {
+        return searchForTriangles(ArrayPointStore.fromPoints(points), configuration);
+    }
+
+    /**
+     * Searches for point-disjoint triangles using the specified configuration.
+     * If the configuration has a time limit, the triangles may be incomplete;
+     * use {@link TriangleSearch#start(PointStore, SearchConfiguration)} to find out.
+     *
+     * @param store         The store containing the 2d points.
+     * @param configuration The configuration of the search.
+     * @return              The found triangles.
+     */
+    public static List<ColoredPolygon> searchForTriangles(PointStore store,
+                                                          SearchConfiguration configuration) {
+        return start(store, configuration).getResult().getTriangles();
+    }
+
+    /**
+     * Starts searching for point-disjoint triangles using the specified configuration,
+     * in the pool of the configuration. The returned handle reports the progress, stops
+     * the search early and returns its result. A sequential search runs in the calling
+     * thread, so it is done when this returns and can only be stopped by its time limit.
+     *
+     * @param store         The store containing the 2d points.
+     * @param configuration The configuration of the search.
+     * @return              The handle of the search.
+     */
+    public static SearchHandle start(PointStore store, SearchConfiguration configuration) {
+        if (configuration.getLayoutCurve() != null) {
+            long start = System.nanoTime();
+            store = new CurveOrderedStore(store, configuration.getLayoutCurve(),
+                    configuration.isSequential() ? null : configuration.getPool());
+            if (configuration.getStatistics() != null) {
+                configuration.getStatistics().add(Counter.LAYOUT_NANOS, System.nanoTime() - start);
+            }
         }
+        int nPoints = store.size();
+        ConcurrentBitSet enclosed = new ConcurrentBitSet(nPoints);
         int currentDepth = 0;
 
-        // Sorting points facilitates splitting into smaller tasks.
-        Collections.sort(points);
-
-        ForkJoinPool forkJoinPool = new ForkJoinPool();
-        TriangleSearch search = new TriangleSearch(points, enclosed, currentDepth);
-        List<ColoredPolygon> foundTriangles = forkJoinPool.invoke(search);
-        forkJoinPool.shutdown();
+        int[] order = new int[nPoints];
+        for (int id = 0; id < nPoints; ++id) {
+            order[id] = id;
+        }
+        double[] radii = new double[nPoints];
+        Arrays.fill(radii, Double.POSITIVE_INFINITY);
+        Envelope plane = new Envelope(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
 
-        return foundTriangles;
+        TriangleSearch search = new TriangleSearch(store, order, 0, nPoints, enclosed, radii,
+                new int[nPoints], new int[nPoints], plane, currentDepth, configuration.leafPoints(nPoints),
+                configuration, new SearchHandle(nPoints, configuration));
+        search.handle.setTask(search);
+        if (configuration.isSequential()) {
+            // Runs in the calling thread, as subtasks are not forked.
+            search.invoke();
+        } else {
+            configuration.getPool().execute(search);
+        }
+        return search.handle;
     }
 
     /**
      * Starts the triangle search.
      */
     private void search() {
-        // Extract points that are not yet enclosed in other triangles.
-        List<ColoredPoint> availablePoints = new LinkedList<ColoredPoint>();
-        int nPoints = this.points.size();
-        for (int i = 0; i < nPoints; ++i) {
-            if (!this.enclosed.get(i)) {
-                ColoredPoint point = this.points.get(i);
-                availablePoints.add(point);
-            }
+        this.colorTrees = buildColorTrees();
+        this.failedSeeds = new IntList();
+        this.state = new SearchState(this.store, this.points, this.enclosed, this.nextLinks, this.previousLinks);
+        this.round = null;
+        if (this.configuration.isDelaunayCandidates()) {
+            commitDelaunayFaces();
         }
 
         /*
          * As long as at least 3 points of any color exist, a point might
          * be hiding.
          */
-        while (enoughPointsLeft(availablePoints)) {
-            Color color = nextColor(availablePoints);
-            ColoredPolygon triangle = nextTriangle(availablePoints, color);
+        while (enoughPointsLeft() && !this.handle.getCancellation().shouldStop()) {
+            Color color = nextColor();
+            ColoredPolygon triangle = nextTriangle(color);
 
             if (triangle != null) {
-                this.triangles.add(triangle);
-                markAndRemoveEnclosedPoints(availablePoints, triangle);
+                commit(triangle);
+            }
+        }
+
+        releaseFailedSeeds();
+    }
+
+    /**
+     * Adds the specified triangle to the found triangles, and removes the points
+     * it encloses from further consideration. Its corners have to be marked already.
+     *
+     * @param triangle  The found triangle.
+     */
+    private void commit(ColoredPolygon triangle) {
+        this.triangles.insert(triangle);
+        if (this.round != null) {
+            this.roundTriangles.add(triangle);
+        }
+        if (this.configuration.getTriangleSink() != null) {
+            this.configuration.getTriangleSink().add(triangle);
+        }
+        int nEnclosed = markAndRemoveEnclosedPoints(triangle);
+        this.handle.addTriangle(ColoredTriangle.N_POINTS + nEnclosed);
+    }
+
+    /**
+     * Commits the faces of the Delaunay triangulations of the points of each color,
+     * smallest first, as long as their corners are available and they do not conflict
+     * with a found triangle (see {@link DelaunayCandidates}). The search of the
+     * remaining points afterwards keeps the result complete.
+     */
+    private void commitDelaunayFaces() {
+        long start = startTimer();
+        IntList faces = DelaunayCandidates.faces(this.store, this.points, this.enclosed);
+        count(Counter.DELAUNAY_FACES, faces.size() / ColoredTriangle.N_POINTS);
+        for (int i = 0; i < faces.size(); i += ColoredTriangle.N_POINTS) {
+            int p1Id = faces.get(i);
+            int p2Id = faces.get(i + 1);
+            int p3Id = faces.get(i + 2);
+            if (this.enclosed.get(p1Id) || this.enclosed.get(p2Id) || this.enclosed.get(p3Id)
+                    || !spansSplit(p1Id, p2Id, p3Id)) {
+                continue;
+            }
+            if (this.handle.getCancellation().shouldStop()) {
+                break;
+            }
+            ColoredPolygon triangle = new ColoredTriangle(this.store.getPoint(p1Id), this.store.getPoint(p2Id),
+                    this.store.getPoint(p3Id));
+            count(Counter.TRIANGLE_TESTS);
+            if (this.triangles.intersectsWithPolygon(triangle)) {
+                continue;
+            }
+            markAsEnclosed(p1Id);
+            markAsEnclosed(p2Id);
+            markAsEnclosed(p3Id);
+            count(Counter.TRIANGLES);
+            count(Counter.DELAUNAY_TRIANGLES);
+            commit(triangle);
+        }
+        stopTimer(Counter.DELAUNAY_NANOS, start);
+    }
+
+    /**
+     * Makes the points that failed as first triangle point available again,
+     * unless they are enclosed by a triangle found in the meantime. Parent tasks
+     * consider more points, so these points might still be part of a triangle.
+     */
+    private void releaseFailedSeeds() {
+        int nSeeds = this.failedSeeds.size();
+        for (int i = 0; i < nSeeds; ++i) {
+            int id = this.failedSeeds.get(i);
+            if (!this.triangles.enclosesPoint(this.store.getPoint(id))) {
+                this.enclosed.clear(id);
             }
         }
     }
@@ -129,240 +454,875 @@ public class TriangleSearch extends RecursiveTask<List<ColoredPolygon>> {
      * Searches for the next available triangle. If it returns null,
      * no triangle could be found for the specified color.
      *
-     * @param   cPoints The collection of points that is currently considered for
-     *                  triangle creation.
      * @param   color   The color specifying which colored triangle to search for.
      * @return          Triangle, if found for the specified color. Null, otherwise.
      */
-    private ColoredPolygon nextTriangle(List<ColoredPoint> cPoints, Color color) {
-        int[] colorOccurrence = colorOccurrence(cPoints);
-        int numberOfColoredPoints = colorOccurrence[color.getIntRepresentation()];
-
+    private ColoredPolygon nextTriangle(Color color) {
         // Search as long as enough points exist for creating a triangle
-        while(numberOfColoredPoints >= 3) {
-
-            Iterator<ColoredPoint> iterator = cPoints.iterator();
-            ColoredPoint p1 = getNextWithColor(iterator, color);
+        while(this.state.count(color) >= 3 && !this.handle.getCancellation().shouldStop()) {
+            int p1Id = this.state.first(color);
+            count(Counter.SEEDS);
+            Attempt attempt = attempt(p1Id);
+            this.radii[p1Id] = Math.min(this.radii[p1Id], attempt.radius);
 
             /*
-             * Remove p1 for further consideration: Either p1 will be part of a 
+             * Remove p1 for further consideration: Either p1 will be part of a
              * triangle or not compatible with other points.
              */
-            iterator.remove();
-            markAsEnclosed(p1);
-            --numberOfColoredPoints;
-
-            // Pick second triangle point. Take closest ones to p1 first.
-            List<ColoredPoint> potentialPoints = new ArrayList<ColoredPoint>(cPoints);
-            Collections.sort(potentialPoints, new EuclidComparator(p1));
-            Iterator<ColoredPoint> p2Iterator = potentialPoints.iterator();
-
-            while (p2Iterator.hasNext()) {
-                ColoredPoint p2 = getNextWithColor(p2Iterator, color);
-                if (p2 == null) {
+            markAsEnclosed(p1Id);
+            if (attempt.triangle != null) {
+                markAsEnclosed(attempt.second);
+                markAsEnclosed(attempt.third);
+                count(Counter.TRIANGLES);
+                return attempt.triangle;
+            }
+            this.failedSeeds.add(p1Id);
+            count(Counter.FAILED_SEEDS);
+        }
+        // If no triangle could be found for this color, return null.
+        return null;
+    }
+
+    /**
+     * Returns the attempt to find a triangle with the specified seed as first
+     * point. If seeds are searched ahead, the attempt of the current round is
+     * taken, unless its triangle conflicts with a triangle found since the round
+     * started. Then, or without an attempt, the triangle is searched right away.
+     *
+     * @param p1Id  The id of the seed, the first available point of its color.
+     * @return      The attempt, with a triangle if one is found.
+     */
+    private Attempt attempt(int p1Id) {
+        Attempt attempt = null;
+        if (this.configuration.getSpeculativeSeeds() > 0 && !this.configuration.isSequential()) {
+            attempt = this.round == null ? null : this.round.remove(p1Id);
+            if (attempt == null) {
+                speculate();
+                attempt = this.round.remove(p1Id);
+            }
+            if (attempt.triangle != null && !isStillValid(attempt)) {
+                count(Counter.SPECULATION_RETRIES);
+                attempt = null;
+            }
+        }
+        if (attempt == null) {
+            attempt = new Attempt(p1Id, null, 0, this.counts);
+            findTriangle(attempt);
+        }
+        return attempt;
+    }
+
+    /**
+     * Starts a new round of searching seeds ahead: for each color with enough
+     * points, the triangles of its first available points are searched in parallel,
+     * with the triangles found so far. Each attempt is the one the sequential search
+     * would make, unless its triangle conflicts with a triangle found before its
+     * seed's turn: conflicts only grow and points only vanish, so a triangle that
+     * does not conflict is the first one the sequential search would find, and a
+     * seed without a triangle would not get one later either.
+     */
+    private void speculate() {
+        int nColors = Color.values().length;
+        int nActive = 0;
+        for (Color color : Color.values()) {
+            if (this.state.count(color) >= ColoredTriangle.N_POINTS) {
+                ++nActive;
+            }
+        }
+        // The color of the current seed has enough points, so at least one color is active.
+        int perColor = (this.configuration.getSpeculativeSeeds() + nActive - 1) / nActive;
+
+        List<Attempt> attempts = new ArrayList<Attempt>();
+        for (int colorIndex = 0; colorIndex < nColors; ++colorIndex) {
+            Color color = Color.fromInt(colorIndex);
+            if (this.state.count(color) < ColoredTriangle.N_POINTS) {
+                continue;
+            }
+            // The seeds before a seed of the same color are gone by its turn.
+            int[] seeds = new int[perColor];
+            int nSeeds = 0;
+            for (int id = this.state.first(color); id >= 0 && nSeeds < perColor; id = this.state.next(id)) {
+                seeds[nSeeds] = id;
+                long[] attemptCounts = this.counts == null ? null : new long[SearchStatistics.N_COUNTERS];
+                attempts.add(new Attempt(id, seeds, nSeeds, attemptCounts));
+                ++nSeeds;
+            }
+        }
+        invokeAll(attempts);
+
+        this.round = new HashMap<Integer, Attempt>();
+        this.roundTriangles = new ArrayList<ColoredPolygon>();
+        for (Attempt attempt : attempts) {
+            this.round.put(attempt.seed, attempt);
+            if (this.counts != null) {
+                for (int i = 0; i < this.counts.length; ++i) {
+                    this.counts[i] += attempt.counts[i];
+                }
+            }
+        }
+        count(Counter.SPECULATED_SEEDS, attempts.size());
+    }
+
+    /**
+     * Returns true, if the triangle of the specified attempt of the current round
+     * still consists of available points, and does not conflict with the triangles
+     * found since the round started.
+     */
+    private boolean isStillValid(Attempt attempt) {
+        if (this.enclosed.get(attempt.second) || this.enclosed.get(attempt.third)) {
+            return false;
+        }
+        for (ColoredPolygon triangle : this.roundTriangles) {
+            if (triangle.intersectsWithPolygon(attempt.triangle)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches a triangle with the seed of the specified attempt as first point,
+     * trying the closest points of the same color first. Only reads the state of
+     * the search, so that several attempts can run at once.
+     *
+     * @param attempt   The attempt, which receives the triangle and the counts.
+     */
+    private void findTriangle(Attempt attempt) {
+        int p1Id = attempt.seed;
+        int colorIndex = this.store.getColorIndex(p1Id);
+        ColoredPoint p1 = this.store.getPoint(p1Id);
+
+        /*
+         * Points occluded by triangles around p1 can not be connected with it.
+         * The occlusion is only computed if the closest neighbours do not yield
+         * a triangle. Until then, only the known occlusion radius is used.
+         */
+        Occlusion occlusion = null;
+
+        // Pick second triangle point. Take closest ones to p1 first.
+        PointKdTree.NearestNeighbours neighbours = this.colorTrees[colorIndex]
+                .nearest(this.store.getX(p1Id), this.store.getY(p1Id));
+
+        // The ranks of the candidates among the available neighbours.
+        int rank2 = -1;
+        for (int i = 0; neighbours.get(i) >= 0; ++i) {
+            int p2Id = neighbours.get(i);
+            if (attempt.excludes(p2Id)) {
+                continue;
+            }
+            ++rank2;
+            attempt.count(Counter.P2_CANDIDATES);
+            if (occlusion == null && rank2 >= OCCLUSION_NEIGHBOURS) {
+                occlusion = occlusion(attempt, OCCLUSION_SPACINGS * spacing());
+            }
+            if (distance(p1Id, p2Id) > attempt.radius) {
+                attempt.count(Counter.P2_RADIUS_CUTOFFS);
+                break;
+            }
+            if (occlusion != null && occlusion.occludes(this.store.getX(p2Id), this.store.getY(p2Id))) {
+                attempt.count(Counter.P2_OCCLUDED);
+                continue;
+            }
+            ColoredPoint p2 = this.store.getPoint(p2Id);
+
+            // Check if the line segment between p1 and p2 conflicts with any triangle.
+            if (intersectsWithTriangles(attempt, p1, p2)) {
+                attempt.count(Counter.P2_LINE_CONFLICTS);
+                continue;
+            }
+
+            // Pick third triangle point. Pick closest one to p1, that was not yet tried as p2.
+            int rank3 = rank2;
+            for (int j = i + 1; neighbours.get(j) >= 0; ++j) {
+                int p3Id = neighbours.get(j);
+                if (attempt.excludes(p3Id)) {
+                    continue;
+                }
+                ++rank3;
+                attempt.count(Counter.P3_CANDIDATES);
+                if (occlusion == null && rank3 >= OCCLUSION_NEIGHBOURS) {
+                    occlusion = occlusion(attempt, OCCLUSION_SPACINGS * spacing());
+                }
+                if (distance(p1Id, p3Id) > attempt.radius) {
+                    attempt.count(Counter.P3_RADIUS_CUTOFFS);
                     break;
                 }
-                p2Iterator.remove();
-
-                // Check if the line segment between p1 and p2 conflicts with any triangle.
-                boolean validLine = true;
-                for (ColoredPolygon triangle : this.triangles) {
-                    if (triangle.intersectsWithLine(p1, p2)) {
-                        validLine = false;
-                        break;
-                    }
+                if (occlusion != null
+                        && occlusion.occludes(this.store.getX(p3Id), this.store.getY(p3Id))) {
+                    attempt.count(Counter.P3_OCCLUDED);
+                    continue;
+                }
+                if (!spansSplit(p1Id, p2Id, p3Id)) {
+                    attempt.count(Counter.P3_SAME_PART);
+                    continue;
+                }
+                ColoredPoint p3 = this.store.getPoint(p3Id);
+
+                // If p1 , p2 and p3 do not lie on a line, a triangle is found.
+                if (CGAlgorithms.computeOrientation(p1.getCoordinate(), p2.getCoordinate(),
+                        p3.getCoordinate()) == CGAlgorithms.COLLINEAR) {
+                    attempt.count(Counter.P3_COLLINEAR);
+                    continue;
                 }
-                if (validLine) {
-
-                    // Pick third triangle point. Pick closest one to p1.
-                    Iterator<ColoredPoint> p3Iterator = potentialPoints.iterator();
-                    while (p3Iterator.hasNext()) {
-                        ColoredPoint p3 = getNextWithColor(p3Iterator, color);
-                        if (p3 == null) {
-                            break;
-                        }
-
-                        // If p1 , p2 and p3 do not lie on a line, a triangle is found.
-                        if (CGAlgorithms.computeOrientation(p1.getCoordinate(), p2.getCoordinate(), p3.getCoordinate())
-                                != CGAlgorithms.COLLINEAR) {
-                            ColoredPolygon triangle = new ColoredTriangle(p1, p2, p3);
-                            if (disjoint(triangle)) {
-                                markAsEnclosed(p2);
-                                markAsEnclosed(p3);
-                                cPoints.remove(p2);
-                                cPoints.remove(p3);
-                                return triangle;
-                            }
-                        }
-                    }
+                ColoredPolygon triangle = new ColoredTriangle(p1, p2, p3);
+                if (disjoint(attempt, triangle)) {
+                    attempt.triangle = triangle;
+                    attempt.second = p2Id;
+                    attempt.third = p3Id;
+                    return;
                 }
+                attempt.count(Counter.P3_TRIANGLE_CONFLICTS);
             }
         }
-        // If no triangle could be found for this color, return null.
-        return null;
     }
 
     /**
-     * Returns the next point with the specified color, if existent.
+     * Increments the specified counter, if statistics are collected.
+     */
+    private void count(Counter counter) {
+        if (this.counts != null) {
+            ++this.counts[counter.ordinal()];
+        }
+    }
+
+    /**
+     * Adds the specified value to the specified counter, if statistics are collected.
+     */
+    private void count(Counter counter, long value) {
+        if (this.counts != null) {
+            this.counts[counter.ordinal()] += value;
+        }
+    }
+
+    /**
+     * Returns the current time in nanoseconds, if statistics are collected. 0, otherwise.
+     */
+    private long startTimer() {
+        return this.counts != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Adds the time since the specified start to the specified timer, if statistics are collected.
+     */
+    private void stopTimer(Counter timer, long start) {
+        count(timer, elapsed(start));
+    }
+
+    /**
+     * Returns the time since the specified start, if statistics are collected. 0, otherwise.
+     */
+    private long elapsed(long start) {
+        return this.counts != null ? System.nanoTime() - start : 0;
+    }
+
+    /**
+     * Returns the distance between the specified points.
+     */
+    private double distance(int id1, int id2) {
+        double dx = this.store.getX(id1) - this.store.getX(id2);
+        double dy = this.store.getY(id1) - this.store.getY(id2);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Returns false, if the specified points all belong to the same part of a
+     * merged task. Such triangles are already ruled out by the part's search.
+     * Returns true for leaf tasks.
+     */
+    private boolean spansSplit(int id1, int id2, int id3) {
+        if (!this.merge) {
+            return true;
+        }
+        boolean first = isInFirstPart(id1);
+        return first != isInFirstPart(id2) || first != isInFirstPart(id3);
+    }
+
+    /**
+     * Returns true, if the specified point belongs to the first part of a merged task.
+     */
+    private boolean isInFirstPart(int id) {
+        return axisValue(id, this.splitByY) <= this.firstMax;
+    }
+
+    /**
+     * Returns the average distance between the points of this task.
+     */
+    private double spacing() {
+        double width = this.bounds.getWidth();
+        double height = this.bounds.getHeight();
+        int nPoints = this.to - this.from;
+
+        double spacing = Math.sqrt(width * height / nPoints);
+        if (spacing == 0) {
+            spacing = Math.max(width, height) / nPoints;
+        }
+        return spacing;
+    }
+
+    /**
+     * Computes the occlusion of the specified point by the triangles found so far,
+     * and keeps its occlusion radius as the point's new upper bound.
      *
-     * @param iterator  The iterator to iterate through a collection of points.
-     * @param color     The point color that is searched for.
-     * @return          The next point with the specified color. Null, if no such
-     *                  point could be found.
-     */
-    private ColoredPoint getNextWithColor(Iterator<ColoredPoint> iterator, Color color) {
-        ColoredPoint point = null;
-        while(iterator.hasNext()) {
-            ColoredPoint currentPoint = iterator.next();
-            if (currentPoint.getColor() == color ) {
-                point = currentPoint;
-                break;
+     * @param id        The id of the point.
+     * @param maxRadius The greatest radius to search triangles within.
+     * @return          The occlusion of the point.
+     */
+    private Occlusion occlusion(int id, double maxRadius) {
+        count(Counter.OCCLUSIONS);
+        // Start looking for triangles within the average distance of points.
+        Occlusion occlusion = Occlusion.around(this.triangles, this.store.getX(id), this.store.getY(id),
+                spacing(), maxRadius);
+        this.radii[id] = Math.min(this.radii[id], occlusion.getRadius());
+        return occlusion;
+    }
+
+    /**
+     * Computes the occlusion of the seed of the specified attempt by the triangles
+     * found so far, and keeps its occlusion radius as the seed's new upper bound
+     * within the attempt.
+     *
+     * @param attempt   The attempt.
+     * @param maxRadius The greatest radius to search triangles within.
+     * @return          The occlusion of the seed.
+     */
+    private Occlusion occlusion(Attempt attempt, double maxRadius) {
+        attempt.count(Counter.OCCLUSIONS);
+        Occlusion occlusion = Occlusion.around(this.triangles, this.store.getX(attempt.seed),
+                this.store.getY(attempt.seed), spacing(), maxRadius);
+        attempt.radius = Math.min(attempt.radius, occlusion.getRadius());
+        return occlusion;
+    }
+
+    /**
+     * Returns the distance of the specified point to the boundary of the region of this task.
+     */
+    private double regionDistance(int id) {
+        double x = this.store.getX(id);
+        double y = this.store.getY(id);
+        return Math.min(Math.min(x - this.region.getMinX(), this.region.getMaxX() - x),
+                Math.min(y - this.region.getMinY(), this.region.getMaxY() - y));
+    }
+
+    /**
+     * Collects the points that are not part of a triangle and that might still form
+     * one with points outside of the region of this task. Occluding triangles are only
+     * searched within a few spacings of a point, so that the work per point does not
+     * grow with the region: a point that is not occluded within them stays a leftover,
+     * instead of searching triangles up to the boundary of the region.
+     *
+     * @param candidates    The points to collect from.
+     * @param recompute     Flags indicating for which candidates the occlusion radius
+     *                      is computed again. Null, if for all of them.
+     */
+    private void collectLeftovers(int[] candidates, boolean[] recompute) {
+        this.leftovers = new IntList();
+        double maxRadius = OCCLUSION_SPACINGS * spacing();
+        for (int i = 0; i < candidates.length; ++i) {
+            int id = candidates[i];
+            if (this.enclosed.get(id)) {
+                continue;
+            }
+            double distance = regionDistance(id);
+            if (this.radii[id] < distance) {
+                continue;
             }
+            if (recompute == null || recompute[i]) {
+                occlusion(id, Math.min(distance, maxRadius));
+                if (this.radii[id] < distance) {
+                    continue;
+                }
+            }
+            this.leftovers.add(id);
         }
-        return point;
     }
 
     /**
      * Marks a specified point as enclosed.
      *
-     * @param point Point to be marked as enclosed
+     * @param id The id of the point to be marked as enclosed
      */
-    private void markAsEnclosed(ColoredPoint point) {
-        int index = this.points.indexOf(point);
-        this.enclosed.set(index, true);
+    private void markAsEnclosed(int id) {
+        this.enclosed.set(id);
+        if (this.colorTrees[this.store.getColorIndex(id)].remove(id)) {
+            this.state.remove(id);
+        }
     }
 
     /**
-     * Removes all points from the currently considered point list that are
-     * enclosed by the specified triangle. The enclosed fields are updated
-     * accordingly.
+     * Builds one tree per color, containing the points that are not yet enclosed.
+     *
+     * @return The trees, indexed by color.
+     */
+    private PointKdTree[] buildColorTrees() {
+        int nColors = Color.values().length;
+
+        int[] sizes = new int[nColors];
+        for (int id : this.points) {
+            if (!this.enclosed.get(id)) {
+                ++sizes[this.store.getColorIndex(id)];
+            }
+        }
+
+        int[][] ids = new int[nColors][];
+        for (int color = 0; color < nColors; ++color) {
+            ids[color] = new int[sizes[color]];
+            sizes[color] = 0;
+        }
+
+        for (int id : this.points) {
+            if (!this.enclosed.get(id)) {
+                int color = this.store.getColorIndex(id);
+                ids[color][sizes[color]++] = id;
+            }
+        }
+
+        PointKdTree[] trees = new PointKdTree[nColors];
+        for (int color = 0; color < nColors; ++color) {
+            trees[color] = new PointKdTree(this.store, ids[color], sizes[color]);
+        }
+        return trees;
+    }
+
+    /**
+     * Marks all points that are enclosed by the specified triangle,
+     * so that they are not considered for triangle creation any more.
+     * Only points within the triangle's bounding box are checked.
      *
-     * @param cPoints   The currently considered points for triangle creation.
      * @param triangle  The triangle that might enclose points.
+     * @return          The number of enclosed points.
      */
-    private void markAndRemoveEnclosedPoints(List<ColoredPoint> cPoints, ColoredPolygon triangle) {
-        ForkJoinPool forkJoinPool = new ForkJoinPool();
-        EnclosedPointsFinder findEnclosePoints = new EnclosedPointsFinder(cPoints, triangle);
-        List<ColoredPoint> enclosedPoints = forkJoinPool.invoke(findEnclosePoints);
-        forkJoinPool.shutdown();
+    private int markAndRemoveEnclosedPoints(ColoredPolygon triangle) {
+        long start = startTimer();
+        IntList candidates = new IntList();
+        for (PointKdTree tree : this.colorTrees) {
+            tree.query(triangle.getEnvelope(), candidates);
+        }
+
+        // Runs within the pool of this task. Only large candidate sets are split.
+        EnclosedPointsFinder findEnclosePoints = new EnclosedPointsFinder(this.store,
+                candidates.toArray(), 0, candidates.size(), triangle, this.configuration.enclosureTaskPoints(),
+                this.handle.getCancellation());
+        IntList enclosedPoints = findEnclosePoints.invoke();
 
-        Iterator<ColoredPoint> iterator = enclosedPoints.iterator();
-        while (iterator.hasNext()) {
-            ColoredPoint point = iterator.next();
-            markAsEnclosed(point);
-            iterator.remove();
+        int nEnclosed = enclosedPoints.size();
+        for (int i = 0; i < nEnclosed; ++i) {
+            markAsEnclosed(enclosedPoints.get(i));
         }
+        count(Counter.ENCLOSURE_TESTS, candidates.size());
+        count(Counter.ENCLOSED_POINTS, nEnclosed);
+        stopTimer(Counter.ENCLOSURE_NANOS, start);
+        return nEnclosed;
+    }
+
+    /**
+     * Checks if the line segment between the specified points intersects with
+     * any of the existing triangles.
+     *
+     * @param attempt The attempt counting the test.
+     * @param p1        The start point of the line segment.
+     * @param p2        The end point of the line segment.
+     * @return          True, if the line segment intersects with a triangle.
+     */
+    private boolean intersectsWithTriangles(Attempt attempt, ColoredPoint p1, ColoredPoint p2) {
+        attempt.count(Counter.LINE_TESTS);
+        return this.triangles.intersectsWithLine(p1, p2);
     }
 
     /**
      * Checks if the specified triangle collides with the set of existing triangles.
-     * 
+     *
+     * @param attempt   The attempt counting the test.
      * @param triangle  The triangle to be checked against the existing ones.
      * @return          True, if triangle does not collide with existing triangles.
      *                  False, otherwise.
      */
-    private boolean disjoint(ColoredPolygon triangle) {
-        for (ColoredPolygon curTriangle : this.triangles) {
-            if (curTriangle.intersectsWithPolygon(triangle)) {
-                return false;
-            }
-        }
-        return true;
+    private boolean disjoint(Attempt attempt, ColoredPolygon triangle) {
+        attempt.count(Counter.TRIANGLE_TESTS);
+        return !this.triangles.intersectsWithPolygon(triangle);
     }
 
     /**
      * Selects the next color to be considered for finding a new triangle.
      *
-     * @param  cPoints  The collection of points that are currently considered.
-     * @return          Color, for which a new triangle could be found.
+     * @return  Color, for which a new triangle could be found.
      */
-    private Color nextColor(List<ColoredPoint> cPoints) {
-        int[] occurrences = colorOccurrence(cPoints);
-        int maxOccurrence = occurrences[0];
-        int colorIndex = 0;
-        int nColors = Color.values().length;
-
+    private Color nextColor() {
         // Select color that is contained the most
-        for (int i = 1; i < nColors; ++i) {
-            if (maxOccurrence < occurrences[i]) {
-                maxOccurrence = occurrences[i];
-                colorIndex = i;
+        return this.state.mostFrequentColor();
+    }
+
+    /**
+     * Checks if enough points are available in order to
+     * find a new triangle.
+     *
+     * @return  True, if enough points are left for creating a triangle.
+     */
+    private boolean enoughPointsLeft() {
+        // As long as 3 points of one color remain, we might find another triangle.
+        for (Color color : Color.values()) {
+            if (this.state.count(color) >= ColoredTriangle.N_POINTS) {
+                return true;
             }
         }
-        return Color.fromInt(colorIndex);
+        return false;
     }
 
+
     /**
-     * Returns a list of numbers indicating how many
-     * points are still to be considered, ordered by their color.
+     * Splits the points of this task into two parts at the median of the x values
+     * (for even depths) or y values (for odd depths). Points with the same value
+     * end up in the same part, so that triangles of different parts never touch.
+     * If all points have the same value, the other axis is used.
      *
-     * @param  cPoints  The points currently considered for triangle creation.
-     * @return          Array indicating how many points of each color are not yet
-     *                  considered for triangle creation.
+     * @return  The index of {@link TriangleSearch#order} where the second part starts,
+     *          or -1 if the points can not be split.
      */
-    private int[] colorOccurrence(List<ColoredPoint> cPoints) {
-        int nColors = Color.values().length;
-        int[] occurrences = new int[nColors];
-
-        int nPoints = this.points.size();
-        for (int i = 0; i < nPoints; ++i) {
-            if (!this.enclosed.get(i)) {
-                int colorIndex = this.points.get(i).getColor().getIntRepresentation();
-                ++occurrences[colorIndex];
+    private int partition() {
+        boolean yFirst = this.splitDepth % 2 == 1;
+        int split = partition(yFirst);
+        if (split < 0) {
+            yFirst = !yFirst;
+            split = partition(yFirst);
+        }
+        if (split >= 0) {
+            this.splitByY = yFirst;
+            this.firstMax = Double.NEGATIVE_INFINITY;
+            for (int i = this.from; i < split; ++i) {
+                this.firstMax = Math.max(this.firstMax, axisValue(this.order[i], yFirst));
+            }
+            this.secondMin = Double.POSITIVE_INFINITY;
+            for (int i = split; i < this.to; ++i) {
+                this.secondMin = Math.min(this.secondMin, axisValue(this.order[i], yFirst));
             }
         }
-                                        
-        return occurrences;
+        return split;
     }
 
     /**
-     * Checks if enough points are available in order to
-     * find a new triangle.
+     * Splits the points of this task into two parts at the median of the
+     * specified axis.
      *
-     * @param  cPoints  The points that are currently considered for triangle creation.
-     * @return          True, if enough points are left for creating a triangle.
+     * @param yFirst    True, if split by y values. False, if split by x values.
+     * @return          The index of {@link TriangleSearch#order} where the second part starts,
+     *                  or -1 if the points can not be split.
      */
-    private boolean enoughPointsLeft(List<ColoredPoint> cPoints) {
-        boolean enoughPoints = false;
-        int[] colorOccurrence = colorOccurrence(cPoints);
+    private int partition(boolean yFirst) {
+        int median = (this.from + this.to) >>> 1;
+        IdSorter.select(this.order, this.from, this.to, median, new CoordinateComparator(this.store, yFirst));
+        double value = axisValue(this.order[median], yFirst);
 
-        // As long as 3 points of one color remain, we might find another triangle.
-        for (int occurrence : colorOccurrence) {
-            if (occurrence >= ColoredTriangle.N_POINTS) {
-                enoughPoints = true;
-                break;
+        // Move points with the median value from the second part to the first one.
+        int split = median + 1;
+        for (int i = split; i < this.to; ++i) {
+            if (axisValue(this.order[i], yFirst) == value) {
+                swap(i, split++);
             }
         }
-        return enoughPoints;
+        if (split < this.to) {
+            return split;
+        }
+
+        // All points of the second part have the median value, move them there instead.
+        split = this.from;
+        for (int i = this.from; i < median; ++i) {
+            if (axisValue(this.order[i], yFirst) < value) {
+                swap(i, split++);
+            }
+        }
+        if (split > this.from) {
+            return split;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the x or y value of the specified point.
+     */
+    private double axisValue(int id, boolean yFirst) {
+        return yFirst ? this.store.getY(id) : this.store.getX(id);
     }
 
+    /**
+     * Swaps the ids at the indices i and j of {@link TriangleSearch#order}.
+     */
+    private void swap(int i, int j) {
+        int id = this.order[i];
+        this.order[i] = this.order[j];
+        this.order[j] = id;
+    }
+
+    /**
+     * Returns the region of the first or second part of this task.
+     *
+     * @param first True, for the region of the first part. False, for the second part.
+     * @return      The region of the part.
+     */
+    private Envelope partRegion(boolean first) {
+        double minX = this.region.getMinX();
+        double maxX = this.region.getMaxX();
+        double minY = this.region.getMinY();
+        double maxY = this.region.getMaxY();
+        if (this.splitByY && first) {
+            maxY = this.firstMax;
+        } else if (this.splitByY) {
+            minY = this.secondMin;
+        } else if (first) {
+            maxX = this.firstMax;
+        } else {
+            minX = this.secondMin;
+        }
+        return new Envelope(minX, maxX, minY, maxY);
+    }
+
+    /**
+     * Searches for triangles with points of both parts, after both parts are searched.
+     * Only the leftovers of the parts are considered, and of those only the points
+     * whose occlusion radius reaches the other part: Triangles of points from the
+     * same part are already ruled out, and every corner of a triangle spanning
+     * both parts is connected to a corner in the other part.
+     *
+     * @param first     The search of the first part.
+     * @param second    The search of the second part.
+     */
+    private void merge(TriangleSearch first, TriangleSearch second) {
+        int nFirst = first.leftovers.size();
+        int[] candidates = new int[nFirst + second.leftovers.size()];
+        System.arraycopy(first.leftovers.toArray(), 0, candidates, 0, nFirst);
+        System.arraycopy(second.leftovers.toArray(), 0, candidates, nFirst, candidates.length - nFirst);
+
+        boolean[] inStrip = new boolean[candidates.length];
+        IntList strip = new IntList();
+        for (int i = 0; i < candidates.length; ++i) {
+            int id = candidates[i];
+            double value = axisValue(id, this.splitByY);
+            double distance = i < nFirst ? this.secondMin - value : value - this.firstMax;
+            if (this.radii[id] >= distance) {
+                inStrip[i] = true;
+                strip.add(id);
+            }
+        }
+
+        this.merge = true;
+        this.points = strip.toArray();
+        long start = startTimer();
+        search();
+        stopTimer(Counter.MERGE_SEARCH_NANOS, start);
+
+        if (this.splitDepth > 0 && !this.handle.getCancellation().isCancelled()) {
+            start = startTimer();
+            collectLeftovers(candidates, inStrip);
+            stopTimer(Counter.LEFTOVER_NANOS, start);
+        }
+    }
 
     @Override
     protected List<ColoredPolygon> compute() {
-        int nPoints = this.points.size();
+        this.handle.taskStarted();
+        try {
+            List<ColoredPolygon> triangles = computeTriangles();
+            if (this.splitDepth == 0 && this.configuration.getStatistics() != null) {
+                this.configuration.getStatistics().addSearch();
+            }
+            return triangles;
+        } finally {
+            this.handle.taskDone();
+        }
+    }
+
+    /**
+     * Searches the triangles of this task, either by splitting it into two parts
+     * and merging their triangles, or as leaf task. A task of a stopped search
+     * neither splits, nor merges, nor collects its leftovers.
+     *
+     * @return The triangles of this task.
+     */
+    private List<ColoredPolygon> computeTriangles() {
+        if (this.handle.getCancellation().shouldStop()) {
+            this.triangles = this.configuration.createTriangleIndex();
+            this.bounds = new Envelope();
+            return this.triangles.getTriangles();
+        }
+        int nPoints = this.to - this.from;
+        long queuedTasks = 0;
+        if (this.counts != null && getPool() != null) {
+            queuedTasks = getPool().getQueuedTaskCount();
+        }
 
         // Split task if too big.
-        if (this.splitDepth < SPLIT_DEPTH && nPoints > MAX_POINTS) {
-            int split = nPoints/2;
+        int split = -1;
+        long start = startTimer();
+        if (this.splitDepth < this.configuration.getSplitDepth() && nPoints > this.leafPoints) {
+            split = partition();
+        }
+        stopTimer(Counter.PARTITION_NANOS, start);
+        long taskNanos = elapsed(start);
 
-            /* Split points vertically. Creating triangles in isolation will not
-             * interfere with each other, as points are sorted.
+        if (split >= 0) {
+            /* Split points at the median of alternating axes. Creating triangles in
+             * isolation will not interfere with each other, as the parts are separated.
              */
-            TriangleSearch leftSearch = new TriangleSearch(this.points.subList(0, split), this.enclosed.subList(0, split), splitDepth + 1);
-            TriangleSearch rightSearch = new TriangleSearch(this.points.subList(split, nPoints), this.enclosed.subList(split, nPoints), splitDepth + 1);
+            TriangleSearch leftSearch = new TriangleSearch(this.store, this.order, this.from, split,
+                    this.enclosed, this.radii, this.nextLinks, this.previousLinks, partRegion(true),
+                    splitDepth + 1, this.leafPoints, this.configuration, this.handle);
+            TriangleSearch rightSearch = new TriangleSearch(this.store, this.order, split, this.to,
+                    this.enclosed, this.radii, this.nextLinks, this.previousLinks, partRegion(false),
+                    splitDepth + 1, this.leafPoints, this.configuration, this.handle);
 
-            leftSearch.fork();
+            if (this.configuration.isSequential()) {
+                leftSearch.compute();
+                rightSearch.compute();
+            } else {
+                leftSearch.fork();
+                rightSearch.compute();
+                leftSearch.join();
+            }
+            start = startTimer();
 
-            this.triangles = leftSearch.join();
-            this.triangles.addAll(rightSearch.compute());
+            // Continue with the left index, so that the order of found triangles is kept.
+            this.triangles = leftSearch.triangles;
+            for (ColoredPolygon triangle : rightSearch.triangles.getTriangles()) {
+                this.triangles.insert(triangle);
+            }
+            this.bounds = new Envelope(leftSearch.bounds);
+            this.bounds.expandToInclude(rightSearch.bounds);
+
+            // Search for new triangles across the split, unless the search is stopped.
+            if (!this.handle.getCancellation().shouldStop()) {
+                merge(leftSearch, rightSearch);
+            }
+            count(Counter.MERGE_TASKS);
+            taskNanos += elapsed(start);
 
         } else {
-            // If task can be computed without splitting, create a new list.
-            this.triangles = new LinkedList<ColoredPolygon>();
+            // If task can be computed without splitting, create a new index.
+            this.triangles = this.configuration.createTriangleIndex();
+
+            // Points of a leaf are searched in the order of their coordinates.
+            long leafStart = System.nanoTime();
+            start = startTimer();
+            if (nPoints >= RADIX_SORT_POINTS) {
+                RadixSorter.sortByCoordinates(this.order, this.from, this.to, this.store,
+                        this.configuration.isSequential() ? null : this.configuration.getPool());
+            } else {
+                IdSorter.sort(this.order, this.from, this.to, new CoordinateComparator(this.store));
+            }
+            this.points = Arrays.copyOfRange(this.order, this.from, this.to);
+            this.bounds = new Envelope();
+            for (int id : this.points) {
+                this.bounds.expandToInclude(this.store.getX(id), this.store.getY(id));
+            }
+            stopTimer(Counter.SORT_NANOS, start);
+
+            start = startTimer();
+            search();
+            stopTimer(Counter.LEAF_SEARCH_NANOS, start);
+            if (this.splitDepth > 0 && !this.handle.getCancellation().isCancelled()) {
+                start = startTimer();
+                collectLeftovers(this.points, null);
+                stopTimer(Counter.LEFTOVER_NANOS, start);
+            }
+            count(Counter.LEAF_TASKS);
+
+            long leafNanos = System.nanoTime() - leafStart;
+            taskNanos += leafNanos;
+            PartitionReport report = this.configuration.getPartitionReport();
+            if (report != null) {
+                report.addLeaf(this.splitDepth, nPoints, leafNanos, this.triangles.size());
+            }
         }
 
-        // Search for new triangles.
-        search();
-        return this.triangles;
+        if (this.counts != null) {
+            this.counts[Counter.TASK_NANOS.ordinal()] = taskNanos;
+            this.configuration.getStatistics().addTask(this.counts, queuedTasks);
+        }
+
+        return this.triangles.getTriangles();
+    }
+
+    /**
+     * An attempt to find a triangle with a certain seed as first point. Attempts
+     * of seeds searched ahead run in parallel, so they keep their results and
+     * counts to themselves until their seed's turn.
+     */
+    private final class Attempt extends RecursiveAction {
+
+        /**
+         * The id of the seed.
+         */
+        private int seed;
+
+        /**
+         * The seeds of the same color whose turn comes before this seed's, in the
+         * first nExcluded elements. They are not available any more by then.
+         */
+        private int[] excluded;
+        private int nExcluded;
+
+        /**
+         * The upper bound of the occlusion radius of the seed.
+         */
+        private double radius;
+
+        /**
+         * The counters of the attempt, or null if no statistics are collected.
+         */
+        private long[] counts;
+
+        /**
+         * The found triangle, or null if none is found.
+         */
+        private ColoredPolygon triangle;
+
+        /**
+         * The ids of the second and third point of the found triangle.
+         */
+        private int second;
+        private int third;
+
+
+        /**
+         * Creates an attempt for the specified seed.
+         *
+         * @param seed      The id of the seed.
+         * @param excluded  The seeds of the same color whose turn comes first, or null.
+         * @param nExcluded The number of these seeds.
+         * @param counts    The counters to add to, or null if no statistics are collected.
+         */
+        private Attempt(int seed, int[] excluded, int nExcluded, long[] counts) {
+            this.seed = seed;
+            this.excluded = excluded;
+            this.nExcluded = nExcluded;
+            this.radius = TriangleSearch.this.radii[seed];
+            this.counts = counts;
+        }
+
+        /**
+         * Returns true, if the specified point is not available by the seed's turn.
+         */
+        private boolean excludes(int id) {
+            if (id == this.seed) {
+                return true;
+            }
+            for (int i = 0; i < this.nExcluded; ++i) {
+                if (this.excluded[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Increments the specified counter, if statistics are collected.
+         */
+        private void count(Counter counter) {
+            if (this.counts != null) {
+                ++this.counts[counter.ordinal()];
+            }
+        }
+
+        @Override
+        protected void compute() {
+            findTriangle(this);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package search;
+
+import geometry.polygon.ColoredPolygon;
+
+/**
+ * Receives triangles as soon as the search finds them. Found triangles are
+ * never revoked, as tasks only add triangles to those of their parts, so each
+ * triangle is final when it is passed to the sink. An instance can be passed
+ * to the search by {@link SearchConfiguration#setTriangleSink(TriangleSink)}.
+ *
+ * Tasks running in parallel pass their triangles concurrently, so
+ * implementations have to be thread-safe. The order of the triangles is the
+ * order in which they are found, which differs between parallel runs.
+ *
+ * @author Kim-Anh Tran
+ */
+public interface TriangleSink {
+
+    /**
+     * Receives a found triangle. Called by the thread that found it.
+     *
+     * @param triangle  The triangle.
+     */
+    void add(ColoredPolygon triangle);
+}
@@ -0,0 +1,247 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects the number of requests of a {@link TriangleServer} and their
+ * latencies: the time waiting for a free search slot, and the total time
+ * from accepting a request to having written the last triangle.
+ *
+ * Total latencies are counted in buckets of powers of two microseconds, so
+ * that percentiles can be given without keeping every latency. A percentile
+ * is reported as the upper bound of its bucket, i.e. it is at most twice the
+ * exact value.
+ *
+ * @author Kim-Anh Tran
+ */
+public class ServerMetrics {
+
+    /**
+     * The number of latency buckets. The last one holds all latencies from 2^39 microseconds on.
+     */
+    private static final int N_BUCKETS = 40;
+
+    /**
+     * The number of completed requests.
+     */
+    private AtomicLong requests;
+
+    /**
+     * The number of requests rejected as the queue was full.
+     */
+    private AtomicLong rejected;
+
+    /**
+     * The number of requests that failed, e.g. due to invalid input.
+     */
+    private AtomicLong failed;
+
+    /**
+     * The number of requests currently searching.
+     */
+    private AtomicLong active;
+
+    /**
+     * The number of requests currently waiting for a free search slot.
+     */
+    private AtomicLong queued;
+
+    /**
+     * The sum of the times completed requests waited for a free search slot, in nanoseconds.
+     */
+    private AtomicLong queueNanos;
+
+    /**
+     * The sum of the total times of completed requests, in nanoseconds.
+     */
+    private AtomicLong totalNanos;
+
+    /**
+     * The longest total time of a completed request, in nanoseconds.
+     */
+    private AtomicLong maxNanos;
+
+    /**
+     * The numbers of completed requests per latency bucket. Bucket i holds the
+     * latencies below 2^i microseconds, that do not fall into a smaller bucket.
+     */
+    private AtomicLongArray buckets;
+
+
+    /**
+     * Creates new metrics, with all values being zero.
+     */
+    public ServerMetrics() {
+        this.requests = new AtomicLong();
+        this.rejected = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.active = new AtomicLong();
+        this.queued = new AtomicLong();
+        this.queueNanos = new AtomicLong();
+        this.totalNanos = new AtomicLong();
+        this.maxNanos = new AtomicLong();
+        this.buckets = new AtomicLongArray(N_BUCKETS);
+    }
+
+    /**
+     * Returns the number of completed requests.
+     *
+     * @return The number of requests.
+     */
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    /**
+     * Returns the number of requests rejected as the queue was full.
+     *
+     * @return The number of requests.
+     */
+    public long getRejected() {
+        return this.rejected.get();
+    }
+
+    /**
+     * Returns the number of requests that failed.
+     *
+     * @return The number of requests.
+     */
+    public long getFailed() {
+        return this.failed.get();
+    }
+
+    /**
+     * Returns the number of requests currently searching.
+     *
+     * @return The number of requests.
+     */
+    public long getActive() {
+        return this.active.get();
+    }
+
+    /**
+     * Returns the number of requests currently waiting for a free search slot.
+     *
+     * @return The number of requests.
+     */
+    public long getQueued() {
+        return this.queued.get();
+    }
+
+    /**
+     * Returns the longest total time of a completed request.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    /**
+     * Returns an upper bound of the specified percentile of the total times of completed requests.
+     *
+     * @param percentile    The percentile, in (0, 100].
+     * @return              The upper bound of the bucket holding the percentile, in
+     *                      microseconds. 0, if no request is completed.
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] counts = new long[N_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < N_BUCKETS; ++i) {
+            counts[i] = this.buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long sum = 0;
+        for (int i = 0; i < N_BUCKETS; ++i) {
+            sum += counts[i];
+            if (sum >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (N_BUCKETS - 1);
+    }
+
+    /**
+     * Returns the metrics as JSON object.
+     *
+     * @return The metrics in JSON.
+     */
+    public String toJson() {
+        long requests = getRequests();
+        StringBuilder json = new StringBuilder("{\"requests\": ").append(requests);
+        json.append(", \"rejected\": ").append(getRejected());
+        json.append(", \"failed\": ").append(getFailed());
+        json.append(", \"active\": ").append(getActive());
+        json.append(", \"queued\": ").append(getQueued());
+        json.append(", \"meanQueueMicros\": ").append(requests == 0 ? 0 : this.queueNanos.get() / requests / 1000);
+        json.append(", \"meanMicros\": ").append(requests == 0 ? 0 : this.totalNanos.get() / requests / 1000);
+        json.append(", \"p50Micros\": ").append(getPercentileMicros(50));
+        json.append(", \"p90Micros\": ").append(getPercentileMicros(90));
+        json.append(", \"p99Micros\": ").append(getPercentileMicros(99));
+        json.append(", \"maxMicros\": ").append(getMaxNanos() / 1000);
+        return json.append('}').toString();
+    }
+
+    /**
+     * Counts a request that is rejected.
+     */
+    void addRejected() {
+        this.rejected.incrementAndGet();
+    }
+
+    /**
+     * Counts a request that failed.
+     */
+    void addFailed() {
+        this.failed.incrementAndGet();
+    }
+
+    /**
+     * Changes the number of requests waiting for a free search slot.
+     *
+     * @param delta The change.
+     */
+    void addQueued(int delta) {
+        this.queued.addAndGet(delta);
+    }
+
+    /**
+     * Changes the number of requests currently searching.
+     *
+     * @param delta The change.
+     */
+    void addActive(int delta) {
+        this.active.addAndGet(delta);
+    }
+
+    /**
+     * Counts a completed request.
+     *
+     * @param queueNanos    The time the request waited for a free search slot.
+     * @param totalNanos    The total time of the request.
+     */
+    void addRequest(long queueNanos, long totalNanos) {
+        this.requests.incrementAndGet();
+        this.queueNanos.addAndGet(queueNanos);
+        this.totalNanos.addAndGet(totalNanos);
+
+        long current = this.maxNanos.get();
+        while (totalNanos > current && !this.maxNanos.compareAndSet(current, totalNanos)) {
+            current = this.maxNanos.get();
+        }
+
+        long micros = Math.max(totalNanos / 1000, 0);
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), N_BUCKETS - 1);
+        this.buckets.incrementAndGet(bucket);
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,341 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import geometry.point.PointStore;
+import geometry.polygon.ColoredPolygon;
+import search.SearchConfiguration;
+import search.TriangleSearch;
+import search.TriangleSink;
+import util.io.BinaryReader;
+import util.io.BinaryWriter;
+import util.io.Reader;
+import util.io.TriangleStreamWriter;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A long-running HTTP server searching triangles, so that many searches share
+ * one warm JVM and the shared pool instead of starting a JVM each.
+ *
+ * POST /triangles takes points in the text or binary format (detected from the
+ * magic bytes) and answers with the triangles, streamed in the text format as
+ * they are found (see {@link TriangleStreamWriter}), or in the binary format if
+ * the query parameter output is binary. Other values of output are rejected with
+ * 400 Bad Request. GET /metrics answers with the {@link ServerMetrics}
+ * as JSON.
+ *
+ * At most maxConcurrent searches run at once, and at most queueSize further
+ * requests wait for a free slot. Requests beyond that are rejected with
+ * 503 Service Unavailable, so that clients back off instead of piling up.
+ * The server only listens on the loopback address.
+ *
+ * @author Kim-Anh Tran
+ */
+public class TriangleServer {
+
+    /**
+     * The path searching triangles.
+     */
+    public static final String TRIANGLES_PATH = "/triangles";
+
+    /**
+     * The path answering with the metrics.
+     */
+    public static final String METRICS_PATH = "/metrics";
+
+    /**
+     * The query parameter selecting the format of the triangles.
+     */
+    private static final String OUTPUT_PARAMETER = "output";
+
+    /**
+     * The value of the output parameter selecting the text format.
+     */
+    private static final String TEXT_OUTPUT = "text";
+
+    /**
+     * The value of the output parameter selecting the binary format.
+     */
+    private static final String BINARY_OUTPUT = "binary";
+
+    /**
+     * The threads handling exchanges in addition to the admitted requests, so
+     * that rejections and metrics are answered while all slots are taken.
+     */
+    private static final int SPARE_THREADS = 2;
+
+    /**
+     * The number of seconds a rejected client is asked to wait before retrying.
+     */
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * The underlying HTTP server.
+     */
+    private HttpServer server;
+
+    /**
+     * The threads handling exchanges.
+     */
+    private ExecutorService handlers;
+
+    /**
+     * Permits for the admitted requests, both searching and waiting.
+     */
+    private Semaphore admitted;
+
+    /**
+     * Permits for the searching requests.
+     */
+    private Semaphore searching;
+
+    /**
+     * The metrics of the requests.
+     */
+    private ServerMetrics metrics;
+
+
+    /**
+     * Creates a server listening on the specified port of the loopback address.
+     * The server does not accept requests before it is started.
+     *
+     * @param port          The port, or 0 for any free port.
+     * @param maxConcurrent The greatest number of searches running at once.
+     * @param queueSize     The greatest number of requests waiting for a search slot.
+     * @throws IOException  Thrown, if the port can not be bound.
+     * @throws IllegalArgumentException Thrown, if maxConcurrent is not positive or queueSize is negative.
+     */
+    public TriangleServer(int port, int maxConcurrent, int queueSize) throws IOException, IllegalArgumentException {
+        if (maxConcurrent < 1 || queueSize < 0) {
+            throw new IllegalArgumentException("Invalid concurrency limit or queue size.");
+        }
+        this.admitted = new Semaphore(maxConcurrent + queueSize);
+        this.searching = new Semaphore(maxConcurrent, true);
+        this.metrics = new ServerMetrics();
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.handlers = Executors.newFixedThreadPool(maxConcurrent + queueSize + SPARE_THREADS);
+        this.server.setExecutor(this.handlers);
+        this.server.createContext(TRIANGLES_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleTriangles(exchange);
+            }
+        });
+        this.server.createContext(METRICS_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = TriangleServer.this.metrics.toJson().getBytes("US-ASCII");
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Stops accepting requests, and waits at most the specified time for running requests to complete.
+     *
+     * @param delaySeconds  The greatest time to wait, in seconds.
+     */
+    public void stop(int delaySeconds) {
+        this.server.stop(delaySeconds);
+        this.handlers.shutdown();
+        try {
+            this.handlers.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the metrics of the requests.
+     *
+     * @return The metrics.
+     */
+    public ServerMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Searches the triangles of the points of the specified exchange, if a slot is free.
+     *
+     * @param exchange  The exchange.
+     * @throws IOException Thrown, if the exchange fails.
+     */
+    private void handleTriangles(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                sendError(exchange, 405, "Points have to be posted.");
+                return;
+            }
+            Boolean binary = isBinaryOutput(exchange.getRequestURI().getQuery());
+            if (binary == null) {
+                this.metrics.addFailed();
+                sendError(exchange, 400, "Unknown output, specify " + OUTPUT_PARAMETER + "=" + TEXT_OUTPUT
+                        + " or " + OUTPUT_PARAMETER + "=" + BINARY_OUTPUT + ".");
+                return;
+            }
+            if (!this.admitted.tryAcquire()) {
+                this.metrics.addRejected();
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+                sendError(exchange, 503, "Too many requests, retry later.");
+                return;
+            }
+            try {
+                search(exchange, start, binary);
+            } finally {
+                this.admitted.release();
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Reads the points of the specified exchange, waits for a search slot, and sends the triangles.
+     *
+     * @param exchange  The exchange.
+     * @param start     The time the request was accepted, in nanoseconds.
+     * @param binary    True, if the triangles are sent in the binary format.
+     * @throws IOException Thrown, if the exchange fails.
+     */
+    private void search(HttpExchange exchange, long start, boolean binary) throws IOException {
+        PointStore points;
+        try {
+            InputStream inStream = new BufferedInputStream(exchange.getRequestBody());
+            if (BinaryReader.isBinaryPoints(inStream)) {
+                points = BinaryReader.readPointStore(inStream);
+            } else {
+                points = Reader.readPointStore(inStream);
+            }
+        } catch (ParseException e) {
+            this.metrics.addFailed();
+            sendError(exchange, 400, e.getMessage() + "Occurred at parsing point number " + e.getErrorOffset());
+            return;
+        } catch (IOException e) {
+            // E.g. a truncated or corrupt binary body.
+            this.metrics.addFailed();
+            sendError(exchange, 400, "The points could not be read: " + e.getMessage());
+            return;
+        }
+
+        this.metrics.addQueued(1);
+        long queueStart = System.nanoTime();
+        try {
+            this.searching.acquire();
+        } catch (InterruptedException e) {
+            this.metrics.addQueued(-1);
+            this.metrics.addFailed();
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "Server is stopping.");
+            return;
+        }
+        long queueNanos = System.nanoTime() - queueStart;
+        this.metrics.addQueued(-1);
+        this.metrics.addActive(1);
+
+        try {
+            if (binary) {
+                List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(points, new SearchConfiguration());
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                exchange.sendResponseHeaders(200, 0);
+                BinaryWriter.writeTriangles(exchange.getResponseBody(), triangles);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(200, 0);
+                final TriangleStreamWriter writer = new TriangleStreamWriter(exchange.getResponseBody());
+                SearchConfiguration configuration = new SearchConfiguration();
+                configuration.setTriangleSink(new TriangleSink() {
+                    @Override
+                    public void add(ColoredPolygon triangle) {
+                        writer.write(triangle);
+                    }
+                });
+                TriangleSearch.searchForTriangles(points, configuration);
+                writer.close();
+            }
+            this.metrics.addRequest(queueNanos, System.nanoTime() - start);
+
+        } catch (IOException e) {
+            this.metrics.addFailed();
+            throw e;
+        } finally {
+            this.metrics.addActive(-1);
+            this.searching.release();
+        }
+    }
+
+    /**
+     * Returns whether the specified query selects the binary format of the triangles.
+     *
+     * @param query The decoded query of a request, or null if there is none.
+     * @return      True for output=binary, false for output=text or no output parameter,
+     *              and null for any other value of the output parameter.
+     */
+    static Boolean isBinaryOutput(String query) {
+        Boolean binary = Boolean.FALSE;
+        if (query == null) {
+            return binary;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            if (!name.equals(OUTPUT_PARAMETER)) {
+                continue;
+            }
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            if (value.equals(BINARY_OUTPUT)) {
+                binary = Boolean.TRUE;
+            } else if (value.equals(TEXT_OUTPUT)) {
+                binary = Boolean.FALSE;
+            } else {
+                return null;
+            }
+        }
+        return binary;
+    }
+
+    /**
+     * Sends the specified status with the specified message as body.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes("US-ASCII");
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream outStream = exchange.getResponseBody();
+        outStream.write(body);
+        outStream.close();
+    }
+}
@@ -0,0 +1,181 @@
+package tiling;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * A grid of equally sized tiles covering the bounding box of a point set.
+ * Tiles are numbered row by row, starting with 0. Each point belongs to
+ * exactly one tile, and the tile of a point is monotone in x and y, so the
+ * points of different tiles never share an x value in different columns or
+ * a y value in different rows, and the triangles of different tiles never
+ * touch.
+ *
+ * @author Kim-Anh Tran
+ */
+class TileGrid {
+
+    /**
+     * The bounding box of the points.
+     */
+    private Envelope bounds;
+
+    /**
+     * The number of columns.
+     */
+    private int columns;
+
+    /**
+     * The number of rows.
+     */
+    private int rows;
+
+
+    /**
+     * Creates a grid of the specified number of columns and rows.
+     *
+     * @param bounds    The bounding box of the points, not empty.
+     * @param columns   The number of columns, at least 1.
+     * @param rows      The number of rows, at least 1.
+     */
+    TileGrid(Envelope bounds, int columns, int rows) {
+        this.bounds = bounds;
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * Creates a square grid with about the specified number of points per tile,
+     * if the points are distributed uniformly.
+     *
+     * @param bounds        The bounding box of the points, not empty.
+     * @param nPoints       The number of points.
+     * @param tilePoints    The number of points aimed for per tile.
+     * @return              The grid.
+     */
+    static TileGrid create(Envelope bounds, long nPoints, int tilePoints) {
+        int side = (int) Math.ceil(Math.sqrt((double) nPoints / tilePoints));
+        return new TileGrid(bounds, Math.max(side, 1), Math.max(side, 1));
+    }
+
+    /**
+     * Returns the number of tiles.
+     *
+     * @return The number of tiles.
+     */
+    int size() {
+        return this.columns * this.rows;
+    }
+
+    /**
+     * Returns the tile of the specified location.
+     *
+     * @param x The x value.
+     * @param y The y value.
+     * @return  The tile.
+     */
+    int tile(double x, double y) {
+        return row(y) * this.columns + column(x);
+    }
+
+    /**
+     * Returns the distance of the specified location to the nearest side of the
+     * specified tile that borders on another tile.
+     *
+     * @param tile  The tile containing the location.
+     * @param x     The x value.
+     * @param y     The y value.
+     * @return      The distance. Infinity, if the grid consists of one tile only.
+     *              May be slightly too small due to rounding errors, never too large.
+     */
+    double borderDistance(int tile, double x, double y) {
+        int column = tile % this.columns;
+        int row = tile / this.columns;
+        double distance = Double.POSITIVE_INFINITY;
+        if (column > 0) {
+            distance = Math.min(distance, x - columnStart(column));
+        }
+        if (column < this.columns - 1) {
+            distance = Math.min(distance, columnStart(column + 1) - x);
+        }
+        if (row > 0) {
+            distance = Math.min(distance, y - rowStart(row));
+        }
+        if (row < this.rows - 1) {
+            distance = Math.min(distance, rowStart(row + 1) - y);
+        }
+        // The sides are computed differently from the tiles of points, so they may be off by rounding errors.
+        return Math.max(distance - resolution(), 0);
+    }
+
+    /**
+     * Returns the range of tiles that may contain points within the specified
+     * bounding box, as {first column, last column, first row, last row}.
+     *
+     * @param envelope  The bounding box.
+     * @return          The range of columns and rows.
+     */
+    int[] range(Envelope envelope) {
+        return new int[] {column(envelope.getMinX()), column(envelope.getMaxX()),
+                row(envelope.getMinY()), row(envelope.getMaxY())};
+    }
+
+    /**
+     * Returns the tile of the specified column and row.
+     *
+     * @param column    The column.
+     * @param row       The row.
+     * @return          The tile.
+     */
+    int tile(int column, int row) {
+        return row * this.columns + column;
+    }
+
+    /**
+     * Returns the column of the specified x value.
+     */
+    private int column(double x) {
+        return cell(x, this.bounds.getMinX(), this.bounds.getWidth(), this.columns);
+    }
+
+    /**
+     * Returns the row of the specified y value.
+     */
+    private int row(double y) {
+        return cell(y, this.bounds.getMinY(), this.bounds.getHeight(), this.rows);
+    }
+
+    /**
+     * Returns the cell of the specified value, when dividing the specified
+     * extent into the specified number of cells. Monotone in the value.
+     */
+    private static int cell(double value, double min, double extent, int cells) {
+        if (!(extent > 0)) {
+            return 0;
+        }
+        double cell = Math.floor((value - min) / extent * cells);
+        return (int) Math.max(0, Math.min(cells - 1, cell));
+    }
+
+    /**
+     * Returns the approximate x value at which the specified column starts.
+     */
+    private double columnStart(int column) {
+        return this.bounds.getMinX() + this.bounds.getWidth() * column / this.columns;
+    }
+
+    /**
+     * Returns the approximate y value at which the specified row starts.
+     */
+    private double rowStart(int row) {
+        return this.bounds.getMinY() + this.bounds.getHeight() * row / this.rows;
+    }
+
+    /**
+     * Returns an upper bound of the rounding error of the approximate starts of columns and rows.
+     */
+    private double resolution() {
+        double extent = Math.max(Math.abs(this.bounds.getMinX()), Math.abs(this.bounds.getMaxX()));
+        extent = Math.max(extent, Math.max(Math.abs(this.bounds.getMinY()), Math.abs(this.bounds.getMaxY())));
+        return Math.ulp(extent) * 16;
+    }
+}
@@ -0,0 +1,382 @@
+package tiling;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.ArrayPointStore;
+import geometry.point.ColoredPoint;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import search.SearchConfiguration;
+import search.TriangleSearch;
+import search.TriangleSink;
+import util.index.Occlusion;
+import util.index.QuadtreeTriangleIndex;
+import util.index.TriangleIndex;
+import util.io.BinaryWriter;
+import util.io.PointStreamReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Searches the triangles of point sets that do not fit onto the heap, by
+ * splitting them into tiles on disk that are searched one after the other.
+ *
+ * 1. The input is read once for its bounding box, which is divided into a grid
+ *    of tiles with about {@link TiledSearch#setTilePoints(int)} points each, if
+ *    the points are distributed uniformly.
+ * 2. The input is read again, and each point is appended to the file of its tile.
+ * 3. Each tile is read onto the heap and searched on its own. As the triangles
+ *    of a tile lie within the tile, they never touch triangles of other tiles and
+ *    are final: they are passed to the sink right away and written to a file of
+ *    the tile. Points that are not used by a triangle of the tile, and that can
+ *    see beyond the tile (i.e. their occlusion radius reaches a side bordering on
+ *    another tile) are appended to the border points. All other points can not
+ *    form any further triangle, as the search of the tile is complete.
+ * 4. The border points are searched on top of the triangles of all tiles (see
+ *    {@link TiledTriangleIndex}), which are loaded from disk on demand.
+ *
+ * Only one tile, the border points and a few cached tiles of triangles are on
+ * the heap at once. The result is complete like the result of {@link TriangleSearch},
+ * but differs from it, as triangles spanning tiles are only searched at the end.
+ *
+ * Limits: the grid is uniform, so tiles of clustered inputs hold many more
+ * points than aimed for, and the border points have to fit onto the heap.
+ * Text input is parsed twice, so large inputs are better converted into the
+ * binary format first (see main.ConvertMain).
+ *
+ * @author Kim-Anh Tran
+ */
+public class TiledSearch {
+
+    /**
+     * The number of points aimed for per tile, by default.
+     */
+    public static final int TILE_POINTS = 1 << 22;
+
+    /**
+     * The greatest number of tiles of triangles kept on the heap by the border search, by default.
+     */
+    public static final int CACHED_TILES = 16;
+
+    /**
+     * The number of average point spacings within which occluding triangles are searched first.
+     */
+    private static final int OCCLUSION_SPACINGS = 4;
+
+    /**
+     * The size of the buffer of each tile file written, in bytes.
+     */
+    private static final int TILE_BUFFER_BYTES = 1 << 15;
+
+    /**
+     * The directory the tile files are written to.
+     */
+    private File workDirectory;
+
+    /**
+     * The number of points aimed for per tile.
+     */
+    private int tilePoints;
+
+    /**
+     * The greatest number of tiles of triangles kept on the heap by the border search.
+     */
+    private int cachedTiles;
+
+    /**
+     * The number of tiles of the last search.
+     */
+    private int tiles;
+
+    /**
+     * The number of border points of the last search.
+     */
+    private int borderPoints;
+
+    /**
+     * The number of times a tile of triangles was loaded by the border search of the last search.
+     */
+    private int tileLoads;
+
+
+    /**
+     * Creates a search writing its tile files to the specified directory.
+     *
+     * @param workDirectory The directory, which has to exist. The files are deleted after the search.
+     */
+    public TiledSearch(File workDirectory) {
+        this.workDirectory = workDirectory;
+        this.tilePoints = TILE_POINTS;
+        this.cachedTiles = CACHED_TILES;
+    }
+
+    /**
+     * Specifies the number of points aimed for per tile. Each tile is searched
+     * on the heap, so this bounds the memory needed, if the points are distributed
+     * uniformly.
+     *
+     * @param tilePoints    The number of points, at least 1.
+     */
+    public void setTilePoints(int tilePoints) {
+        this.tilePoints = tilePoints;
+    }
+
+    /**
+     * Specifies the greatest number of tiles of triangles kept on the heap by the border search.
+     *
+     * @param cachedTiles   The number of tiles, at least 1.
+     */
+    public void setCachedTiles(int cachedTiles) {
+        this.cachedTiles = cachedTiles;
+    }
+
+    /**
+     * Returns the number of tiles of the last search.
+     *
+     * @return The number of tiles.
+     */
+    public int getTiles() {
+        return this.tiles;
+    }
+
+    /**
+     * Returns the number of points searched by the border search of the last search.
+     *
+     * @return The number of border points.
+     */
+    public int getBorderPoints() {
+        return this.borderPoints;
+    }
+
+    /**
+     * Returns the number of times a tile of triangles was loaded by the border search of the last search.
+     *
+     * @return The number of loads.
+     */
+    public int getTileLoads() {
+        return this.tileLoads;
+    }
+
+    /**
+     * Searches the triangles of the points of the specified file, passing them to
+     * the specified sink as soon as they are final.
+     *
+     * @param input The file of points, in the text or the binary format.
+     * @param sink  The sink receiving the triangles.
+     * @return      The number of triangles.
+     * @throws IOException    Thrown, if reading the input or writing the tile files failed.
+     * @throws ParseException Thrown, if the input can not be parsed.
+     */
+    public long search(File input, TriangleSink sink) throws IOException, ParseException {
+        Envelope bounds = new Envelope();
+        PointStreamReader reader = PointStreamReader.open(input);
+        try {
+            while (reader.next()) {
+                bounds.expandToInclude(reader.getX(), reader.getY());
+            }
+        } finally {
+            reader.close();
+        }
+        this.tiles = 0;
+        this.borderPoints = 0;
+        this.tileLoads = 0;
+        if (bounds.isNull()) {
+            return 0;
+        }
+
+        TileGrid grid = TileGrid.create(bounds, reader.size(), this.tilePoints);
+        this.tiles = grid.size();
+        File[] pointFiles = new File[grid.size()];
+        File[] triangleFiles = new File[grid.size()];
+        File borderFile = new File(this.workDirectory, "border.points");
+        try {
+            int[] counts = bucket(input, grid, pointFiles);
+            double spacing = spacing(bounds, reader.size());
+
+            long nTriangles = 0;
+            DataOutputStream border = openRecords(borderFile);
+            try {
+                for (int tile = 0; tile < grid.size(); ++tile) {
+                    if (counts[tile] == 0) {
+                        continue;
+                    }
+                    ArrayPointStore store = readRecords(pointFiles[tile], counts[tile]);
+                    pointFiles[tile].delete();
+
+                    SearchConfiguration configuration = new SearchConfiguration();
+                    configuration.setTriangleSink(sink);
+                    List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(store, configuration);
+                    nTriangles += triangles.size();
+                    if (!triangles.isEmpty()) {
+                        triangleFiles[tile] = new File(this.workDirectory, "tile-" + tile + ".triangles");
+                        BinaryWriter.writeTriangles(new FileOutputStream(triangleFiles[tile]), triangles);
+                    }
+                    this.borderPoints += writeBorderPoints(grid, tile, store, triangles, spacing, border);
+                }
+            } finally {
+                border.close();
+            }
+
+            if (this.borderPoints > 0) {
+                ArrayPointStore store = readRecords(borderFile, this.borderPoints);
+                TiledTriangleIndex fixed = new TiledTriangleIndex(grid, triangleFiles, (int) nTriangles,
+                        this.cachedTiles);
+                SearchConfiguration configuration = new SearchConfiguration();
+                configuration.setTriangleSink(sink);
+                configuration.setFixedTriangles(fixed);
+                nTriangles += TriangleSearch.searchForTriangles(store, configuration).size();
+                this.tileLoads = fixed.getLoads();
+            }
+            return nTriangles;
+
+        } finally {
+            delete(pointFiles);
+            delete(triangleFiles);
+            borderFile.delete();
+        }
+    }
+
+    /**
+     * Appends each point of the specified input to the file of its tile.
+     *
+     * @param input The file of points.
+     * @param grid  The grid of tiles.
+     * @param files The files of the tiles, filled for all tiles with points.
+     * @return      The number of points per tile.
+     */
+    private int[] bucket(File input, TileGrid grid, File[] files) throws IOException, ParseException {
+        int[] counts = new int[grid.size()];
+        DataOutputStream[] outputs = new DataOutputStream[grid.size()];
+        PointStreamReader reader = PointStreamReader.open(input);
+        try {
+            while (reader.next()) {
+                int tile = grid.tile(reader.getX(), reader.getY());
+                if (outputs[tile] == null) {
+                    files[tile] = new File(this.workDirectory, "tile-" + tile + ".points");
+                    outputs[tile] = openRecords(files[tile]);
+                }
+                writeRecord(outputs[tile], reader.getX(), reader.getY(), reader.getColorIndex());
+                ++counts[tile];
+            }
+        } finally {
+            reader.close();
+            for (DataOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Appends the points of the specified tile that may form triangles with
+     * points of other tiles to the border points.
+     *
+     * @param grid      The grid of tiles.
+     * @param tile      The tile.
+     * @param store     The points of the tile.
+     * @param triangles The triangles of the tile.
+     * @param spacing   The average spacing of points.
+     * @param border    The border points.
+     * @return          The number of appended points.
+     */
+    private static int writeBorderPoints(TileGrid grid, int tile, ArrayPointStore store,
+                                         List<ColoredPolygon> triangles, double spacing,
+                                         DataOutputStream border) throws IOException {
+        TriangleIndex index = new QuadtreeTriangleIndex();
+        Set<Coordinate> corners = new HashSet<Coordinate>();
+        for (ColoredPolygon triangle : triangles) {
+            index.insert(triangle);
+            for (Point corner : triangle.getPoints()) {
+                corners.add(corner.getCoordinate());
+            }
+        }
+
+        int nBorder = 0;
+        for (int id = 0; id < store.size(); ++id) {
+            double x = store.getX(id);
+            double y = store.getY(id);
+            double distance = grid.borderDistance(tile, x, y);
+            if (distance == Double.POSITIVE_INFINITY) {
+                // The only tile.
+                return 0;
+            }
+            ColoredPoint point = store.getPoint(id);
+            if (corners.contains(point.getCoordinate()) || index.enclosesPoint(point)) {
+                continue;
+            }
+            Occlusion occlusion = Occlusion.around(index, x, y, OCCLUSION_SPACINGS * spacing, distance);
+            if (!(occlusion.getRadius() < distance)) {
+                writeRecord(border, x, y, store.getColorIndex(id));
+                ++nBorder;
+            }
+        }
+        return nBorder;
+    }
+
+    /**
+     * Returns the average spacing of the specified number of points within the specified bounding box.
+     */
+    private static double spacing(Envelope bounds, int nPoints) {
+        double spacing = Math.sqrt(bounds.getArea() / nPoints);
+        if (spacing == 0) {
+            spacing = Math.max(bounds.getWidth(), bounds.getHeight()) / nPoints;
+        }
+        return spacing;
+    }
+
+    /**
+     * Opens the specified file for appending point records.
+     */
+    private static DataOutputStream openRecords(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), TILE_BUFFER_BYTES));
+    }
+
+    /**
+     * Appends a point record.
+     */
+    private static void writeRecord(DataOutputStream output, double x, double y, int color) throws IOException {
+        output.writeDouble(x);
+        output.writeDouble(y);
+        output.writeByte(color);
+    }
+
+    /**
+     * Reads the specified number of point records from the specified file onto the heap.
+     */
+    private static ArrayPointStore readRecords(File file, int n) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            ArrayPointStore store = new ArrayPointStore(n);
+            for (int i = 0; i < n; ++i) {
+                store.add(input.readDouble(), input.readDouble(), input.readByte());
+            }
+            return store;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Deletes the specified files, if they exist.
+     */
+    private static void delete(File[] files) {
+        for (File file : files) {
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package tiling;
+
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.Polygon;
+import util.index.QuadtreeTriangleIndex;
+import util.index.TriangleIndex;
+import util.io.BinaryReader;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only TriangleIndex over the triangles of all tiles, which are kept
+ * on disk in one file per tile (in the binary format) and loaded on demand.
+ * The most recently used tiles are kept in memory, so that searching the
+ * points near the sides of tiles in spatial order only loads each tile a
+ * few times.
+ *
+ * As the triangles of a tile lie within the tile, checks and queries only
+ * consider the tiles overlapping the bounding box of the checked line segment,
+ * point, polygon or box.
+ *
+ * Can be read by several threads at once.
+ *
+ * @author Kim-Anh Tran
+ */
+class TiledTriangleIndex implements TriangleIndex {
+
+    /**
+     * The grid of tiles.
+     */
+    private TileGrid grid;
+
+    /**
+     * The files of the triangles per tile. Null, for tiles without triangles.
+     */
+    private File[] files;
+
+    /**
+     * The total number of triangles.
+     */
+    private int size;
+
+    /**
+     * The tiles kept in memory, in the order of their last use.
+     */
+    private Map<Integer, TriangleIndex> cache;
+
+    /**
+     * The number of times a tile was loaded.
+     */
+    private int loads;
+
+
+    /**
+     * Creates an index over the specified files of triangles.
+     *
+     * @param grid          The grid of tiles.
+     * @param files         The files of the triangles per tile, null for tiles without triangles.
+     * @param size          The total number of triangles.
+     * @param cachedTiles   The greatest number of tiles kept in memory, at least 1.
+     */
+    TiledTriangleIndex(TileGrid grid, File[] files, int size, final int cachedTiles) {
+        this.grid = grid;
+        this.files = files;
+        this.size = size;
+        this.cache = new LinkedHashMap<Integer, TriangleIndex>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, TriangleIndex> eldest) {
+                return size() > cachedTiles;
+            }
+        };
+    }
+
+    /**
+     * Not supported, as the triangles are fixed.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void insert(ColoredPolygon triangle) {
+        throw new UnsupportedOperationException("The triangles of tiles are fixed.");
+    }
+
+    @Override
+    public boolean intersectsWithLine(Point p1, Point p2) {
+        for (int tile : tiles(new Envelope(p1.getCoordinate(), p2.getCoordinate()))) {
+            if (load(tile).intersectsWithLine(p1, p2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean enclosesPoint(Point point) {
+        for (int tile : tiles(new Envelope(point.getCoordinate()))) {
+            if (load(tile).enclosesPoint(point)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean intersectsWithPolygon(Polygon polygon) {
+        for (int tile : tiles(polygon.getEnvelope())) {
+            if (load(tile).intersectsWithPolygon(polygon)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void query(Envelope envelope, List<ColoredPolygon> result) {
+        for (int tile : tiles(envelope)) {
+            load(tile).query(envelope, result);
+        }
+    }
+
+    /**
+     * Not supported, as the triangles are kept on disk.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public List<ColoredPolygon> getTriangles() {
+        throw new UnsupportedOperationException("The triangles of tiles are kept on disk.");
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of times a tile was loaded from disk.
+     *
+     * @return The number of loads.
+     */
+    synchronized int getLoads() {
+        return this.loads;
+    }
+
+    /**
+     * Returns the tiles with triangles overlapping the specified bounding box.
+     * Tiles are only loaded one by one when they are checked, so that a large
+     * bounding box does not keep more tiles in memory than the cache.
+     *
+     * @param envelope  The bounding box.
+     * @return          The tiles.
+     */
+    private List<Integer> tiles(Envelope envelope) {
+        List<Integer> tiles = new ArrayList<Integer>();
+        int[] range = this.grid.range(envelope);
+        for (int row = range[2]; row <= range[3]; ++row) {
+            for (int column = range[0]; column <= range[1]; ++column) {
+                int tile = this.grid.tile(column, row);
+                if (this.files[tile] != null) {
+                    tiles.add(tile);
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Returns the triangles of the specified tile, loading them if they are not in memory.
+     *
+     * @throws IllegalStateException Thrown, if the file of the tile can not be read.
+     */
+    private synchronized TriangleIndex load(int tile) {
+        TriangleIndex index = this.cache.get(tile);
+        if (index != null) {
+            return index;
+        }
+        try {
+            List<ColoredPolygon> triangles = BinaryReader.readTriangles(
+                    new BufferedInputStream(new FileInputStream(this.files[tile])));
+            index = new QuadtreeTriangleIndex();
+            for (ColoredPolygon triangle : triangles) {
+                index.insert(triangle);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Reading the triangles of tile " + tile + " failed.", e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Reading the triangles of tile " + tile + " failed.", e);
+        }
+        ++this.loads;
+        this.cache.put(tile, index);
+        return index;
+    }
+}
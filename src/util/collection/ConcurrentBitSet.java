@@ -0,0 +1,86 @@
+package util.collection;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size set of bits that can be modified by several threads at once.
+ * Unlike {@link java.util.BitSet}, setting different bits from different
+ * threads does not lose updates.
+ *
+ * @author Kim-Anh Tran
+ */
+public class ConcurrentBitSet {
+
+    /**
+     * The number of bits per word.
+     */
+    private static final int BITS_PER_WORD = 64;
+
+    /**
+     * The words holding the bits.
+     */
+    private AtomicLongArray words;
+
+    /**
+     * The number of bits.
+     */
+    private int size;
+
+
+    /**
+     * Creates a new set of bits, all cleared.
+     *
+     * @param size  The number of bits.
+     */
+    public ConcurrentBitSet(int size) {
+        this.size = size;
+        this.words = new AtomicLongArray((size + BITS_PER_WORD - 1) / BITS_PER_WORD);
+    }
+
+    /**
+     * Returns the value of the specified bit.
+     *
+     * @param index The index of the bit.
+     * @return      True, if the bit is set.
+     */
+    public boolean get(int index) {
+        return (this.words.get(index / BITS_PER_WORD) & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets the specified bit.
+     *
+     * @param index The index of the bit.
+     */
+    public void set(int index) {
+        int wordIndex = index / BITS_PER_WORD;
+        long mask = 1L << index;
+        long word;
+        do {
+            word = this.words.get(wordIndex);
+        } while ((word & mask) == 0 && !this.words.compareAndSet(wordIndex, word, word | mask));
+    }
+
+    /**
+     * Clears the specified bit.
+     *
+     * @param index The index of the bit.
+     */
+    public void clear(int index) {
+        int wordIndex = index / BITS_PER_WORD;
+        long mask = 1L << index;
+        long word;
+        do {
+            word = this.words.get(wordIndex);
+        } while ((word & mask) != 0 && !this.words.compareAndSet(wordIndex, word, word & ~mask));
+    }
+
+    /**
+     * Returns the number of bits.
+     *
+     * @return The number of bits.
+     */
+    public int size() {
+        return this.size;
+    }
+}
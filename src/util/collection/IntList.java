@@ -0,0 +1,107 @@
+package util.collection;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints.
+ *
+ * @author Kim-Anh Tran
+ */
+public class IntList {
+
+    /**
+     * The initial capacity of a list created without specifying one.
+     */
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * The values of the list.
+     */
+    private int[] values;
+
+    /**
+     * The number of values in the list.
+     */
+    private int size;
+
+
+    /**
+     * Creates a new, empty list.
+     */
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty list with the specified capacity.
+     *
+     * @param capacity  The number of values the list can hold before growing.
+     */
+    public IntList(int capacity) {
+        this.values = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Appends a value to the list.
+     *
+     * @param value The value to append.
+     */
+    public void add(int value) {
+        if (this.size == this.values.length) {
+            this.values = Arrays.copyOf(this.values, 2 * this.size);
+        }
+        this.values[this.size++] = value;
+    }
+
+    /**
+     * Appends all values of the specified list.
+     *
+     * @param list  The list whose values are appended.
+     */
+    public void addAll(IntList list) {
+        int newSize = this.size + list.size;
+        if (newSize > this.values.length) {
+            this.values = Arrays.copyOf(this.values, Math.max(newSize, 2 * this.size));
+        }
+        System.arraycopy(list.values, 0, this.values, this.size, list.size);
+        this.size = newSize;
+    }
+
+    /**
+     * Returns the value at the specified index.
+     *
+     * @param index The index of the value.
+     * @return      The value at the index.
+     */
+    public int get(int index) {
+        if (index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        return this.values[index];
+    }
+
+    /**
+     * Returns the number of values in the list.
+     *
+     * @return The number of values.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes all values from the list.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Returns the values of the list as array.
+     *
+     * @return A new array containing the values.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(this.values, this.size);
+    }
+}
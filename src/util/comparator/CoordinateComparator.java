@@ -0,0 +1,77 @@
+package util.comparator;
+
+import geometry.point.PointStore;
+
+/**
+ * An instance of CoordinateComparator compares points of a PointStore by
+ * their x values first and by their y values second, like
+ * {@link com.vividsolutions.jts.geom.Coordinate#compareTo(Object)}.
+ * Alternatively, points can be compared by their y values first.
+ * Points at the same location are ordered by their ids.
+ *
+ * @author Kim-Anh Tran
+ */
+public class CoordinateComparator implements IdComparator {
+
+    /**
+     * The store containing the compared points.
+     */
+    private PointStore store;
+
+    /**
+     * Indicates whether points are compared by their y values first.
+     */
+    private boolean yFirst;
+
+    /**
+     * Creates a new comparator for points of the specified store, comparing
+     * x values first.
+     *
+     * @param store The store containing the points.
+     */
+    public CoordinateComparator(PointStore store) {
+        this(store, false);
+    }
+
+    /**
+     * Creates a new comparator for points of the specified store.
+     *
+     * @param store     The store containing the points.
+     * @param yFirst    True, if y values are compared first. False, if x values
+     *                  are compared first.
+     */
+    public CoordinateComparator(PointStore store, boolean yFirst) {
+        this.store = store;
+        this.yFirst = yFirst;
+    }
+
+    @Override
+    public int compare(int id1, int id2) {
+        double first1 = this.yFirst ? this.store.getY(id1) : this.store.getX(id1);
+        double first2 = this.yFirst ? this.store.getY(id2) : this.store.getX(id2);
+        if (first1 < first2) {
+            return -1;
+        }
+        if (first1 > first2) {
+            return 1;
+        }
+
+        double second1 = this.yFirst ? this.store.getX(id1) : this.store.getY(id1);
+        double second2 = this.yFirst ? this.store.getX(id2) : this.store.getY(id2);
+        if (second1 < second2) {
+            return -1;
+        }
+        if (second1 > second2) {
+            return 1;
+        }
+
+        // Equal points keep the order of their ids.
+        if (id1 < id2) {
+            return -1;
+        }
+        if (id1 > id2) {
+            return 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,20 @@
+package util.comparator;
+
+/**
+ * Compares two points that are identified by their ids.
+ *
+ * @author Kim-Anh Tran
+ * @see geometry.point.PointStore
+ */
+public interface IdComparator {
+
+    /**
+     * Compares the points with the specified ids.
+     *
+     * @param id1   The id of the first point.
+     * @param id2   The id of the second point.
+     * @return      A negative integer, zero, or a positive integer as the first point
+     *              is less than, equal to, or greater than the second.
+     */
+    int compare(int id1, int id2);
+}
@@ -0,0 +1,164 @@
+package util.comparator;
+
+/**
+ * Sorts arrays of point ids without boxing them.
+ *
+ * @author Kim-Anh Tran
+ */
+public class IdSorter {
+
+    /**
+     * Ranges smaller than this are sorted by insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Empty, private constructor. Prevents from initiating an object from IdSorter.
+     */
+    private IdSorter() {
+    }
+
+    /**
+     * Sorts the ids in the range [from, to) with the specified comparator.
+     * The sort is stable, i.e. equal points keep their relative order.
+     *
+     * @param ids           The ids to sort.
+     * @param from          The first index, inclusive.
+     * @param to            The last index, exclusive.
+     * @param comparator    The comparator defining the order.
+     */
+    public static void sort(int[] ids, int from, int to, IdComparator comparator) {
+        int[] buffer = new int[to - from];
+        sort(ids, from, to, comparator, buffer);
+    }
+
+    /**
+     * Sorts the ids in the range [from, to) using the specified buffer.
+     *
+     * @param ids           The ids to sort.
+     * @param from          The first index, inclusive.
+     * @param to            The last index, exclusive.
+     * @param comparator    The comparator defining the order.
+     * @param buffer        A buffer holding at least (to - from) ids.
+     */
+    static void sort(int[] ids, int from, int to, IdComparator comparator, int[] buffer) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(ids, from, to, comparator);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sort(ids, from, mid, comparator, buffer);
+        sort(ids, mid, to, comparator, buffer);
+        merge(ids, from, mid, to, comparator, buffer);
+    }
+
+    /**
+     * Merges the sorted ranges [from, mid) and [mid, to).
+     *
+     * @param ids           The ids to merge.
+     * @param from          The first index of the left range, inclusive.
+     * @param mid           The first index of the right range.
+     * @param to            The last index of the right range, exclusive.
+     * @param comparator    The comparator defining the order.
+     * @param buffer        A buffer holding at least (mid - from) ids.
+     */
+    static void merge(int[] ids, int from, int mid, int to, IdComparator comparator, int[] buffer) {
+        // Nothing to do, if the ranges are already in order.
+        if (comparator.compare(ids[mid - 1], ids[mid]) <= 0) {
+            return;
+        }
+
+        int nLeft = mid - from;
+        System.arraycopy(ids, from, buffer, 0, nLeft);
+
+        int left = 0;
+        int right = mid;
+        int target = from;
+        while (left < nLeft && right < to) {
+            if (comparator.compare(ids[right], buffer[left]) < 0) {
+                ids[target++] = ids[right++];
+            } else {
+                ids[target++] = buffer[left++];
+            }
+        }
+        System.arraycopy(buffer, left, ids, target, nLeft - left);
+    }
+
+    /**
+     * Rearranges the ids in the range [from, to), such that the id at index k
+     * is the one that would be there if the range was sorted. Ids before k
+     * are not greater, ids after k are not less than that id.
+     *
+     * @param ids           The ids to rearrange.
+     * @param from          The first index, inclusive.
+     * @param to            The last index, exclusive.
+     * @param k             The index to select.
+     * @param comparator    The comparator defining the order.
+     */
+    public static void select(int[] ids, int from, int to, int k, IdComparator comparator) {
+        int left = from;
+        int right = to - 1;
+        while (right - left > INSERTION_SORT_THRESHOLD) {
+            // Median of three as pivot.
+            int mid = (left + right) >>> 1;
+            if (comparator.compare(ids[mid], ids[left]) < 0) {
+                swap(ids, mid, left);
+            }
+            if (comparator.compare(ids[right], ids[left]) < 0) {
+                swap(ids, right, left);
+            }
+            if (comparator.compare(ids[right], ids[mid]) < 0) {
+                swap(ids, right, mid);
+            }
+            int pivot = ids[mid];
+
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (comparator.compare(ids[i], pivot) < 0) {
+                    ++i;
+                }
+                while (comparator.compare(ids[j], pivot) > 0) {
+                    --j;
+                }
+                if (i <= j) {
+                    swap(ids, i, j);
+                    ++i;
+                    --j;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+        insertionSort(ids, left, right + 1, comparator);
+    }
+
+    /**
+     * Swaps the ids at the indices i and j.
+     */
+    private static void swap(int[] ids, int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    /**
+     * Sorts the ids in the range [from, to) by insertion sort.
+     */
+    private static void insertionSort(int[] ids, int from, int to, IdComparator comparator) {
+        for (int i = from + 1; i < to; ++i) {
+            int id = ids[i];
+            int j = i - 1;
+            while (j >= from && comparator.compare(ids[j], id) > 0) {
+                ids[j + 1] = ids[j];
+                --j;
+            }
+            ids[j + 1] = id;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package util.comparator;
+
+import geometry.point.PointStore;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts arrays of point ids by primitive keys with a least significant digit
+ * radix sort, without comparing or boxing them. Each pass over a digit counts
+ * the digits of the keys, then moves the ids to their position, both in
+ * parallel over chunks of the ids: chunk by chunk, ids with the same digit are
+ * moved to consecutive ranges, so the sort is stable.
+ *
+ * Points are sorted by their coordinates using the raw bits of the doubles,
+ * mapped so that their unsigned order is the order of the values.
+ *
+ * @author Kim-Anh Tran
+ */
+public class RadixSorter {
+
+    /**
+     * The number of bits of a digit.
+     */
+    private static final int DIGIT_BITS = 8;
+
+    /**
+     * The number of distinct digits.
+     */
+    private static final int RADIX = 1 << DIGIT_BITS;
+
+    /**
+     * The smallest number of ids per chunk that is sorted in parallel with other chunks.
+     */
+    private static final int MIN_CHUNK_IDS = 1 << 16;
+
+    /**
+     * The number of chunks aimed for per thread of the pool.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The number of bits of a key of a double value.
+     */
+    private static final int DOUBLE_KEY_BITS = 64;
+
+    /**
+     * The ids and keys that are read by the current pass.
+     */
+    private int[] ids;
+    private long[] keys;
+
+    /**
+     * The ids and keys that are written by the current pass.
+     */
+    private int[] sortedIds;
+    private long[] sortedKeys;
+
+    /**
+     * The number of chunks.
+     */
+    private int nChunks;
+
+    /**
+     * The number of keys per digit and chunk during counting, then the positions
+     * the next id with a certain digit of a certain chunk is moved to.
+     */
+    private int[][] counts;
+
+    /**
+     * The shift of the digit of the current pass.
+     */
+    private int shift;
+
+
+    /**
+     * Creates a sorter for the specified ids and keys.
+     */
+    private RadixSorter(int[] ids, long[] keys, int nChunks) {
+        this.ids = ids;
+        this.keys = keys;
+        this.sortedIds = new int[ids.length];
+        this.sortedKeys = new long[ids.length];
+        this.nChunks = nChunks;
+        this.counts = new int[nChunks][RADIX];
+    }
+
+    /**
+     * Sorts the specified ids by the specified keys, as unsigned values, in ascending
+     * order. The keys are sorted along with the ids. The sort is stable.
+     *
+     * @param ids       The ids to sort.
+     * @param keys      The keys of the ids, at the same indices.
+     * @param keyBits   The number of low bits of the keys that are used. All other bits have to be 0.
+     * @param pool      The pool running the sort, or null for sorting in the calling thread.
+     */
+    public static void sort(int[] ids, long[] keys, int keyBits, ForkJoinPool pool) {
+        int nChunks = 1;
+        if (pool != null) {
+            nChunks = Math.max(1, Math.min(CHUNKS_PER_THREAD * pool.getParallelism(),
+                    ids.length / MIN_CHUNK_IDS));
+        }
+        RadixSorter sorter = new RadixSorter(ids, keys, nChunks);
+        for (int shift = 0; shift < keyBits; shift += DIGIT_BITS) {
+            sorter.shift = shift;
+            sorter.run(false, pool);
+            if (sorter.toPositions()) {
+                sorter.run(true, pool);
+                sorter.swap();
+            }
+        }
+        if (sorter.ids != ids) {
+            System.arraycopy(sorter.ids, 0, ids, 0, ids.length);
+            System.arraycopy(sorter.keys, 0, keys, 0, keys.length);
+        }
+    }
+
+    /**
+     * Sorts the ids in the range [from, to) by the coordinates of their points, in the
+     * order of {@link CoordinateComparator}: by x values first, by y values second,
+     * and points at the same location by their ids.
+     *
+     * @param ids   The ids to sort.
+     * @param from  The first index, inclusive.
+     * @param to    The last index, exclusive.
+     * @param store The store containing the points.
+     * @param pool  The pool running the sort, or null for sorting in the calling thread.
+     */
+    public static void sortByCoordinates(int[] ids, int from, int to, PointStore store, ForkJoinPool pool) {
+        // Sort by the less significant y values first, then stably by the x values.
+        sortByAxis(ids, from, to, store, true, pool);
+        sortByAxis(ids, from, to, store, false, pool);
+
+        // Points at the same location keep the order of the range instead of their ids.
+        int start = from;
+        for (int i = from + 1; i <= to; ++i) {
+            if (i == to || store.getX(ids[i]) != store.getX(ids[start])
+                    || store.getY(ids[i]) != store.getY(ids[start])) {
+                if (i - start > 1) {
+                    Arrays.sort(ids, start, i);
+                }
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Sorts the ids in the range [from, to) stably by the x or y values of their points.
+     *
+     * @param ids   The ids to sort.
+     * @param from  The first index, inclusive.
+     * @param to    The last index, exclusive.
+     * @param store The store containing the points.
+     * @param yAxis True, for sorting by y values. False, for sorting by x values.
+     * @param pool  The pool running the sort, or null for sorting in the calling thread.
+     */
+    private static void sortByAxis(int[] ids, int from, int to, PointStore store, boolean yAxis,
+                                   ForkJoinPool pool) {
+        int n = to - from;
+        int[] range = Arrays.copyOfRange(ids, from, to);
+        long[] keys = new long[n];
+        for (int i = 0; i < n; ++i) {
+            keys[i] = key(yAxis ? store.getY(range[i]) : store.getX(range[i]));
+        }
+        sort(range, keys, DOUBLE_KEY_BITS, pool);
+        System.arraycopy(range, 0, ids, from, n);
+    }
+
+    /**
+     * Returns the key of the specified value, whose unsigned order is the order of
+     * the values. -0.0 is mapped to the key of 0.0, as both values are equal.
+     *
+     * @param value The value.
+     * @return      The key.
+     */
+    static long key(double value) {
+        long bits = Double.doubleToLongBits(value + 0.0);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /**
+     * Counts the digits of all chunks, or moves the ids of all chunks to their positions.
+     *
+     * @param move  True, for moving the ids. False, for counting the digits.
+     * @param pool  The pool running the chunks, or null.
+     */
+    private void run(boolean move, ForkJoinPool pool) {
+        Chunks chunks = new Chunks(0, this.nChunks, move);
+        if (pool == null || this.nChunks == 1) {
+            chunks.compute();
+        } else if (ForkJoinTask.inForkJoinPool()) {
+            chunks.invoke();
+        } else {
+            pool.invoke(chunks);
+        }
+    }
+
+    /**
+     * Turns the counts of the digits into the positions of the first id of each
+     * digit and chunk: ids are ordered by digit first, then by chunk.
+     *
+     * @return False, if all keys have the same digit, so that the ids need not be moved.
+     */
+    private boolean toPositions() {
+        int position = 0;
+        for (int digit = 0; digit < RADIX; ++digit) {
+            int nDigit = 0;
+            for (int chunk = 0; chunk < this.nChunks; ++chunk) {
+                int count = this.counts[chunk][digit];
+                this.counts[chunk][digit] = position;
+                position += count;
+                nDigit += count;
+            }
+            if (nDigit == this.ids.length) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes the written ids and keys the ones read by the next pass.
+     */
+    private void swap() {
+        int[] ids = this.ids;
+        this.ids = this.sortedIds;
+        this.sortedIds = ids;
+        long[] keys = this.keys;
+        this.keys = this.sortedKeys;
+        this.sortedKeys = keys;
+    }
+
+    /**
+     * Returns the first index of the specified chunk.
+     */
+    private int chunkStart(int chunk) {
+        return (int) ((long) this.ids.length * chunk / this.nChunks);
+    }
+
+    /**
+     * Counts the digits of the keys of the specified chunk.
+     */
+    private void count(int chunk) {
+        int[] chunkCounts = this.counts[chunk];
+        Arrays.fill(chunkCounts, 0);
+        int end = chunkStart(chunk + 1);
+        for (int i = chunkStart(chunk); i < end; ++i) {
+            ++chunkCounts[(int) (this.keys[i] >>> this.shift) & (RADIX - 1)];
+        }
+    }
+
+    /**
+     * Moves the ids and keys of the specified chunk to their positions.
+     */
+    private void move(int chunk) {
+        int[] positions = this.counts[chunk];
+        int end = chunkStart(chunk + 1);
+        for (int i = chunkStart(chunk); i < end; ++i) {
+            int position = positions[(int) (this.keys[i] >>> this.shift) & (RADIX - 1)]++;
+            this.sortedIds[position] = this.ids[i];
+            this.sortedKeys[position] = this.keys[i];
+        }
+    }
+
+    /**
+     * Counts the digits of, or moves, a range of chunks, split in halves that run in parallel.
+     */
+    private final class Chunks extends RecursiveAction {
+
+        /**
+         * The first chunk, inclusive.
+         */
+        private int from;
+
+        /**
+         * The last chunk, exclusive.
+         */
+        private int to;
+
+        /**
+         * True, for moving the ids. False, for counting the digits.
+         */
+        private boolean move;
+
+
+        /**
+         * Creates the task for the specified range of chunks.
+         */
+        private Chunks(int from, int to, boolean move) {
+            this.from = from;
+            this.to = to;
+            this.move = move;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(new Chunks(this.from, mid, this.move), new Chunks(mid, this.to, this.move));
+            } else if (this.move) {
+                move(this.from);
+            } else {
+                count(this.from);
+            }
+        }
+    }
+}
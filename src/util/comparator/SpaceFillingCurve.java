@@ -0,0 +1,104 @@
+package util.comparator;
+
+/**
+ * Space-filling curves through a grid of 2^16 x 2^16 cells, which map the
+ * cells to positions along the curve. Points that are close along a curve
+ * are close in the plane, so points laid out in the order of a curve keep
+ * spatial neighbours close in memory.
+ *
+ * @author Kim-Anh Tran
+ */
+public enum SpaceFillingCurve {
+
+    /**
+     * The Hilbert curve, whose consecutive cells are always adjacent.
+     */
+    HILBERT {
+        @Override
+        public long key(int column, int row) {
+            int x = column;
+            int y = row;
+            long key = 0;
+            for (int s = CELLS >>> 1; s > 0; s >>>= 1) {
+                int rx = (x & s) != 0 ? 1 : 0;
+                int ry = (y & s) != 0 ? 1 : 0;
+                key += (long) s * s * ((3 * rx) ^ ry);
+
+                // Rotate the quadrant, so that the curve within it starts and ends next to its neighbours.
+                if (ry == 0) {
+                    if (rx == 1) {
+                        x = CELLS - 1 - x;
+                        y = CELLS - 1 - y;
+                    }
+                    int t = x;
+                    x = y;
+                    y = t;
+                }
+            }
+            return key;
+        }
+    },
+
+    /**
+     * The Z-order (Morton) curve, which interleaves the bits of the column and row.
+     * Cheaper to compute than the Hilbert curve, but jumps between quadrants.
+     */
+    MORTON {
+        @Override
+        public long key(int column, int row) {
+            return spread(column) | (spread(row) << 1);
+        }
+    };
+
+    /**
+     * The number of bits of a column or row.
+     */
+    public static final int CELL_BITS = 16;
+
+    /**
+     * The number of columns and rows of the grid.
+     */
+    public static final int CELLS = 1 << CELL_BITS;
+
+    /**
+     * The number of bits of the keys.
+     */
+    public static final int KEY_BITS = 2 * CELL_BITS;
+
+    /**
+     * Returns the position of the specified cell along the curve.
+     *
+     * @param column    The column of the cell, in [0, {@link SpaceFillingCurve#CELLS}).
+     * @param row       The row of the cell, in [0, {@link SpaceFillingCurve#CELLS}).
+     * @return          The position, in [0, 2^{@link SpaceFillingCurve#KEY_BITS}).
+     */
+    public abstract long key(int column, int row);
+
+    /**
+     * Returns the cell of the specified value along an axis of the specified extent.
+     *
+     * @param value     The value.
+     * @param min       The smallest value of the axis.
+     * @param extent    The extent of the axis.
+     * @return          The column or row, in [0, {@link SpaceFillingCurve#CELLS}).
+     */
+    public static int cell(double value, double min, double extent) {
+        if (!(extent > 0)) {
+            return 0;
+        }
+        int cell = (int) ((value - min) / extent * CELLS);
+        return Math.max(0, Math.min(CELLS - 1, cell));
+    }
+
+    /**
+     * Spreads the 16 bits of the specified value to the even bits of the result.
+     */
+    private static long spread(int value) {
+        long bits = value & 0xFFFFL;
+        bits = (bits | (bits << 8)) & 0x00FF00FFL;
+        bits = (bits | (bits << 4)) & 0x0F0F0F0FL;
+        bits = (bits | (bits << 2)) & 0x33333333L;
+        bits = (bits | (bits << 1)) & 0x55555555L;
+        return bits;
+    }
+}
@@ -0,0 +1,77 @@
+package util.index;
+
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.Polygon;
+
+import java.util.List;
+
+/**
+ * A TriangleIndex that places its own triangles on top of fixed triangles,
+ * e.g. triangles found by an earlier search. Conflict checks and queries
+ * consider both layers, while inserted triangles only go to the own layer,
+ * and only the own triangles are returned by {@link LayeredTriangleIndex#getTriangles()}.
+ *
+ * @author Kim-Anh Tran
+ */
+public class LayeredTriangleIndex implements TriangleIndex {
+
+    /**
+     * The fixed triangles. Only read.
+     */
+    private TriangleIndex fixed;
+
+    /**
+     * The own triangles.
+     */
+    private TriangleIndex own;
+
+
+    /**
+     * Creates a new index on top of the specified fixed triangles.
+     *
+     * @param fixed The fixed triangles. Only read, so it may be shared by several indices.
+     * @param own   The empty index holding the own triangles.
+     */
+    public LayeredTriangleIndex(TriangleIndex fixed, TriangleIndex own) {
+        this.fixed = fixed;
+        this.own = own;
+    }
+
+    @Override
+    public void insert(ColoredPolygon triangle) {
+        this.own.insert(triangle);
+    }
+
+    @Override
+    public boolean intersectsWithLine(Point p1, Point p2) {
+        return this.own.intersectsWithLine(p1, p2) || this.fixed.intersectsWithLine(p1, p2);
+    }
+
+    @Override
+    public boolean enclosesPoint(Point point) {
+        return this.own.enclosesPoint(point) || this.fixed.enclosesPoint(point);
+    }
+
+    @Override
+    public boolean intersectsWithPolygon(Polygon polygon) {
+        return this.own.intersectsWithPolygon(polygon) || this.fixed.intersectsWithPolygon(polygon);
+    }
+
+    @Override
+    public void query(Envelope envelope, List<ColoredPolygon> result) {
+        this.own.query(envelope, result);
+        this.fixed.query(envelope, result);
+    }
+
+    @Override
+    public List<ColoredPolygon> getTriangles() {
+        return this.own.getTriangles();
+    }
+
+    @Override
+    public int size() {
+        return this.own.size();
+    }
+}
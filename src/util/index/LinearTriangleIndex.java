@@ -0,0 +1,85 @@
+package util.index;
+
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.Polygon;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A TriangleIndex that checks every contained triangle for conflicts.
+ * Mainly kept for comparison with {@link QuadtreeTriangleIndex}.
+ *
+ * @author Kim-Anh Tran
+ */
+public class LinearTriangleIndex implements TriangleIndex {
+
+    /**
+     * The triangles contained in the index.
+     */
+    private List<ColoredPolygon> triangles;
+
+
+    /**
+     * Creates a new, empty index.
+     */
+    public LinearTriangleIndex() {
+        this.triangles = new LinkedList<ColoredPolygon>();
+    }
+
+    @Override
+    public void insert(ColoredPolygon triangle) {
+        this.triangles.add(triangle);
+    }
+
+    @Override
+    public boolean intersectsWithLine(Point p1, Point p2) {
+        for (ColoredPolygon triangle : this.triangles) {
+            if (triangle.intersectsWithLine(p1, p2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean enclosesPoint(Point point) {
+        for (ColoredPolygon triangle : this.triangles) {
+            if (triangle.enclosesPoint(point)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean intersectsWithPolygon(Polygon polygon) {
+        for (ColoredPolygon triangle : this.triangles) {
+            if (triangle.intersectsWithPolygon(polygon)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void query(Envelope envelope, List<ColoredPolygon> result) {
+        for (ColoredPolygon triangle : this.triangles) {
+            if (triangle.getEnvelope().intersects(envelope)) {
+                result.add(triangle);
+            }
+        }
+    }
+
+    @Override
+    public List<ColoredPolygon> getTriangles() {
+        return this.triangles;
+    }
+
+    @Override
+    public int size() {
+        return this.triangles.size();
+    }
+}
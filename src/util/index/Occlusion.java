@@ -0,0 +1,923 @@
+package util.index;
+
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The directions in which triangles occlude a location. The line segment from
+ * the location to an occluded point intersects with a triangle, so such a point
+ * can not form a triangle with a point at the location.
+ *
+ * Each triangle occludes the directions between its outermost corners, beyond
+ * the distance of its farthest corner. Once the occluded directions cover the
+ * full circle, every point beyond the farthest of the involved corners is
+ * occluded: this distance is the occlusion radius of the location.
+ *
+ * If all points lie within a known bounding box, directions that are not occluded
+ * leave the box at a finite distance. The occlusion radius within the box is the
+ * distance beyond which every point of the box is occluded: the nearest triangles
+ * cover all directions except those leaving the box before that distance.
+ *
+ * Locations at the border of the box see far along the border, but not across the
+ * triangles, so their occlusion radius is large while the points they see lie in a
+ * narrow strip. Radii within equal ranges of directions (sectors) tell them apart.
+ *
+ * @author Kim-Anh Tran
+ */
+public class Occlusion {
+
+    /**
+     * The angle by which occluded directions are narrowed on each side, so
+     * that rounding errors never close a gap between two triangles.
+     */
+    private static final double ANGLE_TOLERANCE = 1e-9;
+
+    /**
+     * The relative amount by which distances are widened, so that rounding
+     * errors never make an unoccluded point appear to be farther away.
+     */
+    private static final double DISTANCE_TOLERANCE = 1e-9;
+
+    /**
+     * The x value of the location.
+     */
+    private double x;
+
+    /**
+     * The y value of the location.
+     */
+    private double y;
+
+    /**
+     * The directions occluded by the triangles, ordered by increasing distance.
+     */
+    private Arc[] arcs;
+
+    /**
+     * The bounding box of all points, or null if unknown.
+     */
+    private Envelope bounds;
+
+    /**
+     * The occlusion radius. Infinity, if not all directions are occluded
+     * and the bounding box is unknown.
+     */
+    private double radius;
+
+    /**
+     * The occlusion radii within the sectors last asked for, or null.
+     */
+    private double[] sectorRadii;
+
+
+    /**
+     * Creates the occlusion of the specified location by the specified triangles.
+     *
+     * @param triangles     The triangles that may occlude the location.
+     * @param x             The x value of the location.
+     * @param y             The y value of the location.
+     */
+    public Occlusion(List<ColoredPolygon> triangles, double x, double y) {
+        this(triangles, x, y, null);
+    }
+
+    /**
+     * Creates the occlusion of the specified location within the specified bounding
+     * box by the specified triangles.
+     *
+     * @param triangles     The triangles that may occlude the location.
+     * @param x             The x value of the location.
+     * @param y             The y value of the location.
+     * @param bounds        The bounding box of all points, containing the location, or null if unknown.
+     */
+    public Occlusion(List<ColoredPolygon> triangles, double x, double y, Envelope bounds) {
+        this(createArcs(triangles, x, y), x, y, bounds, 0);
+    }
+
+    /**
+     * Creates the occlusion of the specified location within the specified bounding
+     * box by the triangles of the specified arcs, with its radii within the specified
+     * number of sectors. Its occlusion radius is the largest of them.
+     *
+     * @param arcs          The arcs of the triangles that may occlude the location, which are sorted.
+     * @param x             The x value of the location.
+     * @param y             The y value of the location.
+     * @param bounds        The bounding box of all points, containing the location, or null if unknown.
+     * @param nSectors      The number of sectors, or 0 for none.
+     */
+    private Occlusion(Arc[] arcs, double x, double y, Envelope bounds, int nSectors) {
+        this.x = x;
+        this.y = y;
+        this.bounds = bounds;
+        this.arcs = arcs;
+        Arrays.sort(this.arcs);
+        if (nSectors == 0) {
+            this.radius = bounds == null ? computeRadius() : computeRadius(bounds);
+            return;
+        }
+        this.sectorRadii = computeRadii(nSectors, bounds);
+        this.radius = 0;
+        for (double sectorRadius : this.sectorRadii) {
+            this.radius = Math.max(this.radius, sectorRadius);
+        }
+    }
+
+    /**
+     * Returns the arcs of the specified triangles that are wide enough to be considered.
+     *
+     * @param triangles     The triangles that may occlude the location.
+     * @param x             The x value of the location.
+     * @param y             The y value of the location.
+     * @return              The arcs.
+     */
+    private static Arc[] createArcs(List<ColoredPolygon> triangles, double x, double y) {
+        Arc[] arcs = new Arc[triangles.size()];
+        int nArcs = 0;
+        for (ColoredPolygon triangle : triangles) {
+            Arc arc = Arc.create(triangle, x, y);
+            if (arc != null) {
+                arcs[nArcs++] = arc;
+            }
+        }
+        return Arrays.copyOf(arcs, nArcs);
+    }
+
+    /**
+     * Returns the occlusion of the specified location. Triangles are searched
+     * around the location, starting within the specified radius and doubling it
+     * until all directions are occluded or the maximum radius is exceeded.
+     *
+     * @param triangles     The triangles that may occlude the location.
+     * @param x             The x value of the location.
+     * @param y             The y value of the location.
+     * @param radius        The radius to start searching triangles within.
+     * @param maxRadius     The radius to stop searching triangles at.
+     * @return              The occlusion of the location.
+     */
+    public static Occlusion around(TriangleIndex triangles, double x, double y, double radius, double maxRadius) {
+        List<ColoredPolygon> candidates = new ArrayList<ColoredPolygon>();
+        Occlusion occlusion = null;
+        double searchRadius = radius > 0 ? Math.min(radius, maxRadius) : maxRadius;
+
+        while (true) {
+            candidates.clear();
+            triangles.query(new Envelope(x - searchRadius, x + searchRadius,
+                    y - searchRadius, y + searchRadius), candidates);
+
+            // Only check again, if further triangles were found.
+            if (occlusion == null || candidates.size() > occlusion.arcs.length) {
+                occlusion = new Occlusion(candidates, x, y);
+            }
+            if (occlusion.radius < Double.POSITIVE_INFINITY || !(searchRadius < maxRadius)) {
+                return occlusion;
+            }
+            searchRadius = Math.min(2 * searchRadius, maxRadius);
+        }
+    }
+
+    /**
+     * Returns the occlusion of the specified location within the specified bounding
+     * box. Triangles are searched around the location, starting within the specified
+     * radius and doubling it until they determine the occlusion radius within the box.
+     *
+     * @param triangles     The triangles that may occlude the location.
+     * @param x             The x value of the location.
+     * @param y             The y value of the location.
+     * @param radius        The radius to start searching triangles within.
+     * @param bounds        The bounding box of all points, containing the location.
+     * @return              The occlusion of the location.
+     */
+    public static Occlusion around(TriangleIndex triangles, double x, double y, double radius, Envelope bounds) {
+        double maxRadius = farthestCorner(bounds, x, y);
+        List<ColoredPolygon> candidates = new ArrayList<ColoredPolygon>();
+        Occlusion occlusion = null;
+        double searchRadius = radius > 0 ? Math.min(radius, maxRadius) : maxRadius;
+
+        while (true) {
+            candidates.clear();
+            triangles.query(new Envelope(x - searchRadius, x + searchRadius,
+                    y - searchRadius, y + searchRadius), candidates);
+
+            // Only check again, if further triangles were found.
+            if (occlusion == null || candidates.size() > occlusion.arcs.length) {
+                occlusion = new Occlusion(candidates, x, y, bounds);
+            }
+
+            // Triangles beyond the search radius can not make a smaller radius occlude more.
+            if (occlusion.radius <= searchRadius || !(searchRadius < maxRadius)) {
+                return occlusion;
+            }
+            searchRadius = Math.min(2 * searchRadius, maxRadius);
+        }
+    }
+
+    /**
+     * Returns the occlusion of the specified location within the specified bounding box,
+     * determining its radii within the specified number of sectors (see {@link #getRadii(int)}).
+     * Triangles are searched separately for each sector, within the part of the box it
+     * points to, starting within the specified radius and doubling it until they
+     * determine the radius within the sector.
+     *
+     * @param triangles     The triangles that may occlude the location.
+     * @param x             The x value of the location.
+     * @param y             The y value of the location.
+     * @param radius        The radius to start searching triangles within.
+     * @param bounds        The bounding box of all points, containing the location.
+     * @param nSectors      The number of sectors.
+     * @return              The occlusion of the location.
+     */
+    public static Occlusion around(TriangleIndex triangles, double x, double y, double radius, Envelope bounds,
+                                   int nSectors) {
+        double[] radii = new double[nSectors];
+        Arrays.fill(radii, radius);
+        return around(triangles, x, y, radii, bounds);
+    }
+
+    /**
+     * Returns the occlusion of the specified location within the specified bounding box,
+     * determining its radii within the sectors of the specified radii as
+     * {@link #around(TriangleIndex, double, double, double, Envelope, int)} does, starting
+     * within the radius of each sector. Sectors whose radius is NaN are not searched, so
+     * the occlusion only holds the triangles found for the other sectors: it occludes less
+     * than the occlusion of all triangles, and its radii within the sectors that are not
+     * searched are only upper bounds.
+     *
+     * @param triangles     The triangles that may occlude the location.
+     * @param x             The x value of the location.
+     * @param y             The y value of the location.
+     * @param radii         The radius to start searching triangles within, for each sector.
+     * @param bounds        The bounding box of all points, containing the location.
+     * @return              The occlusion of the location.
+     */
+    public static Occlusion around(TriangleIndex triangles, double x, double y, double[] radii, Envelope bounds) {
+        int nSectors = radii.length;
+        double maxRadius = farthestCorner(bounds, x, y);
+        double[] searchRadii = new double[nSectors];
+        boolean[] determined = new boolean[nSectors];
+        for (int sector = 0; sector < nSectors; ++sector) {
+            double radius = radii[sector];
+            determined[sector] = Double.isNaN(radius);
+            searchRadii[sector] = radius > 0 ? Math.min(radius, maxRadius) : maxRadius;
+        }
+        Map<ColoredPolygon, Boolean> found = new IdentityHashMap<ColoredPolygon, Boolean>();
+        List<Arc> arcs = new ArrayList<Arc>();
+        List<ColoredPolygon> sectorCandidates = new ArrayList<ColoredPolygon>();
+        Occlusion occlusion = null;
+
+        while (true) {
+            boolean foundFurther = false;
+            for (int sector = 0; sector < nSectors; ++sector) {
+                Envelope envelope = determined[sector] ? null
+                        : sectorEnvelope(x, y, sector, nSectors, searchRadii[sector], bounds);
+                if (envelope == null || envelope.isNull()) {
+                    continue;
+                }
+                sectorCandidates.clear();
+                triangles.query(envelope, sectorCandidates);
+                for (ColoredPolygon triangle : sectorCandidates) {
+                    if (found.put(triangle, Boolean.TRUE) == null) {
+                        Arc arc = Arc.create(triangle, x, y);
+                        if (arc != null) {
+                            arcs.add(arc);
+                            foundFurther = true;
+                        }
+                    }
+                }
+            }
+
+            // Only check again, if further triangles were found.
+            if (occlusion == null || foundFurther) {
+                occlusion = new Occlusion(arcs.toArray(new Arc[arcs.size()]), x, y, bounds, nSectors);
+            }
+
+            // Triangles beyond the search radius can not make a smaller radius occlude more.
+            double[] occlusionRadii = occlusion.getRadii(nSectors);
+            boolean allDetermined = true;
+            for (int sector = 0; sector < nSectors; ++sector) {
+                if (determined[sector]) {
+                    continue;
+                }
+                if (occlusionRadii[sector] <= searchRadii[sector] || !(searchRadii[sector] < maxRadius)) {
+                    determined[sector] = true;
+                } else {
+                    searchRadii[sector] = Math.min(2 * searchRadii[sector], maxRadius);
+                    allDetermined = false;
+                }
+            }
+            if (allDetermined) {
+                return occlusion;
+            }
+        }
+    }
+
+    /**
+     * Returns the first angle of the specified sector, which is the last angle of the sector
+     * before. The first sector starts at the angle -PI, the last one ends at the angle PI.
+     *
+     * @param sector    The index of the sector, up to the number of sectors.
+     * @param nSectors  The number of sectors.
+     * @return          The first angle of the sector, or PI if the index is the number of sectors.
+     */
+    public static double sectorStart(int sector, int nSectors) {
+        return sector == nSectors ? Math.PI : -Math.PI + sector * (2 * Math.PI / nSectors);
+    }
+
+    /**
+     * Returns the bounding box of the part of the specified sector around the specified
+     * location within the specified distance, clipped to the specified bounding box.
+     *
+     * @param x         The x value of the location.
+     * @param y         The y value of the location.
+     * @param sector    The index of the sector.
+     * @param nSectors  The number of sectors.
+     * @param distance  The distance from the location.
+     * @param bounds    The bounding box of all points.
+     * @return          The bounding box, which is empty if the part lies outside of the bounding
+     *                  box of all points.
+     */
+    public static Envelope sectorEnvelope(double x, double y, int sector, int nSectors, double distance,
+                                          Envelope bounds) {
+        double from = sectorStart(sector, nSectors);
+        double to = sectorStart(sector + 1, nSectors);
+        Envelope envelope = new Envelope(x, x, y, y);
+        envelope.expandToInclude(x + distance * Math.cos(from), y + distance * Math.sin(from));
+        envelope.expandToInclude(x + distance * Math.cos(to), y + distance * Math.sin(to));
+        for (int quarter = -1; quarter <= 1; ++quarter) {
+            double angle = quarter * Math.PI / 2;
+            if (angle > from && angle < to) {
+                envelope.expandToInclude(x + distance * Math.cos(angle), y + distance * Math.sin(angle));
+            }
+        }
+        envelope.expandBy(distance * DISTANCE_TOLERANCE);
+        return envelope.intersection(bounds);
+    }
+
+    /**
+     * Returns the occlusion radius: Every point farther away is occluded.
+     *
+     * @return The occlusion radius. Infinity, if not all directions are occluded.
+     */
+    public double getRadius() {
+        return this.radius;
+    }
+
+    /**
+     * Returns the occlusion radii within the specified number of sectors: every point
+     * farther away in a direction of a sector is occluded, or lies outside of the
+     * bounding box if it is known.
+     *
+     * @param nSectors  The number of sectors.
+     * @return          The radius within each sector. Infinity, if not all directions of
+     *                  the sector are occluded and the bounding box is unknown.
+     */
+    public double[] getRadii(int nSectors) {
+        if (this.sectorRadii == null || this.sectorRadii.length != nSectors) {
+            this.sectorRadii = computeRadii(nSectors, this.bounds);
+        }
+        return this.sectorRadii;
+    }
+
+    /**
+     * Returns true, if the occlusion radius within one of the specified number of sectors
+     * is limited by the bounding box: the arcs alone do not cover the directions of the
+     * sector up to it, so it might grow with the box.
+     *
+     * @param nSectors  The number of sectors.
+     * @return          True, if a radius depends on the bounding box.
+     */
+    public boolean dependsOnBounds(int nSectors) {
+        boolean[] sectors = new boolean[nSectors];
+        Arrays.fill(sectors, true);
+        return dependsOnBounds(sectors);
+    }
+
+    /**
+     * Returns true, if the occlusion radius within one of the specified sectors is
+     * limited by the bounding box (see {@link #dependsOnBounds(int)}).
+     *
+     * @param sectors   Whether to check the radius of each sector.
+     * @return          True, if the radius of a checked sector depends on the bounding box.
+     */
+    public boolean dependsOnBounds(boolean[] sectors) {
+        if (this.bounds == null) {
+            return false;
+        }
+        int nSectors = sectors.length;
+        double[] radii = getRadii(nSectors);
+        double[] arcRadii = computeRadii(nSectors, null);
+        for (int sector = 0; sector < nSectors; ++sector) {
+            if (sectors[sector] && arcRadii[sector] > radii[sector]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true, if the specified point is occluded, i.e. if the line segment
+     * from the location to the point intersects with a triangle.
+     * False, if the point might be visible.
+     *
+     * @param px    The x value of the point.
+     * @param py    The y value of the point.
+     * @return      True, if the point is occluded.
+     */
+    public boolean occludes(double px, double py) {
+        double dx = px - this.x;
+        double dy = py - this.y;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance > this.radius) {
+            return true;
+        }
+
+        double angle = Math.atan2(dy, dx);
+        for (Arc arc : this.arcs) {
+            if (arc.distance >= distance) {
+                break;
+            }
+            if (arc.contains(angle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true, if the specified triangles hide the specified polygon from the
+     * specified location, i.e. if the line segment from the location to any point of
+     * the polygon intersects with a triangle. This is the case, if the arcs of the
+     * triangles that are not farther away than the nearest point of the polygon cover
+     * all directions towards it. Such triangles lie between the location and the polygon.
+     *
+     * @param triangles The triangles that may hide the polygon, without the polygon itself.
+     * @param x         The x value of the location.
+     * @param y         The y value of the location.
+     * @param polygon   The convex polygon.
+     * @return          True, if the polygon is hidden. False, if a point of it might be visible.
+     */
+    public static boolean hides(TriangleIndex triangles, double x, double y, ColoredPolygon polygon) {
+        if (polygon.enclosesPoint(x, y)) {
+            return false;
+        }
+        Coordinate location = new Coordinate(x, y);
+        Point[] corners = polygon.getPoints();
+        double distance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < corners.length; ++i) {
+            distance = Math.min(distance, CGAlgorithms.distancePointLine(location,
+                    corners[i].getCoordinate(), corners[(i + 1) % corners.length].getCoordinate()));
+        }
+
+        // The directions towards the polygon, widened on each side, span less than PI.
+        double[] span = span(polygon, x, y);
+        double from = span[0] - ANGLE_TOLERANCE;
+        double to = span[0] + span[1] + ANGLE_TOLERANCE;
+
+        Envelope envelope = new Envelope(polygon.getEnvelope());
+        envelope.expandToInclude(location);
+        List<ColoredPolygon> candidates = new ArrayList<ColoredPolygon>();
+        triangles.query(envelope, candidates);
+        List<double[]> parts = new ArrayList<double[]>();
+        for (ColoredPolygon triangle : candidates) {
+            // Most triangles reach beyond the polygon, the angles are only computed for the others.
+            if (farthestCorner(triangle, x, y) > distance) {
+                continue;
+            }
+            Arc arc = Arc.create(triangle, x, y);
+            if (arc == null || arc.distance > distance) {
+                continue;
+            }
+            for (int turn = -1; turn <= 1; ++turn) {
+                double start = Math.max(arc.start + turn * 2 * Math.PI, from);
+                double end = Math.min(arc.end + turn * 2 * Math.PI, to);
+                if (start <= end) {
+                    parts.add(new double[]{start, end});
+                }
+            }
+        }
+        Collections.sort(parts, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] part1, double[] part2) {
+                return Double.compare(part1[0], part2[0]);
+            }
+        });
+
+        double covered = from;
+        for (double[] part : parts) {
+            if (part[0] > covered) {
+                return false;
+            }
+            covered = Math.max(covered, part[1]);
+        }
+        return covered >= to;
+    }
+
+    /**
+     * Returns the distance up to which the nearest arcs cover all directions.
+     *
+     * @return The occlusion radius. Infinity, if not all directions are covered.
+     */
+    private double computeRadius() {
+        int nArcs = this.arcs.length;
+        if (!covers(nArcs)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        // Find the smallest number of nearest arcs that cover the circle.
+        int lo = 1;
+        int hi = nArcs;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (covers(mid)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return this.arcs[lo - 1].distance;
+    }
+
+    /**
+     * Returns the smallest distance beyond which every point within the specified
+     * bounding box is occluded: the nearest arcs have to cover all directions except
+     * those leaving the box before that distance.
+     *
+     * @param bounds    The bounding box, containing the location.
+     * @return          The occlusion radius within the bounding box.
+     */
+    private double computeRadius(Envelope bounds) {
+        /*
+         * With more arcs, the distance of the farthest arc grows and the distance of the
+         * farthest exit shrinks, so the radius is smallest around where they cross.
+         */
+        int lo = 0;
+        int hi = this.arcs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (arcDistance(mid) >= exitDistance(mid, bounds)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        double radius = Math.max(arcDistance(lo), exitDistance(lo, bounds));
+        if (lo > 0) {
+            radius = Math.min(radius, exitDistance(lo - 1, bounds));
+        }
+        return radius;
+    }
+
+    /**
+     * Returns the occlusion radii within the specified number of sectors. In each direction,
+     * points are occluded beyond the nearest arc covering it, or leave the bounding box if
+     * it is nearer; the radius of a sector is the farthest of these distances. Directions
+     * are swept between the ends of the arcs, keeping the arcs covering them by distance.
+     *
+     * @param nSectors  The number of sectors.
+     * @param bounds    The bounding box, containing the location, or null if unknown.
+     * @return          The radius within each sector.
+     */
+    private double[] computeRadii(int nSectors, Envelope bounds) {
+        // Arcs passing the angle PI are split into two parts, ordered by their starts.
+        List<double[]> parts = new ArrayList<double[]>(2 * this.arcs.length);
+        for (Arc arc : this.arcs) {
+            parts.add(new double[]{arc.start, Math.min(arc.end, Math.PI), arc.distance});
+            if (arc.end > Math.PI) {
+                parts.add(new double[]{-Math.PI, arc.end - 2 * Math.PI, arc.distance});
+            }
+        }
+        Collections.sort(parts, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] part1, double[] part2) {
+                return Double.compare(part1[0], part2[0]);
+            }
+        });
+
+        // Within two consecutive angles, the same arcs cover all directions.
+        double[] angles = new double[2 * parts.size() + nSectors + 1];
+        int nAngles = 0;
+        for (double[] part : parts) {
+            angles[nAngles++] = part[0];
+            angles[nAngles++] = part[1];
+        }
+        for (int sector = 0; sector <= nSectors; ++sector) {
+            angles[nAngles++] = sectorStart(sector, nSectors);
+        }
+        Arrays.sort(angles);
+
+        PriorityQueue<double[]> covering = new PriorityQueue<double[]>(16, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] part1, double[] part2) {
+                return Double.compare(part1[2], part2[2]);
+            }
+        });
+        double[] radii = new double[nSectors];
+        int nextPart = 0;
+        int sector = 0;
+        for (int i = 1; i < nAngles; ++i) {
+            double from = angles[i - 1];
+            double to = angles[i];
+            if (!(to > from)) {
+                continue;
+            }
+            while (sector + 1 < nSectors && from >= sectorStart(sector + 1, nSectors)) {
+                ++sector;
+            }
+            while (nextPart < parts.size() && parts.get(nextPart)[0] <= from) {
+                covering.add(parts.get(nextPart++));
+            }
+            while (!covering.isEmpty() && covering.peek()[1] < to) {
+                covering.poll();
+            }
+
+            // Only directions beyond the radius so far can grow it.
+            double distance = covering.isEmpty() ? Double.POSITIVE_INFINITY : covering.peek()[2];
+            if (distance > radii[sector]) {
+                if (bounds != null) {
+                    distance = Math.min(distance, exitDistance(bounds, from, to));
+                }
+                radii[sector] = Math.max(radii[sector], distance);
+            }
+        }
+        return radii;
+    }
+
+    /**
+     * Returns the distance of the farthest of the first n arcs, or 0 if n is 0.
+     */
+    private double arcDistance(int n) {
+        return n == 0 ? 0 : this.arcs[n - 1].distance;
+    }
+
+    /**
+     * Returns the greatest distance at which a ray in a direction not covered by the
+     * first n arcs leaves the specified bounding box, or 0 if they cover all directions.
+     * Along each uncovered range of directions, the distance is greatest at one of its
+     * ends or in the direction of a corner of the box.
+     *
+     * @param n         The number of arcs to consider.
+     * @param bounds    The bounding box, containing the location.
+     * @return          The greatest distance.
+     */
+    private double exitDistance(int n, Envelope bounds) {
+        // Arcs passing the angle PI are split into two parts, ordered by their starts.
+        double[][] parts = new double[2 * n][];
+        int nParts = 0;
+        for (int i = 0; i < n; ++i) {
+            Arc arc = this.arcs[i];
+            parts[nParts++] = new double[]{arc.start, Math.min(arc.end, Math.PI)};
+            if (arc.end > Math.PI) {
+                parts[nParts++] = new double[]{-Math.PI, arc.end - 2 * Math.PI};
+            }
+        }
+        Arrays.sort(parts, 0, nParts, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] part1, double[] part2) {
+                return Double.compare(part1[0], part2[0]);
+            }
+        });
+
+        double distance = 0;
+        double covered = -Math.PI;
+        for (int i = 0; i <= nParts; ++i) {
+            double start = i < nParts ? parts[i][0] : Math.PI;
+            if (start > covered) {
+                // The directions from covered to start are not covered.
+                distance = Math.max(distance, exitDistance(bounds, covered, start));
+            }
+            if (i < nParts) {
+                covered = Math.max(covered, parts[i][1]);
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Returns the greatest distance at which a ray in a direction within the specified
+     * range leaves the specified bounding box: the distance in one of the first and last
+     * direction, or in the direction of a corner of the box.
+     *
+     * @param bounds    The bounding box, containing the location.
+     * @param from      The first angle of the directions.
+     * @param to        The last angle of the directions.
+     * @return          The greatest distance.
+     */
+    private double exitDistance(Envelope bounds, double from, double to) {
+        double distance = Math.max(exit(bounds, from), exit(bounds, to));
+        double[][] corners = {{bounds.getMinX(), bounds.getMinY()}, {bounds.getMaxX(), bounds.getMinY()},
+                {bounds.getMaxX(), bounds.getMaxY()}, {bounds.getMinX(), bounds.getMaxY()}};
+        for (double[] corner : corners) {
+            double angle = Math.atan2(corner[1] - this.y, corner[0] - this.x);
+            if (angle >= from && angle <= to) {
+                distance = Math.max(distance, Math.hypot(corner[0] - this.x, corner[1] - this.y));
+            }
+        }
+        return distance * (1 + DISTANCE_TOLERANCE);
+    }
+
+    /**
+     * Returns the distance at which the ray from the location in the specified
+     * direction leaves the specified bounding box.
+     */
+    private double exit(Envelope bounds, double angle) {
+        double dx = Math.cos(angle);
+        double dy = Math.sin(angle);
+        double distance = Double.POSITIVE_INFINITY;
+        if (dx > 0) {
+            distance = Math.min(distance, (bounds.getMaxX() - this.x) / dx);
+        } else if (dx < 0) {
+            distance = Math.min(distance, (bounds.getMinX() - this.x) / dx);
+        }
+        if (dy > 0) {
+            distance = Math.min(distance, (bounds.getMaxY() - this.y) / dy);
+        } else if (dy < 0) {
+            distance = Math.min(distance, (bounds.getMinY() - this.y) / dy);
+        }
+        return Math.max(distance, 0);
+    }
+
+    /**
+     * Returns the distance from the specified location to the farthest corner of the specified bounding box.
+     */
+    private static double farthestCorner(Envelope bounds, double x, double y) {
+        double dx = Math.max(x - bounds.getMinX(), bounds.getMaxX() - x);
+        double dy = Math.max(y - bounds.getMinY(), bounds.getMaxY() - y);
+        return Math.hypot(dx, dy) * (1 + DISTANCE_TOLERANCE);
+    }
+
+    /**
+     * Returns the distance from the specified location to the farthest corner of the specified polygon.
+     */
+    private static double farthestCorner(ColoredPolygon polygon, double x, double y) {
+        double distance = 0;
+        for (Point point : polygon.getPoints()) {
+            Coordinate coordinate = point.getCoordinate();
+            double dx = coordinate.x - x;
+            double dy = coordinate.y - y;
+            distance = Math.max(distance, Math.sqrt(dx * dx + dy * dy));
+        }
+        return distance;
+    }
+
+    /**
+     * Returns true, if the first n arcs cover all directions.
+     *
+     * @param n     The number of arcs to consider.
+     * @return      True, if all directions are covered.
+     */
+    private boolean covers(int n) {
+        // Arcs passing the angle PI are split into two parts.
+        double[] starts = new double[2 * n];
+        double[] ends = new double[2 * n];
+        int nParts = 0;
+        for (int i = 0; i < n; ++i) {
+            Arc arc = this.arcs[i];
+            starts[nParts] = arc.start;
+            ends[nParts++] = Math.min(arc.end, Math.PI);
+            if (arc.end > Math.PI) {
+                starts[nParts] = -Math.PI;
+                ends[nParts++] = arc.end - 2 * Math.PI;
+            }
+        }
+
+        /*
+         * There is a gap before the i-th start, if the i parts that end first
+         * all end before it.
+         */
+        Arrays.sort(starts, 0, nParts);
+        Arrays.sort(ends, 0, nParts);
+        if (nParts == 0 || starts[0] > -Math.PI) {
+            return false;
+        }
+        for (int i = 1; i < nParts; ++i) {
+            if (ends[i - 1] < starts[i]) {
+                return false;
+            }
+        }
+        return ends[nParts - 1] >= Math.PI;
+    }
+
+    /**
+     * Returns the directions between the outermost corners of the specified polygon,
+     * seen from the specified location: the complement of the largest gap between the
+     * directions towards its corners.
+     *
+     * @param polygon   The polygon.
+     * @param x         The x value of the location.
+     * @param y         The y value of the location.
+     * @return          The first angle, in [-PI, PI], the width of the directions
+     *                  and the distance to the farthest corner.
+     */
+    private static double[] span(ColoredPolygon polygon, double x, double y) {
+        Point[] points = polygon.getPoints();
+        double[] angles = new double[points.length];
+        double distance = 0;
+        for (int i = 0; i < points.length; ++i) {
+            Coordinate coordinate = points[i].getCoordinate();
+            double dx = coordinate.x - x;
+            double dy = coordinate.y - y;
+            angles[i] = Math.atan2(dy, dx);
+            distance = Math.max(distance, Math.sqrt(dx * dx + dy * dy));
+        }
+        Arrays.sort(angles);
+
+        int n = angles.length;
+        double largestGap = angles[0] + 2 * Math.PI - angles[n - 1];
+        double start = angles[0];
+        for (int i = 1; i < n; ++i) {
+            double gap = angles[i] - angles[i - 1];
+            if (gap > largestGap) {
+                largestGap = gap;
+                start = angles[i];
+            }
+        }
+        return new double[]{start, 2 * Math.PI - largestGap, distance};
+    }
+
+    /**
+     * The directions occluded by a triangle, seen from a location, and the
+     * distance beyond which they are occluded.
+     */
+    private static class Arc implements Comparable<Arc> {
+
+        /**
+         * The first occluded angle, in [-PI, PI).
+         */
+        private double start;
+
+        /**
+         * The last occluded angle, in [start, start + 2 * PI].
+         */
+        private double end;
+
+        /**
+         * The distance to the farthest corner of the triangle, or 0 if the
+         * triangle encloses the location.
+         */
+        private double distance;
+
+
+        /**
+         * Creates the arc of directions the specified triangle occludes.
+         *
+         * @param triangle  The triangle.
+         * @param x         The x value of the location.
+         * @param y         The y value of the location.
+         * @return          The arc, or null if it is too narrow to be considered. The full
+         *                  circle, if the triangle encloses the location.
+         */
+        private static Arc create(ColoredPolygon triangle, double x, double y) {
+            double[] span = span(triangle, x, y);
+            double start = span[0];
+            double largestGap = 2 * Math.PI - span[1];
+
+            // The corners surround a location within the triangle.
+            Arc arc = new Arc();
+            if (largestGap <= Math.PI + ANGLE_TOLERANCE && triangle.enclosesPoint(x, y)) {
+                arc.start = -Math.PI;
+                arc.end = Math.PI;
+                arc.distance = 0;
+                return arc;
+            }
+
+            double width = 2 * Math.PI - largestGap - 2 * ANGLE_TOLERANCE;
+            if (width <= 0) {
+                return null;
+            }
+            arc.start = start + ANGLE_TOLERANCE;
+            if (arc.start >= Math.PI) {
+                arc.start -= 2 * Math.PI;
+            }
+            arc.end = arc.start + width;
+            arc.distance = span[2] * (1 + DISTANCE_TOLERANCE);
+            return arc;
+        }
+
+        /**
+         * Returns true, if the specified angle is within the arc.
+         *
+         * @param angle The angle, in [-PI, PI].
+         * @return      True, if the arc contains the angle.
+         */
+        private boolean contains(double angle) {
+            return (angle >= this.start && angle <= this.end)
+                    || (angle + 2 * Math.PI >= this.start && angle + 2 * Math.PI <= this.end);
+        }
+
+        @Override
+        public int compareTo(Arc arc) {
+            return Double.compare(this.distance, arc.distance);
+        }
+    }
+}
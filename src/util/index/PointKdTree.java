@@ -0,0 +1,509 @@
+package util.index;
+
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.PointStore;
+import util.collection.IntList;
+
+import java.util.Arrays;
+
+/**
+ * A static 2d-tree over a collection of points, identified by int ids.
+ * Points can be removed from the tree, but not inserted. The tree
+ * enumerates the nearest neighbours of a location lazily, in order of
+ * increasing distance, and finds the points within a bounding box.
+ *
+ * The tree is stored implicitly: the node covering the slots [lo, hi)
+ * holds the point at slot (lo + hi) / 2, its children cover the slots
+ * to the left and to the right of it.
+ *
+ * @author Kim-Anh Tran
+ */
+public class PointKdTree {
+
+    /**
+     * The point ids, in tree order.
+     */
+    private int[] ids;
+
+    /**
+     * The x values of the points, in tree order.
+     */
+    private double[] xs;
+
+    /**
+     * The y values of the points, in tree order.
+     */
+    private double[] ys;
+
+    /**
+     * The bounding boxes of the nodes, indexed by the slot of the node's point.
+     */
+    private double[] minX;
+    private double[] maxX;
+    private double[] minY;
+    private double[] maxY;
+
+    /**
+     * The number of points that are not yet removed from the subtree of a
+     * node, indexed by the slot of the node's point.
+     */
+    private int[] alive;
+
+    /**
+     * Flags indicating which slots are removed.
+     */
+    private boolean[] removed;
+
+    /**
+     * The point ids in ascending order, for looking up the slot of an id.
+     */
+    private int[] sortedIds;
+
+    /**
+     * The slots corresponding to {@link PointKdTree#sortedIds}.
+     */
+    private int[] sortedSlots;
+
+
+    /**
+     * Creates a new tree containing the specified points. The array
+     * of ids is not modified.
+     *
+     * @param store The store containing the points.
+     * @param ids   The ids of the points.
+     * @param size  The number of ids to take from the array.
+     */
+    public PointKdTree(PointStore store, int[] ids, int size) {
+        this.ids = Arrays.copyOf(ids, size);
+        this.xs = new double[size];
+        this.ys = new double[size];
+        for (int slot = 0; slot < size; ++slot) {
+            this.xs[slot] = store.getX(this.ids[slot]);
+            this.ys[slot] = store.getY(this.ids[slot]);
+        }
+
+        this.minX = new double[size];
+        this.maxX = new double[size];
+        this.minY = new double[size];
+        this.maxY = new double[size];
+        this.alive = new int[size];
+        this.removed = new boolean[size];
+
+        build(0, size);
+
+        // Ids are sorted for looking up their slots when removing points.
+        long[] idSlots = new long[size];
+        for (int slot = 0; slot < size; ++slot) {
+            idSlots[slot] = ((long) this.ids[slot] << 32) | slot;
+        }
+        Arrays.sort(idSlots);
+        this.sortedIds = new int[size];
+        this.sortedSlots = new int[size];
+        for (int i = 0; i < size; ++i) {
+            this.sortedIds[i] = (int) (idSlots[i] >> 32);
+            this.sortedSlots[i] = (int) idSlots[i];
+        }
+    }
+
+    /**
+     * Returns the number of points that are not removed.
+     *
+     * @return The number of points in the tree.
+     */
+    public int size() {
+        if (this.alive.length == 0) {
+            return 0;
+        }
+        return this.alive[node(0, this.alive.length)];
+    }
+
+    /**
+     * Removes the point with the specified id from the tree.
+     *
+     * @param id    The id of the point to remove.
+     * @return      True, if the point was contained in the tree.
+     */
+    public boolean remove(int id) {
+        int index = Arrays.binarySearch(this.sortedIds, id);
+        if (index < 0 || this.removed[this.sortedSlots[index]]) {
+            return false;
+        }
+        int slot = this.sortedSlots[index];
+        this.removed[slot] = true;
+
+        // Update the counts on the path from the root to the point's node.
+        int lo = 0;
+        int hi = this.ids.length;
+        while (true) {
+            int mid = node(lo, hi);
+            --this.alive[mid];
+            if (slot == mid) {
+                break;
+            } else if (slot < mid) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the neighbours of the specified location, that are enumerated
+     * by increasing distance. Points with the same distance are enumerated
+     * by increasing id.
+     *
+     * @param x The x value of the location.
+     * @param y The y value of the location.
+     * @return  The neighbours of the location.
+     */
+    public NearestNeighbours nearest(double x, double y) {
+        return new NearestNeighbours(x, y);
+    }
+
+    /**
+     * Adds the ids of all points within the specified bounding box to the
+     * result, including points on its boundary.
+     *
+     * @param envelope  The bounding box.
+     * @param result    The list the ids are added to.
+     */
+    public void query(Envelope envelope, IntList result) {
+        query(0, this.ids.length, envelope, result);
+    }
+
+    /**
+     * Adds the ids of all points of the subtree covering [lo, hi) that are
+     * within the specified bounding box to the result.
+     */
+    private void query(int lo, int hi, Envelope envelope, IntList result) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = node(lo, hi);
+        if (this.alive[mid] == 0
+                || this.maxX[mid] < envelope.getMinX() || this.minX[mid] > envelope.getMaxX()
+                || this.maxY[mid] < envelope.getMinY() || this.minY[mid] > envelope.getMaxY()) {
+            return;
+        }
+        if (!this.removed[mid] && envelope.intersects(this.xs[mid], this.ys[mid])) {
+            result.add(this.ids[mid]);
+        }
+        query(lo, mid, envelope, result);
+        query(mid + 1, hi, envelope, result);
+    }
+
+    /**
+     * Returns the slot of the point of the node covering [lo, hi).
+     */
+    private static int node(int lo, int hi) {
+        return (lo + hi) >>> 1;
+    }
+
+    /**
+     * Builds the subtree covering the slots [lo, hi).
+     *
+     * @param lo    The first slot, inclusive.
+     * @param hi    The last slot, exclusive.
+     */
+    private void build(int lo, int hi) {
+        if (lo >= hi) {
+            return;
+        }
+
+        double boxMinX = Double.POSITIVE_INFINITY;
+        double boxMaxX = Double.NEGATIVE_INFINITY;
+        double boxMinY = Double.POSITIVE_INFINITY;
+        double boxMaxY = Double.NEGATIVE_INFINITY;
+        for (int i = lo; i < hi; ++i) {
+            boxMinX = Math.min(boxMinX, this.xs[i]);
+            boxMaxX = Math.max(boxMaxX, this.xs[i]);
+            boxMinY = Math.min(boxMinY, this.ys[i]);
+            boxMaxY = Math.max(boxMaxY, this.ys[i]);
+        }
+
+        int mid = node(lo, hi);
+        this.minX[mid] = boxMinX;
+        this.maxX[mid] = boxMaxX;
+        this.minY[mid] = boxMinY;
+        this.maxY[mid] = boxMaxY;
+        this.alive[mid] = hi - lo;
+
+        // Split along the wider extent of the bounding box.
+        select(lo, hi, mid, boxMaxX - boxMinX >= boxMaxY - boxMinY);
+
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    /**
+     * Rearranges the slots [lo, hi), such that the slot k holds the point
+     * that would be there if the slots were sorted by the specified axis.
+     *
+     * @param lo        The first slot, inclusive.
+     * @param hi        The last slot, exclusive.
+     * @param k         The slot to select.
+     * @param byX       True, if sorted by x. By y, otherwise.
+     */
+    private void select(int lo, int hi, int k, boolean byX) {
+        double[] values = byX ? this.xs : this.ys;
+        int left = lo;
+        int right = hi - 1;
+        while (left < right) {
+            double pivot = values[node(left, right)];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    ++i;
+                }
+                while (values[j] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    ++i;
+                    --j;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Swaps the points at the specified slots.
+     */
+    private void swap(int i, int j) {
+        int id = this.ids[i];
+        this.ids[i] = this.ids[j];
+        this.ids[j] = id;
+
+        double x = this.xs[i];
+        this.xs[i] = this.xs[j];
+        this.xs[j] = x;
+
+        double y = this.ys[i];
+        this.ys[i] = this.ys[j];
+        this.ys[j] = y;
+    }
+
+    /**
+     * Enumerates the points of the tree by increasing distance to a location,
+     * using a best-first traversal. Points are only computed when requested,
+     * and points removed from the tree in the meantime are skipped.
+     */
+    public class NearestNeighbours {
+
+        /**
+         * The location whose neighbours are enumerated.
+         */
+        private double x;
+        private double y;
+
+        /**
+         * The ids of the neighbours enumerated so far.
+         */
+        private int[] found;
+
+        /**
+         * The number of neighbours enumerated so far.
+         */
+        private int nFound;
+
+        /**
+         * The queue of pending nodes and points as a binary heap. An entry is
+         * either a node covering [lo, hi), keyed by the squared distance to its
+         * bounding box, or a point at slot lo (hi is -1), keyed by its squared distance.
+         */
+        private double[] keys;
+        private int[] los;
+        private int[] his;
+        private int queueSize;
+
+
+        /**
+         * Creates a new enumeration of the neighbours of the specified location.
+         *
+         * @param x The x value of the location.
+         * @param y The y value of the location.
+         */
+        private NearestNeighbours(double x, double y) {
+            this.x = x;
+            this.y = y;
+            this.found = new int[8];
+            this.keys = new double[16];
+            this.los = new int[16];
+            this.his = new int[16];
+
+            int size = PointKdTree.this.ids.length;
+            if (size > 0) {
+                push(nodeDistance(node(0, size)), 0, size);
+            }
+        }
+
+        /**
+         * Returns the id of the k-th nearest neighbour, starting at 0. Points that
+         * are removed from the tree before they are enumerated are skipped.
+         *
+         * @param k The rank of the neighbour.
+         * @return  The id of the neighbour, or -1 if fewer points are available.
+         */
+        public int get(int k) {
+            while (this.nFound <= k) {
+                int id = next();
+                if (id < 0) {
+                    return -1;
+                }
+                if (this.nFound == this.found.length) {
+                    this.found = Arrays.copyOf(this.found, 2 * this.nFound);
+                }
+                this.found[this.nFound++] = id;
+            }
+            return this.found[k];
+        }
+
+        /**
+         * Returns the id of the next nearest point.
+         *
+         * @return The id of the next point, or -1 if no points are left.
+         */
+        private int next() {
+            while (this.queueSize > 0) {
+                int lo = this.los[0];
+                int hi = this.his[0];
+                pop();
+
+                if (hi < 0) {
+                    if (!PointKdTree.this.removed[lo]) {
+                        return PointKdTree.this.ids[lo];
+                    }
+                    continue;
+                }
+
+                int mid = node(lo, hi);
+                if (PointKdTree.this.alive[mid] == 0) {
+                    continue;
+                }
+                if (!PointKdTree.this.removed[mid]) {
+                    push(pointDistance(mid), mid, -1);
+                }
+                if (lo < mid && PointKdTree.this.alive[node(lo, mid)] > 0) {
+                    push(nodeDistance(node(lo, mid)), lo, mid);
+                }
+                if (mid + 1 < hi && PointKdTree.this.alive[node(mid + 1, hi)] > 0) {
+                    push(nodeDistance(node(mid + 1, hi)), mid + 1, hi);
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the squared distance to the point at the specified slot.
+         */
+        private double pointDistance(int slot) {
+            double dx = PointKdTree.this.xs[slot] - this.x;
+            double dy = PointKdTree.this.ys[slot] - this.y;
+            return dx * dx + dy * dy;
+        }
+
+        /**
+         * Returns the squared distance to the bounding box of the node at the specified slot.
+         */
+        private double nodeDistance(int mid) {
+            double dx = Math.max(0.0, Math.max(PointKdTree.this.minX[mid] - this.x,
+                    this.x - PointKdTree.this.maxX[mid]));
+            double dy = Math.max(0.0, Math.max(PointKdTree.this.minY[mid] - this.y,
+                    this.y - PointKdTree.this.maxY[mid]));
+            return dx * dx + dy * dy;
+        }
+
+        /**
+         * Returns true, if entry i is to be dequeued before entry j.
+         * Nodes precede points of the same distance, so that points of equal
+         * distance can be ordered by their ids.
+         */
+        private boolean before(int i, int j) {
+            if (this.keys[i] != this.keys[j]) {
+                return this.keys[i] < this.keys[j];
+            }
+            boolean iPoint = this.his[i] < 0;
+            boolean jPoint = this.his[j] < 0;
+            if (iPoint != jPoint) {
+                return jPoint;
+            }
+            return iPoint && PointKdTree.this.ids[this.los[i]] < PointKdTree.this.ids[this.los[j]];
+        }
+
+        /**
+         * Adds an entry to the queue.
+         */
+        private void push(double key, int lo, int hi) {
+            if (this.queueSize == this.keys.length) {
+                int capacity = 2 * this.queueSize;
+                this.keys = Arrays.copyOf(this.keys, capacity);
+                this.los = Arrays.copyOf(this.los, capacity);
+                this.his = Arrays.copyOf(this.his, capacity);
+            }
+            int i = this.queueSize++;
+            this.keys[i] = key;
+            this.los[i] = lo;
+            this.his[i] = hi;
+
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!before(i, parent)) {
+                    break;
+                }
+                swapEntries(i, parent);
+                i = parent;
+            }
+        }
+
+        /**
+         * Removes the first entry from the queue.
+         */
+        private void pop() {
+            --this.queueSize;
+            swapEntries(0, this.queueSize);
+
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= this.queueSize) {
+                    break;
+                }
+                if (child + 1 < this.queueSize && before(child + 1, child)) {
+                    ++child;
+                }
+                if (!before(child, i)) {
+                    break;
+                }
+                swapEntries(i, child);
+                i = child;
+            }
+        }
+
+        /**
+         * Swaps the queue entries i and j.
+         */
+        private void swapEntries(int i, int j) {
+            double key = this.keys[i];
+            this.keys[i] = this.keys[j];
+            this.keys[j] = key;
+
+            int lo = this.los[i];
+            this.los[i] = this.los[j];
+            this.los[j] = lo;
+
+            int hi = this.his[i];
+            this.his[i] = this.his[j];
+            this.his[j] = hi;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package util.index;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.quadtree.Quadtree;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.Polygon;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A TriangleIndex that keeps the triangles in a quadtree. Only triangles
+ * whose bounding boxes overlap the bounding box of the checked line segment
+ * or polygon are tested for intersection.
+ *
+ * @author Kim-Anh Tran
+ */
+public class QuadtreeTriangleIndex implements TriangleIndex {
+
+    /**
+     * The quadtree containing the triangles, keyed by their bounding boxes.
+     */
+    private Quadtree quadtree;
+
+    /**
+     * The triangles contained in the index, in insertion order. A removed triangle
+     * is replaced by the last one.
+     */
+    private List<ColoredPolygon> triangles;
+
+    /**
+     * The positions of the triangles in the list, by identity. Null until the
+     * first triangle is removed, as most indexes only grow.
+     */
+    private Map<ColoredPolygon, Integer> positions;
+
+
+    /**
+     * Creates a new, empty index.
+     */
+    public QuadtreeTriangleIndex() {
+        this.quadtree = new Quadtree();
+        this.triangles = new ArrayList<ColoredPolygon>();
+    }
+
+    @Override
+    public void insert(ColoredPolygon triangle) {
+        this.quadtree.insert(triangle.getEnvelope(), triangle);
+        if (this.positions != null) {
+            this.positions.put(triangle, this.triangles.size());
+        }
+        this.triangles.add(triangle);
+    }
+
+    /**
+     * Removes the specified triangle from the index, in constant time apart from the
+     * quadtree. The last triangle of {@link QuadtreeTriangleIndex#getTriangles()} takes
+     * its place.
+     *
+     * @param triangle  The triangle to remove.
+     * @return          True, if the index contained the triangle.
+     */
+    public boolean remove(ColoredPolygon triangle) {
+        if (!this.quadtree.remove(triangle.getEnvelope(), triangle)) {
+            return false;
+        }
+        if (this.positions == null) {
+            this.positions = new IdentityHashMap<ColoredPolygon, Integer>();
+            for (int i = 0; i < this.triangles.size(); ++i) {
+                this.positions.put(this.triangles.get(i), i);
+            }
+        }
+
+        int position = this.positions.remove(triangle);
+        ColoredPolygon last = this.triangles.remove(this.triangles.size() - 1);
+        if (last != triangle) {
+            this.triangles.set(position, last);
+            this.positions.put(last, position);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean intersectsWithLine(Point p1, Point p2) {
+        Envelope lineEnvelope = new Envelope(p1.getCoordinate(), p2.getCoordinate());
+
+        for (Object item : this.quadtree.query(lineEnvelope)) {
+            ColoredPolygon triangle = (ColoredPolygon) item;
+
+            // The quadtree returns candidates only, so the envelopes are checked first.
+            if (triangle.getEnvelope().intersects(lineEnvelope)
+                    && triangle.intersectsWithLine(p1, p2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean enclosesPoint(Point point) {
+        Envelope pointEnvelope = new Envelope(point.getCoordinate());
+
+        for (Object item : this.quadtree.query(pointEnvelope)) {
+            ColoredPolygon triangle = (ColoredPolygon) item;
+            if (triangle.getEnvelope().intersects(pointEnvelope)
+                    && triangle.enclosesPoint(point)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean intersectsWithPolygon(Polygon polygon) {
+        Envelope polygonEnvelope = polygon.getEnvelope();
+
+        for (Object item : this.quadtree.query(polygonEnvelope)) {
+            ColoredPolygon triangle = (ColoredPolygon) item;
+            if (triangle.getEnvelope().intersects(polygonEnvelope)
+                    && triangle.intersectsWithPolygon(polygon)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void query(Envelope envelope, List<ColoredPolygon> result) {
+        for (Object item : this.quadtree.query(envelope)) {
+            ColoredPolygon triangle = (ColoredPolygon) item;
+            if (triangle.getEnvelope().intersects(envelope)) {
+                result.add(triangle);
+            }
+        }
+    }
+
+    @Override
+    public List<ColoredPolygon> getTriangles() {
+        return this.triangles;
+    }
+
+    @Override
+    public int size() {
+        return this.triangles.size();
+    }
+}
@@ -0,0 +1,77 @@
+package util.index;
+
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.Polygon;
+
+import java.util.List;
+
+/**
+ * A collection of accepted triangles that can be checked for conflicts
+ * with line segments and new polygons.
+ *
+ * @author Kim-Anh Tran
+ */
+public interface TriangleIndex {
+
+    /**
+     * Adds the specified triangle to the index.
+     *
+     * @param triangle  The triangle to add.
+     */
+    void insert(ColoredPolygon triangle);
+
+    /**
+     * Returns true, if any triangle of the index intersects with the
+     * line segment defined by p1 and p2.
+     *
+     * @param p1    The first point of the line segment.
+     * @param p2    The second point of the line segment.
+     * @return      True, if at least one triangle intersects with the line segment.
+     * @see         Polygon#intersectsWithLine(Point, Point)
+     */
+    boolean intersectsWithLine(Point p1, Point p2);
+
+    /**
+     * Returns true, if any triangle of the index encloses the specified point.
+     *
+     * @param point The point to check.
+     * @return      True, if at least one triangle encloses the point.
+     * @see         Polygon#enclosesPoint(Point)
+     */
+    boolean enclosesPoint(Point point);
+
+    /**
+     * Returns true, if any triangle of the index intersects with the
+     * specified polygon.
+     *
+     * @param polygon   The polygon to check for intersection.
+     * @return          True, if at least one triangle intersects with the polygon.
+     * @see             Polygon#intersectsWithPolygon(Polygon)
+     */
+    boolean intersectsWithPolygon(Polygon polygon);
+
+    /**
+     * Adds all triangles of the index whose bounding boxes intersect with
+     * the specified bounding box to the result.
+     *
+     * @param envelope  The bounding box.
+     * @param result    The list the triangles are added to.
+     */
+    void query(Envelope envelope, List<ColoredPolygon> result);
+
+    /**
+     * Returns the triangles contained in the index.
+     *
+     * @return The triangles contained in the index.
+     */
+    List<ColoredPolygon> getTriangles();
+
+    /**
+     * Returns the number of triangles contained in the index.
+     *
+     * @return The number of triangles.
+     */
+    int size();
+}
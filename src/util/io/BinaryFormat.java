@@ -0,0 +1,153 @@
+package util.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.text.ParseException;
+
+/**
+ * Constants and header handling of the binary formats for points and triangles.
+ *
+ * Both formats start with a 16 byte header: four magic bytes, the version as
+ * int and the number of points or triangles n as long. The values follow in
+ * columns, all numbers are little-endian:
+ *
+ * points:      x[n], y[n] as doubles, color[n] as bytes
+ * triangles:   x1[n], y1[n], x2[n], y2[n], x3[n], y3[n] as doubles, color[n] as bytes
+ *
+ * As the header has a length of 16 bytes, all double columns are aligned to 8 bytes.
+ *
+ * @author Kim-Anh Tran
+ */
+final class BinaryFormat {
+
+    /**
+     * The magic bytes of point files.
+     */
+    static final byte[] POINTS_MAGIC = {'T', 'R', 'I', 'P'};
+
+    /**
+     * The magic bytes of triangle files.
+     */
+    static final byte[] TRIANGLES_MAGIC = {'T', 'R', 'I', 'T'};
+
+    /**
+     * The version of the formats written.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The length of the header in bytes.
+     */
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * The number of bytes per point, summed over all columns.
+     */
+    static final int POINT_BYTES = 2 * 8 + 1;
+
+    /**
+     * The number of bytes per triangle, summed over all columns.
+     */
+    static final int TRIANGLE_BYTES = 6 * 8 + 1;
+
+    /**
+     * The byte order of all numbers.
+     */
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The size of the buffers used for streams.
+     */
+    static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Error message indicating that the input does not start with the expected magic bytes.
+     */
+    static final String WRONG_MAGIC =
+            "Input is not in the expected binary format.";
+
+    /**
+     * Error message indicating an unknown version of the format.
+     */
+    static final String UNSUPPORTED_VERSION =
+            "Unsupported version of the binary format: ";
+
+    /**
+     * Error message indicating a count that is negative or too large.
+     */
+    static final String INVALID_COUNT =
+            "Invalid number of values in the binary format: ";
+
+    /**
+     * Error message indicating that the input ends before all values are read.
+     */
+    static final String TRUNCATED =
+            "Input ends before all values are specified.";
+
+
+    /**
+     * Empty, private constructor. Prevents from initiating an object from BinaryFormat.
+     */
+    private BinaryFormat() {
+    }
+
+    /**
+     * Returns true, if the specified bytes start with the specified magic bytes.
+     *
+     * @param bytes     The bytes to check.
+     * @param length    The number of valid bytes.
+     * @param magic     The magic bytes.
+     * @return          True, if the bytes start with the magic bytes.
+     */
+    static boolean startsWith(byte[] bytes, int length, byte[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; ++i) {
+            if (bytes[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Puts a header into the specified buffer.
+     *
+     * @param buffer    The buffer, in the byte order of the format.
+     * @param magic     The magic bytes.
+     * @param count     The number of points or triangles.
+     */
+    static void putHeader(ByteBuffer buffer, byte[] magic, long count) {
+        buffer.put(magic);
+        buffer.putInt(VERSION);
+        buffer.putLong(count);
+    }
+
+    /**
+     * Reads and validates a header from the specified buffer.
+     *
+     * @param buffer    The buffer, in the byte order of the format, with at least
+     *                  {@link BinaryFormat#HEADER_BYTES} remaining.
+     * @param magic     The expected magic bytes.
+     * @return          The number of points or triangles.
+     * @throws ParseException Thrown, if the magic bytes or the version do not match,
+     *                        or if the count is negative or too large for arrays.
+     */
+    static int getHeader(ByteBuffer buffer, byte[] magic) throws ParseException {
+        byte[] bytes = new byte[magic.length];
+        buffer.get(bytes);
+        if (!startsWith(bytes, bytes.length, magic)) {
+            throw new ParseException(WRONG_MAGIC, 0);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new ParseException(UNSUPPORTED_VERSION + version, 0);
+        }
+        long count = buffer.getLong();
+        if (count < 0 || count > Integer.MAX_VALUE - 8) {
+            throw new ParseException(INVALID_COUNT + count, 0);
+        }
+        return (int) count;
+    }
+}
@@ -0,0 +1,358 @@
+package util.io;
+
+import color.Color;
+import geometry.point.ArrayPointStore;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reader for parsing points and triangles in the binary format (see {@link BinaryFormat}).
+ *
+ * @author Kim-Anh Tran
+ */
+public class BinaryReader {
+
+    /**
+     * The greatest number of values a column is allocated with before its values are read.
+     * Columns grow as values arrive, so that a corrupt count does not exhaust the heap.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+
+    /**
+     * Empty, private constructor. Prevents from initiating an object from BinaryReader.
+     */
+    private BinaryReader() {
+    }
+
+    /**
+     * Returns true, if the specified stream starts with the magic bytes of point files.
+     * The stream is reset to its current position.
+     *
+     * @param inStream  The stream to check, which has to support mark and reset.
+     * @return          True, if the stream contains points in the binary format.
+     * @throws IOException Thrown, if reading from the stream failed.
+     */
+    public static boolean isBinaryPoints(InputStream inStream) throws IOException {
+        return startsWith(inStream, BinaryFormat.POINTS_MAGIC);
+    }
+
+    /**
+     * Returns true, if the specified stream starts with the magic bytes of triangle files.
+     * The stream is reset to its current position.
+     *
+     * @param inStream  The stream to check, which has to support mark and reset.
+     * @return          True, if the stream contains triangles in the binary format.
+     * @throws IOException Thrown, if reading from the stream failed.
+     */
+    public static boolean isBinaryTriangles(InputStream inStream) throws IOException {
+        return startsWith(inStream, BinaryFormat.TRIANGLES_MAGIC);
+    }
+
+    /**
+     * Returns true, if the specified file starts with the magic bytes of point files.
+     *
+     * @param file  The file to check.
+     * @return      True, if the file contains points in the binary format.
+     * @throws IOException Thrown, if reading the file failed.
+     */
+    public static boolean isBinaryPoints(File file) throws IOException {
+        InputStream inStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return isBinaryPoints(inStream);
+        } finally {
+            inStream.close();
+        }
+    }
+
+    /**
+     * Reads points in the binary format from the specified stream onto the heap.
+     * Points get their index as id. The stream is closed.
+     *
+     * @param inStream  The stream to read from.
+     * @return          Store of colored points.
+     * @throws ParseException Thrown, if the input is not in the binary format for points,
+     *                        ends early or specifies an invalid color.
+     * @throws IOException    Thrown, if reading from the stream failed.
+     */
+    public static ArrayPointStore readPointStore(InputStream inStream) throws ParseException, IOException {
+        ColumnInput input = new ColumnInput(inStream);
+        try {
+            int n = input.getHeader(BinaryFormat.POINTS_MAGIC);
+            double[] xs = input.getDoubles(n);
+            double[] ys = input.getDoubles(n);
+            byte[] colors = input.getBytes(n);
+            checkColors(ByteBuffer.wrap(colors), n);
+            return ArrayPointStore.fromArrays(xs, ys, colors, n);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Maps the specified file of points in the binary format into memory. The
+     * returned store reads from the mapped columns, so the points are not copied
+     * onto the heap and only the pages that are accessed are loaded.
+     *
+     * Each column is mapped on its own, so a file can hold up to 2^28 points.
+     *
+     * @param file  The file to map.
+     * @return      Store of colored points, reading from the file.
+     * @throws ParseException Thrown, if the file is not in the binary format for points,
+     *                        ends early or specifies an invalid color.
+     * @throws IOException    Thrown, if the file can not be mapped.
+     */
+    public static MappedPointStore mapPointStore(File file) throws ParseException, IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            if (channel.size() < BinaryFormat.HEADER_BYTES) {
+                throw new ParseException(BinaryFormat.WRONG_MAGIC, 0);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BinaryFormat.HEADER_BYTES);
+            int n = BinaryFormat.getHeader(header.order(BinaryFormat.ORDER), BinaryFormat.POINTS_MAGIC);
+            if (channel.size() < BinaryFormat.HEADER_BYTES + (long) n * BinaryFormat.POINT_BYTES) {
+                throw new ParseException(BinaryFormat.TRUNCATED, 0);
+            }
+            long columnBytes = 8L * n;
+            if (columnBytes > Integer.MAX_VALUE) {
+                throw new IOException("Too many points for mapping a column: " + n);
+            }
+
+            long position = BinaryFormat.HEADER_BYTES;
+            DoubleBuffer xs = mapDoubles(channel, position, columnBytes);
+            position += columnBytes;
+            DoubleBuffer ys = mapDoubles(channel, position, columnBytes);
+            position += columnBytes;
+            ByteBuffer colors = channel.map(FileChannel.MapMode.READ_ONLY, position, n);
+            checkColors(colors, n);
+            return new MappedPointStore(xs, ys, colors, n);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Reads triangles in the binary format from the specified stream. The stream is closed.
+     *
+     * @param inStream  The stream to read from.
+     * @return          The triangles, in the order of the input.
+     * @throws ParseException Thrown, if the input is not in the binary format for triangles,
+     *                        ends early or specifies an invalid triangle.
+     * @throws IOException    Thrown, if reading from the stream failed.
+     */
+    public static List<ColoredPolygon> readTriangles(InputStream inStream) throws ParseException, IOException {
+        ColumnInput input = new ColumnInput(inStream);
+        try {
+            int n = input.getHeader(BinaryFormat.TRIANGLES_MAGIC);
+            double[][] coordinates = new double[6][];
+            for (int i = 0; i < coordinates.length; ++i) {
+                coordinates[i] = input.getDoubles(n);
+            }
+            byte[] colors = input.getBytes(n);
+
+            List<ColoredPolygon> triangles = new ArrayList<ColoredPolygon>(n);
+            for (int i = 0; i < n; ++i) {
+                try {
+                    triangles.add(ColoredTriangle.fromCoordinates(coordinates[0][i], coordinates[1][i],
+                            coordinates[2][i], coordinates[3][i], coordinates[4][i], coordinates[5][i], colors[i]));
+                } catch (IllegalArgumentException e) {
+                    throw new ParseException(e.getMessage(), i);
+                }
+            }
+            return triangles;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Maps a column of doubles.
+     */
+    private static DoubleBuffer mapDoubles(FileChannel channel, long position, long bytes) throws IOException {
+        ByteBuffer column = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+        return column.order(BinaryFormat.ORDER).asDoubleBuffer();
+    }
+
+    /**
+     * Checks that the first n bytes of the specified buffer are valid colors.
+     *
+     * @throws ParseException Thrown, if a color is invalid. The offset is the id of the point.
+     */
+    private static void checkColors(ByteBuffer colors, int n) throws ParseException {
+        // Each possible byte value only needs to be checked once.
+        boolean[] checked = new boolean[256];
+        for (int id = 0; id < n; ++id) {
+            byte color = colors.get(id);
+            if (!checked[color & 0xFF]) {
+                try {
+                    Color.fromInt(color);
+                } catch (IllegalArgumentException e) {
+                    throw new ParseException(e.getMessage(), id);
+                }
+                checked[color & 0xFF] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns true, if the specified stream starts with the specified magic bytes.
+     * The stream is reset to its current position.
+     */
+    private static boolean startsWith(InputStream inStream, byte[] magic) throws IOException {
+        if (!inStream.markSupported()) {
+            throw new IllegalArgumentException("Stream does not support mark and reset.");
+        }
+        inStream.mark(magic.length);
+        try {
+            byte[] bytes = new byte[magic.length];
+            int length = 0;
+            int read = 0;
+            while (length < bytes.length && read >= 0) {
+                read = inStream.read(bytes, length, bytes.length - length);
+                length += Math.max(read, 0);
+            }
+            return BinaryFormat.startsWith(bytes, length, magic);
+        } finally {
+            inStream.reset();
+        }
+    }
+
+    /**
+     * Reads values from a stream through a buffer in the byte order of the format.
+     */
+    private static class ColumnInput {
+
+        /**
+         * The channel that is read from.
+         */
+        private ReadableByteChannel channel;
+
+        /**
+         * The buffer holding values that are read but not yet returned.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * Creates an input reading from the specified stream.
+         *
+         * @param inStream  The stream to read from.
+         */
+        private ColumnInput(InputStream inStream) {
+            this.channel = Channels.newChannel(inStream);
+            this.buffer = ByteBuffer.allocate(BinaryFormat.BUFFER_BYTES).order(BinaryFormat.ORDER);
+            this.buffer.flip();
+        }
+
+        /**
+         * Reads and validates a header.
+         *
+         * @param magic The expected magic bytes.
+         * @return      The number of points or triangles.
+         * @throws ParseException Thrown, if the header is missing or invalid.
+         * @throws IOException    Thrown, if reading from the stream failed.
+         */
+        private int getHeader(byte[] magic) throws ParseException, IOException {
+            if (!fill(BinaryFormat.HEADER_BYTES)) {
+                throw new ParseException(BinaryFormat.WRONG_MAGIC, 0);
+            }
+            return BinaryFormat.getHeader(this.buffer, magic);
+        }
+
+        /**
+         * Reads a column of doubles.
+         *
+         * @param n The number of values.
+         * @return  The values.
+         * @throws ParseException Thrown, if the stream ends early. The offset is the index of the missing value.
+         * @throws IOException    Thrown, if reading from the stream failed.
+         */
+        private double[] getDoubles(int n) throws ParseException, IOException {
+            double[] column = new double[Math.min(n, INITIAL_CAPACITY)];
+            int i = 0;
+            while (i < n) {
+                if (!fill(8)) {
+                    throw new ParseException(BinaryFormat.TRUNCATED, i);
+                }
+                if (i == column.length) {
+                    column = Arrays.copyOf(column, (int) Math.min(n, 2L * column.length));
+                }
+                int count = Math.min(this.buffer.remaining() / 8, column.length - i);
+                this.buffer.asDoubleBuffer().get(column, i, count);
+                this.buffer.position(this.buffer.position() + 8 * count);
+                i += count;
+            }
+            return column;
+        }
+
+        /**
+         * Reads a column of bytes.
+         *
+         * @param n The number of values.
+         * @return  The values.
+         * @throws ParseException Thrown, if the stream ends early. The offset is the index of the missing value.
+         * @throws IOException    Thrown, if reading from the stream failed.
+         */
+        private byte[] getBytes(int n) throws ParseException, IOException {
+            byte[] column = new byte[Math.min(n, INITIAL_CAPACITY)];
+            int i = 0;
+            while (i < n) {
+                if (!fill(1)) {
+                    throw new ParseException(BinaryFormat.TRUNCATED, i);
+                }
+                if (i == column.length) {
+                    column = Arrays.copyOf(column, (int) Math.min(n, 2L * column.length));
+                }
+                int count = Math.min(this.buffer.remaining(), column.length - i);
+                this.buffer.get(column, i, count);
+                i += count;
+            }
+            return column;
+        }
+
+        /**
+         * Reads from the stream until the buffer holds at least the specified number of bytes.
+         *
+         * @param bytes The number of bytes needed.
+         * @return      False, if the stream ends before.
+         * @throws IOException Thrown, if reading from the stream failed.
+         */
+        private boolean fill(int bytes) throws IOException {
+            if (this.buffer.remaining() >= bytes) {
+                return true;
+            }
+            this.buffer.compact();
+            int read = 0;
+            while (this.buffer.position() < bytes && read >= 0) {
+                read = this.channel.read(this.buffer);
+            }
+            this.buffer.flip();
+            return this.buffer.remaining() >= bytes;
+        }
+
+        /**
+         * Closes the stream.
+         *
+         * @throws IOException Thrown, if closing the stream failed.
+         */
+        private void close() throws IOException {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package util.io;
+
+import geometry.point.PointStore;
+import geometry.polygon.ColoredPolygon;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * Writer for writing points and triangles in the binary format (see {@link BinaryFormat}).
+ *
+ * @author Kim-Anh Tran
+ */
+public class BinaryWriter {
+
+    /**
+     * Empty, private constructor. Prevents from initiating an object from BinaryWriter.
+     */
+    private BinaryWriter() {
+    }
+
+    /**
+     * Writes the specified points to the specified stream. The stream is closed.
+     *
+     * @param outStream     The stream that is written to.
+     * @param store         The points to write, in the order of their ids.
+     * @throws IOException  Thrown, if writing to the stream failed.
+     */
+    public static void writePoints(OutputStream outStream, PointStore store) throws IOException {
+        int n = store.size();
+        ColumnOutput output = new ColumnOutput(outStream);
+        output.putHeader(BinaryFormat.POINTS_MAGIC, n);
+        for (int id = 0; id < n; ++id) {
+            output.putDouble(store.getX(id));
+        }
+        for (int id = 0; id < n; ++id) {
+            output.putDouble(store.getY(id));
+        }
+        for (int id = 0; id < n; ++id) {
+            output.putByte(store.getColorIndex(id));
+        }
+        output.close();
+    }
+
+    /**
+     * Writes the specified triangles to the specified stream. The stream is closed.
+     *
+     * @param outStream     The stream that is written to.
+     * @param polygons      The triangles to write.
+     * @throws IOException  Thrown, if writing to the stream failed.
+     * @throws IllegalArgumentException Thrown, if a polygon does not have three points.
+     */
+    public static void writeTriangles(OutputStream outStream, List<ColoredPolygon> polygons)
+            throws IOException, IllegalArgumentException {
+        ColoredPolygon[] triangles = polygons.toArray(new ColoredPolygon[polygons.size()]);
+        for (ColoredPolygon triangle : triangles) {
+            if (triangle.getPoints().length != 3) {
+                throw new IllegalArgumentException("Only triangles can be written in the binary format.");
+            }
+        }
+
+        ColumnOutput output = new ColumnOutput(outStream);
+        output.putHeader(BinaryFormat.TRIANGLES_MAGIC, triangles.length);
+        for (int point = 0; point < 3; ++point) {
+            for (ColoredPolygon triangle : triangles) {
+                output.putDouble(triangle.getPoints()[point].getCoordinate().x);
+            }
+            for (ColoredPolygon triangle : triangles) {
+                output.putDouble(triangle.getPoints()[point].getCoordinate().y);
+            }
+        }
+        for (ColoredPolygon triangle : triangles) {
+            output.putByte(triangle.getColor().getIntRepresentation());
+        }
+        output.close();
+    }
+
+    /**
+     * Writes values to a stream through a buffer in the byte order of the format.
+     */
+    private static class ColumnOutput {
+
+        /**
+         * The channel that is written to.
+         */
+        private WritableByteChannel channel;
+
+        /**
+         * The buffer collecting values before they are written.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * Creates an output writing to the specified stream.
+         *
+         * @param outStream The stream that is written to.
+         */
+        private ColumnOutput(OutputStream outStream) {
+            this.channel = Channels.newChannel(outStream);
+            this.buffer = ByteBuffer.allocate(BinaryFormat.BUFFER_BYTES).order(BinaryFormat.ORDER);
+        }
+
+        /**
+         * Writes a header.
+         *
+         * @param magic The magic bytes.
+         * @param count The number of points or triangles.
+         */
+        private void putHeader(byte[] magic, long count) {
+            BinaryFormat.putHeader(this.buffer, magic, count);
+        }
+
+        /**
+         * Writes a double.
+         *
+         * @param value The value.
+         * @throws IOException Thrown, if writing to the stream failed.
+         */
+        private void putDouble(double value) throws IOException {
+            if (this.buffer.remaining() < 8) {
+                flush();
+            }
+            this.buffer.putDouble(value);
+        }
+
+        /**
+         * Writes a byte.
+         *
+         * @param value The value, in the range of a byte.
+         * @throws IOException Thrown, if writing to the stream failed.
+         */
+        private void putByte(int value) throws IOException {
+            if (!this.buffer.hasRemaining()) {
+                flush();
+            }
+            this.buffer.put((byte) value);
+        }
+
+        /**
+         * Writes the buffered values to the stream.
+         *
+         * @throws IOException Thrown, if writing to the stream failed.
+         */
+        private void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        /**
+         * Writes the buffered values and closes the stream.
+         *
+         * @throws IOException Thrown, if writing to or closing the stream failed.
+         */
+        private void close() throws IOException {
+            flush();
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package util.io;
+
+import java.math.BigInteger;
+
+/**
+ * Converts decimal numbers, given as integer mantissa and power of ten, to
+ * the nearest double, with the same result as {@link Double#parseDouble(String)}.
+ *
+ * Small numbers are converted by a single exact multiplication or division.
+ * Others use the algorithm of Eisel and Lemire (D. Lemire, "Number Parsing at
+ * a Gigabyte per Second", 2021): the mantissa is multiplied with a 128-bit
+ * approximation of the power of ten, which determines the correctly rounded
+ * result in all but rare cases. In those, and for subnormal results and
+ * overflow, the conversion gives up.
+ *
+ * @author Kim-Anh Tran
+ */
+final class DecimalConverter {
+
+    /**
+     * The smallest power of ten of the 128-bit approximations.
+     */
+    private static final int MIN_EXPONENT = -348;
+
+    /**
+     * The greatest power of ten of the 128-bit approximations.
+     */
+    private static final int MAX_EXPONENT = 347;
+
+    /**
+     * The powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * The greatest mantissa for which every integer is exactly representable as double.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * The exponent bias of doubles.
+     */
+    private static final int EXPONENT_BIAS = 1023;
+
+    /**
+     * The bits of the fraction of a double.
+     */
+    private static final long FRACTION_MASK = (1L << 52) - 1;
+
+    /**
+     * The high 64 bits of the 128-bit approximations of the powers of ten,
+     * normalized such that the highest bit is set, and rounded down.
+     */
+    private static final long[] HIGH = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+
+    /**
+     * The low 64 bits of the 128-bit approximations of the powers of ten.
+     */
+    private static final long[] LOW = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+
+    static {
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int exponent = MIN_EXPONENT; exponent <= MAX_EXPONENT; ++exponent) {
+            BigInteger power = BigInteger.TEN.pow(Math.abs(exponent));
+            BigInteger approximation;
+            if (exponent >= 0) {
+                int shift = power.bitLength() - 128;
+                approximation = shift > 0 ? power.shiftRight(shift) : power.shiftLeft(-shift);
+            } else {
+                approximation = BigInteger.ONE.shiftLeft(power.bitLength() + 127).divide(power);
+            }
+            HIGH[exponent - MIN_EXPONENT] = approximation.shiftRight(64).longValue();
+            LOW[exponent - MIN_EXPONENT] = approximation.and(mask).longValue();
+        }
+    }
+
+
+    /**
+     * Empty, private constructor. Prevents from initiating an object from DecimalConverter.
+     */
+    private DecimalConverter() {
+    }
+
+    /**
+     * Returns the double nearest to the specified decimal number.
+     *
+     * @param mantissa  The mantissa, a non-negative integer.
+     * @param exponent  The power of ten the mantissa is multiplied with.
+     * @param negative  True, if the number is negative.
+     * @return          The nearest double. NaN, if it can not be determined directly.
+     */
+    static double toDouble(long mantissa, int exponent, boolean negative) {
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (mantissa <= MAX_EXACT_MANTISSA && exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (mantissa <= MAX_EXACT_MANTISSA && exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return eiselLemire(mantissa, exponent, negative);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the double nearest to the specified decimal number, using the
+     * 128-bit approximation of the power of ten.
+     *
+     * @param mantissa  The mantissa, a positive integer.
+     * @param exponent  The power of ten the mantissa is multiplied with.
+     * @param negative  True, if the number is negative.
+     * @return          The nearest double. NaN, if it can not be determined directly.
+     */
+    private static double eiselLemire(long mantissa, int exponent, boolean negative) {
+        if (exponent < MIN_EXPONENT || exponent > MAX_EXPONENT) {
+            return Double.NaN;
+        }
+        int index = exponent - MIN_EXPONENT;
+
+        // Normalize the mantissa, so that its highest bit is set.
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        long normalized = mantissa << leadingZeros;
+        long binaryExponent = ((217706L * exponent) >> 16) + 64 + EXPONENT_BIAS - leadingZeros;
+
+        long high = multiplyHigh(normalized, HIGH[index]);
+        long low = normalized * HIGH[index];
+
+        // If the truncated bits might carry into the result, take the lower half of the power into account.
+        if ((high & 0x1FF) == 0x1FF && unsignedLess(low + normalized, normalized)) {
+            long lowHigh = multiplyHigh(normalized, LOW[index]);
+            long lowLow = normalized * LOW[index];
+            long mergedHigh = high;
+            long mergedLow = low + lowHigh;
+            if (unsignedLess(mergedLow, low)) {
+                ++mergedHigh;
+            }
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow == -1L && unsignedLess(lowLow + normalized, normalized)) {
+                return Double.NaN;
+            }
+            high = mergedHigh;
+            low = mergedLow;
+        }
+
+        // Shift to 54 bits.
+        long upperBit = high >>> 63;
+        long result = high >>> (upperBit + 9);
+        binaryExponent -= 1 ^ upperBit;
+
+        // Exactly halfway between two doubles, which the approximation can not tell apart.
+        if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) {
+            return Double.NaN;
+        }
+
+        // Round to 53 bits.
+        result += result & 1;
+        result >>>= 1;
+        if ((result >>> 53) > 0) {
+            result >>>= 1;
+            ++binaryExponent;
+        }
+
+        // Subnormal numbers, infinity and NaN.
+        if (binaryExponent <= 0 || binaryExponent >= 0x7FF) {
+            return Double.NaN;
+        }
+        long bits = (binaryExponent << 52) | (result & FRACTION_MASK);
+        if (negative) {
+            bits |= Long.MIN_VALUE;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of the specified values.
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+
+        long t = x1 * y0 + ((x0 * y0) >>> 32);
+        long w1 = x0 * y1 + (t & 0xFFFFFFFFL);
+        return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+    }
+
+    /**
+     * Returns true, if the first value is less than the second one, both taken as unsigned.
+     */
+    private static boolean unsignedLess(long a, long b) {
+        return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE);
+    }
+}
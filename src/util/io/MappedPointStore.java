@@ -0,0 +1,83 @@
+package util.io;
+
+import geometry.point.ColoredPoint;
+import geometry.point.ColoredPointImpl;
+import geometry.point.PointStore;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+/**
+ * A PointStore reading the coordinates and colors directly from the columns
+ * of a memory-mapped file in the binary format, without copying them onto
+ * the heap. Created by {@link BinaryReader#mapPointStore(java.io.File)}.
+ *
+ * The mapping stays valid until the store is garbage collected, even if the
+ * file is closed. Only absolute reads are used, so the store can be read by
+ * several threads at once.
+ *
+ * @author Kim-Anh Tran
+ */
+public class MappedPointStore implements PointStore {
+
+    /**
+     * The x values, indexed by id.
+     */
+    private DoubleBuffer xs;
+
+    /**
+     * The y values, indexed by id.
+     */
+    private DoubleBuffer ys;
+
+    /**
+     * The integer representations of the colors, indexed by id.
+     */
+    private ByteBuffer colors;
+
+    /**
+     * The number of points.
+     */
+    private int size;
+
+
+    /**
+     * Creates a store reading from the specified columns.
+     *
+     * @param xs        The x values.
+     * @param ys        The y values.
+     * @param colors    The integer representations of valid colors.
+     * @param size      The number of points, at most the length of the columns.
+     */
+    MappedPointStore(DoubleBuffer xs, DoubleBuffer ys, ByteBuffer colors, int size) {
+        this.xs = xs;
+        this.ys = ys;
+        this.colors = colors;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public double getX(int id) {
+        return this.xs.get(id);
+    }
+
+    @Override
+    public double getY(int id) {
+        return this.ys.get(id);
+    }
+
+    @Override
+    public int getColorIndex(int id) {
+        return this.colors.get(id);
+    }
+
+    @Override
+    public ColoredPoint getPoint(int id) {
+        return ColoredPointImpl.create2D(this.xs.get(id), this.ys.get(id), this.colors.get(id));
+    }
+}
@@ -0,0 +1,613 @@
+package util.io;
+
+import color.Color;
+import com.vividsolutions.jts.geom.Coordinate;
+import geometry.point.ArrayPointStore;
+import geometry.point.ColoredPoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses colored points directly from the bytes of an input in the format
+ * described by {@link Reader#readPoints(InputStream)}, into primitive arrays.
+ *
+ * Lines of the form "x y color" with plain decimal numbers are parsed without
+ * creating any objects. Every other line is handed to the parser of single
+ * points, so that unusual number formats and errors are treated exactly as
+ * before. Large inputs are split into chunks at line ends, which are parsed
+ * in parallel: a first pass counts the lines of each chunk, so that each
+ * chunk knows the index of its first point.
+ *
+ * @author Kim-Anh Tran
+ */
+class PointParser {
+
+    /**
+     * The number of bytes of points, from which on the input is parsed in parallel.
+     */
+    static final int PARALLEL_BYTES = 1 << 20;
+
+    /**
+     * The smallest number of bytes of a chunk parsed in parallel.
+     */
+    private static final int CHUNK_BYTES = 1 << 18;
+
+    /**
+     * The number of chunks aimed for per thread of the pool, so that unbalanced
+     * chunks can be compensated.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The initial size of the buffer for reading the input.
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * The greatest mantissa that can take another digit without overflowing.
+     */
+    private static final long MAX_MANTISSA = (Long.MAX_VALUE - 9) / 10;
+
+    /**
+     * The greatest number of digits of a color parsed directly.
+     */
+    private static final int MAX_COLOR_DIGITS = 9;
+
+    /**
+     * The greatest exponent that is parsed exactly. Numbers with larger exponents
+     * are not parsed directly anyway.
+     */
+    private static final int MAX_EXPONENT = 1000;
+
+    /**
+     * The number of tokens of a line that is parsed directly.
+     */
+    private static final int N_TOKENS = 3;
+
+    /**
+     * Flags for the bytes separating the tokens of a line, as for a StringTokenizer.
+     */
+    private static final boolean[] DELIMITERS = new boolean[256];
+
+    /**
+     * Flags for the bytes that are whitespace, as for a Scanner.
+     */
+    private static final boolean[] WHITESPACE = new boolean[256];
+
+    /**
+     * Flags for the integers that represent colors, up to the greatest one.
+     */
+    private static final boolean[] VALID_COLORS;
+
+    static {
+        int maxColor = 0;
+        for (Color color : Color.values()) {
+            maxColor = Math.max(maxColor, color.getIntRepresentation());
+        }
+        VALID_COLORS = new boolean[maxColor + 1];
+        for (Color color : Color.values()) {
+            VALID_COLORS[color.getIntRepresentation()] = true;
+        }
+        for (char c : " \t\n\r\f".toCharArray()) {
+            DELIMITERS[c] = true;
+        }
+        for (int c = 0; c < 128; ++c) {
+            WHITESPACE[c] = Character.isWhitespace(c);
+        }
+    }
+
+    /**
+     * The bytes of the input.
+     */
+    private byte[] input;
+
+    /**
+     * The number of bytes of the input.
+     */
+    private int length;
+
+    /**
+     * The position after the last byte of the input that is not whitespace.
+     */
+    private int lastTokenEnd;
+
+    /**
+     * The number of points to parse.
+     */
+    private int nPoints;
+
+    /**
+     * The x values, indexed by point number.
+     */
+    private double[] xs;
+
+    /**
+     * The y values, indexed by point number.
+     */
+    private double[] ys;
+
+    /**
+     * The integer representations of the colors, indexed by point number.
+     */
+    private byte[] colors;
+
+    /**
+     * The chunks of the points' lines.
+     */
+    private Chunk[] chunks;
+
+
+    /**
+     * Creates a parser of the specified input.
+     *
+     * @param input     The bytes of the input.
+     * @param length    The number of bytes of the input.
+     */
+    PointParser(byte[] input, int length) {
+        this.input = input;
+        this.length = length;
+        this.lastTokenEnd = length;
+        while (this.lastTokenEnd > 0 && isWhitespace(this.lastTokenEnd - 1)) {
+            --this.lastTokenEnd;
+        }
+    }
+
+    /**
+     * Reads the specified stream to its end and closes it.
+     *
+     * @param inStream  The stream to read from.
+     * @return          A parser of the stream's bytes.
+     * @throws IOException  Thrown, if reading the stream failed.
+     */
+    static PointParser read(InputStream inStream) throws IOException {
+        try {
+            byte[] buffer = new byte[Math.max(BUFFER_BYTES, inStream.available())];
+            int length = 0;
+            int nRead;
+            while ((nRead = inStream.read(buffer, length, buffer.length - length)) >= 0) {
+                length += nRead;
+                if (length == buffer.length) {
+                    if (length == Integer.MAX_VALUE) {
+                        throw new IOException("Input exceeds the maximum array size.");
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(2L * length, Integer.MAX_VALUE));
+                }
+            }
+            return new PointParser(buffer, length);
+        } finally {
+            inStream.close();
+        }
+    }
+
+    /**
+     * Parses the points of the input.
+     *
+     * @param pool  The pool for parsing large inputs in parallel, or null for parsing sequentially.
+     * @return      Store of the colored points. Points get their line number (starting with 0) as id.
+     * @throws ParseException Thrown, if the input can not be parsed. The error offset is the
+     *                        number of the point that could not be parsed.
+     */
+    ArrayPointStore parse(ForkJoinPool pool) throws ParseException {
+        int bodyStart = parseNumberOfPoints();
+        if (this.nPoints <= 0) {
+            return new ArrayPointStore(0);
+        }
+
+        // Every line takes at least one byte, so more points can not be found.
+        int capacity = (int) Math.min(this.nPoints, (long) this.length - bodyStart + 1);
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.colors = new byte[capacity];
+
+        this.chunks = split(bodyStart, pool == null ? 1 : CHUNKS_PER_THREAD * pool.getParallelism());
+        if (this.chunks.length == 1) {
+            this.chunks[0].parse();
+        } else {
+            pool.invoke(new ChunkTask(0, this.chunks.length, true));
+            int firstPoint = 0;
+            for (Chunk chunk : this.chunks) {
+                chunk.firstPoint = firstPoint;
+                firstPoint += chunk.nLines;
+            }
+            pool.invoke(new ChunkTask(0, this.chunks.length, false));
+        }
+
+        // Report the error of the first point, as a sequential parser would do.
+        for (Chunk chunk : this.chunks) {
+            if (chunk.error != null) {
+                throw chunk.error;
+            }
+        }
+        return ArrayPointStore.fromArrays(this.xs, this.ys, this.colors, this.nPoints);
+    }
+
+    /**
+     * Parses the number of points at the beginning of the input.
+     *
+     * @return  The position of the first line of points.
+     * @throws ParseException Thrown, if the number is missing or not an int, or if
+     *                        a positive number is not followed by any points.
+     */
+    private int parseNumberOfPoints() throws ParseException {
+        int start = 0;
+        while (start < this.length && isWhitespace(start)) {
+            ++start;
+        }
+        int end = start;
+        while (end < this.length && !isWhitespace(end)) {
+            ++end;
+        }
+        if (start == end) {
+            throw new ParseException(Reader.MISSING_WRONG_POINT_NUMBERS, Reader.PARSE_NUMBER_OF_POINTS_INDEX);
+        }
+        try {
+            this.nPoints = Integer.parseInt(new String(this.input, start, end - start, Charset.defaultCharset()));
+        } catch (NumberFormatException e) {
+            throw new ParseException(Reader.MISSING_WRONG_POINT_NUMBERS, Reader.PARSE_NUMBER_OF_POINTS_INDEX);
+        }
+        if (this.nPoints > 0 && end >= this.lastTokenEnd) {
+            throw new ParseException(Reader.TOO_FEW, Reader.PARSE_NUMBER_OF_POINTS_INDEX);
+        }
+
+        // The rest of the line is skipped.
+        return nextLine(end, this.length);
+    }
+
+    /**
+     * Splits the lines starting at the specified position into chunks.
+     *
+     * @param start         The position of the first line.
+     * @param maxChunks     The greatest number of chunks.
+     * @return              The chunks, ordered by position.
+     */
+    private Chunk[] split(int start, int maxChunks) {
+        int bytes = this.length - start;
+        int nChunks = 1;
+        if (bytes >= PARALLEL_BYTES) {
+            nChunks = Math.max(1, Math.min(maxChunks, bytes / CHUNK_BYTES));
+        }
+
+        Chunk[] chunks = new Chunk[nChunks];
+        int chunkStart = start;
+        int n = 0;
+        for (int i = 1; i < nChunks && chunkStart < this.length; ++i) {
+            long target = start + (long) bytes * i / nChunks;
+            int end = nextLine((int) Math.max(target, chunkStart), this.length);
+            if (end > chunkStart && end < this.length) {
+                chunks[n++] = new Chunk(chunkStart, end, false);
+                chunkStart = end;
+            }
+        }
+        chunks[n++] = new Chunk(chunkStart, this.length, true);
+        return Arrays.copyOf(chunks, n);
+    }
+
+    /**
+     * Returns the position after the end of the line containing the specified position.
+     *
+     * @param position  The position.
+     * @param end       The position to stop searching at.
+     * @return          The position after the line terminator, or the end.
+     */
+    private int nextLine(int position, int end) {
+        while (position < end && !isLineTerminator(position)) {
+            ++position;
+        }
+        if (position < end) {
+            if (this.input[position] == '\r' && position + 1 < end && this.input[position + 1] == '\n') {
+                ++position;
+            }
+            ++position;
+        }
+        return position;
+    }
+
+    /**
+     * Returns true, if the byte at the specified position terminates a line.
+     */
+    private boolean isLineTerminator(int position) {
+        byte b = this.input[position];
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * Returns true, if the byte at the specified position is whitespace.
+     */
+    private boolean isWhitespace(int position) {
+        return WHITESPACE[this.input[position] & 0xFF];
+    }
+
+    /**
+     * Returns true, if the byte at the specified position separates tokens.
+     */
+    private boolean isDelimiter(int position) {
+        return DELIMITERS[this.input[position] & 0xFF];
+    }
+
+    /**
+     * Parses a plain decimal number, with an optional sign, fraction and exponent,
+     * and at most 18 significant digits.
+     *
+     * @param start     The position of the first byte of the number.
+     * @param end       The position after the last byte of the number.
+     * @return          The number. NaN, if the number can not be parsed directly.
+     */
+    private double parseDouble(int start, int end) {
+        int position = start;
+        boolean negative = false;
+        if (this.input[position] == '-' || this.input[position] == '+') {
+            negative = this.input[position] == '-';
+            ++position;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        int nDigits = 0;
+        int digit;
+        while (position < end && (digit = this.input[position] - '0') >= 0 && digit <= 9) {
+            if (mantissa > MAX_MANTISSA) {
+                return Double.NaN;
+            }
+            mantissa = 10 * mantissa + digit;
+            ++nDigits;
+            ++position;
+        }
+        if (position < end && this.input[position] == '.') {
+            ++position;
+            while (position < end && (digit = this.input[position] - '0') >= 0 && digit <= 9) {
+                if (mantissa > MAX_MANTISSA) {
+                    return Double.NaN;
+                }
+                mantissa = 10 * mantissa + digit;
+                --exponent;
+                ++nDigits;
+                ++position;
+            }
+        }
+        if (nDigits == 0) {
+            return Double.NaN;
+        }
+
+        if (position < end && (this.input[position] == 'e' || this.input[position] == 'E')) {
+            ++position;
+            boolean negativeExponent = false;
+            if (position < end && (this.input[position] == '-' || this.input[position] == '+')) {
+                negativeExponent = this.input[position] == '-';
+                ++position;
+            }
+            int value = 0;
+            int nExponentDigits = 0;
+            while (position < end && (digit = this.input[position] - '0') >= 0 && digit <= 9) {
+                if (value < MAX_EXPONENT) {
+                    value = 10 * value + digit;
+                }
+                ++nExponentDigits;
+                ++position;
+            }
+            if (nExponentDigits == 0) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (position != end) {
+            return Double.NaN;
+        }
+
+        return DecimalConverter.toDouble(mantissa, exponent, negative);
+    }
+
+    /**
+     * Parses a color, given as unsigned integer.
+     *
+     * @param start     The position of the first byte of the color.
+     * @param end       The position after the last byte of the color.
+     * @return          The integer representation of the color. -1, if it can not be
+     *                  parsed directly or is not a valid color.
+     */
+    private int parseColor(int start, int end) {
+        int position = start;
+        if (this.input[position] == '+') {
+            ++position;
+        }
+        if (position == end || end - position > MAX_COLOR_DIGITS) {
+            return -1;
+        }
+        int color = 0;
+        for (; position < end; ++position) {
+            int digit = this.input[position] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            color = 10 * color + digit;
+        }
+        return color < VALID_COLORS.length && VALID_COLORS[color] ? color : -1;
+    }
+
+    /**
+     * A part of the lines of points, starting and ending at line ends.
+     */
+    private class Chunk {
+
+        /**
+         * The position of the first byte of the chunk.
+         */
+        private int start;
+
+        /**
+         * The position after the last byte of the chunk.
+         */
+        private int end;
+
+        /**
+         * Indicates whether this is the last chunk of the input.
+         */
+        private boolean last;
+
+        /**
+         * The number of line terminators in the chunk.
+         */
+        private int nLines;
+
+        /**
+         * The number of the first point of the chunk.
+         */
+        private int firstPoint;
+
+        /**
+         * The error of the first point that could not be parsed, if any.
+         */
+        private ParseException error;
+
+
+        /**
+         * Creates a new chunk.
+         */
+        private Chunk(int start, int end, boolean last) {
+            this.start = start;
+            this.end = end;
+            this.last = last;
+        }
+
+        /**
+         * Counts the line terminators of the chunk.
+         */
+        private void countLines() {
+            for (int position = this.start; position < this.end; ++position) {
+                byte b = input[position];
+                if (b == '\n' || (b == '\r' && (position + 1 == this.end || input[position + 1] != '\n'))) {
+                    ++this.nLines;
+                }
+            }
+        }
+
+        /**
+         * Parses the points of the chunk, until the first error.
+         */
+        private void parse() {
+            int position = this.start;
+            int[] starts = new int[N_TOKENS];
+            int[] ends = new int[N_TOKENS];
+
+            for (int point = this.firstPoint; point < nPoints && (position < this.end || this.last); ++point) {
+                if (position >= lastTokenEnd) {
+                    this.error = new ParseException(Reader.TOO_FEW, point);
+                    return;
+                }
+                int lineEnd = position;
+                while (lineEnd < this.end && !isLineTerminator(lineEnd)) {
+                    ++lineEnd;
+                }
+
+                if (!parseLine(position, lineEnd, point, starts, ends)) {
+                    try {
+                        String line = new String(input, position, lineEnd - position, Charset.defaultCharset());
+                        ColoredPoint coloredPoint = Reader.read(line, point);
+                        Coordinate coordinate = coloredPoint.getCoordinate();
+                        xs[point] = coordinate.x;
+                        ys[point] = coordinate.y;
+                        colors[point] = (byte) coloredPoint.getColor().getIntRepresentation();
+                    } catch (ParseException e) {
+                        this.error = e;
+                        return;
+                    }
+                }
+                position = nextLine(lineEnd, this.end);
+            }
+        }
+
+        /**
+         * Parses a line of the form "x y color" with plain numbers.
+         *
+         * @param start     The position of the line.
+         * @param end       The position of the line's end.
+         * @param point     The number of the point.
+         * @param starts    Space for the start positions of the tokens.
+         * @param ends      Space for the end positions of the tokens.
+         * @return          True, if the point is parsed. False, if the line has to be
+         *                  parsed by {@link Reader#read(String, int)}.
+         */
+        private boolean parseLine(int start, int end, int point, int[] starts, int[] ends) {
+            int nTokens = 0;
+            int position = start;
+            while (position < end) {
+                while (position < end && isDelimiter(position)) {
+                    ++position;
+                }
+                if (position == end) {
+                    break;
+                }
+                if (nTokens == N_TOKENS) {
+                    return false;
+                }
+                starts[nTokens] = position;
+                while (position < end && !isDelimiter(position)) {
+                    ++position;
+                }
+                ends[nTokens++] = position;
+            }
+            if (nTokens != N_TOKENS) {
+                return false;
+            }
+
+            double x = parseDouble(starts[0], ends[0]);
+            double y = parseDouble(starts[1], ends[1]);
+            int color = parseColor(starts[2], ends[2]);
+            if (Double.isNaN(x) || Double.isNaN(y) || color < 0) {
+                return false;
+            }
+            xs[point] = x;
+            ys[point] = y;
+            colors[point] = (byte) color;
+            return true;
+        }
+    }
+
+    /**
+     * Counts the lines of or parses a range of chunks, splitting the range for parallel execution.
+     */
+    private class ChunkTask extends RecursiveAction {
+
+        /**
+         * The index of the first chunk, inclusive.
+         */
+        private int from;
+
+        /**
+         * The index of the last chunk, exclusive.
+         */
+        private int to;
+
+        /**
+         * Indicates whether lines are counted. If false, points are parsed.
+         */
+        private boolean count;
+
+
+        /**
+         * Creates a new task for the specified range of chunks.
+         */
+        private ChunkTask(int from, int to, boolean count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ChunkTask(this.from, middle, this.count), new ChunkTask(middle, this.to, this.count));
+            } else if (this.count) {
+                chunks[this.from].countLines();
+            } else {
+                chunks[this.from].parse();
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package util.io;
+
+import color.Color;
+import com.vividsolutions.jts.geom.Coordinate;
+import geometry.point.ColoredPoint;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.ParseException;
+
+/**
+ * Reads the points of a file one after the other, in the text or the binary
+ * format (detected from the magic bytes), without keeping more than a buffer
+ * of the file in memory. Meant for inputs that do not fit onto the heap.
+ *
+ * Text is read line by line, with the same treatment of number formats and
+ * errors as {@link Reader#readPointStore(java.io.InputStream)}. Binary files
+ * are read through one buffer per column.
+ *
+ * @author Kim-Anh Tran
+ */
+public class PointStreamReader {
+
+    /**
+     * The number of points.
+     */
+    private int size;
+
+    /**
+     * The index of the current point. -1 before the first point.
+     */
+    private int index;
+
+    /**
+     * The x value of the current point.
+     */
+    private double x;
+
+    /**
+     * The y value of the current point.
+     */
+    private double y;
+
+    /**
+     * The color of the current point.
+     */
+    private int color;
+
+    /**
+     * The lines of a text file, or null for a binary file.
+     */
+    private BufferedReader lines;
+
+    /**
+     * The channel of a binary file, or null for a text file.
+     */
+    private FileChannel channel;
+
+    /**
+     * The buffers of the x, y and color columns of a binary file.
+     */
+    private ByteBuffer[] columns;
+
+    /**
+     * The positions in the binary file up to which the columns are read.
+     */
+    private long[] positions;
+
+
+    /**
+     * Opens the specified file and reads the number of points.
+     *
+     * @param file  The file, in the text or the binary format.
+     * @return      A reader positioned before the first point.
+     * @throws IOException    Thrown, if the file can not be read.
+     * @throws ParseException Thrown, if the number of points is invalid.
+     */
+    public static PointStreamReader open(File file) throws IOException, ParseException {
+        PointStreamReader reader = new PointStreamReader();
+        if (BinaryReader.isBinaryPoints(file)) {
+            reader.openBinary(file);
+        } else {
+            reader.openText(file);
+        }
+        return reader;
+    }
+
+    /**
+     * Creates a reader that is not yet opened.
+     */
+    private PointStreamReader() {
+        this.index = -1;
+    }
+
+    /**
+     * Returns the number of points of the file.
+     *
+     * @return The number of points.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Advances to the next point.
+     *
+     * @return True, if there is a next point. False, if all points are read.
+     * @throws IOException    Thrown, if reading the file failed.
+     * @throws ParseException Thrown, if the point can not be parsed or the file
+     *                        ends early. The offset is the index of the point.
+     */
+    public boolean next() throws IOException, ParseException {
+        if (this.index + 1 >= this.size) {
+            this.index = this.size;
+            return false;
+        }
+        ++this.index;
+        if (this.lines != null) {
+            nextText();
+        } else {
+            nextBinary();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the x value of the current point.
+     *
+     * @return The x value.
+     */
+    public double getX() {
+        return this.x;
+    }
+
+    /**
+     * Returns the y value of the current point.
+     *
+     * @return The y value.
+     */
+    public double getY() {
+        return this.y;
+    }
+
+    /**
+     * Returns the integer representation of the current point's color.
+     *
+     * @return The color of the point as int.
+     */
+    public int getColorIndex() {
+        return this.color;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException Thrown, if closing the file failed.
+     */
+    public void close() throws IOException {
+        if (this.lines != null) {
+            this.lines.close();
+        } else {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Opens a file in the text format.
+     */
+    private void openText(File file) throws IOException, ParseException {
+        this.lines = new BufferedReader(new InputStreamReader(new FileInputStream(file)), BinaryFormat.BUFFER_BYTES);
+        String line = this.lines.readLine();
+        String first = line == null ? "" : line.trim();
+        try {
+            this.size = Integer.parseInt(first.split("\\s+")[0]);
+        } catch (NumberFormatException e) {
+            this.lines.close();
+            throw new ParseException(Reader.MISSING_WRONG_POINT_NUMBERS, Reader.PARSE_NUMBER_OF_POINTS_INDEX);
+        }
+        if (this.size < 0) {
+            this.lines.close();
+            throw new ParseException(Reader.MISSING_WRONG_POINT_NUMBERS, Reader.PARSE_NUMBER_OF_POINTS_INDEX);
+        }
+    }
+
+    /**
+     * Opens a file in the binary format.
+     */
+    private void openBinary(File file) throws IOException, ParseException {
+        this.channel = new RandomAccessFile(file, "r").getChannel();
+        ByteBuffer header = ByteBuffer.allocate(BinaryFormat.HEADER_BYTES).order(BinaryFormat.ORDER);
+        try {
+            fill(header, 0);
+            if (header.remaining() < BinaryFormat.HEADER_BYTES) {
+                throw new ParseException(BinaryFormat.WRONG_MAGIC, 0);
+            }
+            this.size = BinaryFormat.getHeader(header, BinaryFormat.POINTS_MAGIC);
+        } catch (ParseException e) {
+            this.channel.close();
+            throw e;
+        }
+
+        this.columns = new ByteBuffer[3];
+        this.positions = new long[3];
+        for (int i = 0; i < this.columns.length; ++i) {
+            this.columns[i] = ByteBuffer.allocate(BinaryFormat.BUFFER_BYTES).order(BinaryFormat.ORDER);
+            this.columns[i].flip();
+        }
+        this.positions[0] = BinaryFormat.HEADER_BYTES;
+        this.positions[1] = this.positions[0] + 8L * this.size;
+        this.positions[2] = this.positions[1] + 8L * this.size;
+    }
+
+    /**
+     * Parses the next line of a text file.
+     */
+    private void nextText() throws IOException, ParseException {
+        String line = this.lines.readLine();
+        if (line == null) {
+            throw new ParseException(Reader.TOO_FEW, this.index);
+        }
+        ColoredPoint point = Reader.read(line, this.index);
+        Coordinate coordinate = point.getCoordinate();
+        this.x = coordinate.x;
+        this.y = coordinate.y;
+        this.color = point.getColor().getIntRepresentation();
+    }
+
+    /**
+     * Reads the next values of the columns of a binary file.
+     */
+    private void nextBinary() throws IOException, ParseException {
+        this.x = column(0, 8).getDouble();
+        this.y = column(1, 8).getDouble();
+        this.color = column(2, 1).get();
+        try {
+            Color.fromInt(this.color);
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage(), this.index);
+        }
+    }
+
+    /**
+     * Returns the buffer of the specified column, refilled if fewer than the
+     * specified number of bytes remain.
+     */
+    private ByteBuffer column(int i, int bytes) throws IOException, ParseException {
+        ByteBuffer buffer = this.columns[i];
+        if (buffer.remaining() < bytes) {
+            buffer.compact();
+            this.positions[i] = fill(buffer, this.positions[i]);
+            if (buffer.remaining() < bytes) {
+                throw new ParseException(BinaryFormat.TRUNCATED, this.index);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Fills the remaining space of the specified buffer from the specified position of the channel, and flips it.
+     *
+     * @return The position after the read bytes.
+     */
+    private long fill(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = this.channel.read(buffer, position);
+            if (n < 0) {
+                break;
+            }
+            position += n;
+        }
+        buffer.flip();
+        return position;
+    }
+}
@@ -1,15 +1,19 @@
 package util.io;
 
+import geometry.point.ArrayPointStore;
 import geometry.point.ColoredPoint;
 import geometry.point.ColoredPointImpl;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+import util.parallel.SharedPool;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.Scanner;
 
 /**
  * Reader for parsing colored points.
@@ -22,29 +26,55 @@ public class Reader {
      * Index where parses encounters the integer specifying
      * the number of points.
      */
-    private static int PARSE_NUMBER_OF_POINTS_INDEX = 0;
+    static final int PARSE_NUMBER_OF_POINTS_INDEX = 0;
 
     /**
      * Error message indicating a wrong type for specifying the
      * number of points to parse.
      */
-    private static String MISSING_WRONG_POINT_NUMBERS =
+    static final String MISSING_WRONG_POINT_NUMBERS =
             "Unexpected or no token. Specify number of points as int.";
 
     /**
      * Error message indicating that more points were expected.
      */
-    private static String TOO_FEW =
+    static final String TOO_FEW =
             "Too few points are specified.";
 
     /**
      * Error message indicating the encounter of an unexpected type while
      * parsing point and its color.
      */
-    private static String UNEXPECTED_TYPE =
+    static final String UNEXPECTED_TYPE =
             "Unexpected type encountered. Specify point (x,y) and color " +
             "as double double int.";
 
+    /**
+     * Error message indicating the encounter of an unexpected type while
+     * parsing a triangle.
+     */
+    static final String UNEXPECTED_TRIANGLE_TYPE =
+            "Unexpected type encountered. Specify triangle (x1,y1,x2,y2,x3,y3) " +
+            "and color as six doubles and an int.";
+
+    /**
+     * Error message indicating that streamed triangles end without trailer.
+     */
+    static final String MISSING_TRAILER =
+            "Streamed triangles end without trailer. The output is incomplete.";
+
+    /**
+     * Error message indicating a trailer that does not match the number of triangles.
+     */
+    static final String WRONG_TRAILER =
+            "Trailer does not match the number of triangles: ";
+
+    /**
+     * Error message indicating that the input could not be read.
+     */
+    static final String READ_FAILED =
+            "Reading input failed: ";
+
 
     /**
      * Empty, private constructor. Prevents from initiating an object from Reader.
@@ -64,51 +94,124 @@ public class Reader {
      *
      * @param  inStream The input stream to read from.
      * @return Collection of colored points.
-     * @throws IOException Thrown, if input can not be parsed.
+     * @throws ParseException Thrown, if input can not be parsed.
      * @see ColoredPoint
      */
     public static List<ColoredPoint> readPoints(InputStream inStream) throws ParseException {
-        Scanner scanner;
-        scanner = new Scanner(inStream);
-        scanner.useLocale(Locale.US);
-
-        // Reading and parsing number of points
-        int nCoordinates = 0;
-        if (scanner.hasNext()) {
-            if (scanner.hasNextInt()) {
-                nCoordinates = scanner.nextInt();
-            } else {
-                throw new ParseException(MISSING_WRONG_POINT_NUMBERS, PARSE_NUMBER_OF_POINTS_INDEX);
-            }
-        } else {
-            throw new ParseException(MISSING_WRONG_POINT_NUMBERS, PARSE_NUMBER_OF_POINTS_INDEX);
-        }
+        return new ArrayList<ColoredPoint>(readPointStore(inStream).toPoints());
+    }
 
-        if (nCoordinates > 0) {
-            // Reading end of line
-            if (scanner.hasNext()) {
-                scanner.nextLine();
-            } else {
-               throw new ParseException(TOO_FEW, PARSE_NUMBER_OF_POINTS_INDEX);
-            }
+    /**
+     * Reads std:in and returns a store of colored points. The input format
+     * is the same as for {@link Reader#readPoints(InputStream)}, points get
+     * their line number (starting with 0) as id.
+     *
+     * The input is parsed directly from its bytes, large inputs in parallel
+     * using the shared pool (see {@link PointParser}). The stream is closed.
+     *
+     * @param  inStream The input stream to read from.
+     * @return Store of colored points.
+     * @throws ParseException Thrown, if input can not be parsed.
+     */
+    public static ArrayPointStore readPointStore(InputStream inStream) throws ParseException {
+        PointParser parser;
+        try {
+            parser = PointParser.read(inStream);
+        } catch (IOException e) {
+            throw new ParseException(READ_FAILED + e.getMessage(), PARSE_NUMBER_OF_POINTS_INDEX);
         }
+        return parser.parse(SharedPool.get());
+    }
 
-        // Reading and parsing lines of points
-        List<ColoredPoint> pointList = new ArrayList<ColoredPoint>(nCoordinates);
-        ColoredPoint point;
-        for (int i = 0; i < nCoordinates; ++i) {
+    /**
+     * Reads triangles as written by {@link Writer#writeTriangles(java.io.OutputStream, List)}
+     * or by {@link TriangleStreamWriter}. The stream is closed.
+     *
+     * Note: Input has the following format, with n being the number
+     * of triangles, (xi,yi) the coordinates of the corners and c the color.
+     * n
+     * x1 y1 x2 y2 x3 y3 c
+     * ..
+     *
+     * Streamed input has no first line, but ends with the line "# n".
+     *
+     * @param  inStream The input stream to read from.
+     * @return The triangles, in the order of the input.
+     * @throws ParseException Thrown, if input can not be parsed.
+     */
+    public static List<ColoredPolygon> readTriangles(InputStream inStream) throws ParseException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inStream));
+        try {
+            List<ColoredPolygon> triangles = new ArrayList<ColoredPolygon>();
+            String line = reader.readLine();
+            String first = line == null ? "" : line.trim();
+
+            if (first.split("\\s+").length == 7 || isTrailer(first)) {
+                // Streamed triangles, followed by the trailer.
+                while (!isTrailer(first)) {
+                    triangles.add(readTriangle(first, triangles.size()));
+                    line = reader.readLine();
+                    if (line == null) {
+                        throw new ParseException(MISSING_TRAILER, triangles.size());
+                    }
+                    first = line.trim();
+                }
+                if (!first.substring(1).trim().equals(String.valueOf(triangles.size()))) {
+                    throw new ParseException(WRONG_TRAILER + first, triangles.size());
+                }
 
-            if (scanner.hasNext()) {
-                point = read(scanner.nextLine(), i);
-                pointList.add(point);
             } else {
-                throw new ParseException(TOO_FEW, i);
+                int n;
+                try {
+                    n = Integer.parseInt(first);
+                } catch (NumberFormatException e) {
+                    throw new ParseException(MISSING_WRONG_POINT_NUMBERS, PARSE_NUMBER_OF_POINTS_INDEX);
+                }
+                for (int i = 0; i < n; ++i) {
+                    line = reader.readLine();
+                    if (line == null) {
+                        throw new ParseException(TOO_FEW, i);
+                    }
+                    triangles.add(readTriangle(line.trim(), i));
+                }
             }
+            reader.close();
+            return triangles;
+        } catch (IOException e) {
+            throw new ParseException(READ_FAILED + e.getMessage(), PARSE_NUMBER_OF_POINTS_INDEX);
         }
+    }
 
-        scanner.close();
+    /**
+     * Returns true, if the specified line is the trailer of streamed triangles.
+     */
+    private static boolean isTrailer(String line) {
+        return line.length() > 0 && line.charAt(0) == TriangleStreamWriter.TRAILER;
+    }
 
-        return pointList;
+    /**
+     * Parses a line "x1 y1 x2 y2 x3 y3 c" and returns the triangle.
+     *
+     * @param line         The line, without leading or trailing whitespace.
+     * @param errorOffset  The parsing error offset that is used.
+     * @return             The triangle, if successful.
+     * @throws ParseException If parsing failed.
+     */
+    private static ColoredPolygon readTriangle(String line, int errorOffset) throws ParseException {
+        String[] tokens = line.split("\\s+");
+        if (tokens.length != 7) {
+            throw new ParseException(UNEXPECTED_TRIANGLE_TYPE, errorOffset);
+        }
+        try {
+            return ColoredTriangle.fromCoordinates(Double.parseDouble(tokens[0]),
+                    Double.parseDouble(tokens[1]), Double.parseDouble(tokens[2]),
+                    Double.parseDouble(tokens[3]), Double.parseDouble(tokens[4]),
+                    Double.parseDouble(tokens[5]), Integer.parseInt(tokens[6]));
+        } catch (NumberFormatException e) {
+            throw new ParseException(UNEXPECTED_TRIANGLE_TYPE, errorOffset);
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage(), errorOffset);
+        }
     }
 
     /**
@@ -119,7 +222,7 @@ public class Reader {
      * @return             A ColoredPoint instance, if successful.
      * @throws ParseException If parsing failed.
      */
-    private static ColoredPoint read(String value, int errorOffset)
+    static ColoredPoint read(String value, int errorOffset)
             throws ParseException {
         try {
             return ColoredPointImpl.valueOf(value);
@@ -0,0 +1,154 @@
+package util.io;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes numbers and triangles of the text format into a reusable byte buffer,
+ * which is written to a stream when full. Numbers are appended as by
+ * {@link StringBuilder#append(double)}, i.e. with the same digits as
+ * {@link Double#toString(double)}, without creating strings or using a charset
+ * encoder, as the text format only consists of ASCII characters.
+ *
+ * @author Kim-Anh Tran
+ */
+final class TextEncoder {
+
+    /**
+     * The size of the buffer.
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * The longest text of a number, e.g. "-2.2250738585072014E-308".
+     */
+    private static final int MAX_NUMBER_CHARS = 32;
+
+    /**
+     * The stream that is written to.
+     */
+    private OutputStream outStream;
+
+    /**
+     * The encoded bytes that are not yet written.
+     */
+    private byte[] buffer;
+
+    /**
+     * The number of encoded bytes in the buffer.
+     */
+    private int length;
+
+    /**
+     * Holds the characters of a number while it is encoded.
+     */
+    private StringBuilder digits;
+
+
+    /**
+     * Creates an encoder writing to the specified stream.
+     *
+     * @param outStream The stream that is written to.
+     */
+    TextEncoder(OutputStream outStream) {
+        this.outStream = outStream;
+        this.buffer = new byte[BUFFER_BYTES];
+        this.digits = new StringBuilder(MAX_NUMBER_CHARS);
+    }
+
+    /**
+     * Appends the specified double.
+     *
+     * @param value The value.
+     * @return      This encoder.
+     * @throws IOException Thrown, if writing to the stream failed.
+     */
+    TextEncoder append(double value) throws IOException {
+        this.digits.setLength(0);
+        this.digits.append(value);
+        return appendDigits();
+    }
+
+    /**
+     * Appends the specified integer.
+     *
+     * @param value The value.
+     * @return      This encoder.
+     * @throws IOException Thrown, if writing to the stream failed.
+     */
+    TextEncoder append(long value) throws IOException {
+        this.digits.setLength(0);
+        this.digits.append(value);
+        return appendDigits();
+    }
+
+    /**
+     * Appends the specified ASCII character.
+     *
+     * @param c The character.
+     * @return  This encoder.
+     * @throws IOException Thrown, if writing to the stream failed.
+     */
+    TextEncoder append(char c) throws IOException {
+        if (this.length == this.buffer.length) {
+            flush();
+        }
+        this.buffer[this.length++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Appends the specified triangle as line "x1 y1 x2 y2 x3 y3 c", the same
+     * text as returned by {@link geometry.polygon.triangle.ColoredTriangle#toString()}.
+     *
+     * @param polygon   The triangle.
+     * @return          This encoder.
+     * @throws IOException Thrown, if writing to the stream failed.
+     */
+    TextEncoder appendLine(ColoredPolygon polygon) throws IOException {
+        for (Point point : polygon.getPoints()) {
+            Coordinate coordinate = point.getCoordinate();
+            append(coordinate.x).append(' ').append(coordinate.y).append(' ');
+        }
+        return append(polygon.getColor().getIntRepresentation()).append('\n');
+    }
+
+    /**
+     * Writes the encoded bytes to the stream.
+     *
+     * @throws IOException Thrown, if writing to the stream failed.
+     */
+    void flush() throws IOException {
+        this.outStream.write(this.buffer, 0, this.length);
+        this.length = 0;
+    }
+
+    /**
+     * Writes the encoded bytes to the stream and closes it.
+     *
+     * @throws IOException Thrown, if writing to or closing the stream failed.
+     */
+    void close() throws IOException {
+        flush();
+        this.outStream.close();
+    }
+
+    /**
+     * Appends the characters held in the digits.
+     */
+    private TextEncoder appendDigits() throws IOException {
+        int n = this.digits.length();
+        if (this.length + n > this.buffer.length) {
+            flush();
+        }
+        for (int i = 0; i < n; ++i) {
+            this.buffer[this.length + i] = (byte) this.digits.charAt(i);
+        }
+        this.length += n;
+        return this;
+    }
+}
@@ -0,0 +1,115 @@
+package util.io;
+
+import geometry.polygon.ColoredPolygon;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writer for writing triangles in the text format while they are found, e.g.
+ * as {@link search.TriangleSink}. As the number of triangles is not known
+ * before the search ends, the streamed format has no count header. It ends
+ * with a trailer line instead, which states the number of triangles:
+ *
+ * x1 y1 x2 y2 x3 y3 c
+ * ..
+ * # n
+ *
+ * {@link Reader#readTriangles(java.io.InputStream)} reads both formats. A
+ * missing trailer indicates that the output is incomplete.
+ *
+ * Triangles are buffered and written at least every {@link TriangleStreamWriter#FLUSH_MILLIS}
+ * milliseconds, when the next one arrives. Triangles can be written by several
+ * threads at once. Failures of writing are kept and thrown by
+ * {@link TriangleStreamWriter#close()}, so that triangles can be written by
+ * tasks that can not throw IOExceptions.
+ *
+ * @author Kim-Anh Tran
+ */
+public class TriangleStreamWriter {
+
+    /**
+     * The start of the trailer line.
+     */
+    static final char TRAILER = '#';
+
+    /**
+     * The longest time triangles are buffered, in milliseconds.
+     */
+    public static final long FLUSH_MILLIS = 100;
+
+    /**
+     * The encoder writing to the stream.
+     */
+    private TextEncoder encoder;
+
+    /**
+     * The number of written triangles.
+     */
+    private long count;
+
+    /**
+     * The time of the last flush, in nanoseconds.
+     */
+    private long lastFlush;
+
+    /**
+     * The first failure of writing, if any.
+     */
+    private IOException failure;
+
+
+    /**
+     * Creates a writer writing to the specified stream.
+     *
+     * @param outStream The stream that is written to.
+     */
+    public TriangleStreamWriter(OutputStream outStream) {
+        this.encoder = new TextEncoder(outStream);
+        this.lastFlush = System.nanoTime();
+    }
+
+    /**
+     * Writes the specified triangle. Does nothing, if writing failed before.
+     *
+     * @param triangle  The triangle.
+     */
+    public synchronized void write(ColoredPolygon triangle) {
+        if (this.failure != null) {
+            return;
+        }
+        try {
+            this.encoder.appendLine(triangle);
+            ++this.count;
+            long now = System.nanoTime();
+            if (now - this.lastFlush >= FLUSH_MILLIS * 1000000L) {
+                this.encoder.flush();
+                this.lastFlush = now;
+            }
+        } catch (IOException e) {
+            this.failure = e;
+        }
+    }
+
+    /**
+     * Returns the number of written triangles.
+     *
+     * @return The number of triangles.
+     */
+    public synchronized long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Writes the trailer and closes the stream.
+     *
+     * @throws IOException Thrown, if writing a triangle or the trailer failed.
+     */
+    public synchronized void close() throws IOException {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+        this.encoder.append(TRAILER).append(' ').append(this.count).append('\n');
+        this.encoder.close();
+    }
+}
@@ -1,15 +1,15 @@
 package util.io;
 
+import geometry.point.PointStore;
 import geometry.polygon.ColoredPolygon;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.util.List;
 
 /**
- * Writer for writing points to a specified stream.
+ * Writer for writing points and triangles in the text format to a specified stream.
+ * For writing triangles while the search is still running, see {@link TriangleStreamWriter}.
  *
  * @author Kim-Anh Tran
  */
@@ -21,6 +21,27 @@ public class Writer {
     private Writer() {
     }
 
+    /**
+     * Writes the specified points to the specified stream, in the format read by
+     * {@link Reader#readPoints(java.io.InputStream)}. The stream is closed.
+     *
+     * @param outStream     The stream that is written to.
+     * @param store         The points to write, in the order of their ids.
+     * @throws IOException  Thrown, if writing to the stream failed.
+     */
+    public static void writePoints(OutputStream outStream, PointStore store) throws IOException {
+        TextEncoder encoder = new TextEncoder(outStream);
+
+        int n = store.size();
+        encoder.append(n).append('\n');
+        for (int id = 0; id < n; ++id) {
+            encoder.append(store.getX(id)).append(' ').append(store.getY(id)).append(' ');
+            encoder.append(store.getColorIndex(id)).append('\n');
+        }
+
+        encoder.close();
+    }
+
     /**
      * Writes specified list of polygons to specified stream.
      *
@@ -30,13 +51,13 @@ public class Writer {
      * @throws IOException  Thrown, if writing to std:out failed.
      */
     public static void writeTriangles(OutputStream outStream, List<ColoredPolygon> polygons) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outStream));
+        TextEncoder encoder = new TextEncoder(outStream);
 
-        writer.write(polygons.size() + "\n");
+        encoder.append(polygons.size()).append('\n');
         for (ColoredPolygon polygon : polygons) {
-            writer.write(polygon.toString() + "\n");
+            encoder.appendLine(polygon);
         }
 
-        writer.close();
+        encoder.close();
     }
 }
@@ -0,0 +1,96 @@
+package util.parallel;
+
+/**
+ * A token for stopping parallel tasks early, on request or when a time limit
+ * has passed. Tasks poll {@link Cancellation#shouldStop()} where they can stop
+ * leaving a valid partial result, and skip their remaining work if it returns
+ * true. The token remembers whether any task stopped, so that the caller can
+ * tell a partial result from a complete one.
+ *
+ * Can be used by several threads at once.
+ *
+ * @author Kim-Anh Tran
+ */
+public class Cancellation {
+
+    /**
+     * Indicates whether tasks should stop.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Indicates whether a task stopped before its work was done.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Indicates whether the token has a deadline.
+     */
+    private boolean timed;
+
+    /**
+     * The time at which tasks should stop, in the time of {@link System#nanoTime()}.
+     */
+    private long deadline;
+
+
+    /**
+     * Creates a token that stops tasks only on request.
+     */
+    public Cancellation() {
+        this.timed = false;
+    }
+
+    /**
+     * Creates a token that stops tasks on request, or when the specified time has passed.
+     *
+     * @param timeLimitMillis   The time in milliseconds from now on, after which tasks should stop.
+     */
+    public Cancellation(long timeLimitMillis) {
+        this.timed = true;
+        this.deadline = System.nanoTime() + timeLimitMillis * 1000000;
+    }
+
+    /**
+     * Requests the tasks to stop.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Returns true, if the tasks are requested to stop or the deadline has passed.
+     * Once true, it stays true.
+     *
+     * @return True, if the tasks should stop.
+     */
+    public boolean isCancelled() {
+        if (!this.cancelled && this.timed && System.nanoTime() - this.deadline >= 0) {
+            this.cancelled = true;
+        }
+        return this.cancelled;
+    }
+
+    /**
+     * Returns true, if the calling task should stop. The caller has to skip its
+     * remaining work in this case, as the work is considered to be incomplete.
+     *
+     * @return True, if the task should stop.
+     */
+    public boolean shouldStop() {
+        if (isCancelled()) {
+            this.stopped = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true, if any task stopped before its work was done.
+     *
+     * @return True, if the result of the tasks is incomplete.
+     */
+    public boolean hasStopped() {
+        return this.stopped;
+    }
+}
@@ -1,72 +1,147 @@
 package util.parallel;
 
-import geometry.point.ColoredPoint;
+import geometry.point.PointStore;
 import geometry.polygon.Polygon;
+import util.collection.IntList;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.RecursiveTask;
 
 /**
  * An instance of EnclosedPointsFinder returns a collection of points that are
- * enclosed in a specified polygon.
+ * enclosed in a specified polygon. Points are identified by their ids
+ * in a PointStore.
  *
  * @author Kim-Anh Tran
  */
-public class EnclosedPointsFinder extends RecursiveTask<List<ColoredPoint>> {
+public class EnclosedPointsFinder extends RecursiveTask<IntList> {
 
     /**
-     * The threshold that indicates, when to stop splitting into
+     * The default threshold that indicates, when to stop splitting into
      * smaller collection of points for parallel execution.
      */
-    private static final int MAX_NUMBER_POINTS = 100;
+    public static final int MAX_NUMBER_POINTS = 100;
 
     /**
-     * The collection of points to check against a polygon.
+     * The store containing the points.
      */
-    private List<ColoredPoint> points;
+    private PointStore store;
+
+    /**
+     * The ids of the points to check against a polygon.
+     */
+    private int[] ids;
+
+    /**
+     * The first index of the ids to check, inclusive.
+     */
+    private int from;
+
+    /**
+     * The last index of the ids to check, exclusive.
+     */
+    private int to;
 
     /**
      * The polygon to check against a collection of points.
      */
     private Polygon polygon;
 
+    /**
+     * The number of points up to which they are checked without splitting.
+     */
+    private int maxPoints;
+
+    /**
+     * The token for stopping the search early, or null if it runs to the end.
+     */
+    private Cancellation cancellation;
+
+
+    /**
+     * Creates a new instance of EnclosedPointsFinder, which splits collections
+     * of more than {@link EnclosedPointsFinder#MAX_NUMBER_POINTS} points.
+     *
+     * @param store     The store containing the points.
+     * @param ids       The ids of the points to be checked.
+     * @param from      The first index of the ids to be checked, inclusive.
+     * @param to        The last index of the ids to be checked, exclusive.
+     * @param polygon   The polygon to check against.
+     */
+    public EnclosedPointsFinder(PointStore store, int[] ids, int from, int to, Polygon polygon) {
+        this(store, ids, from, to, polygon, MAX_NUMBER_POINTS);
+    }
 
     /**
      * Creates a new instance of EnclosedPointsFinder.
      *
-     * @param points    The points to be checked.
+     * @param store     The store containing the points.
+     * @param ids       The ids of the points to be checked.
+     * @param from      The first index of the ids to be checked, inclusive.
+     * @param to        The last index of the ids to be checked, exclusive.
      * @param polygon   The polygon to check against.
+     * @param maxPoints The number of points up to which they are checked without splitting.
+     *                  Integer.MAX_VALUE, for checking all of them in the calling thread.
      */
-    public EnclosedPointsFinder(List<ColoredPoint> points, Polygon polygon) {
-        this.points = points;
+    public EnclosedPointsFinder(PointStore store, int[] ids, int from, int to, Polygon polygon, int maxPoints) {
+        this(store, ids, from, to, polygon, maxPoints, null);
+    }
+
+    /**
+     * Creates a new instance of EnclosedPointsFinder, which can be stopped early.
+     * Once stopped, tasks that did not check their points yet return no points,
+     * so the result may miss enclosed points.
+     *
+     * @param store         The store containing the points.
+     * @param ids           The ids of the points to be checked.
+     * @param from          The first index of the ids to be checked, inclusive.
+     * @param to            The last index of the ids to be checked, exclusive.
+     * @param polygon       The polygon to check against.
+     * @param maxPoints     The number of points up to which they are checked without splitting.
+     *                      Integer.MAX_VALUE, for checking all of them in the calling thread.
+     * @param cancellation  The token for stopping early, or null.
+     */
+    public EnclosedPointsFinder(PointStore store, int[] ids, int from, int to, Polygon polygon, int maxPoints,
+                                Cancellation cancellation) {
+        this.store = store;
+        this.ids = ids;
+        this.from = from;
+        this.to = to;
         this.polygon = polygon;
+        this.maxPoints = maxPoints;
+        this.cancellation = cancellation;
     }
 
 
     @Override
-    protected List<ColoredPoint> compute() {
-        List<ColoredPoint> enclosed;
-        int nPoints = this.points.size();
+    protected IntList compute() {
+        IntList enclosed;
+        int nPoints = this.to - this.from;
+        if (this.cancellation != null && this.cancellation.shouldStop()) {
+            return new IntList();
+        }
 
         // If the task ist too big, split
-        if (nPoints > MAX_NUMBER_POINTS) {
-            int slice = nPoints / 2;
-            EnclosedPointsFinder left = new EnclosedPointsFinder(this.points.subList(0, slice), this.polygon);
-            EnclosedPointsFinder right = new EnclosedPointsFinder(this.points.subList(slice, nPoints), this.polygon);
+        if (nPoints > this.maxPoints) {
+            int slice = this.from + nPoints / 2;
+            EnclosedPointsFinder left = new EnclosedPointsFinder(this.store, this.ids, this.from, slice,
+                    this.polygon, this.maxPoints, this.cancellation);
+            EnclosedPointsFinder right = new EnclosedPointsFinder(this.store, this.ids, slice, this.to,
+                    this.polygon, this.maxPoints, this.cancellation);
 
             left.fork();
+            IntList rightEnclosed = right.compute();
             enclosed = left.join();
-            enclosed.addAll(right.compute());
+            enclosed.addAll(rightEnclosed);
 
             return enclosed;
         }
 
         // Else collect the points that are enclosed in the polygon.
-        enclosed = new LinkedList<ColoredPoint>();
-        for (ColoredPoint point : this.points) {
-            if (this.polygon.enclosesPoint(point)) {
-                enclosed.add(point);
+        enclosed = new IntList();
+        for (int i = this.from; i < this.to; ++i) {
+            int id = this.ids[i];
+            if (this.polygon.enclosesPoint(this.store.getX(id), this.store.getY(id))) {
+                enclosed.add(id);
             }
         }
 
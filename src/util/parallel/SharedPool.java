@@ -0,0 +1,40 @@
+package util.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds a ForkJoinPool that is shared by all parallel work that is not given
+ * a pool of its own, so that concurrent searches and readers do not start
+ * threads of their own. The pool is created on first use; its threads do not
+ * prevent the JVM from exiting.
+ *
+ * @author Kim-Anh Tran
+ */
+public class SharedPool {
+
+    /**
+     * Empty, private constructor. Prevents from initiating an object from SharedPool.
+     */
+    private SharedPool() {
+    }
+
+    /**
+     * Returns the shared pool.
+     *
+     * @return The shared pool.
+     */
+    public static ForkJoinPool get() {
+        return Holder.POOL;
+    }
+
+    /**
+     * Holds the shared pool, so that it is only created when first used.
+     */
+    private static class Holder {
+
+        /**
+         * The shared pool.
+         */
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+}
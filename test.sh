@@ -1,3 +1,3 @@
 cat testdata/data0 > testdata/data.tmp
-time cat testdata/data0 | /usr/local/java/jdk1.7.0_21/bin/java -Didea.launcher.port=7536 -Didea.launcher.bin.path=/opt/idea-IC-129.354/bin -Dfile.encoding=UTF-8 -classpath /usr/local/java/jdk1.7.0_21/jre/lib/management-agent.jar:/usr/local/java/jdk1.7.0_21/jre/lib/jfxrt.jar:/usr/local/java/jdk1.7.0_21/jre/lib/jsse.jar:/usr/local/java/jdk1.7.0_21/jre/lib/javaws.jar:/usr/local/java/jdk1.7.0_21/jre/lib/charsets.jar:/usr/local/java/jdk1.7.0_21/jre/lib/plugin.jar:/usr/local/java/jdk1.7.0_21/jre/lib/deploy.jar:/usr/local/java/jdk1.7.0_21/jre/lib/rt.jar:/usr/local/java/jdk1.7.0_21/jre/lib/jce.jar:/usr/local/java/jdk1.7.0_21/jre/lib/resources.jar:/usr/local/java/jdk1.7.0_21/jre/lib/jfr.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/sunjce_provider.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/zipfs.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/localedata.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/sunpkcs11.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/dnsns.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/sunec.jar:/home/ktran/IdeaProjects/triangle/out/production/triangle:/home/ktran/IdeaProjects/triangle/out/production/geometrics:/home/ktran/IdeaProjects/triangle/out/production/jts:/opt/idea-IC-129.354/lib/idea_rt.jar com.intellij.rt.execution.application.AppMain main.TriangleMain 2 >> testdata/data.tmp
+time cat testdata/data0 | /usr/local/java/jdk1.7.0_21/bin/java -Didea.launcher.port=7536 -Didea.launcher.bin.path=/opt/idea-IC-129.354/bin -Dfile.encoding=UTF-8 -classpath /usr/local/java/jdk1.7.0_21/jre/lib/management-agent.jar:/usr/local/java/jdk1.7.0_21/jre/lib/jfxrt.jar:/usr/local/java/jdk1.7.0_21/jre/lib/jsse.jar:/usr/local/java/jdk1.7.0_21/jre/lib/javaws.jar:/usr/local/java/jdk1.7.0_21/jre/lib/charsets.jar:/usr/local/java/jdk1.7.0_21/jre/lib/plugin.jar:/usr/local/java/jdk1.7.0_21/jre/lib/deploy.jar:/usr/local/java/jdk1.7.0_21/jre/lib/rt.jar:/usr/local/java/jdk1.7.0_21/jre/lib/jce.jar:/usr/local/java/jdk1.7.0_21/jre/lib/resources.jar:/usr/local/java/jdk1.7.0_21/jre/lib/jfr.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/sunjce_provider.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/zipfs.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/localedata.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/sunpkcs11.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/dnsns.jar:/usr/local/java/jdk1.7.0_21/jre/lib/ext/sunec.jar:/home/ktran/IdeaProjects/triangle/out/production/triangle:/home/ktran/IdeaProjects/triangle/out/production/geometrics:/home/ktran/IdeaProjects/triangle/out/production/jts:/opt/idea-IC-129.354/lib/idea_rt.jar com.intellij.rt.execution.application.AppMain main.TriangleMain >> testdata/data.tmp
 cat testdata/data.tmp | scripts/plot.py -pt
\ No newline at end of file
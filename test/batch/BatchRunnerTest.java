@@ -0,0 +1,141 @@
+package batch;
+
+import geometry.polygon.ColoredPolygon;
+import junit.framework.Assert;
+import org.junit.Test;
+import search.TriangleSearch;
+import util.io.Reader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/*
+ * Tests searching the triangles of several inputs at once.
+ *
+ * @author Kim-Anh Tran
+ */
+public class BatchRunnerTest {
+
+    // Test data file name.
+    private String TEST_FILE = "testdata/data0";
+
+    @Test
+    public void testRun() throws Exception {
+        File inputDirectory = createTempDirectory("inputs");
+        File outputDirectory = new File(createTempDirectory("outputs"), "results");
+        copy(new File(TEST_FILE), new File(inputDirectory, "large"));
+        write(new File(inputDirectory, "small"), "4\n0 0 1\n1 0 1\n0 1 1\n5 5 2\n");
+        write(new File(inputDirectory, "invalid"), "2\n0 0 1\n");
+
+        List<String> paths = new ArrayList<String>();
+        paths.add(inputDirectory.getPath());
+        List<File> inputs = BatchRunner.collectInputs(paths);
+        Assert.assertEquals(3, inputs.size());
+        Assert.assertEquals("invalid", inputs.get(0).getName());
+
+        BatchRunner runner = new BatchRunner(outputDirectory);
+        runner.setSmallBytes(100);
+        List<InstanceResult> results = runner.run(inputs);
+
+        // Results are in the order of the inputs, failures do not stop the batch.
+        Assert.assertEquals(3, results.size());
+        Assert.assertNotNull(results.get(0).getError());
+        Assert.assertFalse(results.get(0).isParallel());
+
+        List<ColoredPolygon> expected = TriangleSearch.searchForTriangles(
+                Reader.readPoints(new FileInputStream(TEST_FILE)));
+        InstanceResult large = results.get(1);
+        Assert.assertNull(large.getError());
+        Assert.assertTrue(large.isParallel());
+        Assert.assertEquals(expected.size(), large.getTriangles());
+        Assert.assertEquals(expected.size(), Reader.readTriangles(
+                new FileInputStream(new File(outputDirectory, "large" + BatchRunner.RESULT_SUFFIX))).size());
+
+        InstanceResult small = results.get(2);
+        Assert.assertNull(small.getError());
+        Assert.assertFalse(small.isParallel());
+        Assert.assertEquals(4, small.getPoints());
+        Assert.assertEquals(1, small.getTriangles());
+
+        // The summary has a line per input.
+        Scanner summary = new Scanner(new File(outputDirectory, BatchRunner.SUMMARY_FILE), "UTF-8");
+        Assert.assertEquals(InstanceResult.TSV_HEADER, summary.nextLine());
+        for (InstanceResult result : results) {
+            Assert.assertEquals(result.toTsv(), summary.nextLine());
+        }
+        Assert.assertFalse(summary.hasNextLine());
+        summary.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingInput() throws IOException {
+        List<String> paths = new ArrayList<String>();
+        paths.add("testdata/missing");
+        BatchRunner.collectInputs(paths);
+    }
+
+    @Test
+    public void testDuplicateNames() throws IOException {
+        File first = createTempDirectory("first");
+        File second = createTempDirectory("second");
+        write(new File(first, "data"), "3\n0 0 1\n1 0 1\n0 1 1\n");
+        write(new File(second, "data"), "3\n0 0 2\n1 0 2\n0 1 2\n");
+
+        List<String> paths = new ArrayList<String>();
+        paths.add(first.getPath());
+        paths.add(second.getPath());
+        try {
+            BatchRunner.collectInputs(paths);
+            Assert.fail("Inputs with the same name are accepted.");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("same name"));
+        }
+
+        // Nothing is written, if the inputs are given directly.
+        List<File> inputs = new ArrayList<File>();
+        inputs.add(new File(first, "data"));
+        inputs.add(new File(second, "data"));
+        File outputDirectory = new File(createTempDirectory("outputs"), "results");
+        try {
+            new BatchRunner(outputDirectory).run(inputs);
+            Assert.fail("Inputs with the same name are searched.");
+        } catch (IOException e) {
+            Assert.assertFalse(outputDirectory.exists());
+        }
+    }
+
+    // Creates an empty temporary directory.
+    private File createTempDirectory(String prefix) throws IOException {
+        File directory = File.createTempFile(prefix, "");
+        Assert.assertTrue(directory.delete() && directory.mkdir());
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    // Writes the specified text to the specified file.
+    private void write(File file, String text) throws IOException {
+        OutputStream outStream = new FileOutputStream(file);
+        outStream.write(text.getBytes("US-ASCII"));
+        outStream.close();
+    }
+
+    // Copies the specified file.
+    private void copy(File from, File to) throws IOException {
+        InputStream inStream = new FileInputStream(from);
+        OutputStream outStream = new FileOutputStream(to);
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inStream.read(buffer)) >= 0) {
+            outStream.write(buffer, 0, read);
+        }
+        inStream.close();
+        outStream.close();
+    }
+}
@@ -0,0 +1,212 @@
+package incremental;
+
+import color.Color;
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import geometry.point.ColoredPoint;
+import geometry.point.ColoredPointImpl;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import search.SearchConfiguration;
+import util.index.QuadtreeTriangleIndex;
+import util.index.TriangleIndex;
+import util.io.Reader;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Tests keeping the triangles of a growing set of points complete.
+ *
+ * @author Kim-Anh Tran
+ */
+public class IncrementalSearchTest {
+
+    // Test data file name.
+    private String TEST_FILE = "testdata/data0";
+
+    // Test points.
+    private List<ColoredPoint> points;
+
+    @Before
+    public void setUp() throws Exception {
+        this.points = Reader.readPoints(new FileInputStream(TEST_FILE));
+    }
+
+    @Test
+    public void testInsert() throws Exception {
+        IncrementalSearch search = new IncrementalSearch();
+        List<ColoredPolygon> triangles = new ArrayList<ColoredPolygon>();
+        int batch = 40;
+        for (int from = 0; from < this.points.size(); from += batch) {
+            List<ColoredPoint> inserted = this.points.subList(from, Math.min(from + batch, this.points.size()));
+            triangles.addAll(search.insert(inserted));
+
+            // The deltas add up to all triangles, which are complete after every batch.
+            Assert.assertEquals(triangles.size(), search.getTriangles().size());
+            testComplete(this.points.subList(0, from + inserted.size()), triangles, search.getAvailablePoints());
+        }
+        Assert.assertFalse(triangles.isEmpty());
+    }
+
+    @Test
+    public void testNeighbourhood() throws Exception {
+        IncrementalSearch search = new IncrementalSearch();
+        search.insert(this.points);
+        int available = search.getAvailablePoints();
+
+        // A point within a triangle is used up, without searching.
+        ColoredPolygon triangle = search.getTriangles().get(0);
+        Point[] corners = triangle.getPoints();
+        double x = (corners[0].getCoordinate().x + corners[1].getCoordinate().x + corners[2].getCoordinate().x) / 3;
+        double y = (corners[0].getCoordinate().y + corners[1].getCoordinate().y + corners[2].getCoordinate().y) / 3;
+        List<ColoredPoint> enclosed = new ArrayList<ColoredPoint>();
+        enclosed.add(ColoredPointImpl.create2D(x, y, Color.YELLOW.getIntRepresentation()));
+        Assert.assertTrue(search.insert(enclosed).isEmpty());
+        Assert.assertEquals(0, search.getSearchedPoints());
+        Assert.assertEquals(available, search.getAvailablePoints());
+
+        // A point among the triangles only searches the points it can see.
+        List<ColoredPoint> inserted = new ArrayList<ColoredPoint>();
+        inserted.add(ColoredPointImpl.create2D(50.5, 50.5, Color.GREEN.getIntRepresentation()));
+        search.insert(inserted);
+        Assert.assertTrue(search.getSearchedPoints() < available / 2);
+
+        List<ColoredPoint> all = new ArrayList<ColoredPoint>(this.points);
+        all.addAll(enclosed);
+        all.addAll(inserted);
+        testComplete(all, search.getTriangles(), search.getAvailablePoints());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        IncrementalSearch search = new IncrementalSearch();
+        search.insert(this.points);
+        List<ColoredPoint> remaining = new ArrayList<ColoredPoint>(this.points);
+
+        // A point that was not inserted is ignored.
+        List<ColoredPoint> unknown = new ArrayList<ColoredPoint>();
+        unknown.add(ColoredPointImpl.create2D(-1, -1, Color.RED.getIntRepresentation()));
+        Assert.assertTrue(search.remove(unknown).getRemovedTriangles().isEmpty());
+
+        // Remove a corner of every third triangle, in batches, together with an available point.
+        List<ColoredPolygon> triangles = new ArrayList<ColoredPolygon>(search.getTriangles());
+        for (int i = 0; i < triangles.size(); i += 9) {
+            List<ColoredPoint> removed = new ArrayList<ColoredPoint>();
+            for (int j = i; j < Math.min(i + 9, triangles.size()); j += 3) {
+                ColoredPolygon triangle = triangles.get(j);
+                if (!search.getTriangles().contains(triangle)) {
+                    continue;
+                }
+                Point corner = triangle.getPoints()[j % ColoredTriangle.N_POINTS];
+                removed.add(ColoredPointImpl.create2D(corner.getCoordinate().x, corner.getCoordinate().y,
+                        triangle.getColor().getIntRepresentation()));
+            }
+            removed.add(availablePoint(remaining, search.getTriangles()));
+            for (ColoredPoint point : removed) {
+                removePoint(remaining, point);
+            }
+
+            int before = search.getTriangles().size();
+            RemovalResult result = search.remove(removed);
+            Assert.assertFalse(result.getRemovedTriangles().isEmpty());
+            for (ColoredPolygon triangle : result.getRemovedTriangles()) {
+                Assert.assertFalse(search.getTriangles().contains(triangle));
+            }
+            Assert.assertTrue(search.getTriangles().containsAll(result.getAddedTriangles()));
+            Assert.assertEquals(before - result.getRemovedTriangles().size() + result.getAddedTriangles().size(),
+                    search.getTriangles().size());
+            testComplete(remaining, search.getTriangles(), search.getAvailablePoints());
+        }
+
+        // Inserting the removed points again is repaired as well.
+        List<ColoredPoint> removed = new ArrayList<ColoredPoint>(this.points);
+        for (ColoredPoint point : remaining) {
+            removed.remove(point);
+        }
+        search.insert(removed);
+        testComplete(this.points, search.getTriangles(), search.getAvailablePoints());
+    }
+
+    @Test
+    public void testConfiguration() throws Exception {
+        // The search keeps its triangles out of the configuration, which may be used elsewhere.
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setSequential(true);
+        IncrementalSearch search = new IncrementalSearch(configuration);
+        Assert.assertFalse(search.insert(this.points).isEmpty());
+        Assert.assertNull(configuration.getFixedTriangles());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTimeLimit() throws Exception {
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setTimeLimit(1000);
+        new IncrementalSearch(configuration);
+    }
+
+    // Tests that the triangles are pairwise disjoint, that the specified number of the
+    // points is available, and that no further triangle of the points can be inserted.
+    private void testComplete(List<ColoredPoint> points, List<ColoredPolygon> triangles, int available) {
+        TriangleIndex index = new QuadtreeTriangleIndex();
+        for (ColoredPolygon triangle : triangles) {
+            Assert.assertFalse(index.intersectsWithPolygon(triangle));
+            index.insert(triangle);
+        }
+
+        List<ColoredPoint> free = new ArrayList<ColoredPoint>();
+        for (ColoredPoint point : points) {
+            if (!index.enclosesPoint(point)) {
+                free.add(point);
+            }
+        }
+        Assert.assertEquals(available, free.size());
+
+        for (int i = 0; i < free.size(); ++i) {
+            ColoredPoint p1 = free.get(i);
+            for (int j = i + 1; j < free.size(); ++j) {
+                ColoredPoint p2 = free.get(j);
+                for (int k = j + 1; k < free.size(); ++k) {
+                    ColoredPoint p3 = free.get(k);
+                    if (p1.getColor() == p2.getColor() && p1.getColor() == p3.getColor()
+                            && CGAlgorithms.computeOrientation(p1.getCoordinate(), p2.getCoordinate(),
+                            p3.getCoordinate()) != CGAlgorithms.COLLINEAR) {
+                        Assert.assertTrue(index.intersectsWithPolygon(ColoredTriangle.fromPoints(p1, p2, p3)));
+                    }
+                }
+            }
+        }
+    }
+
+    // Returns a copy of a point of the specified points that no triangle encloses.
+    private ColoredPoint availablePoint(List<ColoredPoint> points, List<ColoredPolygon> triangles) {
+        TriangleIndex index = new QuadtreeTriangleIndex();
+        for (ColoredPolygon triangle : triangles) {
+            index.insert(triangle);
+        }
+        for (ColoredPoint point : points) {
+            if (!index.enclosesPoint(point)) {
+                return ColoredPointImpl.create2D(point.getCoordinate().x, point.getCoordinate().y,
+                        point.getColor().getIntRepresentation());
+            }
+        }
+        throw new IllegalStateException("No available point.");
+    }
+
+    // Removes one point at the location of the specified point with its color.
+    private void removePoint(List<ColoredPoint> points, ColoredPoint removed) {
+        for (int i = 0; i < points.size(); ++i) {
+            ColoredPoint point = points.get(i);
+            if (point.getColor() == removed.getColor()
+                    && point.getCoordinate().equals2D(removed.getCoordinate())) {
+                points.remove(i);
+                return;
+            }
+        }
+        Assert.fail("Removed point was not inserted: " + removed);
+    }
+}
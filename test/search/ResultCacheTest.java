@@ -0,0 +1,190 @@
+package search;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointStore;
+import geometry.polygon.ColoredPolygon;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import util.comparator.SpaceFillingCurve;
+import util.io.Reader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Tests the persistent cache of search results.
+ *
+ * @author Kim-Anh Tran
+ */
+public class ResultCacheTest {
+
+    // Test data file name.
+    private String TEST_FILE = "testdata/data0";
+
+    // Test points.
+    private ArrayPointStore store;
+
+    // The directory of the cache.
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        this.store = Reader.readPointStore(new FileInputStream(TEST_FILE));
+        this.directory = File.createTempFile("cache", "");
+        Assert.assertTrue(this.directory.delete());
+        this.directory.deleteOnExit();
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        ResultCache cache = new ResultCache(this.directory, ResultCache.MAX_BYTES);
+        Assert.assertTrue(this.directory.isDirectory());
+        List<ColoredPolygon> expected = TriangleSearch.searchForTriangles(this.store, sequential());
+
+        SearchResult miss = cache.search(this.store, sequential());
+        Assert.assertTrue(miss.isComplete());
+        Assert.assertEquals(expected.toString(), miss.getTriangles().toString());
+        Assert.assertEquals(1, entries().length);
+
+        // The hit passes the stored triangles to the sink.
+        final List<ColoredPolygon> sunk = new ArrayList<ColoredPolygon>();
+        SearchConfiguration configuration = sequential();
+        configuration.setTriangleSink(new TriangleSink() {
+            @Override
+            public void add(ColoredPolygon triangle) {
+                sunk.add(triangle);
+            }
+        });
+        SearchResult hit = new ResultCache(this.directory, ResultCache.MAX_BYTES).search(this.store, configuration);
+        Assert.assertTrue(hit.isComplete());
+        Assert.assertEquals(expected.toString(), hit.getTriangles().toString());
+        Assert.assertEquals(expected.toString(), sunk.toString());
+        Assert.assertEquals(1, entries().length);
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        String key = ResultCache.key(this.store, sequential());
+        Assert.assertEquals(64, key.length());
+        Assert.assertEquals(key, ResultCache.key(copy(this.store, this.store.size()), sequential()));
+
+        // Points and parameters changing the result change the key, others do not.
+        Assert.assertFalse(key.equals(ResultCache.key(copy(this.store, this.store.size() - 1), sequential())));
+        SearchConfiguration configuration = sequential();
+        configuration.setDelaunayCandidates(true);
+        Assert.assertFalse(key.equals(ResultCache.key(this.store, configuration)));
+        configuration = sequential();
+        configuration.setLayoutCurve(SpaceFillingCurve.HILBERT);
+        Assert.assertFalse(key.equals(ResultCache.key(this.store, configuration)));
+        configuration = sequential();
+        configuration.setLeafPoints(TriangleSearch.MIN_POINTS + 1);
+        Assert.assertFalse(key.equals(ResultCache.key(this.store, configuration)));
+        configuration = sequential();
+        configuration.setSpatialIndex(false);
+        Assert.assertEquals(key, ResultCache.key(this.store, configuration));
+    }
+
+    @Test
+    public void testCorruptEntry() throws Exception {
+        ResultCache cache = new ResultCache(this.directory, ResultCache.MAX_BYTES);
+        String key = ResultCache.key(this.store, sequential());
+        List<ColoredPolygon> expected = cache.search(this.store, sequential()).getTriangles();
+
+        // A flipped bit in the triangles.
+        File entry = entries()[0];
+        RandomAccessFile file = new RandomAccessFile(entry, "rw");
+        file.seek(file.length() - 1);
+        int last = file.read();
+        file.seek(file.length() - 1);
+        file.write(last ^ 1);
+        file.close();
+        Assert.assertNull(cache.get(key));
+        Assert.assertFalse(entry.exists());
+
+        // A truncated entry.
+        cache.put(key, expected);
+        file = new RandomAccessFile(entries()[0], "rw");
+        file.setLength(file.length() / 2);
+        file.close();
+        Assert.assertNull(cache.get(key));
+
+        // An entry of another key.
+        cache.put(key, expected);
+        String otherKey = key.replace(key.charAt(0), key.charAt(0) == '0' ? '1' : '0');
+        Assert.assertTrue(entries()[0].renameTo(new File(this.directory, otherKey + ".trit")));
+        Assert.assertNull(cache.get(otherKey));
+        Assert.assertEquals(0, entries().length);
+
+        Assert.assertEquals(expected.toString(), cache.search(this.store, sequential()).getTriangles().toString());
+        Assert.assertEquals(expected.toString(), cache.get(key).toString());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(this.store, sequential());
+        String[] keys = new String[3];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = ResultCache.key(copy(this.store, this.store.size() - i), sequential());
+        }
+
+        // Room for two entries.
+        ResultCache cache = new ResultCache(this.directory, ResultCache.MAX_BYTES);
+        cache.put(keys[0], triangles);
+        long entryBytes = entries()[0].length();
+        cache = new ResultCache(this.directory, 2 * entryBytes + entryBytes / 2);
+        cache.put(keys[1], triangles);
+        setLastUsed(keys[0], 1000);
+        setLastUsed(keys[1], 2000);
+
+        // The first entry is used again, so that the second one is evicted.
+        Assert.assertNotNull(cache.get(keys[0]));
+        cache.put(keys[2], triangles);
+        Assert.assertEquals(2, entries().length);
+        Assert.assertNotNull(cache.get(keys[0]));
+        Assert.assertNull(cache.get(keys[1]));
+        Assert.assertNotNull(cache.get(keys[2]));
+
+        // Entries larger than the cache are not stored.
+        cache = new ResultCache(this.directory, entryBytes - 1);
+        cache.put(keys[1], triangles);
+        Assert.assertNull(cache.get(keys[1]));
+    }
+
+    // Returns a configuration of a sequential search.
+    private SearchConfiguration sequential() {
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setSequential(true);
+        return configuration;
+    }
+
+    // Returns a copy of the first n points of the specified store.
+    private PointStore copy(PointStore store, int n) {
+        ArrayPointStore copy = new ArrayPointStore();
+        for (int id = 0; id < n; ++id) {
+            copy.add(store.getX(id), store.getY(id), store.getColorIndex(id));
+        }
+        return copy;
+    }
+
+    // Returns the entry files of the cache, which are deleted on exit.
+    private File[] entries() {
+        List<File> entries = new ArrayList<File>();
+        for (File file : this.directory.listFiles()) {
+            file.deleteOnExit();
+            if (file.getName().endsWith(".trit")) {
+                entries.add(file);
+            }
+        }
+        return entries.toArray(new File[entries.size()]);
+    }
+
+    // Specifies the time the entry of the specified key was last used.
+    private void setLastUsed(String key, long time) throws IOException {
+        Assert.assertTrue(new File(this.directory, key + ".trit").setLastModified(time));
+    }
+}
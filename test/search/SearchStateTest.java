@@ -0,0 +1,114 @@
+package search;
+
+import color.Color;
+import geometry.point.ArrayPointStore;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import util.collection.ConcurrentBitSet;
+
+import java.util.Random;
+
+/*
+ * Tests the per color state of the available points of a search.
+ *
+ * @author Kim-Anh Tran
+ */
+public class SearchStateTest {
+
+    // Number of points in the store.
+    private static final int N_POINTS = 1000;
+
+    // Random, but reproducible points.
+    private ArrayPointStore store;
+
+    // The points considered by the state: every second point of the store, in reverse.
+    private int[] points;
+
+    // The points that are not available.
+    private ConcurrentBitSet enclosed;
+
+    // The state to test.
+    private SearchState state;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        this.store = new ArrayPointStore();
+        this.enclosed = new ConcurrentBitSet(N_POINTS);
+        for (int i = 0; i < N_POINTS; ++i) {
+            this.store.add(random.nextDouble(), random.nextDouble(), random.nextInt(3));
+            if (random.nextInt(10) == 0) {
+                this.enclosed.set(i);
+            }
+        }
+
+        this.points = new int[N_POINTS / 2];
+        for (int i = 0; i < this.points.length; ++i) {
+            this.points[i] = N_POINTS - 1 - 2 * i;
+        }
+        this.state = new SearchState(this.store, this.points, this.enclosed,
+                new int[N_POINTS], new int[N_POINTS]);
+    }
+
+    @Test
+    public void testInitialState() {
+        assertMatchesPoints();
+    }
+
+    @Test
+    public void testRemove() {
+        Random random = new Random(2);
+        for (int i = 0; i < this.points.length; ++i) {
+            int id = this.points[random.nextInt(this.points.length)];
+            if (!this.enclosed.get(id)) {
+                this.enclosed.set(id);
+                this.state.remove(id);
+                assertMatchesPoints();
+            }
+        }
+
+        // Removing the first points empties the lists in order.
+        for (Color color : Color.values()) {
+            while (this.state.count(color) > 0) {
+                int id = this.state.first(color);
+                this.enclosed.set(id);
+                this.state.remove(id);
+                assertMatchesPoints();
+            }
+            Assert.assertEquals(-1, this.state.first(color));
+        }
+    }
+
+    /*
+     * Checks the counts, the first points and the most frequent color against
+     * the available points.
+     */
+    private void assertMatchesPoints() {
+        int nColors = Color.values().length;
+        int[] counts = new int[nColors];
+        int[] firsts = new int[nColors];
+        for (int color = 0; color < nColors; ++color) {
+            firsts[color] = -1;
+        }
+        for (int id : this.points) {
+            if (this.enclosed.get(id)) {
+                continue;
+            }
+            int color = this.store.getColorIndex(id);
+            if (counts[color]++ == 0) {
+                firsts[color] = id;
+            }
+        }
+
+        int mostFrequent = 0;
+        for (int color = 0; color < nColors; ++color) {
+            Assert.assertEquals(counts[color], this.state.count(Color.fromInt(color)));
+            Assert.assertEquals(firsts[color], this.state.first(Color.fromInt(color)));
+            if (counts[color] > counts[mostFrequent]) {
+                mostFrequent = color;
+            }
+        }
+        Assert.assertEquals(Color.fromInt(mostFrequent), this.state.mostFrequentColor());
+    }
+}
@@ -0,0 +1,110 @@
+package search;
+
+import geometry.point.ColoredPoint;
+import geometry.polygon.ColoredPolygon;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import util.io.Reader;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.util.List;
+
+/*
+ * Tests the statistics collected during a search.
+ *
+ * @author Kim-Anh Tran
+ */
+public class SearchStatisticsTest {
+
+    // Test data file name.
+    private String TEST_FILE = "testdata/data0";
+
+    // Test 2d points.
+    private List<ColoredPoint> points;
+
+    @Before
+    public void setUp() {
+        try {
+            FileInputStream inputStream = new FileInputStream(TEST_FILE);
+            this.points = Reader.readPoints(inputStream);
+        } catch (ParseException e) {
+            Assert.fail("Failed reading test data from file.");
+        } catch (FileNotFoundException e) {
+            Assert.fail("Could not find test data file.");
+        }
+    }
+
+    @Test
+    public void testCounters() {
+        SearchStatistics statistics = new SearchStatistics();
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setLeafPoints(50);
+        configuration.setStatistics(statistics);
+        List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        Assert.assertEquals(1, statistics.getSearches());
+        Assert.assertEquals(triangles.size(), statistics.get(SearchStatistics.Counter.TRIANGLES));
+        Assert.assertEquals(statistics.get(SearchStatistics.Counter.SEEDS),
+                statistics.get(SearchStatistics.Counter.TRIANGLES)
+                        + statistics.get(SearchStatistics.Counter.FAILED_SEEDS));
+        Assert.assertEquals(statistics.get(SearchStatistics.Counter.TRIANGLE_TESTS),
+                statistics.get(SearchStatistics.Counter.TRIANGLES)
+                        + statistics.get(SearchStatistics.Counter.P3_TRIANGLE_CONFLICTS));
+        Assert.assertEquals(statistics.get(SearchStatistics.Counter.LEAF_TASKS),
+                statistics.get(SearchStatistics.Counter.MERGE_TASKS) + 1);
+        Assert.assertTrue(statistics.get(SearchStatistics.Counter.MERGE_TASKS) > 0);
+        Assert.assertTrue(statistics.get(SearchStatistics.Counter.LEAF_SEARCH_NANOS) > 0);
+        Assert.assertTrue(statistics.getMaxTaskNanos() > 0);
+
+        // Counts of further searches are added.
+        TriangleSearch.searchForTriangles(this.points, configuration);
+        Assert.assertEquals(2, statistics.getSearches());
+        Assert.assertEquals(2 * triangles.size(), statistics.get(SearchStatistics.Counter.TRIANGLES));
+
+        statistics.reset();
+        Assert.assertEquals(0, statistics.getSearches());
+        for (long value : statistics.getValues().values()) {
+            Assert.assertEquals(0, value);
+        }
+    }
+
+    @Test
+    public void testJson() {
+        SearchStatistics statistics = new SearchStatistics();
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setStatistics(statistics);
+        List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        String json = statistics.toJson();
+        Assert.assertTrue(json.startsWith("{\"searches\": 1, "));
+        Assert.assertTrue(json.endsWith("}"));
+        Assert.assertTrue(json.contains("\"triangles\": " + triangles.size() + ","));
+        for (SearchStatistics.Counter counter : SearchStatistics.Counter.values()) {
+            Assert.assertTrue(json.contains("\"" + counter.getName() + "\": "));
+        }
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        SearchStatistics statistics = new SearchStatistics();
+        statistics.register();
+        try {
+            SearchConfiguration configuration = new SearchConfiguration();
+            configuration.setStatistics(statistics);
+            TriangleSearch.searchForTriangles(this.points, configuration);
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(SearchStatistics.OBJECT_NAME);
+            Assert.assertEquals(1L, server.getAttribute(name, "Searches"));
+            Assert.assertEquals(statistics.getMaxQueuedTasks(), server.getAttribute(name, "MaxQueuedTasks"));
+        } finally {
+            statistics.unregister();
+        }
+    }
+}
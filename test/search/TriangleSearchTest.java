@@ -2,21 +2,31 @@ package search;
 
 import color.Color;
 import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import geometry.point.ArrayPointStore;
 import geometry.point.ColoredPoint;
+import geometry.point.ColoredPointImpl;
 import geometry.point.Point;
 import geometry.polygon.ColoredPolygon;
 import geometry.polygon.triangle.ColoredTriangle;
 import junit.framework.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import util.comparator.SpaceFillingCurve;
 import util.io.Reader;
+import util.parallel.SharedPool;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 /*
  * Tests the search algorithm for finding triangles in a 2d set of points.
@@ -47,7 +57,138 @@ public class TriangleSearchTest {
     public void testSearchForTriangles() throws Exception {
         int processors = Runtime.getRuntime().availableProcessors();
         List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(this.points);
+        testComplete(triangles);
+    }
+
+    @Test
+    public void testDelaunayCandidates() throws Exception {
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setLeafPoints(100);
+        configuration.setDelaunayCandidates(true);
+        SearchStatistics statistics = new SearchStatistics();
+        configuration.setStatistics(statistics);
+        List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        // Delaunay faces are committed, and no two triangles touch.
+        Assert.assertTrue(statistics.get(SearchStatistics.Counter.DELAUNAY_TRIANGLES) > 0);
+        Assert.assertEquals(triangles.size(), statistics.get(SearchStatistics.Counter.TRIANGLES));
+        for (int i = 0; i < triangles.size(); ++i) {
+            for (int j = i + 1; j < triangles.size(); ++j) {
+                Assert.assertFalse(triangles.get(i).intersectsWithPolygon(triangles.get(j)));
+            }
+        }
+        testComplete(triangles);
+    }
+
+    @Test
+    public void testDelaunayFindsMoreTriangles() throws Exception {
+        List<ColoredPoint> points = uniformPoints(2000, 42);
+        int nearest = TriangleSearch.searchForTriangles(points, new SearchConfiguration()).size();
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setDelaunayCandidates(true);
+        int delaunay = TriangleSearch.searchForTriangles(points, configuration).size();
+
+        // Uniformly distributed points allow more triangles, if Delaunay faces are committed first.
+        Assert.assertTrue("nearest " + nearest + ", delaunay " + delaunay, delaunay > nearest);
+    }
+
+    @Test
+    public void testLayoutCurve() throws Exception {
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setLeafPoints(100);
+        List<ColoredPolygon> expected = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        // Without equally distant neighbours, the layout does not change the triangles.
+        for (SpaceFillingCurve curve : SpaceFillingCurve.values()) {
+            configuration.setLayoutCurve(curve);
+            List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(this.points, configuration);
+            Assert.assertEquals(expected.size(), triangles.size());
+            for (int i = 0; i < expected.size(); ++i) {
+                Assert.assertEquals(expected.get(i).toString(), triangles.get(i).toString());
+            }
+
+            // The triangles consist of the specified point instances.
+            Point corner = triangles.get(0).getPoints()[0];
+            Assert.assertSame(this.points.get(this.points.indexOf(corner)), corner);
+        }
+    }
+
+    @Test
+    public void testProgress() throws Exception {
+        final List<SearchProgress> reports = Collections.synchronizedList(new ArrayList<SearchProgress>());
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setLeafPoints(100);
+        configuration.setProgressListener(new SearchProgressListener() {
+            @Override
+            public void progress(SearchProgress progress) {
+                reports.add(progress);
+            }
+        });
+        SearchHandle handle = TriangleSearch.start(ArrayPointStore.fromPoints(this.points), configuration);
+        SearchResult result = handle.getResult();
+
+        // Every task reports when it is done, the root task last.
+        Assert.assertTrue(result.isComplete());
+        Assert.assertTrue(handle.isDone());
+        Assert.assertTrue(reports.size() > 1);
+        SearchProgress last = handle.getProgress();
+        Assert.assertEquals(0, last.getActiveTasks());
+        Assert.assertEquals(this.points.size(), last.getPoints());
+        Assert.assertEquals(result.getTriangles().size(), last.getTrianglesFound());
+        Assert.assertTrue(last.getPointsConsumed() >= 3 * last.getTrianglesFound());
+        Assert.assertTrue(last.getPointsConsumed() <= this.points.size());
+    }
+
+    @Test
+    public void testTimeLimit() throws Exception {
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setSequential(true);
+        configuration.setTimeLimit(100);
+        configuration.setTriangleSink(slowSink());
+        SearchResult result = TriangleSearch.start(ArrayPointStore.fromPoints(this.points), configuration)
+                .getResult();
+        testPartial(result);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setLeafPoints(100);
+        configuration.setTriangleSink(slowSink());
+        SearchHandle handle = TriangleSearch.start(ArrayPointStore.fromPoints(this.points), configuration);
+        testPartial(handle.getResult(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, handle.getProgress().getActiveTasks());
+    }
+
+    // Returns a sink taking 10 ms per triangle.
+    private TriangleSink slowSink() {
+        return new TriangleSink() {
+            @Override
+            public void add(ColoredPolygon triangle) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
 
+    // Tests that the result of a stopped search is incomplete, but its triangles do not touch.
+    private void testPartial(SearchResult result) {
+        List<ColoredPolygon> complete = TriangleSearch.searchForTriangles(this.points);
+        List<ColoredPolygon> triangles = result.getTriangles();
+        Assert.assertFalse(result.isComplete());
+        Assert.assertTrue(triangles.size() < complete.size());
+        for (int i = 0; i < triangles.size(); ++i) {
+            for (int j = i + 1; j < triangles.size(); ++j) {
+                Assert.assertFalse(triangles.get(i).intersectsWithPolygon(triangles.get(j)));
+            }
+        }
+    }
+
+    // Tests that no further point-disjoint triangle can be inserted.
+    private void testComplete(List<ColoredPolygon> triangles) {
         // Remove all points that are already belonging to a triangle
         for (ColoredPolygon triangle : triangles) {
             Point[] trianglePoints = triangle.getPoints();
@@ -72,6 +213,104 @@ public class TriangleSearchTest {
         }
     }
 
+    @Test
+    public void testSearchWithoutSpatialIndex() throws Exception {
+        List<ColoredPolygon> indexed = TriangleSearch.searchForTriangles(this.points);
+
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setSpatialIndex(false);
+        List<ColoredPolygon> linear = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        // Both conflict checks have to result in the same triangles.
+        Assert.assertEquals(linear.size(), indexed.size());
+        for (int i = 0; i < linear.size(); ++i) {
+            Assert.assertEquals(linear.get(i).toString(), indexed.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testExecution() throws Exception {
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setLeafPoints(50);
+        configuration.setEnclosurePoints(10);
+        List<ColoredPolygon> shared = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        configuration.setSequential(true);
+        List<ColoredPolygon> sequential = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        configuration.setSequential(false);
+        configuration.setPool(pool);
+        List<ColoredPolygon> own = TriangleSearch.searchForTriangles(this.points, configuration);
+        List<ColoredPolygon> again = TriangleSearch.searchForTriangles(this.points, configuration);
+        pool.shutdown();
+
+        // The pool running the search must not change its result, and is not shut down by it.
+        Assert.assertEquals(shared.size(), sequential.size());
+        Assert.assertEquals(shared.size(), own.size());
+        Assert.assertEquals(shared.size(), again.size());
+        for (int i = 0; i < shared.size(); ++i) {
+            Assert.assertEquals(shared.get(i).toString(), sequential.get(i).toString());
+            Assert.assertEquals(shared.get(i).toString(), own.get(i).toString());
+            Assert.assertEquals(shared.get(i).toString(), again.get(i).toString());
+        }
+        Assert.assertSame(SharedPool.get(), new SearchConfiguration().getPool());
+    }
+
+    @Test
+    public void testTriangleSink() throws Exception {
+        final List<ColoredPolygon> received = Collections.synchronizedList(new ArrayList<ColoredPolygon>());
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setLeafPoints(50);
+        configuration.setTriangleSink(new TriangleSink() {
+            @Override
+            public void add(ColoredPolygon triangle) {
+                received.add(triangle);
+            }
+        });
+        List<ColoredPolygon> triangles = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        // Every found triangle is passed to the sink exactly once.
+        Assert.assertEquals(triangles.size(), received.size());
+        Assert.assertEquals(new HashSet<ColoredPolygon>(triangles), new HashSet<ColoredPolygon>(received));
+    }
+
+    @Test
+    public void testSpeculativeSeeds() throws Exception {
+        SearchConfiguration configuration = new SearchConfiguration();
+        configuration.setLeafPoints(200);
+        List<ColoredPolygon> expected = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        SearchStatistics statistics = new SearchStatistics();
+        configuration.setStatistics(statistics);
+        configuration.setSpeculativeSeeds(16);
+        List<ColoredPolygon> shared = TriangleSearch.searchForTriangles(this.points, configuration);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        configuration.setPool(pool);
+        List<ColoredPolygon> own = TriangleSearch.searchForTriangles(this.points, configuration);
+        pool.shutdown();
+
+        // Searching seeds ahead does not change the triangles, whatever the number of threads.
+        Assert.assertTrue(statistics.get(SearchStatistics.Counter.SPECULATED_SEEDS) > 0);
+        Assert.assertEquals(expected.size(), shared.size());
+        Assert.assertEquals(expected.size(), own.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            Assert.assertEquals(expected.get(i).toString(), shared.get(i).toString());
+            Assert.assertEquals(expected.get(i).toString(), own.get(i).toString());
+        }
+    }
+
+    // Returns the specified number of uniformly distributed points of 5 colors within the unit square.
+    private List<ColoredPoint> uniformPoints(int nPoints, long seed) {
+        Random random = new Random(seed);
+        List<ColoredPoint> points = new ArrayList<ColoredPoint>(nPoints);
+        for (int i = 0; i < nPoints; ++i) {
+            points.add(ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), random.nextInt(5)));
+        }
+        return points;
+    }
+
     // Tests if any new point-disjoint triangle can be inserted.
     private void testNewTriangles(List<ColoredPoint> coloredPoints, List<ColoredPolygon> triangles) {
         Iterator<ColoredPoint> iterator = coloredPoints.iterator();
@@ -0,0 +1,202 @@
+package server;
+
+import geometry.point.ColoredPoint;
+import geometry.polygon.ColoredPolygon;
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import search.TriangleSearch;
+import util.io.BinaryWriter;
+import util.io.Reader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Tests searching triangles by requests to the server.
+ *
+ * @author Kim-Anh Tran
+ */
+public class TriangleServerTest {
+
+    // Test data file name.
+    private String TEST_FILE = "testdata/data0";
+
+    // The server under test, accepting one search at a time without queue.
+    private TriangleServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new TriangleServer(0, 1, 0);
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        byte[] input = readFile(TEST_FILE);
+        HttpURLConnection connection = post(input);
+        Assert.assertEquals(200, connection.getResponseCode());
+        byte[] output = readAll(connection.getInputStream());
+
+        List<ColoredPoint> points = Reader.readPoints(new FileInputStream(TEST_FILE));
+        List<ColoredPolygon> expected = TriangleSearch.searchForTriangles(points);
+        List<ColoredPolygon> streamed = Reader.readTriangles(new ByteArrayInputStream(output));
+        Assert.assertEquals(expected.size(), streamed.size());
+
+        Assert.assertEquals(1, this.server.getMetrics().getRequests());
+        Assert.assertTrue(this.server.getMetrics().getPercentileMicros(50) > 0);
+        Assert.assertEquals(0, this.server.getMetrics().getActive());
+    }
+
+    @Test
+    public void testInvalidInput() throws Exception {
+        HttpURLConnection connection = post("2\n0.1 0.2 3\n".getBytes());
+        Assert.assertEquals(400, connection.getResponseCode());
+        Assert.assertEquals(1, this.server.getMetrics().getFailed());
+    }
+
+    @Test
+    public void testTruncatedBinaryInput() throws Exception {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        BinaryWriter.writePoints(outStream, Reader.readPointStore(new FileInputStream(TEST_FILE)));
+        byte[] input = outStream.toByteArray();
+
+        HttpURLConnection connection = post(input, "output=binary");
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals("application/octet-stream", connection.getContentType());
+        readAll(connection.getInputStream());
+
+        // The body ends before its length, so reading it fails.
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.server.getPort());
+        try {
+            OutputStream request = socket.getOutputStream();
+            request.write(("POST " + TriangleServer.TRIANGLES_PATH + " HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Content-Length: " + input.length + "\r\n\r\n").getBytes("US-ASCII"));
+            request.write(Arrays.copyOf(input, input.length / 2));
+            request.flush();
+            socket.shutdownOutput();
+            String response = new String(readAll(socket.getInputStream()), "US-ASCII");
+            Assert.assertTrue(response.startsWith("HTTP/1.1 400"));
+        } finally {
+            socket.close();
+        }
+        Assert.assertEquals(1, this.server.getMetrics().getFailed());
+    }
+
+    @Test
+    public void testOutputQuery() throws Exception {
+        Assert.assertEquals(Boolean.FALSE, TriangleServer.isBinaryOutput(null));
+        Assert.assertEquals(Boolean.FALSE, TriangleServer.isBinaryOutput("output=text"));
+        Assert.assertEquals(Boolean.TRUE, TriangleServer.isBinaryOutput("output=binary"));
+        Assert.assertEquals(Boolean.TRUE, TriangleServer.isBinaryOutput("foo=1&output=binary"));
+        Assert.assertEquals(Boolean.FALSE, TriangleServer.isBinaryOutput("xoutput=binary"));
+        Assert.assertEquals(Boolean.FALSE, TriangleServer.isBinaryOutput("foo=output=binary"));
+        Assert.assertNull(TriangleServer.isBinaryOutput("output=binaryx"));
+        Assert.assertNull(TriangleServer.isBinaryOutput("output"));
+
+        HttpURLConnection connection = post(readFile(TEST_FILE), "output=binaryx");
+        Assert.assertEquals(400, connection.getResponseCode());
+        Assert.assertEquals(1, this.server.getMetrics().getFailed());
+
+        connection = post(readFile(TEST_FILE), "xoutput=binary");
+        Assert.assertEquals(200, connection.getResponseCode());
+        List<ColoredPolygon> triangles = Reader.readTriangles(new ByteArrayInputStream(
+                readAll(connection.getInputStream())));
+        Assert.assertFalse(triangles.isEmpty());
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        // Takes the only slot by sending an incomplete request.
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.server.getPort());
+        OutputStream slow = socket.getOutputStream();
+        slow.write(("POST " + TriangleServer.TRIANGLES_PATH + " HTTP/1.1\r\nHost: localhost\r\n"
+                + "Content-Length: 100\r\n\r\n3\n").getBytes("US-ASCII"));
+        slow.flush();
+
+        try {
+            HttpURLConnection rejected = null;
+            for (int attempt = 0; attempt < 50; ++attempt) {
+                rejected = post(readFile(TEST_FILE));
+                if (rejected.getResponseCode() == 503) {
+                    break;
+                }
+                Thread.sleep(20);
+            }
+            Assert.assertEquals(503, rejected.getResponseCode());
+            Assert.assertNotNull(rejected.getHeaderField("Retry-After"));
+            Assert.assertTrue(this.server.getMetrics().getRejected() > 0);
+        } finally {
+            socket.close();
+        }
+
+        // The slot is free again, once the incomplete request is gone.
+        int status = 0;
+        for (int attempt = 0; attempt < 50 && status != 200; ++attempt) {
+            status = post(readFile(TEST_FILE)).getResponseCode();
+            Thread.sleep(status == 200 ? 0 : 20);
+        }
+        Assert.assertEquals(200, status);
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        URL url = new URL("http", "localhost", this.server.getPort(), TriangleServer.METRICS_PATH);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        Assert.assertEquals(200, connection.getResponseCode());
+        String json = new String(readAll(connection.getInputStream()), "US-ASCII");
+        Assert.assertTrue(json.startsWith("{\"requests\": 0, \"rejected\": 0, "));
+    }
+
+    // Posts the specified body to the search path.
+    private HttpURLConnection post(byte[] body) throws IOException {
+        return post(body, null);
+    }
+
+    // Posts the specified body to the search path with the specified query, if not null.
+    private HttpURLConnection post(byte[] body, String query) throws IOException {
+        String file = TriangleServer.TRIANGLES_PATH + (query == null ? "" : "?" + query);
+        URL url = new URL("http", "localhost", this.server.getPort(), file);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        OutputStream outStream = connection.getOutputStream();
+        outStream.write(body);
+        outStream.close();
+        return connection;
+    }
+
+    // Reads the specified file.
+    private byte[] readFile(String name) throws IOException {
+        return readAll(new FileInputStream(name));
+    }
+
+    // Reads the specified stream until its end and closes it.
+    private byte[] readAll(InputStream inStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inStream.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, read);
+        }
+        inStream.close();
+        return bytes.toByteArray();
+    }
+}
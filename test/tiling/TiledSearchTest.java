@@ -0,0 +1,119 @@
+package tiling;
+
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import geometry.point.ColoredPoint;
+import geometry.point.Point;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+import junit.framework.Assert;
+import org.junit.Test;
+import search.TriangleSink;
+import util.index.QuadtreeTriangleIndex;
+import util.index.TriangleIndex;
+import util.io.Reader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Tests searching triangles tile by tile.
+ *
+ * @author Kim-Anh Tran
+ */
+public class TiledSearchTest {
+
+    // Test data file name.
+    private String TEST_FILE = "testdata/data0";
+
+    @Test
+    public void testSearch() throws Exception {
+        File directory = createTempDirectory();
+        TiledSearch search = new TiledSearch(directory);
+        search.setTilePoints(50);
+        search.setCachedTiles(2);
+        List<ColoredPolygon> triangles = search(search, new File(TEST_FILE));
+
+        Assert.assertTrue(search.getTiles() > 1);
+        Assert.assertTrue(search.getBorderPoints() > 0);
+
+        // No two triangles touch, and no further triangle can be inserted.
+        List<ColoredPoint> points = Reader.readPoints(new FileInputStream(TEST_FILE));
+        TriangleIndex index = new QuadtreeTriangleIndex();
+        for (ColoredPolygon triangle : triangles) {
+            Assert.assertFalse(index.intersectsWithPolygon(triangle));
+            index.insert(triangle);
+            for (Point corner : triangle.getPoints()) {
+                points.remove(corner);
+            }
+        }
+        testNewTriangles(points, index);
+
+        // The tile files are deleted.
+        Assert.assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void testOneTile() throws Exception {
+        TiledSearch search = new TiledSearch(createTempDirectory());
+        List<ColoredPolygon> triangles = search(search, new File(TEST_FILE));
+
+        Assert.assertEquals(1, search.getTiles());
+        Assert.assertEquals(0, search.getBorderPoints());
+        Assert.assertFalse(triangles.isEmpty());
+    }
+
+    @Test(expected = ParseException.class)
+    public void testInvalidInput() throws Exception {
+        File input = File.createTempFile("invalid", "");
+        input.deleteOnExit();
+        FileOutputStream outStream = new FileOutputStream(input);
+        outStream.write("3\n0 0 1\n1 1 1\n".getBytes("US-ASCII"));
+        outStream.close();
+        search(new TiledSearch(createTempDirectory()), input);
+    }
+
+    // Searches the specified input and returns the triangles passed to the sink.
+    private List<ColoredPolygon> search(TiledSearch search, File input) throws IOException, ParseException {
+        final List<ColoredPolygon> triangles = Collections.synchronizedList(new ArrayList<ColoredPolygon>());
+        long n = search.search(input, new TriangleSink() {
+            @Override
+            public void add(ColoredPolygon triangle) {
+                triangles.add(triangle);
+            }
+        });
+        Assert.assertEquals(n, triangles.size());
+        return triangles;
+    }
+
+    // Tests that every triangle of the specified points intersects with the index.
+    private void testNewTriangles(List<ColoredPoint> points, TriangleIndex index) {
+        for (int i = 0; i < points.size(); ++i) {
+            ColoredPoint p1 = points.get(i);
+            for (int j = i + 1; j < points.size(); ++j) {
+                ColoredPoint p2 = points.get(j);
+                for (int k = j + 1; k < points.size(); ++k) {
+                    ColoredPoint p3 = points.get(k);
+                    if (p1.getColor() == p2.getColor() && p1.getColor() == p3.getColor()
+                            && CGAlgorithms.computeOrientation(p1.getCoordinate(), p2.getCoordinate(),
+                            p3.getCoordinate()) != CGAlgorithms.COLLINEAR) {
+                        Assert.assertTrue(index.intersectsWithPolygon(ColoredTriangle.fromPoints(p1, p2, p3)));
+                    }
+                }
+            }
+        }
+    }
+
+    // Creates an empty temporary directory, deleted on exit if empty.
+    private File createTempDirectory() throws IOException {
+        File directory = File.createTempFile("tiles", "");
+        Assert.assertTrue(directory.delete() && directory.mkdir());
+        directory.deleteOnExit();
+        return directory;
+    }
+}
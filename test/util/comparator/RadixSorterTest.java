@@ -0,0 +1,106 @@
+package util.comparator;
+
+import geometry.point.ArrayPointStore;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Tests sorting ids by primitive keys.
+ *
+ * @author Kim-Anh Tran
+ */
+public class RadixSorterTest {
+
+    // Seed for generating reproducible keys.
+    private static final long SEED = 42;
+
+    @Test
+    public void testSort() throws Exception {
+        testSort(1000, 32, null);
+        testSort(1000, 12, null);
+        testSort(0, 32, null);
+    }
+
+    @Test
+    public void testParallelSort() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        testSort(300000, 32, pool);
+        testSort(300000, 64, pool);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testEqualKeys() throws Exception {
+        // All keys share their low digits, which are skipped.
+        int[] ids = {0, 1, 2, 3};
+        long[] keys = {0x300, 0x100, 0x300, 0x100};
+        RadixSorter.sort(ids, keys, 16, null);
+        Assert.assertEquals(1, ids[0]);
+        Assert.assertEquals(3, ids[1]);
+        Assert.assertEquals(0, ids[2]);
+        Assert.assertEquals(2, ids[3]);
+    }
+
+    @Test
+    public void testSortByCoordinates() throws Exception {
+        // Points with equal, negative and signed zero values, in the order of CoordinateComparator.
+        Random random = new Random(SEED);
+        ArrayPointStore store = new ArrayPointStore();
+        double[] values = {-2.5, -0.0, 0.0, 1.0, 1.0e-300, 3.0, Double.MAX_VALUE, -Double.MAX_VALUE};
+        int n = 200000;
+        int[] ids = new int[n];
+        int[] expected = new int[n];
+        for (int i = 0; i < n; ++i) {
+            store.add(values[random.nextInt(values.length)], random.nextInt(4) == 0
+                    ? values[random.nextInt(values.length)] : random.nextDouble(), 0);
+            ids[i] = n - 1 - i;
+            expected[i] = ids[i];
+        }
+        IdSorter.sort(expected, 0, n, new CoordinateComparator(store));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        RadixSorter.sortByCoordinates(ids, 0, n, store, pool);
+        pool.shutdown();
+        Assert.assertTrue(Arrays.equals(expected, ids));
+
+        // Only the specified range is sorted.
+        int[] range = {5, 2, 1, 0, 7};
+        RadixSorter.sortByCoordinates(range, 1, 4, store, null);
+        Assert.assertEquals(5, range[0]);
+        Assert.assertEquals(7, range[4]);
+        Assert.assertTrue(new CoordinateComparator(store).compare(range[1], range[2]) < 0);
+        Assert.assertTrue(new CoordinateComparator(store).compare(range[2], range[3]) < 0);
+    }
+
+    // Tests that random keys of the specified number of bits are sorted stably.
+    private void testSort(int n, int keyBits, ForkJoinPool pool) {
+        Random random = new Random(SEED);
+        int[] ids = new int[n];
+        long[] keys = new long[n];
+        long[] original = new long[n];
+        for (int i = 0; i < n; ++i) {
+            ids[i] = i;
+            keys[i] = keyBits == 64 ? random.nextLong() : random.nextLong() & ((1L << keyBits) - 1);
+            original[i] = keys[i];
+        }
+        RadixSorter.sort(ids, keys, keyBits, pool);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(original[ids[i]], keys[i]);
+            if (i > 0) {
+                int order = compareUnsigned(keys[i - 1], keys[i]);
+                Assert.assertTrue(order < 0 || order == 0 && ids[i - 1] < ids[i]);
+            }
+        }
+    }
+
+    // Compares the specified values as unsigned values.
+    private int compareUnsigned(long a, long b) {
+        a += Long.MIN_VALUE;
+        b += Long.MIN_VALUE;
+        return a < b ? -1 : a == b ? 0 : 1;
+    }
+}
@@ -0,0 +1,55 @@
+package util.comparator;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+/*
+ * Tests the space-filling curves.
+ *
+ * @author Kim-Anh Tran
+ */
+public class SpaceFillingCurveTest {
+
+    // The number of cells per side of the tested corner of the grid.
+    private static final int SIDE = 64;
+
+    @Test
+    public void testHilbert() throws Exception {
+        // The curve visits each cell once, and consecutive cells are adjacent.
+        int[][] cells = visit(SpaceFillingCurve.HILBERT);
+        for (int key = 1; key < cells.length; ++key) {
+            Assert.assertEquals(1, Math.abs(cells[key][0] - cells[key - 1][0])
+                    + Math.abs(cells[key][1] - cells[key - 1][1]));
+        }
+    }
+
+    @Test
+    public void testMorton() throws Exception {
+        visit(SpaceFillingCurve.MORTON);
+        Assert.assertEquals(3, SpaceFillingCurve.MORTON.key(1, 1));
+        Assert.assertEquals(0xFFFFFFFFL, SpaceFillingCurve.MORTON.key(SpaceFillingCurve.CELLS - 1,
+                SpaceFillingCurve.CELLS - 1));
+    }
+
+    @Test
+    public void testCell() throws Exception {
+        Assert.assertEquals(0, SpaceFillingCurve.cell(1.0, 1.0, 2.0));
+        Assert.assertEquals(SpaceFillingCurve.CELLS / 2, SpaceFillingCurve.cell(2.0, 1.0, 2.0));
+        Assert.assertEquals(SpaceFillingCurve.CELLS - 1, SpaceFillingCurve.cell(3.0, 1.0, 2.0));
+        Assert.assertEquals(0, SpaceFillingCurve.cell(3.0, 3.0, 0.0));
+    }
+
+    // Returns the cells of the corner of the grid by their keys, which have to be distinct and dense.
+    private int[][] visit(SpaceFillingCurve curve) {
+        int[][] cells = new int[SIDE * SIDE][];
+        for (int column = 0; column < SIDE; ++column) {
+            for (int row = 0; row < SIDE; ++row) {
+                long key = curve.key(column, row);
+                Assert.assertTrue(key < cells.length);
+                Assert.assertNull(cells[(int) key]);
+                cells[(int) key] = new int[]{column, row};
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,207 @@
+package util.index;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.ColoredPoint;
+import geometry.point.ColoredPointImpl;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import search.TriangleSearch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Tests the occlusion of locations by triangles.
+ *
+ * @author Kim-Anh Tran
+ */
+public class OcclusionTest {
+
+    // Number of random points used for creating triangles.
+    private static final int N_POINTS = 1000;
+
+    // Number of random locations and points checked.
+    private static final int N_CHECKS = 200;
+
+    // Random, but reproducible triangles.
+    private List<ColoredPolygon> triangles;
+
+    // The index containing the triangles.
+    private TriangleIndex index;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        List<ColoredPoint> points = new ArrayList<ColoredPoint>();
+        for (int i = 0; i < N_POINTS; ++i) {
+            points.add(ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), random.nextInt(5)));
+        }
+        this.triangles = TriangleSearch.searchForTriangles(points);
+        this.index = new QuadtreeTriangleIndex();
+        for (ColoredPolygon triangle : this.triangles) {
+            this.index.insert(triangle);
+        }
+    }
+
+    @Test
+    public void testOccludes() {
+        Random random = new Random(2);
+        int nOccluded = 0;
+        for (int i = 0; i < N_CHECKS; ++i) {
+            ColoredPoint location = ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), 0);
+            Occlusion occlusion = new Occlusion(this.triangles, location.getCoordinate().x,
+                    location.getCoordinate().y);
+
+            for (int j = 0; j < N_CHECKS; ++j) {
+                ColoredPoint point = ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), 0);
+                if (occlusion.occludes(point.getCoordinate().x, point.getCoordinate().y)) {
+                    Assert.assertTrue(this.index.intersectsWithLine(location, point));
+                    ++nOccluded;
+                }
+            }
+        }
+        Assert.assertTrue(nOccluded > 0);
+    }
+
+    @Test
+    public void testRadius() {
+        // A location surrounded by triangles.
+        List<ColoredPolygon> ring = new ArrayList<ColoredPolygon>();
+        ring.add(ColoredTriangle.fromCoordinates(-2, -1, 2, -1, 0, -3, 0));
+        ring.add(ColoredTriangle.fromCoordinates(1, -2, 1, 2, 3, 0, 0));
+        ring.add(ColoredTriangle.fromCoordinates(-2, 1, 2, 1, 0, 3, 0));
+        ring.add(ColoredTriangle.fromCoordinates(-1, -2, -1, 2, -3, 0, 0));
+        Occlusion occlusion = new Occlusion(ring, 0, 0);
+
+        Assert.assertTrue(occlusion.getRadius() >= 3);
+        Assert.assertTrue(occlusion.getRadius() < 3.1);
+        Assert.assertTrue(occlusion.occludes(4, 0));
+        Assert.assertTrue(occlusion.occludes(0, -3.5));
+        Assert.assertFalse(occlusion.occludes(0.5, 0.5));
+
+        // Without one of them, points in its direction are visible.
+        ring.remove(1);
+        occlusion = new Occlusion(ring, 0, 0);
+        Assert.assertEquals(Double.POSITIVE_INFINITY, occlusion.getRadius());
+        Assert.assertFalse(occlusion.occludes(4, 0));
+        Assert.assertTrue(occlusion.occludes(0, -3.5));
+
+        // Within a bounding box, the directions without triangle leave it at x = 5.
+        Envelope bounds = new Envelope(-10, 5, -10, 10);
+        occlusion = new Occlusion(ring, 0, 0, bounds);
+        Assert.assertTrue(occlusion.getRadius() >= Math.hypot(5, 1));
+        Assert.assertTrue(occlusion.getRadius() < Math.hypot(5, 5));
+        Assert.assertFalse(occlusion.occludes(4, 0));
+        Assert.assertTrue(occlusion.occludes(-9, 9));
+    }
+
+    @Test
+    public void testBoundedRadius() {
+        // Every point of the bounding box beyond the radius is occluded.
+        Envelope bounds = new Envelope(0, 1, 0, 1);
+        Random random = new Random(3);
+        int nBeyond = 0;
+        for (int i = 0; i < N_CHECKS; ++i) {
+            ColoredPoint location = ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), 0);
+            Occlusion occlusion = Occlusion.around(this.index, location.getCoordinate().x,
+                    location.getCoordinate().y, 0.05, bounds);
+            Assert.assertTrue(occlusion.getRadius() <= Math.sqrt(2) * (1 + 1e-6));
+
+            for (int j = 0; j < N_CHECKS; ++j) {
+                ColoredPoint point = ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), 0);
+                if (location.getCoordinate().distance(point.getCoordinate()) > occlusion.getRadius()) {
+                    Assert.assertTrue(this.index.intersectsWithLine(location, point));
+                    ++nBeyond;
+                }
+            }
+        }
+        Assert.assertTrue(nBeyond > 0);
+    }
+
+    @Test
+    public void testSectorRadii() {
+        // Searching some sectors only gives their radii, and upper bounds of the others.
+        Envelope bounds = new Envelope(0, 1, 0, 1);
+        Random random = new Random(4);
+        int nSectors = 8;
+        for (int i = 0; i < N_CHECKS; ++i) {
+            Coordinate location = new Coordinate(random.nextDouble(), random.nextDouble());
+            double[] radii = Occlusion.around(this.index, location.x, location.y, 0.05, bounds, nSectors)
+                    .getRadii(nSectors);
+
+            double[] searchRadii = new double[nSectors];
+            for (int sector = 0; sector < nSectors; ++sector) {
+                searchRadii[sector] = random.nextBoolean() ? random.nextDouble() * 0.1 : Double.NaN;
+            }
+            Occlusion occlusion = Occlusion.around(this.index, location.x, location.y, searchRadii, bounds);
+            double[] sectorRadii = occlusion.getRadii(nSectors);
+            for (int sector = 0; sector < nSectors; ++sector) {
+                if (Double.isNaN(searchRadii[sector])) {
+                    Assert.assertTrue(sectorRadii[sector] >= radii[sector]);
+                } else {
+                    Assert.assertEquals(radii[sector], sectorRadii[sector], 1e-9);
+                }
+            }
+
+            for (int j = 0; j < N_CHECKS; ++j) {
+                ColoredPoint point = ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), 0);
+                if (occlusion.occludes(point.getCoordinate().x, point.getCoordinate().y)) {
+                    Assert.assertTrue(this.index.intersectsWithLine(
+                            ColoredPointImpl.create2D(location.x, location.y, 0), point));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testHides() {
+        // A wall between the location and a triangle hides it, a gap in the wall does not.
+        ColoredPolygon target = ColoredTriangle.fromCoordinates(4, -1, 4, 1, 5, 0, 0);
+        QuadtreeTriangleIndex wall = new QuadtreeTriangleIndex();
+        wall.insert(ColoredTriangle.fromCoordinates(2, -3, 2, 3, 3, 0, 1));
+        Assert.assertTrue(Occlusion.hides(wall, 0, 0, target));
+        Assert.assertFalse(Occlusion.hides(wall, 0, 5, target));
+        Assert.assertFalse(Occlusion.hides(wall, 4.5, 0, target));
+
+        // A triangle is only hidden, if every point of it is occluded.
+        Random random = new Random(3);
+        QuadtreeTriangleIndex index = new QuadtreeTriangleIndex();
+        for (ColoredPolygon triangle : this.triangles) {
+            index.insert(triangle);
+        }
+        int nHidden = 0;
+        for (int i = 0; i < N_CHECKS; ++i) {
+            ColoredPoint location = ColoredPointImpl.create2D(random.nextDouble(), random.nextDouble(), 0);
+            ColoredPolygon triangle = this.triangles.get(random.nextInt(this.triangles.size()));
+            Assert.assertTrue(index.remove(triangle));
+            if (Occlusion.hides(index, location.getCoordinate().x, location.getCoordinate().y, triangle)) {
+                for (int j = 0; j < N_CHECKS; ++j) {
+                    Assert.assertTrue(index.intersectsWithLine(location, pointWithin(triangle, random)));
+                }
+                ++nHidden;
+            }
+            index.insert(triangle);
+        }
+        Assert.assertTrue(nHidden > 0 && nHidden < N_CHECKS);
+    }
+
+    // Returns a random point within the specified triangle.
+    private ColoredPoint pointWithin(ColoredPolygon triangle, Random random) {
+        double a = random.nextDouble();
+        double b = random.nextDouble();
+        if (a + b > 1) {
+            a = 1 - a;
+            b = 1 - b;
+        }
+        Coordinate p0 = triangle.getPoints()[0].getCoordinate();
+        Coordinate p1 = triangle.getPoints()[1].getCoordinate();
+        Coordinate p2 = triangle.getPoints()[2].getCoordinate();
+        return ColoredPointImpl.create2D(p0.x + a * (p1.x - p0.x) + b * (p2.x - p0.x),
+                p0.y + a * (p1.y - p0.y) + b * (p2.y - p0.y), 0);
+    }
+}
@@ -0,0 +1,118 @@
+package util.index;
+
+import com.vividsolutions.jts.geom.Envelope;
+import geometry.point.ArrayPointStore;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.collection.IntList;
+
+import java.util.Random;
+
+/*
+ * Tests the nearest neighbour enumeration of PointKdTree.
+ *
+ * @author Kim-Anh Tran
+ */
+public class PointKdTreeTest {
+
+    // Number of random points used for testing.
+    private static final int N_POINTS = 500;
+
+    // Random, but reproducible test points.
+    private int[] ids;
+    private double[] xs;
+    private double[] ys;
+
+    // The tree under test.
+    private PointKdTree tree;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        this.ids = new int[N_POINTS];
+        this.xs = new double[N_POINTS];
+        this.ys = new double[N_POINTS];
+        for (int i = 0; i < N_POINTS; ++i) {
+            // Coarse coordinates, so that equal distances occur.
+            this.xs[i] = random.nextInt(20);
+            this.ys[i] = random.nextInt(20);
+        }
+
+        // Only every third point of the store is contained in the tree.
+        ArrayPointStore store = new ArrayPointStore();
+        for (int i = 0; i < N_POINTS; ++i) {
+            this.ids[i] = store.add(this.xs[i], this.ys[i], 0);
+            store.add(-1.0, -1.0, 0);
+            store.add(-1.0, -1.0, 0);
+        }
+        this.tree = new PointKdTree(store, this.ids, N_POINTS);
+    }
+
+    @Test
+    public void testNearest() {
+        testNearestFrom(5.0, 5.0);
+        testNearestFrom(-3.5, 30.0);
+    }
+
+    @Test
+    public void testRemove() {
+        Assert.assertTrue(this.tree.remove(0));
+        Assert.assertFalse(this.tree.remove(0));
+        Assert.assertFalse(this.tree.remove(1));
+
+        for (int i = 0; i < N_POINTS; i += 2) {
+            this.tree.remove(this.ids[i]);
+        }
+        Assert.assertEquals(N_POINTS / 2, this.tree.size());
+
+        PointKdTree.NearestNeighbours neighbours = this.tree.nearest(10.0, 10.0);
+        for (int k = 0; k < N_POINTS / 2; ++k) {
+            Assert.assertEquals(3, neighbours.get(k) % 6);
+        }
+        Assert.assertEquals(-1, neighbours.get(N_POINTS / 2));
+    }
+
+    @Test
+    public void testQuery() {
+        Envelope envelope = new Envelope(3.0, 8.0, 2.0, 12.0);
+        this.tree.remove(this.ids[0]);
+
+        IntList result = new IntList();
+        this.tree.query(envelope, result);
+
+        // Compare with the points inside the envelope, including its boundary.
+        int nInside = 0;
+        for (int i = 1; i < N_POINTS; ++i) {
+            if (envelope.intersects(this.xs[i], this.ys[i])) {
+                ++nInside;
+            }
+        }
+        Assert.assertEquals(nInside, result.size());
+        for (int k = 0; k < result.size(); ++k) {
+            int i = result.get(k) / 3;
+            Assert.assertTrue(i != 0);
+            Assert.assertTrue(envelope.intersects(this.xs[i], this.ys[i]));
+        }
+    }
+
+    // Checks that all points are enumerated by increasing distance, and by id for equal distances.
+    private void testNearestFrom(double x, double y) {
+        PointKdTree.NearestNeighbours neighbours = this.tree.nearest(x, y);
+
+        double lastDistance = -1.0;
+        int lastId = -1;
+        for (int k = 0; k < N_POINTS; ++k) {
+            int id = neighbours.get(k);
+            Assert.assertTrue(id >= 0);
+
+            int i = id / 3;
+            double distance = (this.xs[i] - x) * (this.xs[i] - x) + (this.ys[i] - y) * (this.ys[i] - y);
+            Assert.assertTrue(distance > lastDistance || (distance == lastDistance && id > lastId));
+            lastDistance = distance;
+            lastId = id;
+        }
+        Assert.assertEquals(-1, neighbours.get(N_POINTS));
+    }
+}
@@ -0,0 +1,59 @@
+package util.index;
+
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Tests inserting and removing triangles of the quadtree index.
+ *
+ * @author Kim-Anh Tran
+ */
+public class QuadtreeTriangleIndexTest {
+
+    // Number of triangles in a row.
+    private static final int N_TRIANGLES = 100;
+
+    @Test
+    public void testRemove() {
+        QuadtreeTriangleIndex index = new QuadtreeTriangleIndex();
+        List<ColoredPolygon> triangles = new ArrayList<ColoredPolygon>();
+        for (int i = 0; i < N_TRIANGLES; ++i) {
+            ColoredPolygon triangle = ColoredTriangle.fromCoordinates(2 * i, 0, 2 * i + 1, 0, 2 * i, 1, 0);
+            triangles.add(triangle);
+            index.insert(triangle);
+        }
+        Assert.assertEquals(triangles, index.getTriangles());
+
+        // Removes every third triangle, the last and the first one.
+        List<ColoredPolygon> removed = new ArrayList<ColoredPolygon>();
+        for (int i = 1; i < N_TRIANGLES - 1; i += 3) {
+            removed.add(triangles.get(i));
+        }
+        removed.add(triangles.get(N_TRIANGLES - 1));
+        removed.add(triangles.get(0));
+        for (ColoredPolygon triangle : removed) {
+            Assert.assertTrue(index.remove(triangle));
+            Assert.assertFalse(index.remove(triangle));
+        }
+        ColoredPolygon inserted = ColoredTriangle.fromCoordinates(0, 2, 1, 2, 0, 3, 0);
+        index.insert(inserted);
+
+        triangles.removeAll(removed);
+        triangles.add(inserted);
+        Assert.assertEquals(triangles.size(), index.size());
+        Assert.assertTrue(index.getTriangles().containsAll(triangles));
+        for (ColoredPolygon triangle : removed) {
+            List<ColoredPolygon> result = new ArrayList<ColoredPolygon>();
+            index.query(triangle.getEnvelope(), result);
+            Assert.assertFalse(result.contains(triangle));
+        }
+        Assert.assertTrue(index.remove(inserted));
+        Assert.assertFalse(index.intersectsWithPolygon(ColoredTriangle.fromCoordinates(0, 2, 1, 2, 0, 3, 1)));
+        Assert.assertEquals(triangles.size() - 1, index.getTriangles().size());
+    }
+}
@@ -0,0 +1,148 @@
+package util.io;
+
+import geometry.point.ArrayPointStore;
+import geometry.point.PointStore;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests reading and writing points and triangles in the binary format.
+ *
+ * @author Kim-Anh Tran
+ */
+public class BinaryReaderTest {
+
+    // Number of random points, more than fit into the buffers at once.
+    private static final int N_POINTS = 10000;
+
+    @Test
+    public void testPoints() throws Exception {
+        ArrayPointStore store = randomPoints(N_POINTS);
+        byte[] bytes = writePoints(store);
+        Assert.assertEquals(BinaryFormat.HEADER_BYTES + N_POINTS * BinaryFormat.POINT_BYTES, bytes.length);
+
+        assertEqualPoints(store, BinaryReader.readPointStore(new ByteArrayInputStream(bytes)));
+
+        File file = File.createTempFile("points", ".bin");
+        file.deleteOnExit();
+        FileOutputStream outStream = new FileOutputStream(file);
+        outStream.write(bytes);
+        outStream.close();
+        Assert.assertTrue(BinaryReader.isBinaryPoints(file));
+        assertEqualPoints(store, BinaryReader.mapPointStore(file));
+    }
+
+    @Test
+    public void testTriangles() throws Exception {
+        List<ColoredPolygon> triangles = new ArrayList<ColoredPolygon>();
+        triangles.add(ColoredTriangle.fromCoordinates(0.0, 1.0, 3.4, 3.7, 7.5, 5.5, 0));
+        triangles.add(ColoredTriangle.fromCoordinates(-1e-300, 0.1, 1e300, 2.0, 0.3, -4.0, 4));
+
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        BinaryWriter.writeTriangles(outStream, triangles);
+        List<ColoredPolygon> read = BinaryReader.readTriangles(new ByteArrayInputStream(outStream.toByteArray()));
+
+        Assert.assertEquals(triangles.size(), read.size());
+        for (int i = 0; i < triangles.size(); ++i) {
+            Assert.assertEquals(triangles.get(i).toString(), read.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testDetection() throws IOException {
+        BufferedInputStream binary = new BufferedInputStream(
+                new ByteArrayInputStream(writePoints(randomPoints(10))));
+        Assert.assertTrue(BinaryReader.isBinaryPoints(binary));
+        Assert.assertFalse(BinaryReader.isBinaryTriangles(binary));
+        // The detection does not consume the input.
+        Assert.assertEquals('T', binary.read());
+
+        BufferedInputStream text = new BufferedInputStream(new ByteArrayInputStream("1\n0 0 0\n".getBytes()));
+        Assert.assertFalse(BinaryReader.isBinaryPoints(text));
+        Assert.assertFalse(BinaryReader.isBinaryPoints(new BufferedInputStream(new ByteArrayInputStream(new byte[0]))));
+    }
+
+    @Test
+    public void testInvalidInput() throws IOException {
+        byte[] bytes = writePoints(randomPoints(10));
+
+        // Text input.
+        testExpectedException("1\n0.1 0.2 3\n".getBytes(), BinaryFormat.WRONG_MAGIC);
+
+        // Unknown version.
+        byte[] version = Arrays.copyOf(bytes, bytes.length);
+        version[4] = 2;
+        testExpectedException(version, BinaryFormat.UNSUPPORTED_VERSION + 2);
+
+        // Negative count.
+        byte[] count = Arrays.copyOf(bytes, bytes.length);
+        count[15] = (byte) 0x80;
+        testExpectedException(count, BinaryFormat.INVALID_COUNT + (Long.MIN_VALUE + 10));
+
+        // Missing colors.
+        testExpectedException(Arrays.copyOf(bytes, bytes.length - 1), BinaryFormat.TRUNCATED);
+
+        // Invalid color.
+        byte[] color = Arrays.copyOf(bytes, bytes.length);
+        color[color.length - 1] = 100;
+        try {
+            BinaryReader.readPointStore(new ByteArrayInputStream(color));
+            Assert.fail("Expected parse exception for an invalid color.");
+        } catch (ParseException e) {
+            Assert.assertEquals(9, e.getErrorOffset());
+        }
+    }
+
+    // Checks that reading the specified bytes fails with the specified message.
+    private void testExpectedException(byte[] bytes, String message) throws IOException {
+        try {
+            BinaryReader.readPointStore(new ByteArrayInputStream(bytes));
+            Assert.fail("Expected parse exception: " + message);
+        } catch (ParseException e) {
+            Assert.assertEquals(message, e.getMessage());
+        }
+    }
+
+    // Returns the specified points in the binary format.
+    private byte[] writePoints(PointStore store) throws IOException {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        BinaryWriter.writePoints(outStream, store);
+        return outStream.toByteArray();
+    }
+
+    // Creates a store of random points.
+    private ArrayPointStore randomPoints(int n) {
+        Random random = new Random(n);
+        ArrayPointStore store = new ArrayPointStore(n);
+        for (int i = 0; i < n; ++i) {
+            store.add(random.nextDouble() * 1000 - 500, random.nextGaussian(), random.nextInt(5));
+        }
+        return store;
+    }
+
+    // Checks that both stores contain exactly the same points.
+    private void assertEqualPoints(PointStore expected, PointStore actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int id = 0; id < expected.size(); ++id) {
+            Assert.assertEquals(Double.doubleToLongBits(expected.getX(id)), Double.doubleToLongBits(actual.getX(id)));
+            Assert.assertEquals(Double.doubleToLongBits(expected.getY(id)), Double.doubleToLongBits(actual.getY(id)));
+            Assert.assertEquals(expected.getColorIndex(id), actual.getColorIndex(id));
+        }
+        Assert.assertEquals(expected.getPoint(0).getCoordinate(), actual.getPoint(0).getCoordinate());
+        Assert.assertEquals(expected.getPoint(0).getColor(), actual.getPoint(0).getColor());
+    }
+}
@@ -0,0 +1,79 @@
+package util.io;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Tests the conversion of decimal numbers to doubles.
+ *
+ * @author Kim-Anh Tran
+ */
+public class DecimalConverterTest {
+
+    // Number of random numbers converted per test.
+    private static final int N_NUMBERS = 200000;
+
+    @Test
+    public void testShortestRepresentations() {
+        Random random = new Random(1);
+        int nConverted = 0;
+        for (int i = 0; i < N_NUMBERS; ++i) {
+            double expected = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(expected) || Double.isInfinite(expected)) {
+                continue;
+            }
+            BigDecimal decimal = new BigDecimal(Double.toString(expected));
+            if (assertConverts(decimal.unscaledValue().abs().longValue(), -decimal.scale(), expected < 0,
+                    expected)) {
+                ++nConverted;
+            }
+        }
+        // Only subnormal numbers may not be converted.
+        Assert.assertTrue(nConverted > N_NUMBERS * 0.99);
+    }
+
+    @Test
+    public void testRandomDigits() {
+        Random random = new Random(2);
+        int nConverted = 0;
+        for (int i = 0; i < N_NUMBERS; ++i) {
+            int nDigits = 1 + random.nextInt(18);
+            long mantissa = 0;
+            for (int j = 0; j < nDigits; ++j) {
+                mantissa = 10 * mantissa + random.nextInt(10);
+            }
+            int exponent = random.nextInt(2) == 0 ? random.nextInt(50) - 25 : random.nextInt(640) - 330;
+            boolean negative = random.nextBoolean();
+
+            double expected = Double.parseDouble((negative ? "-" : "") + mantissa + "e" + exponent);
+            if (assertConverts(mantissa, exponent, negative, expected)) {
+                ++nConverted;
+            }
+        }
+        Assert.assertTrue(nConverted > N_NUMBERS * 0.9);
+    }
+
+    @Test
+    public void testHalfway() {
+        // 2^53 + 1 lies exactly between two doubles and is rounded to even.
+        assertConverts(9007199254740993L, 0, false, 9007199254740992.0);
+        assertConverts(9007199254740995L, 0, false, 9007199254740996.0);
+        assertConverts(9007199254740993L, 1, false, Double.parseDouble("90071992547409930"));
+        assertConverts(0, 400, true, -0.0);
+        Assert.assertTrue(Double.isNaN(DecimalConverter.toDouble(1, 400, false)));
+    }
+
+    // Checks that the number is converted as by Double.parseDouble, if it is converted at all.
+    private boolean assertConverts(long mantissa, int exponent, boolean negative, double expected) {
+        double value = DecimalConverter.toDouble(mantissa, exponent, negative);
+        if (Double.isNaN(value)) {
+            return false;
+        }
+        Assert.assertEquals(mantissa + "e" + exponent, Double.doubleToLongBits(expected),
+                Double.doubleToLongBits(value));
+        return true;
+    }
+}
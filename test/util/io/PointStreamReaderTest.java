@@ -0,0 +1,76 @@
+package util.io;
+
+import geometry.point.ArrayPointStore;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+
+/*
+ * Tests reading points one after the other.
+ *
+ * @author Kim-Anh Tran
+ */
+public class PointStreamReaderTest {
+
+    // Test data file name.
+    private String TEST_FILE = "testdata/data0";
+
+    @Test
+    public void testText() throws Exception {
+        ArrayPointStore expected = Reader.readPointStore(new FileInputStream(TEST_FILE));
+        testPoints(expected, new File(TEST_FILE));
+    }
+
+    @Test
+    public void testBinary() throws Exception {
+        ArrayPointStore expected = Reader.readPointStore(new FileInputStream(TEST_FILE));
+        File file = File.createTempFile("points", ".bin");
+        file.deleteOnExit();
+        BinaryWriter.writePoints(new FileOutputStream(file), expected);
+        testPoints(expected, file);
+    }
+
+    @Test
+    public void testInvalidInput() throws Exception {
+        testError("x\n0 0 1\n", Reader.PARSE_NUMBER_OF_POINTS_INDEX);
+        testError("3\n0 0 1\n1 1 1\n", 2);
+        testError("2\n0 0 1\n1 1 a\n", 1);
+    }
+
+    // Tests that the reader returns the same points as the store.
+    private void testPoints(ArrayPointStore expected, File file) throws IOException, ParseException {
+        PointStreamReader reader = PointStreamReader.open(file);
+        Assert.assertEquals(expected.size(), reader.size());
+        for (int id = 0; id < expected.size(); ++id) {
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals(expected.getX(id), reader.getX());
+            Assert.assertEquals(expected.getY(id), reader.getY());
+            Assert.assertEquals(expected.getColorIndex(id), reader.getColorIndex());
+        }
+        Assert.assertFalse(reader.next());
+        reader.close();
+    }
+
+    // Tests that reading the specified input fails at the specified offset.
+    private void testError(String input, int offset) throws IOException {
+        File file = File.createTempFile("points", "");
+        file.deleteOnExit();
+        FileOutputStream outStream = new FileOutputStream(file);
+        outStream.write(input.getBytes("US-ASCII"));
+        outStream.close();
+        try {
+            PointStreamReader reader = PointStreamReader.open(file);
+            while (reader.next()) {
+                // Read all points.
+            }
+            Assert.fail("Expected a ParseException.");
+        } catch (ParseException e) {
+            Assert.assertEquals(offset, e.getErrorOffset());
+        }
+    }
+}
@@ -2,15 +2,24 @@ package util.io;
 
 import color.Color;
 import com.vividsolutions.jts.geom.Coordinate;
+import geometry.point.ArrayPointStore;
 import geometry.point.ColoredPoint;
+import geometry.point.ColoredPointImpl;
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
 import junit.framework.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Scanner;
 
 /**
  * Tests the Reader's reading functionality.
@@ -22,6 +31,18 @@ public class ReaderTest {
     // Used for double comparisons.
     private static final double EPSILON = 0.0001;
 
+    // Number of random inputs compared with the reference parser.
+    private static final int N_INPUTS = 2000;
+
+    // Tokens used for building random lines, valid and invalid ones.
+    private static final String[] NUMBERS = {"0", "-0.0", "1", "+2.5", "3.", ".5", "-17.125", "1e3", "2.5E-3",
+            "1e22", "1e23", "4.9e-324", "123456789012345678", "0.1234567890123456789", "12345678901234567890123",
+            "NaN", "-Infinity", "1.5f", "2d", "0x1p3", "1e", "e5", "-", ".", "1..2", "1e+", "a", "0.3"};
+    private static final String[] COLORS = {"0", "1", "4", "+3", "-0", "5", "-1", "100", "007", "2.0", "x",
+            "99999999999"};
+    private static final String[] SEPARATORS = {" ", "  ", "\t", " \t ", "\f"};
+    private static final String[] TERMINATORS = {"\n", "\r\n", "\r"};
+
 
     @Test
     public void testReadPoints() {
@@ -110,4 +131,161 @@ public class ReaderTest {
         Assert.assertTrue(coordinate.x - 0.1 < EPSILON);
         Assert.assertTrue(coordinate.y - 0.3 < EPSILON);
     }
+
+    @Test
+    public void testReadTriangles() throws Exception {
+        List<ColoredPolygon> triangles = new ArrayList<ColoredPolygon>();
+        triangles.add(ColoredTriangle.fromCoordinates(0.0, 1.0, 3.4, 3.7, 7.5, 5.5, 0));
+        triangles.add(ColoredTriangle.fromCoordinates(-0.1, 1e-7, 2.0, 1e21, 0.3, -4.0, 4));
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        Writer.writeTriangles(outStream, triangles);
+
+        List<ColoredPolygon> read = Reader.readTriangles(new ByteArrayInputStream(outStream.toByteArray()));
+        Assert.assertEquals(triangles.size(), read.size());
+        for (int i = 0; i < triangles.size(); ++i) {
+            Assert.assertEquals(triangles.get(i).toString(), read.get(i).toString());
+        }
+
+        try {
+            Reader.readTriangles(new ByteArrayInputStream("2\n0 0 1 0 0 1 0\n".getBytes()));
+            Assert.fail("Expected parse exception for missing triangle.");
+        } catch (ParseException e) {
+            Assert.assertEquals(1, e.getErrorOffset());
+        }
+        try {
+            Reader.readTriangles(new ByteArrayInputStream("1\n0 0 1 0 0 1\n".getBytes()));
+            Assert.fail("Expected parse exception for missing color.");
+        } catch (ParseException e) {
+            Assert.assertEquals(Reader.UNEXPECTED_TRIANGLE_TYPE, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAgainstScanner() {
+        Random random = new Random(1);
+        for (int i = 0; i < N_INPUTS; ++i) {
+            StringBuilder input = new StringBuilder();
+            int nLines = random.nextInt(6);
+            int nPoints = nLines + random.nextInt(3) - 1;
+            input.append(random.nextInt(10) == 0 ? "x" : String.valueOf(nPoints));
+            input.append(random.nextInt(5) == 0 ? " trailing" : "");
+            input.append(TERMINATORS[random.nextInt(TERMINATORS.length)]);
+            for (int j = 0; j < nLines; ++j) {
+                input.append(randomLine(random, random.nextInt(4) == 0));
+                if (j < nLines - 1 || random.nextBoolean()) {
+                    input.append(TERMINATORS[random.nextInt(TERMINATORS.length)]);
+                }
+            }
+            assertSameAsScanner(input.toString());
+        }
+    }
+
+    @Test
+    public void testParallel() {
+        Random random = new Random(2);
+        int nPoints = PointParser.PARALLEL_BYTES / 10;
+        StringBuilder input = new StringBuilder();
+        input.append(nPoints).append('\n');
+        for (int i = 0; i < nPoints; ++i) {
+            input.append(randomLine(random, i % 1000 == 999));
+            input.append(TERMINATORS[i % TERMINATORS.length]);
+        }
+        String valid = input.toString();
+        assertSameAsScanner(valid);
+
+        // Errors are reported for the first invalid point.
+        int lineStart = valid.length() / 2;
+        while (valid.charAt(lineStart - 1) != '\n') {
+            --lineStart;
+        }
+        assertSameAsScanner(valid.substring(0, lineStart) + "1.0 2.0 x\n" + valid.substring(lineStart));
+        assertSameAsScanner(valid.substring(0, lineStart) + "1.0 2.0 7\n" + valid.substring(lineStart)
+                + "\n 1.0 2.0 x\n");
+
+        // Too few points.
+        assertSameAsScanner((nPoints + 2) + valid.substring(String.valueOf(nPoints).length()));
+    }
+
+    // Returns a random line of tokens. Mostly valid, unless specified.
+    private String randomLine(Random random, boolean unusual) {
+        if (!unusual) {
+            return random.nextDouble() * 100 + " " + (-random.nextInt(1000) / 8.0) + " " + random.nextInt(5);
+        }
+        StringBuilder line = new StringBuilder();
+        int nTokens = 2 + random.nextInt(4);
+        line.append(random.nextBoolean() ? "" : SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        for (int k = 0; k < nTokens; ++k) {
+            if (k > 0) {
+                line.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            }
+            line.append(k < nTokens - 1 ? NUMBERS[random.nextInt(NUMBERS.length)]
+                    : COLORS[random.nextInt(COLORS.length)]);
+        }
+        return line.toString();
+    }
+
+    // Checks that the reader parses the same points and reports the same errors as the reference.
+    private void assertSameAsScanner(String input) {
+        ArrayPointStore expected = null;
+        ParseException expectedError = null;
+        try {
+            expected = readWithScanner(new ByteArrayInputStream(input.getBytes()));
+        } catch (ParseException e) {
+            expectedError = e;
+        }
+
+        ArrayPointStore store = null;
+        try {
+            store = Reader.readPointStore(new ByteArrayInputStream(input.getBytes()));
+        } catch (ParseException e) {
+            Assert.assertNotNull("Unexpected error for: " + input, expectedError);
+            Assert.assertEquals(expectedError.getMessage(), e.getMessage());
+            Assert.assertEquals(expectedError.getErrorOffset(), e.getErrorOffset());
+            return;
+        }
+        Assert.assertNull("Missing error for: " + input, expectedError);
+        Assert.assertEquals(expected.size(), store.size());
+        for (int id = 0; id < store.size(); ++id) {
+            Assert.assertEquals(Double.doubleToLongBits(expected.getX(id)), Double.doubleToLongBits(store.getX(id)));
+            Assert.assertEquals(Double.doubleToLongBits(expected.getY(id)), Double.doubleToLongBits(store.getY(id)));
+            Assert.assertEquals(expected.getColorIndex(id), store.getColorIndex(id));
+        }
+    }
+
+    // The former, line based reader, used as reference.
+    private ArrayPointStore readWithScanner(InputStream inStream) throws ParseException {
+        Scanner scanner = new Scanner(inStream);
+        scanner.useLocale(Locale.US);
+
+        int nCoordinates = 0;
+        if (scanner.hasNextInt()) {
+            nCoordinates = scanner.nextInt();
+        } else {
+            throw new ParseException(Reader.MISSING_WRONG_POINT_NUMBERS, 0);
+        }
+        if (nCoordinates > 0) {
+            if (scanner.hasNext()) {
+                scanner.nextLine();
+            } else {
+                throw new ParseException(Reader.TOO_FEW, 0);
+            }
+        }
+
+        ArrayPointStore store = new ArrayPointStore(Math.max(nCoordinates, 0));
+        for (int i = 0; i < nCoordinates; ++i) {
+            if (!scanner.hasNext()) {
+                throw new ParseException(Reader.TOO_FEW, i);
+            }
+            ColoredPoint point;
+            try {
+                point = ColoredPointImpl.valueOf(scanner.nextLine());
+            } catch (NumberFormatException e) {
+                throw new ParseException(Reader.UNEXPECTED_TYPE, i);
+            } catch (IllegalArgumentException e) {
+                throw new ParseException(e.getMessage(), i);
+            }
+            store.add(point.getCoordinate().x, point.getCoordinate().y, point.getColor().getIntRepresentation());
+        }
+        return store;
+    }
 }
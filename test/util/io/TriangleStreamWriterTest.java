@@ -0,0 +1,92 @@
+package util.io;
+
+import geometry.polygon.ColoredPolygon;
+import geometry.polygon.triangle.ColoredTriangle;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests writing triangles while they are found.
+ *
+ * @author Kim-Anh Tran
+ */
+public class TriangleStreamWriterTest {
+
+    @Test
+    public void testStream() throws Exception {
+        List<ColoredPolygon> triangles = new ArrayList<ColoredPolygon>();
+        for (int i = 0; i < 5000; ++i) {
+            triangles.add(ColoredTriangle.fromCoordinates(i, 0.1 * i, i + 1.5, -1e-9 * i, i, 1e12 + i, i % 5));
+        }
+
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        TriangleStreamWriter writer = new TriangleStreamWriter(outStream);
+        for (ColoredPolygon triangle : triangles) {
+            writer.write(triangle);
+        }
+        writer.close();
+        Assert.assertEquals(triangles.size(), writer.getCount());
+
+        // The lines are the same as those of the writer of complete lists.
+        String output = new String(outStream.toByteArray());
+        Assert.assertTrue(output.startsWith(triangles.get(0).toString() + "\n"));
+        Assert.assertTrue(output.endsWith("\n# " + triangles.size() + "\n"));
+
+        List<ColoredPolygon> read = Reader.readTriangles(new ByteArrayInputStream(outStream.toByteArray()));
+        Assert.assertEquals(triangles.size(), read.size());
+        for (int i = 0; i < triangles.size(); ++i) {
+            Assert.assertEquals(triangles.get(i).toString(), read.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testEmptyStream() throws Exception {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        new TriangleStreamWriter(outStream).close();
+        Assert.assertEquals("# 0\n", new String(outStream.toByteArray()));
+        Assert.assertEquals(0, Reader.readTriangles(new ByteArrayInputStream(outStream.toByteArray())).size());
+    }
+
+    @Test
+    public void testIncompleteStream() {
+        String line = ColoredTriangle.fromCoordinates(0, 0, 1, 0, 0, 1, 2).toString() + "\n";
+        try {
+            Reader.readTriangles(new ByteArrayInputStream((line + line).getBytes()));
+            Assert.fail("Expected parse exception for missing trailer.");
+        } catch (ParseException e) {
+            Assert.assertEquals(Reader.MISSING_TRAILER, e.getMessage());
+            Assert.assertEquals(2, e.getErrorOffset());
+        }
+        try {
+            Reader.readTriangles(new ByteArrayInputStream((line + "# 2\n").getBytes()));
+            Assert.fail("Expected parse exception for wrong trailer.");
+        } catch (ParseException e) {
+            Assert.assertEquals(Reader.WRONG_TRAILER + "# 2", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        TriangleStreamWriter writer = new TriangleStreamWriter(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("closed");
+            }
+        });
+        writer.write(ColoredTriangle.fromCoordinates(0, 0, 1, 0, 0, 1, 2));
+        try {
+            writer.close();
+            Assert.fail("Expected the failure of writing when closing.");
+        } catch (IOException e) {
+            Assert.assertEquals("closed", e.getMessage());
+        }
+    }
+}
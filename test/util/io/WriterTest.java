@@ -1,10 +1,12 @@
 package util.io;
 
+import geometry.point.ArrayPointStore;
 import geometry.polygon.ColoredPolygon;
 import geometry.polygon.triangle.ColoredTriangle;
 import junit.framework.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.LinkedList;
@@ -62,4 +64,22 @@ public class WriterTest {
 
     }
 
+    @Test
+    public void testWritePoints() throws Exception {
+        ArrayPointStore store = new ArrayPointStore();
+        store.add(0.1, -3.0, 0);
+        store.add(1e-300, 12345.678, 4);
+        store.add(-0.0, 1e22, 2);
+
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        Writer.writePoints(outStream, store);
+        ArrayPointStore read = Reader.readPointStore(new ByteArrayInputStream(outStream.toByteArray()));
+
+        Assert.assertEquals(store.size(), read.size());
+        for (int id = 0; id < store.size(); ++id) {
+            Assert.assertEquals(Double.doubleToLongBits(store.getX(id)), Double.doubleToLongBits(read.getX(id)));
+            Assert.assertEquals(Double.doubleToLongBits(store.getY(id)), Double.doubleToLongBits(read.getY(id)));
+            Assert.assertEquals(store.getColorIndex(id), read.getColorIndex(id));
+        }
+    }
 }
@@ -1,12 +1,14 @@
 package util.parallel;
 
 import com.vividsolutions.jts.util.Assert;
+import geometry.point.ArrayPointStore;
 import geometry.point.ColoredPoint;
 import geometry.point.ColoredPointImpl;
 import geometry.polygon.ColoredPolygon;
 import geometry.polygon.triangle.ColoredTriangle;
 import org.junit.Before;
 import org.junit.Test;
+import util.collection.IntList;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -33,6 +35,10 @@ public class EnclosedPointsFinderTest {
     // The point that is not enclosed.
     private ColoredPoint p3;
 
+    // The store of the points, and the triangle enclosing p1 and p2.
+    private ArrayPointStore store;
+    private ColoredPolygon triangle;
+
     @Before
     public void setUp() throws Exception {
         this.p1 = ColoredPointImpl.create2D(0.0, 1.0, DUMMY_COLOR);
@@ -41,30 +47,47 @@ public class EnclosedPointsFinderTest {
 
         ColoredPoint p4 = ColoredPointImpl.create2D(0.0, 5.0, DUMMY_COLOR);
         ColoredPoint p5 = ColoredPointImpl.create2D(4.0, 3.0, DUMMY_COLOR);
-        ColoredPolygon triangle = ColoredTriangle.fromPoints(this.p1, p4, p5);
+        this.triangle = ColoredTriangle.fromPoints(this.p1, p4, p5);
 
         List<ColoredPoint> cPoints = new LinkedList<ColoredPoint>();
         cPoints.add(p1);
         cPoints.add(p2);
         cPoints.add(p3);
 
-        this.finder = new EnclosedPointsFinder(cPoints, triangle);
+        this.store = ArrayPointStore.fromPoints(cPoints);
+        int[] ids = {0, 1, 2};
+        this.finder = new EnclosedPointsFinder(this.store, ids, 0, ids.length, this.triangle);
     }
 
     @Test
     public void testCompute() throws Exception {
-        List<ColoredPoint> expectedEnclosed = new LinkedList<ColoredPoint>();
-        expectedEnclosed.add(p1);
-        expectedEnclosed.add(p2);
+        // Ids of p1 and p2.
+        int[] expectedEnclosed = {0, 1};
 
-        List<ColoredPoint> actualEnclosed = this.finder.compute();
+        IntList actualEnclosed = this.finder.compute();
 
-        Assert.equals(expectedEnclosed.size(), actualEnclosed.size());
+        Assert.equals(expectedEnclosed.length, actualEnclosed.size());
 
-        int nPoints = expectedEnclosed.size();
+        int nPoints = expectedEnclosed.length;
         for (int i = 0; i < nPoints; ++i) {
-            Assert.equals(expectedEnclosed.get(i), actualEnclosed.get(i));
+            Assert.equals(expectedEnclosed[i], actualEnclosed.get(i));
         }
     }
 
+    @Test
+    public void testCancellation() throws Exception {
+        int[] ids = {0, 1, 2};
+        Cancellation cancellation = new Cancellation();
+        EnclosedPointsFinder finder = new EnclosedPointsFinder(this.store, ids, 0, ids.length, this.triangle, 1,
+                cancellation);
+        Assert.equals(2, finder.compute().size());
+        Assert.isTrue(!cancellation.hasStopped());
+
+        // A stopped finder does not check any points.
+        cancellation.cancel();
+        finder = new EnclosedPointsFinder(this.store, ids, 0, ids.length, this.triangle, 1, cancellation);
+        Assert.equals(0, finder.compute().size());
+        Assert.isTrue(cancellation.hasStopped());
+    }
+
 }